@@ -3,6 +3,7 @@ package com.cappielloantonio.tempo;
 import android.app.Application;
 import android.content.Context;
 import android.content.SharedPreferences;
+import android.os.StrictMode;
 
 import androidx.annotation.NonNull;
 import androidx.preference.PreferenceManager;
@@ -11,6 +12,8 @@ import com.cappielloantonio.tempo.github.Github;
 import com.cappielloantonio.tempo.helper.ThemeHelper;
 import com.cappielloantonio.tempo.subsonic.Subsonic;
 import com.cappielloantonio.tempo.subsonic.SubsonicPreferences;
+import com.cappielloantonio.tempo.util.HttpClientUtil;
+import com.cappielloantonio.tempo.util.NetworkUtil;
 import com.cappielloantonio.tempo.util.Preferences;
 
 public class App extends Application {
@@ -24,6 +27,13 @@ public class App extends Application {
     public void onCreate() {
         super.onCreate();
 
+        if (BuildConfig.DEBUG) {
+            StrictMode.setThreadPolicy(new StrictMode.ThreadPolicy.Builder()
+                    .detectCustomSlowCalls()
+                    .penaltyLog()
+                    .build());
+        }
+
         SharedPreferences sharedPreferences = PreferenceManager.getDefaultSharedPreferences(getApplicationContext());
         String themePref = sharedPreferences.getString(Preferences.THEME, ThemeHelper.DEFAULT_MODE);
         ThemeHelper.applyTheme(themePref);
@@ -31,6 +41,8 @@ public class App extends Application {
         instance = new App();
         context = getApplicationContext();
         preferences = PreferenceManager.getDefaultSharedPreferences(context);
+
+        NetworkUtil.init(context);
     }
 
     public static App getInstance() {
@@ -78,6 +90,8 @@ public class App extends Application {
     private static Subsonic getSubsonicClient() {
         SubsonicPreferences preferences = getSubsonicPreferences();
 
+        HttpClientUtil.reset();
+
         if (preferences.getAuthentication() != null) {
             if (preferences.getAuthentication().getPassword() != null)
                 Preferences.setPassword(preferences.getAuthentication().getPassword());
@@ -1,17 +1,21 @@
 package com.cappielloantonio.tempo.database;
 
+import androidx.annotation.NonNull;
 import androidx.media3.common.util.UnstableApi;
 import androidx.room.AutoMigration;
 import androidx.room.Database;
 import androidx.room.Room;
 import androidx.room.RoomDatabase;
 import androidx.room.TypeConverters;
+import androidx.room.migration.Migration;
+import androidx.sqlite.db.SupportSQLiteDatabase;
 
 import com.cappielloantonio.tempo.App;
 import com.cappielloantonio.tempo.database.converter.DateConverters;
 import com.cappielloantonio.tempo.database.dao.ChronologyDao;
 import com.cappielloantonio.tempo.database.dao.DownloadDao;
 import com.cappielloantonio.tempo.database.dao.FavoriteDao;
+import com.cappielloantonio.tempo.database.dao.LibraryDao;
 import com.cappielloantonio.tempo.database.dao.PlaylistDao;
 import com.cappielloantonio.tempo.database.dao.QueueDao;
 import com.cappielloantonio.tempo.database.dao.RecentSearchDao;
@@ -20,6 +24,11 @@ import com.cappielloantonio.tempo.database.dao.SessionMediaItemDao;
 import com.cappielloantonio.tempo.model.Chronology;
 import com.cappielloantonio.tempo.model.Download;
 import com.cappielloantonio.tempo.model.Favorite;
+import com.cappielloantonio.tempo.model.LibraryAlbum;
+import com.cappielloantonio.tempo.model.LibraryArtist;
+import com.cappielloantonio.tempo.model.LibraryGenre;
+import com.cappielloantonio.tempo.model.LibraryPlaylist;
+import com.cappielloantonio.tempo.model.LibrarySong;
 import com.cappielloantonio.tempo.model.Queue;
 import com.cappielloantonio.tempo.model.RecentSearch;
 import com.cappielloantonio.tempo.model.Server;
@@ -28,8 +37,8 @@ import com.cappielloantonio.tempo.subsonic.models.Playlist;
 
 @UnstableApi
 @Database(
-        version = 11,
-        entities = {Queue.class, Server.class, RecentSearch.class, Download.class, Chronology.class, Favorite.class, SessionMediaItem.class, Playlist.class},
+        version = 14,
+        entities = {Queue.class, Server.class, RecentSearch.class, Download.class, Chronology.class, Favorite.class, SessionMediaItem.class, Playlist.class, LibraryArtist.class, LibraryAlbum.class, LibrarySong.class, LibraryGenre.class, LibraryPlaylist.class},
         autoMigrations = {@AutoMigration(from = 10, to = 11)}
 )
 @TypeConverters({DateConverters.class})
@@ -37,10 +46,41 @@ public abstract class AppDatabase extends RoomDatabase {
     private final static String DB_NAME = "tempo_db";
     private static AppDatabase instance;
 
+    static final Migration MIGRATION_11_12 = new Migration(11, 12) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase database) {
+            database.execSQL("CREATE TABLE IF NOT EXISTS `library_artist` (`id` TEXT NOT NULL, `name` TEXT, `cover_art_id` TEXT, `album_count` INTEGER NOT NULL, `starred` INTEGER, PRIMARY KEY(`id`))");
+            database.execSQL("CREATE TABLE IF NOT EXISTS `library_album` (`id` TEXT NOT NULL, `name` TEXT, `artist` TEXT, `artist_id` TEXT, `cover_art_id` TEXT, `song_count` INTEGER NOT NULL, `duration` INTEGER NOT NULL, `play_count` INTEGER NOT NULL, `year` INTEGER NOT NULL, `genre` TEXT, `created` INTEGER, `starred` INTEGER, `tracks_signature` TEXT, PRIMARY KEY(`id`))");
+            database.execSQL("CREATE TABLE IF NOT EXISTS `library_song` (`id` TEXT NOT NULL, `parent_id` TEXT, `is_dir` INTEGER NOT NULL, `title` TEXT, `album` TEXT, `artist` TEXT, `track` INTEGER, `year` INTEGER, `genre` TEXT, `cover_art_id` TEXT, `size` INTEGER, `content_type` TEXT, `suffix` TEXT, `transcoding_content_type` TEXT, `transcoded_suffix` TEXT, `duration` INTEGER, `bitrate` INTEGER, `sampling_rate` INTEGER, `bit_depth` INTEGER, `path` TEXT, `is_video` INTEGER NOT NULL, `user_rating` INTEGER, `average_rating` REAL, `play_count` INTEGER, `disc_number` INTEGER, `created` INTEGER, `starred` INTEGER, `album_id` TEXT, `artist_id` TEXT, `type` TEXT, `bookmark_position` INTEGER, `original_width` INTEGER, `original_height` INTEGER, PRIMARY KEY(`id`))");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_library_song_album_id` ON `library_song` (`album_id`)");
+            database.execSQL("CREATE TABLE IF NOT EXISTS `library_genre` (`genre` TEXT NOT NULL, `song_count` INTEGER NOT NULL, `album_count` INTEGER NOT NULL, PRIMARY KEY(`genre`))");
+            database.execSQL("CREATE TABLE IF NOT EXISTS `library_playlist` (`id` TEXT NOT NULL, `name` TEXT, `owner` TEXT, `song_count` INTEGER NOT NULL, `duration` INTEGER NOT NULL, `cover_art_id` TEXT, `changed` INTEGER, PRIMARY KEY(`id`))");
+        }
+    };
+
+    static final Migration MIGRATION_12_13 = new Migration(12, 13) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase database) {
+            database.execSQL("ALTER TABLE `library_album` ADD COLUMN `played` INTEGER");
+        }
+    };
+
+    static final Migration MIGRATION_13_14 = new Migration(13, 14) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase database) {
+            database.execSQL("DELETE FROM `session_media_item`");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_session_media_item_id` ON `session_media_item` (`id`)");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_session_media_item_timestamp` ON `session_media_item` (`timestamp`)");
+        }
+    };
+
     public static synchronized AppDatabase getInstance() {
         if (instance == null) {
             instance = Room.databaseBuilder(App.getContext(), AppDatabase.class, DB_NAME)
+                    .addMigrations(MIGRATION_11_12, MIGRATION_12_13, MIGRATION_13_14)
                     .fallbackToDestructiveMigration()
+                    .setQueryExecutor(DatabaseExecutor.getExecutor())
+                    .setTransactionExecutor(DatabaseExecutor.getExecutor())
                     .build();
         }
 
@@ -62,4 +102,6 @@ public abstract class AppDatabase extends RoomDatabase {
     public abstract SessionMediaItemDao sessionMediaItemDao();
 
     public abstract PlaylistDao playlistDao();
+
+    public abstract LibraryDao libraryDao();
 }
@@ -0,0 +1,73 @@
+package com.cappielloantonio.tempo.database;
+
+import android.os.Looper;
+import android.os.StrictMode;
+import android.util.Log;
+
+import com.cappielloantonio.tempo.BuildConfig;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+/**
+ * Single background executor for every Room access made by the repositories. Work runs in
+ * submission order, so a read queued after a write always observes it, and SQLite never sees
+ * more than one writer from the app.
+ */
+public final class DatabaseExecutor {
+    private static final String TAG = "DatabaseExecutor";
+    private static final String THREAD_NAME = "tempo-database";
+
+    private static final ListeningExecutorService executor = MoreExecutors.listeningDecorator(
+            Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, THREAD_NAME);
+                thread.setDaemon(true);
+                return thread;
+            })
+    );
+
+    private DatabaseExecutor() {
+    }
+
+    public static Executor getExecutor() {
+        return executor;
+    }
+
+    public static void execute(Runnable runnable) {
+        executor.execute(runnable);
+    }
+
+    public static <T> ListenableFuture<T> submit(Callable<T> callable) {
+        return executor.submit(callable);
+    }
+
+    /**
+     * Blocking variant of {@link #submit(Callable)} for the few callers that cannot be made
+     * asynchronous yet. Runs inline when already on the database thread.
+     */
+    public static <T> T call(Callable<T> callable, T fallback) {
+        try {
+            if (Thread.currentThread().getName().equals(THREAD_NAME)) {
+                return callable.call();
+            }
+
+            checkNotMainThread();
+            return executor.submit(callable).get();
+        } catch (Exception e) {
+            Log.e(TAG, "Database access failed", e);
+        }
+
+        return fallback;
+    }
+
+    private static void checkNotMainThread() {
+        if (BuildConfig.DEBUG && Looper.getMainLooper().isCurrentThread()) {
+            StrictMode.noteSlowCall("Blocking database access on the main thread");
+            Log.w(TAG, "Blocking database access on the main thread", new Throwable());
+        }
+    }
+}
@@ -18,6 +18,9 @@ public interface ChronologyDao {
     @Query("SELECT * FROM chronology WHERE timestamp >= :endDate AND timestamp < :startDate AND server == :server GROUP BY id ORDER BY COUNT(id) DESC LIMIT 20")
     LiveData<List<Chronology>> getAllFrom(long startDate, long endDate, String server);
 
+    @Query("SELECT id FROM chronology WHERE server == :server GROUP BY id HAVING MAX(play_count) >= :playCount")
+    List<String> getIdsPlayedAtLeast(String server, long playCount);
+
     @Insert(onConflict = OnConflictStrategy.REPLACE)
     void insert(Chronology chronologyObject);
 }
\ No newline at end of file
@@ -0,0 +1,88 @@
+package com.cappielloantonio.tempo.database.dao;
+
+import androidx.lifecycle.LiveData;
+import androidx.paging.PagingSource;
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
+import androidx.room.Query;
+import androidx.room.RawQuery;
+import androidx.sqlite.db.SupportSQLiteQuery;
+
+import com.cappielloantonio.tempo.model.LibraryAlbum;
+import com.cappielloantonio.tempo.model.LibraryArtist;
+import com.cappielloantonio.tempo.model.LibraryGenre;
+import com.cappielloantonio.tempo.model.LibraryPlaylist;
+import com.cappielloantonio.tempo.model.LibrarySong;
+
+import java.util.Date;
+import java.util.List;
+
+@Dao
+public interface LibraryDao {
+    @RawQuery(observedEntities = LibraryArtist.class)
+    PagingSource<Integer, LibraryArtist> getArtistsPaged(SupportSQLiteQuery query);
+
+    @RawQuery(observedEntities = LibraryAlbum.class)
+    PagingSource<Integer, LibraryAlbum> getAlbumsPaged(SupportSQLiteQuery query);
+
+    @Query("SELECT * FROM library_album")
+    List<LibraryAlbum> getAlbumsSimple();
+
+    @Query("SELECT * FROM library_song WHERE album_id = :albumId ORDER BY disc_number, track")
+    List<LibrarySong> getAlbumSongs(String albumId);
+
+    @Query("SELECT id FROM library_song WHERE starred IS NOT NULL")
+    List<String> getStarredSongIds();
+
+    @Query("SELECT * FROM library_genre ORDER BY genre COLLATE NOCASE")
+    LiveData<List<LibraryGenre>> getGenres();
+
+    @Query("SELECT * FROM library_playlist ORDER BY name COLLATE NOCASE")
+    LiveData<List<LibraryPlaylist>> getPlaylists();
+
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void insertArtists(List<LibraryArtist> artists);
+
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void insertAlbums(List<LibraryAlbum> albums);
+
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void insertSongs(List<LibrarySong> songs);
+
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void insertGenres(List<LibraryGenre> genres);
+
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void insertPlaylists(List<LibraryPlaylist> playlists);
+
+    @Query("UPDATE library_album SET tracks_signature = :tracksSignature WHERE id = :albumId")
+    void setTracksSignature(String albumId, String tracksSignature);
+
+    @Query("UPDATE library_album SET play_count = :playCount, played = :played, starred = :starred WHERE id = :id")
+    void updateAlbumActivity(String id, long playCount, Date played, Date starred);
+
+    @Query("UPDATE library_album SET starred = NULL WHERE starred IS NOT NULL")
+    void clearStarredAlbums();
+
+    @Query("DELETE FROM library_album WHERE id IN (:ids)")
+    void deleteAlbums(List<String> ids);
+
+    @Query("DELETE FROM library_song WHERE album_id IN (:albumIds)")
+    void deleteAlbumSongs(List<String> albumIds);
+
+    @Query("DELETE FROM library_artist")
+    void deleteAllArtists();
+
+    @Query("DELETE FROM library_album")
+    void deleteAllAlbums();
+
+    @Query("DELETE FROM library_song")
+    void deleteAllSongs();
+
+    @Query("DELETE FROM library_genre")
+    void deleteAllGenres();
+
+    @Query("DELETE FROM library_playlist")
+    void deleteAllPlaylists();
+}
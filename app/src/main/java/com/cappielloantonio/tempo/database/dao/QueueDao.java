@@ -12,10 +12,10 @@ import java.util.List;
 
 @Dao
 public interface QueueDao {
-    @Query("SELECT * FROM queue")
+    @Query("SELECT * FROM queue ORDER BY track_order")
     LiveData<List<Queue>> getAll();
 
-    @Query("SELECT * FROM queue")
+    @Query("SELECT * FROM queue ORDER BY track_order")
     List<Queue> getAllSimple();
 
     @Insert(onConflict = OnConflictStrategy.REPLACE)
@@ -24,8 +24,17 @@ public interface QueueDao {
     @Insert(onConflict = OnConflictStrategy.REPLACE)
     void insertAll(List<Queue> songQueueObjects);
 
-    @Query("DELETE FROM queue WHERE queue.track_order=:position")
-    void delete(int position);
+    @Query("SELECT track_order FROM queue ORDER BY track_order LIMIT 1 OFFSET :position")
+    Long getTrackOrderAt(int position);
+
+    @Query("UPDATE queue SET track_order=:trackOrder WHERE track_order=:previousTrackOrder")
+    void setTrackOrder(long previousTrackOrder, long trackOrder);
+
+    @Query("DELETE FROM queue WHERE track_order=:trackOrder")
+    void delete(long trackOrder);
+
+    @Query("DELETE FROM queue WHERE track_order BETWEEN :fromTrackOrder AND :toTrackOrder")
+    void deleteRange(long fromTrackOrder, long toTrackOrder);
 
     @Query("DELETE FROM queue")
     void deleteAll();
@@ -41,4 +50,7 @@ public interface QueueDao {
 
     @Query("SELECT * FROM queue ORDER BY last_play DESC LIMIT 1")
     Queue getLastPlayed();
-}
\ No newline at end of file
+
+    @Query("SELECT COUNT(*) FROM queue WHERE track_order < (SELECT track_order FROM queue ORDER BY last_play DESC LIMIT 1)")
+    int getLastPlayedIndex();
+}
@@ -4,19 +4,20 @@ import androidx.room.Dao;
 import androidx.room.Insert;
 import androidx.room.OnConflictStrategy;
 import androidx.room.Query;
+import androidx.room.Transaction;
 
-import com.cappielloantonio.tempo.model.Queue;
 import com.cappielloantonio.tempo.model.SessionMediaItem;
 
 import java.util.List;
 
 @Dao
 public interface SessionMediaItemDao {
-    @Query("SELECT * FROM session_media_item WHERE id = :id")
-    SessionMediaItem get(String id);
-
-    @Query("SELECT * FROM session_media_item WHERE timestamp = :timestamp")
-    List<SessionMediaItem> get(long timestamp);
+    /**
+     * Every browse result that holds one of the given ids, the latest one for each id, in the
+     * order the results were written.
+     */
+    @Query("SELECT * FROM session_media_item WHERE timestamp IN (SELECT MAX(timestamp) FROM session_media_item WHERE id IN (:ids) GROUP BY id) ORDER BY timestamp, `index`")
+    List<SessionMediaItem> getResults(List<String> ids);
 
     @Insert(onConflict = OnConflictStrategy.IGNORE)
     void insert(SessionMediaItem sessionMediaItem);
@@ -24,6 +25,26 @@ public interface SessionMediaItemDao {
     @Insert(onConflict = OnConflictStrategy.IGNORE)
     void insertAll(List<SessionMediaItem> sessionMediaItems);
 
+    /**
+     * Writes a browse result and drops the results written before the given time, then the
+     * oldest ones past the given number of rows.
+     *
+     * @return the number of rows dropped past the given number of rows
+     */
+    @Transaction
+    default int insertAll(List<SessionMediaItem> sessionMediaItems, long minTimestamp, int maxRows) {
+        insertAll(sessionMediaItems);
+        deleteBefore(minTimestamp);
+        return deleteBeyond(maxRows);
+    }
+
+    @Query("DELETE FROM session_media_item WHERE timestamp < :timestamp")
+    void deleteBefore(long timestamp);
+
+    // Whole results only, the one reaching past the limit is kept
+    @Query("DELETE FROM session_media_item WHERE timestamp < (SELECT timestamp FROM session_media_item ORDER BY timestamp DESC LIMIT 1 OFFSET :maxRows)")
+    int deleteBeyond(int maxRows);
+
     @Query("DELETE FROM session_media_item")
     void deleteAll();
-}
\ No newline at end of file
+}
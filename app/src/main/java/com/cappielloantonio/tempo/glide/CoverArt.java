@@ -0,0 +1,68 @@
+package com.cappielloantonio.tempo.glide;
+
+import androidx.annotation.NonNull;
+
+import java.util.Objects;
+
+/**
+ * Glide model for a cover served by getCoverArt. Unlike the request url it carries no address or
+ * authentication parameters, so cached covers survive re-login and local/remote address switches.
+ */
+public final class CoverArt {
+    private static final int MIN_SIZE_BUCKET = 64;
+
+    private final String serverId;
+    private final String coverArtId;
+    private final int size;
+
+    public CoverArt(String serverId, String coverArtId, int size) {
+        this.serverId = serverId;
+        this.coverArtId = coverArtId;
+        this.size = getSizeBucket(size);
+    }
+
+    public String getServerId() {
+        return serverId;
+    }
+
+    public String getCoverArtId() {
+        return coverArtId;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Rounds the requested size up to the next power of two, so that nearby sizes share a cache
+     * entry. -1 (original size) is kept as is.
+     */
+    private static int getSizeBucket(int size) {
+        if (size <= 0) return -1;
+
+        int bucket = MIN_SIZE_BUCKET;
+        while (bucket < size) bucket <<= 1;
+
+        return bucket;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        CoverArt coverArt = (CoverArt) o;
+        return size == coverArt.size && Objects.equals(serverId, coverArt.serverId) && Objects.equals(coverArtId, coverArt.coverArtId);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(serverId, coverArtId, size);
+    }
+
+    // Used by ObjectKey as the disk cache key
+    @NonNull
+    @Override
+    public String toString() {
+        return "cover:" + serverId + ":" + coverArtId + ":" + size;
+    }
+}
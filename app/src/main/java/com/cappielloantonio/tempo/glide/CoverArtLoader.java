@@ -0,0 +1,113 @@
+package com.cappielloantonio.tempo.glide;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.bumptech.glide.Priority;
+import com.bumptech.glide.load.DataSource;
+import com.bumptech.glide.load.Options;
+import com.bumptech.glide.load.data.DataFetcher;
+import com.bumptech.glide.load.model.GlideUrl;
+import com.bumptech.glide.load.model.ModelLoader;
+import com.bumptech.glide.load.model.ModelLoaderFactory;
+import com.bumptech.glide.load.model.MultiModelLoaderFactory;
+import com.bumptech.glide.signature.ObjectKey;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Loads {@link CoverArt} models through the registered {@link GlideUrl} loader. The source key is
+ * the model itself, and the authenticated url is only built once a cache miss actually reaches
+ * the network.
+ */
+public class CoverArtLoader implements ModelLoader<CoverArt, InputStream> {
+    private final ModelLoader<GlideUrl, InputStream> urlLoader;
+
+    private CoverArtLoader(ModelLoader<GlideUrl, InputStream> urlLoader) {
+        this.urlLoader = urlLoader;
+    }
+
+    @Nullable
+    @Override
+    public LoadData<InputStream> buildLoadData(@NonNull CoverArt model, int width, int height, @NonNull Options options) {
+        return new LoadData<>(new ObjectKey(model), new CoverArtFetcher(model, width, height, options));
+    }
+
+    @Override
+    public boolean handles(@NonNull CoverArt model) {
+        return model.getCoverArtId() != null;
+    }
+
+    private class CoverArtFetcher implements DataFetcher<InputStream> {
+        private final CoverArt model;
+        private final int width;
+        private final int height;
+        private final Options options;
+
+        private volatile DataFetcher<InputStream> delegate;
+        private volatile boolean isCancelled;
+
+        CoverArtFetcher(CoverArt model, int width, int height, Options options) {
+            this.model = model;
+            this.width = width;
+            this.height = height;
+            this.options = options;
+        }
+
+        @Override
+        public void loadData(@NonNull Priority priority, @NonNull DataCallback<? super InputStream> callback) {
+            GlideUrl url = new GlideUrl(CustomGlideRequest.createUrl(model.getCoverArtId(), model.getSize()));
+            LoadData<InputStream> loadData = urlLoader.buildLoadData(url, width, height, options);
+
+            if (loadData == null) {
+                callback.onLoadFailed(new IllegalStateException("No loader for " + model));
+                return;
+            }
+
+            delegate = loadData.fetcher;
+
+            if (isCancelled) {
+                callback.onLoadFailed(new IOException("Cancelled"));
+                return;
+            }
+
+            delegate.loadData(priority, callback);
+        }
+
+        @Override
+        public void cleanup() {
+            if (delegate != null) delegate.cleanup();
+        }
+
+        @Override
+        public void cancel() {
+            isCancelled = true;
+            if (delegate != null) delegate.cancel();
+        }
+
+        @NonNull
+        @Override
+        public Class<InputStream> getDataClass() {
+            return InputStream.class;
+        }
+
+        @NonNull
+        @Override
+        public DataSource getDataSource() {
+            return DataSource.REMOTE;
+        }
+    }
+
+    public static class Factory implements ModelLoaderFactory<CoverArt, InputStream> {
+        @NonNull
+        @Override
+        public ModelLoader<CoverArt, InputStream> build(@NonNull MultiModelLoaderFactory multiFactory) {
+            return new CoverArtLoader(multiFactory.build(GlideUrl.class, InputStream.class));
+        }
+
+        @Override
+        public void teardown() {
+        }
+    }
+}
@@ -3,7 +3,6 @@ package com.cappielloantonio.tempo.glide;
 import android.content.Context;
 import android.graphics.drawable.ColorDrawable;
 import android.graphics.drawable.Drawable;
-import android.util.Log;
 
 import androidx.annotation.Nullable;
 import androidx.appcompat.content.res.AppCompatResources;
@@ -20,11 +19,8 @@ import com.bumptech.glide.signature.ObjectKey;
 import com.cappielloantonio.tempo.App;
 import com.cappielloantonio.tempo.R;
 import com.cappielloantonio.tempo.util.Preferences;
-import com.cappielloantonio.tempo.util.Util;
 import com.google.android.material.elevation.SurfaceColors;
 
-import java.util.Map;
-
 public class CustomGlideRequest {
     private static final String TAG = "CustomGlideRequest";
 
@@ -80,32 +76,13 @@ public class CustomGlideRequest {
     }
 
     public static String createUrl(String item, int size) {
-        Map<String, String> params = App.getSubsonicClientInstance(false).getParams();
-
-        StringBuilder uri = new StringBuilder();
-
-        uri.append(App.getSubsonicClientInstance(false).getUrl());
-        uri.append("getCoverArt");
-
-        if (params.containsKey("u") && params.get("u") != null)
-            uri.append("?u=").append(Util.encode(params.get("u")));
-        if (params.containsKey("p") && params.get("p") != null)
-            uri.append("&p=").append(params.get("p"));
-        if (params.containsKey("s") && params.get("s") != null)
-            uri.append("&s=").append(params.get("s"));
-        if (params.containsKey("t") && params.get("t") != null)
-            uri.append("&t=").append(params.get("t"));
-        if (params.containsKey("v") && params.get("v") != null)
-            uri.append("&v=").append(params.get("v"));
-        if (params.containsKey("c") && params.get("c") != null)
-            uri.append("&c=").append(params.get("c"));
+        StringBuilder uri = new StringBuilder(App.getSubsonicClientInstance(false).getEndpointUrl("getCoverArt"));
+
         if (size != -1)
             uri.append("&size=").append(size);
 
         uri.append("&id=").append(item);
 
-        Log.d(TAG, "createUrl() " + uri);
-
         return uri.toString();
     }
 
@@ -117,7 +94,7 @@ public class CustomGlideRequest {
             this.requestManager = Glide.with(context);
 
             if (item != null && !Preferences.isDataSavingMode()) {
-                this.item = createUrl(item, Preferences.getImageSize());
+                this.item = new CoverArt(Preferences.getServerId(), item, Preferences.getImageSize());
             }
 
             requestManager.applyDefaultRequestOptions(createRequestOptions(context, item, type));
@@ -0,0 +1,102 @@
+package com.cappielloantonio.tempo.model
+
+import androidx.annotation.Keep
+import androidx.room.ColumnInfo
+import androidx.room.Entity
+import androidx.room.PrimaryKey
+import com.cappielloantonio.tempo.subsonic.models.AlbumID3
+import java.util.Date
+
+@Keep
+@Entity(tableName = "library_album")
+data class LibraryAlbum(
+    @PrimaryKey
+    @ColumnInfo(name = "id")
+    val id: String,
+
+    @ColumnInfo(name = "name")
+    val name: String?,
+
+    @ColumnInfo(name = "artist")
+    val artist: String?,
+
+    @ColumnInfo(name = "artist_id")
+    val artistId: String?,
+
+    @ColumnInfo(name = "cover_art_id")
+    val coverArtId: String?,
+
+    @ColumnInfo(name = "song_count")
+    val songCount: Int,
+
+    @ColumnInfo(name = "duration")
+    val duration: Int,
+
+    @ColumnInfo(name = "play_count")
+    val playCount: Long,
+
+    @ColumnInfo(name = "year")
+    val year: Int,
+
+    @ColumnInfo(name = "genre")
+    val genre: String?,
+
+    @ColumnInfo(name = "created")
+    val created: Date?,
+
+    @ColumnInfo(name = "starred")
+    val starred: Date?,
+
+    @ColumnInfo(name = "played")
+    val played: Date?,
+
+    // Signature of the album tracks stored in library_song, null until they have been fetched
+    @ColumnInfo(name = "tracks_signature")
+    val tracksSignature: String?,
+) {
+    constructor(id: String, album: AlbumID3, tracksSignature: String?) : this(
+        id,
+        album.name,
+        album.artist,
+        album.artistId,
+        album.coverArtId,
+        album.songCount ?: 0,
+        album.duration ?: 0,
+        album.playCount ?: 0,
+        album.year,
+        album.genre,
+        album.created,
+        album.starred,
+        album.played,
+        tracksSignature
+    )
+
+    fun toAlbumID3(): AlbumID3 {
+        val album = AlbumID3()
+        album.id = id
+        album.name = name
+        album.artist = artist
+        album.artistId = artistId
+        album.coverArtId = coverArtId
+        album.songCount = songCount
+        album.duration = duration
+        album.playCount = playCount
+        album.year = year
+        album.genre = genre
+        album.created = created
+        album.starred = starred
+        album.played = played
+        return album
+    }
+
+    companion object {
+        /**
+         * Cheap fingerprint of an album's track list as reported by getAlbumList2, used to tell
+         * whether its tracks need to be fetched again.
+         */
+        @JvmStatic
+        fun getTracksSignature(album: AlbumID3): String {
+            return "${album.songCount ?: 0}:${album.duration ?: 0}:${album.created?.time ?: 0}"
+        }
+    }
+}
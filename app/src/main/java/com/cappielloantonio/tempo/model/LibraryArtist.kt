@@ -0,0 +1,46 @@
+package com.cappielloantonio.tempo.model
+
+import androidx.annotation.Keep
+import androidx.room.ColumnInfo
+import androidx.room.Entity
+import androidx.room.PrimaryKey
+import com.cappielloantonio.tempo.subsonic.models.ArtistID3
+import java.util.Date
+
+@Keep
+@Entity(tableName = "library_artist")
+data class LibraryArtist(
+    @PrimaryKey
+    @ColumnInfo(name = "id")
+    val id: String,
+
+    @ColumnInfo(name = "name")
+    val name: String?,
+
+    @ColumnInfo(name = "cover_art_id")
+    val coverArtId: String?,
+
+    @ColumnInfo(name = "album_count")
+    val albumCount: Int,
+
+    @ColumnInfo(name = "starred")
+    val starred: Date?,
+) {
+    constructor(id: String, artist: ArtistID3) : this(
+        id,
+        artist.name,
+        artist.coverArtId,
+        artist.albumCount,
+        artist.starred
+    )
+
+    fun toArtistID3(): ArtistID3 {
+        val artist = ArtistID3()
+        artist.id = id
+        artist.name = name
+        artist.coverArtId = coverArtId
+        artist.albumCount = albumCount
+        artist.starred = starred
+        return artist
+    }
+}
@@ -0,0 +1,31 @@
+package com.cappielloantonio.tempo.model
+
+import androidx.annotation.Keep
+import androidx.room.ColumnInfo
+import androidx.room.Entity
+import androidx.room.PrimaryKey
+import com.cappielloantonio.tempo.subsonic.models.Genre
+
+@Keep
+@Entity(tableName = "library_genre")
+data class LibraryGenre(
+    @PrimaryKey
+    @ColumnInfo(name = "genre")
+    val genre: String,
+
+    @ColumnInfo(name = "song_count")
+    val songCount: Int,
+
+    @ColumnInfo(name = "album_count")
+    val albumCount: Int,
+) {
+    constructor(genre: String, remote: Genre) : this(genre, remote.songCount, remote.albumCount)
+
+    fun toGenre(): Genre {
+        val remote = Genre()
+        remote.genre = genre
+        remote.songCount = songCount
+        remote.albumCount = albumCount
+        return remote
+    }
+}
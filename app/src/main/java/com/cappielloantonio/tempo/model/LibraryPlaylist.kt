@@ -0,0 +1,55 @@
+package com.cappielloantonio.tempo.model
+
+import androidx.annotation.Keep
+import androidx.room.ColumnInfo
+import androidx.room.Entity
+import androidx.room.PrimaryKey
+import com.cappielloantonio.tempo.subsonic.models.Playlist
+import java.util.Date
+
+@Keep
+@Entity(tableName = "library_playlist")
+data class LibraryPlaylist(
+    @PrimaryKey
+    @ColumnInfo(name = "id")
+    val id: String,
+
+    @ColumnInfo(name = "name")
+    val name: String?,
+
+    @ColumnInfo(name = "owner")
+    val owner: String?,
+
+    @ColumnInfo(name = "song_count")
+    val songCount: Int,
+
+    @ColumnInfo(name = "duration")
+    val duration: Long,
+
+    @ColumnInfo(name = "cover_art_id")
+    val coverArtId: String?,
+
+    @ColumnInfo(name = "changed")
+    val changed: Date?,
+) {
+    constructor(playlist: Playlist) : this(
+        playlist.id,
+        playlist.name,
+        playlist.owner,
+        playlist.songCount,
+        playlist.duration,
+        playlist.coverArtId,
+        playlist.changed
+    )
+
+    fun toPlaylist(): Playlist {
+        val playlist = Playlist(id)
+        playlist.name = name
+        playlist.owner = owner
+        playlist.songCount = songCount
+        playlist.duration = duration
+        playlist.coverArtId = coverArtId
+        playlist.changed = changed
+        return playlist
+    }
+}
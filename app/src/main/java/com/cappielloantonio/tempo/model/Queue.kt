@@ -13,7 +13,7 @@ import kotlinx.parcelize.Parcelize
 class Queue(override val id: String) : Child(id) {
     @PrimaryKey
     @ColumnInfo(name = "track_order")
-    var trackOrder: Int = 0
+    var trackOrder: Long = 0
 
     @ColumnInfo(name = "last_play")
     var lastPlay: Long = 0
@@ -1,9 +0,0 @@
-package com.cappielloantonio.tempo.model
-
-import androidx.annotation.Keep
-
-@Keep
-data class ReplayGain(
-    var trackGain: Float = 0f,
-    var albumGain: Float = 0f,
-)
\ No newline at end of file
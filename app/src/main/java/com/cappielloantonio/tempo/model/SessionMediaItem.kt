@@ -10,19 +10,21 @@ import androidx.media3.common.MimeTypes
 import androidx.media3.common.util.UnstableApi
 import androidx.room.ColumnInfo
 import androidx.room.Entity
+import androidx.room.Index
 import androidx.room.PrimaryKey
 import com.cappielloantonio.tempo.glide.CustomGlideRequest
 import com.cappielloantonio.tempo.subsonic.models.Child
 import com.cappielloantonio.tempo.subsonic.models.InternetRadioStation
 import com.cappielloantonio.tempo.subsonic.models.PodcastEpisode
 import com.cappielloantonio.tempo.util.Constants
+import com.cappielloantonio.tempo.util.MediaMetadataStore
 import com.cappielloantonio.tempo.util.MusicUtil
 import com.cappielloantonio.tempo.util.Preferences.getImageSize
 import java.util.Date
 
 @UnstableApi
 @Keep
-@Entity(tableName = "session_media_item")
+@Entity(tableName = "session_media_item", indices = [Index(value = ["id"]), Index(value = ["timestamp"])])
 class SessionMediaItem() {
     @PrimaryKey(autoGenerate = true)
     @ColumnInfo(name = "index")
@@ -243,7 +245,7 @@ class SessionMediaItem() {
                     .setAlbumTitle(album)
                     .setArtist(artist)
                     .setArtworkUri(artworkUri)
-                    .setExtras(bundle)
+                    .setExtras(MediaMetadataStore.compact(bundle))
                     .setIsBrowsable(false)
                     .setIsPlayable(true)
                     .build()
@@ -251,7 +253,6 @@ class SessionMediaItem() {
             .setRequestMetadata(
                 RequestMetadata.Builder()
                     .setMediaUri(uri)
-                    .setExtras(bundle)
                     .build()
             )
             .setMimeType(MimeTypes.BASE_TYPE_AUDIO)
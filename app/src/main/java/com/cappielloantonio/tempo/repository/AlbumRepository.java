@@ -1,15 +1,19 @@
 package com.cappielloantonio.tempo.repository;
 
 import androidx.annotation.NonNull;
+import androidx.core.content.ContextCompat;
 import androidx.lifecycle.MutableLiveData;
 
 import com.cappielloantonio.tempo.App;
 import com.cappielloantonio.tempo.interfaces.DecadesCallback;
 import com.cappielloantonio.tempo.interfaces.MediaCallback;
+import com.cappielloantonio.tempo.subsonic.Subsonic;
 import com.cappielloantonio.tempo.subsonic.base.ApiResponse;
 import com.cappielloantonio.tempo.subsonic.models.AlbumID3;
 import com.cappielloantonio.tempo.subsonic.models.AlbumInfo;
 import com.cappielloantonio.tempo.subsonic.models.Child;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
 
 import java.util.ArrayList;
 import java.util.Calendar;
@@ -25,10 +29,10 @@ public class AlbumRepository {
     public MutableLiveData<List<AlbumID3>> getAlbums(String type, int size, Integer fromYear, Integer toYear) {
         MutableLiveData<List<AlbumID3>> listLiveAlbums = new MutableLiveData<>(new ArrayList<>());
 
-        App.getSubsonicClientInstance(false)
-                .getAlbumSongListClient()
-                .getAlbumList2(type, size, 0, fromYear, toYear)
-                .enqueue(new Callback<ApiResponse>() {
+        Subsonic subsonic = App.getSubsonicClientInstance(false);
+
+        subsonic.getRequestScheduler()
+                .enqueue(subsonic.getAlbumSongListClient().getAlbumList2(type, size, 0, fromYear, toYear), new Callback<ApiResponse>() {
                     @Override
                     public void onResponse(@NonNull Call<ApiResponse> call, @NonNull Response<ApiResponse> response) {
                         if (response.isSuccessful() && response.body() != null && response.body().getSubsonicResponse().getAlbumList2() != null && response.body().getSubsonicResponse().getAlbumList2().getAlbums() != null) {
@@ -48,31 +52,22 @@ public class AlbumRepository {
     public MutableLiveData<List<AlbumID3>> getStarredAlbums(boolean random, int size) {
         MutableLiveData<List<AlbumID3>> starredAlbums = new MutableLiveData<>(new ArrayList<>());
 
-        App.getSubsonicClientInstance(false)
-                .getAlbumSongListClient()
-                .getStarred2()
-                .enqueue(new Callback<ApiResponse>() {
-                    @Override
-                    public void onResponse(@NonNull Call<ApiResponse> call, @NonNull Response<ApiResponse> response) {
-                        if (response.isSuccessful() && response.body() != null && response.body().getSubsonicResponse().getStarred2() != null) {
-                            List<AlbumID3> albums = response.body().getSubsonicResponse().getStarred2().getAlbums();
-
-                            if (albums != null) {
-                                if (random) {
-                                    Collections.shuffle(albums);
-                                    starredAlbums.setValue(albums.subList(0, Math.min(size, albums.size())));
-                                } else {
-                                    starredAlbums.setValue(albums);
-                                }
-                            }
-                        }
-                    }
+        Futures.addCallback(new StarredRepository().getStarredAlbums(), new FutureCallback<List<AlbumID3>>() {
+            @Override
+            public void onSuccess(List<AlbumID3> albums) {
+                if (random) {
+                    Collections.shuffle(albums);
+                    starredAlbums.setValue(albums.subList(0, Math.min(size, albums.size())));
+                } else {
+                    starredAlbums.setValue(albums);
+                }
+            }
 
-                    @Override
-                    public void onFailure(@NonNull Call<ApiResponse> call, @NonNull Throwable t) {
+            @Override
+            public void onFailure(@NonNull Throwable t) {
 
-                    }
-                });
+            }
+        }, ContextCompat.getMainExecutor(App.getContext()));
 
         return starredAlbums;
     }
@@ -94,9 +89,47 @@ public class AlbumRepository {
                 });
     }
 
+    /**
+     * Serves the tracks from the library mirror when the album has been synced, and from the
+     * server otherwise. Emits exactly once either way, so that one-shot actions can observe it.
+     */
     public MutableLiveData<List<Child>> getAlbumTracks(String id) {
+        return getAlbumTracks(id, false);
+    }
+
+    /**
+     * Like {@link #getAlbumTracks(String)}, but mirrored tracks are then refreshed from the server
+     * and emitted again, so that starred state, ratings and play counts are current. The fresh
+     * tracks are written back to the mirror.
+     */
+    public MutableLiveData<List<Child>> getLiveAlbumTracks(String id) {
+        return getAlbumTracks(id, true);
+    }
+
+    private MutableLiveData<List<Child>> getAlbumTracks(String id, boolean refresh) {
         MutableLiveData<List<Child>> albumTracks = new MutableLiveData<>();
 
+        Futures.addCallback(new LibraryRepository().getAlbumSongs(id), new FutureCallback<List<Child>>() {
+            @Override
+            public void onSuccess(List<Child> tracks) {
+                if (tracks != null && !tracks.isEmpty()) {
+                    albumTracks.setValue(tracks);
+                    if (refresh) loadAlbumTracks(id, albumTracks, true);
+                } else {
+                    loadAlbumTracks(id, albumTracks, false);
+                }
+            }
+
+            @Override
+            public void onFailure(@NonNull Throwable t) {
+                loadAlbumTracks(id, albumTracks, false);
+            }
+        }, ContextCompat.getMainExecutor(App.getContext()));
+
+        return albumTracks;
+    }
+
+    private void loadAlbumTracks(String id, MutableLiveData<List<Child>> albumTracks, boolean isMirrored) {
         App.getSubsonicClientInstance(false)
                 .getBrowsingClient()
                 .getAlbum(id)
@@ -104,13 +137,16 @@ public class AlbumRepository {
                     @Override
                     public void onResponse(@NonNull Call<ApiResponse> call, @NonNull Response<ApiResponse> response) {
                         List<Child> tracks = new ArrayList<>();
+                        boolean isLoaded = response.isSuccessful() && response.body() != null && response.body().getSubsonicResponse().getAlbum() != null;
 
-                        if (response.isSuccessful() && response.body() != null && response.body().getSubsonicResponse().getAlbum() != null) {
-                            if (response.body().getSubsonicResponse().getAlbum().getSongs() != null) {
-                                tracks.addAll(response.body().getSubsonicResponse().getAlbum().getSongs());
-                            }
+                        if (isLoaded && response.body().getSubsonicResponse().getAlbum().getSongs() != null) {
+                            tracks.addAll(response.body().getSubsonicResponse().getAlbum().getSongs());
                         }
 
+                        // Keep the mirrored tracks on screen if the refresh failed
+                        if (isMirrored && !isLoaded) return;
+                        if (isMirrored) new LibraryRepository().storeAlbumSongs(id, tracks);
+
                         albumTracks.setValue(tracks);
                     }
 
@@ -119,8 +155,6 @@ public class AlbumRepository {
 
                     }
                 });
-
-        return albumTracks;
     }
 
     public MutableLiveData<List<AlbumID3>> getArtistAlbums(String id) {
@@ -249,10 +283,10 @@ public class AlbumRepository {
     }
 
     private void getFirstAlbum(DecadesCallback callback) {
-        App.getSubsonicClientInstance(false)
-                .getAlbumSongListClient()
-                .getAlbumList2("byYear", 1, 0, 1900, Calendar.getInstance().get(Calendar.YEAR))
-                .enqueue(new Callback<ApiResponse>() {
+        Subsonic subsonic = App.getSubsonicClientInstance(false);
+
+        subsonic.getRequestScheduler()
+                .enqueue(subsonic.getAlbumSongListClient().getAlbumList2("byYear", 1, 0, 1900, Calendar.getInstance().get(Calendar.YEAR)), new Callback<ApiResponse>() {
                     @Override
                     public void onResponse(@NonNull Call<ApiResponse> call, @NonNull Response<ApiResponse> response) {
                         if (response.isSuccessful() && response.body() != null && response.body().getSubsonicResponse().getAlbumList2() != null && response.body().getSubsonicResponse().getAlbumList2().getAlbums() != null && !response.body().getSubsonicResponse().getAlbumList2().getAlbums().isEmpty()) {
@@ -268,10 +302,10 @@ public class AlbumRepository {
     }
 
     private void getLastAlbum(DecadesCallback callback) {
-        App.getSubsonicClientInstance(false)
-                .getAlbumSongListClient()
-                .getAlbumList2("byYear", 1, 0, Calendar.getInstance().get(Calendar.YEAR), 1900)
-                .enqueue(new Callback<ApiResponse>() {
+        Subsonic subsonic = App.getSubsonicClientInstance(false);
+
+        subsonic.getRequestScheduler()
+                .enqueue(subsonic.getAlbumSongListClient().getAlbumList2("byYear", 1, 0, Calendar.getInstance().get(Calendar.YEAR), 1900), new Callback<ApiResponse>() {
                     @Override
                     public void onResponse(@NonNull Call<ApiResponse> call, @NonNull Response<ApiResponse> response) {
                         if (response.isSuccessful() && response.body() != null && response.body().getSubsonicResponse().getAlbumList2() != null && response.body().getSubsonicResponse().getAlbumList2().getAlbums() != null) {
@@ -1,14 +1,19 @@
 package com.cappielloantonio.tempo.repository;
 
 import androidx.annotation.NonNull;
+import androidx.core.content.ContextCompat;
 import androidx.lifecycle.MutableLiveData;
 
 import com.cappielloantonio.tempo.App;
+import com.cappielloantonio.tempo.subsonic.RequestScheduler;
+import com.cappielloantonio.tempo.subsonic.Subsonic;
 import com.cappielloantonio.tempo.subsonic.base.ApiResponse;
 import com.cappielloantonio.tempo.subsonic.models.ArtistID3;
 import com.cappielloantonio.tempo.subsonic.models.ArtistInfo2;
 import com.cappielloantonio.tempo.subsonic.models.Child;
 import com.cappielloantonio.tempo.subsonic.models.IndexID3;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
 
 import java.util.ArrayList;
 import java.util.Collections;
@@ -22,31 +27,22 @@ public class ArtistRepository {
     public MutableLiveData<List<ArtistID3>> getStarredArtists(boolean random, int size) {
         MutableLiveData<List<ArtistID3>> starredArtists = new MutableLiveData<>(new ArrayList<>());
 
-        App.getSubsonicClientInstance(false)
-                .getAlbumSongListClient()
-                .getStarred2()
-                .enqueue(new Callback<ApiResponse>() {
-                    @Override
-                    public void onResponse(@NonNull Call<ApiResponse> call, @NonNull Response<ApiResponse> response) {
-                        if (response.isSuccessful() && response.body() != null && response.body().getSubsonicResponse().getStarred2() != null) {
-                            List<ArtistID3> artists = response.body().getSubsonicResponse().getStarred2().getArtists();
-
-                            if (artists != null) {
-                                if (!random) {
-                                    getArtistInfo(artists, starredArtists);
-                                } else {
-                                    Collections.shuffle(artists);
-                                    getArtistInfo(artists.subList(0, Math.min(size, artists.size())), starredArtists);
-                                }
-                            }
-                        }
-                    }
+        Futures.addCallback(new StarredRepository().getStarredArtists(), new FutureCallback<List<ArtistID3>>() {
+            @Override
+            public void onSuccess(List<ArtistID3> artists) {
+                if (!random) {
+                    getArtistInfo(artists, starredArtists);
+                } else {
+                    Collections.shuffle(artists);
+                    getArtistInfo(artists.subList(0, Math.min(size, artists.size())), starredArtists);
+                }
+            }
 
-                    @Override
-                    public void onFailure(@NonNull Call<ApiResponse> call, @NonNull Throwable t) {
+            @Override
+            public void onFailure(@NonNull Throwable t) {
 
-                    }
-                });
+            }
+        }, ContextCompat.getMainExecutor(App.getContext()));
 
         return starredArtists;
     }
@@ -96,11 +92,12 @@ public class ArtistRepository {
         if (liveArtists == null) liveArtists = new ArrayList<>();
         list.setValue(liveArtists);
 
+        Subsonic subsonic = App.getSubsonicClientInstance(false);
+
+        // Low priority, so that the lists this enriches don't hold back the rest of the screen
         for (ArtistID3 artist : artists) {
-            App.getSubsonicClientInstance(false)
-                    .getBrowsingClient()
-                    .getArtist(artist.getId())
-                    .enqueue(new Callback<ApiResponse>() {
+            subsonic.getRequestScheduler()
+                    .enqueue(subsonic.getBrowsingClient().getArtist(artist.getId()), RequestScheduler.Priority.LOW, new Callback<ApiResponse>() {
                         @Override
                         public void onResponse(@NonNull Call<ApiResponse> call, @NonNull Response<ApiResponse> response) {
                             if (response.isSuccessful() && response.body() != null && response.body().getSubsonicResponse().getArtist() != null) {
@@ -257,10 +254,10 @@ public class ArtistRepository {
     public MutableLiveData<List<Child>> getTopSongs(String artistName, int count) {
         MutableLiveData<List<Child>> topSongs = new MutableLiveData<>(new ArrayList<>());
 
-        App.getSubsonicClientInstance(false)
-                .getBrowsingClient()
-                .getTopSongs(artistName, count)
-                .enqueue(new Callback<ApiResponse>() {
+        Subsonic subsonic = App.getSubsonicClientInstance(false);
+
+        subsonic.getRequestScheduler()
+                .enqueue(subsonic.getBrowsingClient().getTopSongs(artistName, count), new Callback<ApiResponse>() {
                     @Override
                     public void onResponse(@NonNull Call<ApiResponse> call, @NonNull Response<ApiResponse> response) {
                         if (response.isSuccessful() && response.body() != null && response.body().getSubsonicResponse().getTopSongs() != null && response.body().getSubsonicResponse().getTopSongs().getSongs() != null) {
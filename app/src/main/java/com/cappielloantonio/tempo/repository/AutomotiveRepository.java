@@ -1,10 +1,10 @@
 package com.cappielloantonio.tempo.repository;
 
-
 import android.net.Uri;
 import android.view.View;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.annotation.OptIn;
 import androidx.lifecycle.LifecycleOwner;
 import androidx.lifecycle.MutableLiveData;
@@ -16,6 +16,7 @@ import androidx.media3.session.LibraryResult;
 
 import com.cappielloantonio.tempo.App;
 import com.cappielloantonio.tempo.database.AppDatabase;
+import com.cappielloantonio.tempo.database.DatabaseExecutor;
 import com.cappielloantonio.tempo.database.dao.ChronologyDao;
 import com.cappielloantonio.tempo.database.dao.SessionMediaItemDao;
 import com.cappielloantonio.tempo.glide.CustomGlideRequest;
@@ -39,12 +40,17 @@ import com.cappielloantonio.tempo.util.MappingUtil;
 import com.cappielloantonio.tempo.util.MusicUtil;
 import com.cappielloantonio.tempo.util.Preferences;
 import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
 import com.google.common.util.concurrent.SettableFuture;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 import retrofit2.Call;
@@ -52,9 +58,27 @@ import retrofit2.Callback;
 import retrofit2.Response;
 
 public class AutomotiveRepository {
+    // Past the time browse results are served from the browse cache
+    private static final long SESSION_MEDIA_ITEM_MAX_AGE_MS = 12 * 60 * 60 * 1000;
+    private static final int SESSION_MEDIA_ITEM_MAX_ROWS = 10000;
+
+    private static final AtomicLong lastTimestamp = new AtomicLong();
+
     private final SessionMediaItemDao sessionMediaItemDao = AppDatabase.getInstance().sessionMediaItemDao();
     private final ChronologyDao chronologyDao = AppDatabase.getInstance().chronologyDao();
 
+    @Nullable
+    private volatile Runnable onSessionMediaItemsPruned;
+
+    /**
+     * Called on the database thread whenever browse results are dropped to stay under
+     * {@link #SESSION_MEDIA_ITEM_MAX_ROWS}, while a browse cache may still be serving them.
+     * Results dropped for their age are past the time the browse cache serves them.
+     */
+    public void setOnSessionMediaItemsPruned(@Nullable Runnable onSessionMediaItemsPruned) {
+        this.onSessionMediaItemsPruned = onSessionMediaItemsPruned;
+    }
+
     public ListenableFuture<LibraryResult<ImmutableList<MediaItem>>> getAlbums(String prefix, String type, int size) {
         final SettableFuture<LibraryResult<ImmutableList<MediaItem>>> listenableFuture = SettableFuture.create();
 
@@ -110,36 +134,13 @@ public class AutomotiveRepository {
     }
 
     public ListenableFuture<LibraryResult<ImmutableList<MediaItem>>> getStarredSongs() {
-        final SettableFuture<LibraryResult<ImmutableList<MediaItem>>> listenableFuture = SettableFuture.create();
-
-        App.getSubsonicClientInstance(false)
-                .getAlbumSongListClient()
-                .getStarred2()
-                .enqueue(new Callback<ApiResponse>() {
-                    @Override
-                    public void onResponse(@NonNull Call<ApiResponse> call, @NonNull Response<ApiResponse> response) {
-                        if (response.isSuccessful() && response.body() != null && response.body().getSubsonicResponse().getStarred2() != null && response.body().getSubsonicResponse().getStarred2().getSongs() != null) {
-                            List<Child> songs = response.body().getSubsonicResponse().getStarred2().getSongs();
-
-                            setChildrenMetadata(songs);
-
-                            List<MediaItem> mediaItems = MappingUtil.mapMediaItems(songs);
-
-                            LibraryResult<ImmutableList<MediaItem>> libraryResult = LibraryResult.ofItemList(ImmutableList.copyOf(mediaItems), null);
+        return Futures.transform(new StarredRepository().getStarredSongs(), songs -> {
+            setChildrenMetadata(songs);
 
-                            listenableFuture.set(libraryResult);
-                        } else {
-                            listenableFuture.set(LibraryResult.ofError(LibraryResult.RESULT_ERROR_BAD_VALUE));
-                        }
-                    }
+            List<MediaItem> mediaItems = MappingUtil.mapMediaItems(songs);
 
-                    @Override
-                    public void onFailure(@NonNull Call<ApiResponse> call, @NonNull Throwable t) {
-                        listenableFuture.setException(t);
-                    }
-                });
-
-        return listenableFuture;
+            return LibraryResult.ofItemList(ImmutableList.copyOf(mediaItems), null);
+        }, MoreExecutors.directExecutor());
     }
 
     public ListenableFuture<LibraryResult<ImmutableList<MediaItem>>> getRandomSongs(int count) {
@@ -203,109 +204,63 @@ public class AutomotiveRepository {
     }
 
     public ListenableFuture<LibraryResult<ImmutableList<MediaItem>>> getStarredAlbums(String prefix) {
-        final SettableFuture<LibraryResult<ImmutableList<MediaItem>>> listenableFuture = SettableFuture.create();
-
-        App.getSubsonicClientInstance(false)
-                .getAlbumSongListClient()
-                .getStarred2()
-                .enqueue(new Callback<ApiResponse>() {
-                    @Override
-                    public void onResponse(@NonNull Call<ApiResponse> call, @NonNull Response<ApiResponse> response) {
-                        if (response.isSuccessful() && response.body() != null && response.body().getSubsonicResponse().getStarred2() != null && response.body().getSubsonicResponse().getStarred2().getAlbums() != null) {
-                            List<AlbumID3> albums = response.body().getSubsonicResponse().getStarred2().getAlbums();
-
-                            List<MediaItem> mediaItems = new ArrayList<>();
-
-                            for (AlbumID3 album : albums) {
-                                Uri artworkUri = Uri.parse(CustomGlideRequest.createUrl(album.getCoverArtId(), Preferences.getImageSize()));
-
-                                MediaMetadata mediaMetadata = new MediaMetadata.Builder()
-                                        .setTitle(album.getName())
-                                        .setArtist(album.getArtist())
-                                        .setGenre(album.getGenre())
-                                        .setIsBrowsable(true)
-                                        .setIsPlayable(false)
-                                        .setMediaType(MediaMetadata.MEDIA_TYPE_ALBUM)
-                                        .setArtworkUri(artworkUri)
-                                        .build();
-
-                                MediaItem mediaItem = new MediaItem.Builder()
-                                        .setMediaId(prefix + album.getId())
-                                        .setMediaMetadata(mediaMetadata)
-                                        .setUri("")
-                                        .build();
-
-                                mediaItems.add(mediaItem);
-                            }
-
-                            LibraryResult<ImmutableList<MediaItem>> libraryResult = LibraryResult.ofItemList(ImmutableList.copyOf(mediaItems), null);
-
-                            listenableFuture.set(libraryResult);
-                        } else {
-                            listenableFuture.set(LibraryResult.ofError(LibraryResult.RESULT_ERROR_BAD_VALUE));
-                        }
-                    }
-
-                    @Override
-                    public void onFailure(@NonNull Call<ApiResponse> call, @NonNull Throwable t) {
-
-                    }
-                });
+        return Futures.transform(new StarredRepository().getStarredAlbums(), albums -> {
+            List<MediaItem> mediaItems = new ArrayList<>();
+
+            for (AlbumID3 album : albums) {
+                Uri artworkUri = Uri.parse(CustomGlideRequest.createUrl(album.getCoverArtId(), Preferences.getImageSize()));
+
+                MediaMetadata mediaMetadata = new MediaMetadata.Builder()
+                        .setTitle(album.getName())
+                        .setArtist(album.getArtist())
+                        .setGenre(album.getGenre())
+                        .setIsBrowsable(true)
+                        .setIsPlayable(false)
+                        .setMediaType(MediaMetadata.MEDIA_TYPE_ALBUM)
+                        .setArtworkUri(artworkUri)
+                        .build();
+
+                MediaItem mediaItem = new MediaItem.Builder()
+                        .setMediaId(prefix + album.getId())
+                        .setMediaMetadata(mediaMetadata)
+                        .setUri("")
+                        .build();
+
+                mediaItems.add(mediaItem);
+            }
 
-        return listenableFuture;
+            return LibraryResult.ofItemList(ImmutableList.copyOf(mediaItems), null);
+        }, MoreExecutors.directExecutor());
     }
 
     public ListenableFuture<LibraryResult<ImmutableList<MediaItem>>> getStarredArtists(String prefix) {
-        final SettableFuture<LibraryResult<ImmutableList<MediaItem>>> listenableFuture = SettableFuture.create();
-
-        App.getSubsonicClientInstance(false)
-                .getAlbumSongListClient()
-                .getStarred2()
-                .enqueue(new Callback<ApiResponse>() {
-                    @Override
-                    public void onResponse(@NonNull Call<ApiResponse> call, @NonNull Response<ApiResponse> response) {
-                        if (response.isSuccessful() && response.body() != null && response.body().getSubsonicResponse().getStarred2() != null && response.body().getSubsonicResponse().getStarred2().getArtists() != null) {
-                            List<ArtistID3> artists = response.body().getSubsonicResponse().getStarred2().getArtists();
-
-                            Collections.shuffle(artists);
-
-                            List<MediaItem> mediaItems = new ArrayList<>();
-
-                            for (ArtistID3 artist : artists) {
-                                Uri artworkUri = Uri.parse(CustomGlideRequest.createUrl(artist.getCoverArtId(), Preferences.getImageSize()));
-
-                                MediaMetadata mediaMetadata = new MediaMetadata.Builder()
-                                        .setTitle(artist.getName())
-                                        .setIsBrowsable(true)
-                                        .setIsPlayable(false)
-                                        .setMediaType(MediaMetadata.MEDIA_TYPE_PLAYLIST)
-                                        .setArtworkUri(artworkUri)
-                                        .build();
+        return Futures.transform(new StarredRepository().getStarredArtists(), artists -> {
+            Collections.shuffle(artists);
 
-                                MediaItem mediaItem = new MediaItem.Builder()
-                                        .setMediaId(prefix + artist.getId())
-                                        .setMediaMetadata(mediaMetadata)
-                                        .setUri("")
-                                        .build();
+            List<MediaItem> mediaItems = new ArrayList<>();
 
-                                mediaItems.add(mediaItem);
-                            }
+            for (ArtistID3 artist : artists) {
+                Uri artworkUri = Uri.parse(CustomGlideRequest.createUrl(artist.getCoverArtId(), Preferences.getImageSize()));
 
-                            LibraryResult<ImmutableList<MediaItem>> libraryResult = LibraryResult.ofItemList(ImmutableList.copyOf(mediaItems), null);
+                MediaMetadata mediaMetadata = new MediaMetadata.Builder()
+                        .setTitle(artist.getName())
+                        .setIsBrowsable(true)
+                        .setIsPlayable(false)
+                        .setMediaType(MediaMetadata.MEDIA_TYPE_PLAYLIST)
+                        .setArtworkUri(artworkUri)
+                        .build();
 
-                            listenableFuture.set(libraryResult);
-                        } else {
-                            listenableFuture.set(LibraryResult.ofError(LibraryResult.RESULT_ERROR_BAD_VALUE));
-                        }
-                    }
+                MediaItem mediaItem = new MediaItem.Builder()
+                        .setMediaId(prefix + artist.getId())
+                        .setMediaMetadata(mediaMetadata)
+                        .setUri("")
+                        .build();
 
-                    @Override
-                    public void onFailure(@NonNull Call<ApiResponse> call, @NonNull Throwable t) {
-                        listenableFuture.setException(t);
-                    }
-                });
+                mediaItems.add(mediaItem);
+            }
 
-        return listenableFuture;
+            return LibraryResult.ofItemList(ImmutableList.copyOf(mediaItems), null);
+        }, MoreExecutors.directExecutor());
     }
 
     public ListenableFuture<LibraryResult<ImmutableList<MediaItem>>> getMusicFolders(String prefix) {
@@ -868,8 +823,8 @@ public class AutomotiveRepository {
 
     @OptIn(markerClass = UnstableApi.class)
     public void setChildrenMetadata(List<Child> children) {
-        long timestamp = System.currentTimeMillis();
-        ArrayList<SessionMediaItem> sessionMediaItems = new ArrayList<>();
+        long timestamp = nextTimestamp();
+        ArrayList<SessionMediaItem> sessionMediaItems = new ArrayList<>(children.size());
 
         for (Child child : children) {
             SessionMediaItem sessionMediaItem = new SessionMediaItem(child);
@@ -877,15 +832,13 @@ public class AutomotiveRepository {
             sessionMediaItems.add(sessionMediaItem);
         }
 
-        InsertAllThreadSafe insertAll = new InsertAllThreadSafe(sessionMediaItemDao, sessionMediaItems);
-        Thread thread = new Thread(insertAll);
-        thread.start();
+        insertSessionMediaItems(sessionMediaItems, timestamp);
     }
 
     @OptIn(markerClass = UnstableApi.class)
     public void setPodcastEpisodesMetadata(List<PodcastEpisode> podcastEpisodes) {
-        long timestamp = System.currentTimeMillis();
-        ArrayList<SessionMediaItem> sessionMediaItems = new ArrayList<>();
+        long timestamp = nextTimestamp();
+        ArrayList<SessionMediaItem> sessionMediaItems = new ArrayList<>(podcastEpisodes.size());
 
         for (PodcastEpisode podcastEpisode : podcastEpisodes) {
             SessionMediaItem sessionMediaItem = new SessionMediaItem(podcastEpisode);
@@ -893,15 +846,13 @@ public class AutomotiveRepository {
             sessionMediaItems.add(sessionMediaItem);
         }
 
-        InsertAllThreadSafe insertAll = new InsertAllThreadSafe(sessionMediaItemDao, sessionMediaItems);
-        Thread thread = new Thread(insertAll);
-        thread.start();
+        insertSessionMediaItems(sessionMediaItems, timestamp);
     }
 
     @OptIn(markerClass = UnstableApi.class)
     public void setInternetRadioStationsMetadata(List<InternetRadioStation> internetRadioStations) {
-        long timestamp = System.currentTimeMillis();
-        ArrayList<SessionMediaItem> sessionMediaItems = new ArrayList<>();
+        long timestamp = nextTimestamp();
+        ArrayList<SessionMediaItem> sessionMediaItems = new ArrayList<>(internetRadioStations.size());
 
         for (InternetRadioStation internetRadioStation : internetRadioStations) {
             SessionMediaItem sessionMediaItem = new SessionMediaItem(internetRadioStation);
@@ -909,119 +860,74 @@ public class AutomotiveRepository {
             sessionMediaItems.add(sessionMediaItem);
         }
 
-        InsertAllThreadSafe insertAll = new InsertAllThreadSafe(sessionMediaItemDao, sessionMediaItems);
-        Thread thread = new Thread(insertAll);
-        thread.start();
-    }
-
-    public SessionMediaItem getSessionMediaItem(String id) {
-        SessionMediaItem sessionMediaItem = null;
-
-        GetMediaItemThreadSafe getMediaItemThreadSafe = new GetMediaItemThreadSafe(sessionMediaItemDao, id);
-        Thread thread = new Thread(getMediaItemThreadSafe);
-        thread.start();
-
-        try {
-            thread.join();
-            sessionMediaItem = getMediaItemThreadSafe.getSessionMediaItem();
-        } catch (InterruptedException e) {
-            e.printStackTrace();
-        }
-
-        return sessionMediaItem;
+        insertSessionMediaItems(sessionMediaItems, timestamp);
     }
 
-    public List<MediaItem> getMetadatas(long timestamp) {
-        List<MediaItem> mediaItems = Collections.emptyList();
+    /**
+     * Resolves items handed back by a controller (which carry only a media id) into playable items,
+     * expanding each one into the rest of the browse result it was picked from.
+     */
+    @OptIn(markerClass = UnstableApi.class)
+    public ListenableFuture<List<MediaItem>> getSessionMediaItems(List<MediaItem> mediaItems) {
+        return DatabaseExecutor.submit(() -> {
+            List<String> ids = new ArrayList<>();
 
-        GetMediaItemsThreadSafe getMediaItemsThreadSafe = new GetMediaItemsThreadSafe(sessionMediaItemDao, timestamp);
-        Thread thread = new Thread(getMediaItemsThreadSafe);
-        thread.start();
+            for (MediaItem mediaItem : mediaItems) {
+                if (mediaItem.localConfiguration == null) ids.add(mediaItem.mediaId);
+            }
 
-        try {
-            thread.join();
-            mediaItems = getMediaItemsThreadSafe.getMediaItems();
-        } catch (InterruptedException e) {
-            e.printStackTrace();
-        }
+            // The browse results of all the items at once, grouped back by result
+            Map<Long, List<SessionMediaItem>> results = new HashMap<>();
+            Map<String, Long> latestResults = new HashMap<>();
 
-        return mediaItems;
-    }
+            if (!ids.isEmpty()) {
+                for (SessionMediaItem sessionMediaItem : sessionMediaItemDao.getResults(ids)) {
+                    results.computeIfAbsent(sessionMediaItem.getTimestamp(), timestamp -> new ArrayList<>()).add(sessionMediaItem);
+                    latestResults.put(sessionMediaItem.getId(), sessionMediaItem.getTimestamp());
+                }
+            }
 
-    public void deleteMetadata() {
-        DeleteAllThreadSafe delete = new DeleteAllThreadSafe(sessionMediaItemDao);
-        Thread thread = new Thread(delete);
-        thread.start();
-    }
+            List<MediaItem> updatedMediaItems = new ArrayList<>();
 
-    private static class GetMediaItemThreadSafe implements Runnable {
-        private final SessionMediaItemDao sessionMediaItemDao;
-        private final String id;
+            for (MediaItem mediaItem : mediaItems) {
+                if (mediaItem.localConfiguration != null) {
+                    updatedMediaItems.add(mediaItem);
+                    continue;
+                }
 
-        private SessionMediaItem sessionMediaItem;
+                Long timestamp = latestResults.get(mediaItem.mediaId);
+                if (timestamp == null) continue;
 
-        public GetMediaItemThreadSafe(SessionMediaItemDao sessionMediaItemDao, String id) {
-            this.sessionMediaItemDao = sessionMediaItemDao;
-            this.id = id;
-        }
+                boolean found = false;
 
-        @Override
-        public void run() {
-            sessionMediaItem = sessionMediaItemDao.get(id);
-        }
+                for (SessionMediaItem sibling : results.get(timestamp)) {
+                    found = found || mediaItem.mediaId.equals(sibling.getId());
+                    if (found) updatedMediaItems.add(sibling.getMediaItem());
+                }
+            }
 
-        public SessionMediaItem getSessionMediaItem() {
-            return sessionMediaItem;
-        }
+            return updatedMediaItems;
+        });
     }
 
-    @OptIn(markerClass = UnstableApi.class)
-    private static class GetMediaItemsThreadSafe implements Runnable {
-        private final SessionMediaItemDao sessionMediaItemDao;
-        private final Long timestamp;
-        private final List<MediaItem> mediaItems = new ArrayList<>();
-
-        public GetMediaItemsThreadSafe(SessionMediaItemDao sessionMediaItemDao, Long timestamp) {
-            this.sessionMediaItemDao = sessionMediaItemDao;
-            this.timestamp = timestamp;
-        }
+    private void insertSessionMediaItems(List<SessionMediaItem> sessionMediaItems, long timestamp) {
+        DatabaseExecutor.execute(() -> {
+            int pruned = sessionMediaItemDao.insertAll(sessionMediaItems, timestamp - SESSION_MEDIA_ITEM_MAX_AGE_MS, SESSION_MEDIA_ITEM_MAX_ROWS);
+            Runnable listener = onSessionMediaItemsPruned;
 
-        @Override
-        public void run() {
-            List<SessionMediaItem> sessionMediaItems = sessionMediaItemDao.get(timestamp);
-            sessionMediaItems.forEach(sessionMediaItem -> mediaItems.add(sessionMediaItem.getMediaItem()));
-        }
-
-        public List<MediaItem> getMediaItems() {
-            return mediaItems;
-        }
+            if (pruned > 0 && listener != null) listener.run();
+        });
     }
 
-    private static class InsertAllThreadSafe implements Runnable {
-        private final SessionMediaItemDao sessionMediaItemDao;
-        private final List<SessionMediaItem> sessionMediaItems;
-
-        public InsertAllThreadSafe(SessionMediaItemDao sessionMediaItemDao, List<SessionMediaItem> sessionMediaItems) {
-            this.sessionMediaItemDao = sessionMediaItemDao;
-            this.sessionMediaItems = sessionMediaItems;
-        }
-
-        @Override
-        public void run() {
-            sessionMediaItemDao.insertAll(sessionMediaItems);
-        }
+    /**
+     * @return the time to tag a browse result with, unique so that results written within the
+     * same millisecond don't merge
+     */
+    private static long nextTimestamp() {
+        return lastTimestamp.updateAndGet(last -> Math.max(last + 1, System.currentTimeMillis()));
     }
 
-    private static class DeleteAllThreadSafe implements Runnable {
-        private final SessionMediaItemDao sessionMediaItemDao;
-
-        public DeleteAllThreadSafe(SessionMediaItemDao sessionMediaItemDao) {
-            this.sessionMediaItemDao = sessionMediaItemDao;
-        }
-
-        @Override
-        public void run() {
-            sessionMediaItemDao.deleteAll();
-        }
+    public void deleteMetadata() {
+        DatabaseExecutor.execute(sessionMediaItemDao::deleteAll);
     }
 }
@@ -3,8 +3,10 @@ package com.cappielloantonio.tempo.repository;
 import androidx.lifecycle.LiveData;
 
 import com.cappielloantonio.tempo.database.AppDatabase;
+import com.cappielloantonio.tempo.database.DatabaseExecutor;
 import com.cappielloantonio.tempo.database.dao.ChronologyDao;
 import com.cappielloantonio.tempo.model.Chronology;
+import com.google.common.util.concurrent.ListenableFuture;
 
 import java.util.Calendar;
 import java.util.List;
@@ -16,24 +18,15 @@ public class ChronologyRepository {
         return chronologyDao.getAllFrom(start, end, server);
     }
 
-    public void insert(Chronology item) {
-        InsertThreadSafe insert = new InsertThreadSafe(chronologyDao, item);
-        Thread thread = new Thread(insert);
-        thread.start();
+    /**
+     * Ids of the tracks the server counted at least the given number of plays for, as of their
+     * last play in the app.
+     */
+    public ListenableFuture<List<String>> getIdsPlayedAtLeast(String server, long playCount) {
+        return DatabaseExecutor.submit(() -> chronologyDao.getIdsPlayedAtLeast(server, playCount));
     }
 
-    private static class InsertThreadSafe implements Runnable {
-        private final ChronologyDao chronologyDao;
-        private final Chronology item;
-
-        public InsertThreadSafe(ChronologyDao chronologyDao, Chronology item) {
-            this.chronologyDao = chronologyDao;
-            this.item = item;
-        }
-
-        @Override
-        public void run() {
-            chronologyDao.insert(item);
-        }
+    public void insert(Chronology item) {
+        DatabaseExecutor.execute(() -> chronologyDao.insert(item));
     }
 }
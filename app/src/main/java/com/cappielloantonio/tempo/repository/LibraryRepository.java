@@ -0,0 +1,553 @@
+package com.cappielloantonio.tempo.repository;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
+import androidx.lifecycle.Transformations;
+import androidx.paging.Pager;
+import androidx.paging.PagingConfig;
+import androidx.paging.PagingData;
+import androidx.paging.PagingDataTransforms;
+import androidx.paging.PagingLiveData;
+import androidx.sqlite.db.SimpleSQLiteQuery;
+import androidx.sqlite.db.SupportSQLiteQuery;
+
+import com.cappielloantonio.tempo.App;
+import com.cappielloantonio.tempo.database.AppDatabase;
+import com.cappielloantonio.tempo.database.DatabaseExecutor;
+import com.cappielloantonio.tempo.database.dao.LibraryDao;
+import com.cappielloantonio.tempo.model.LibraryAlbum;
+import com.cappielloantonio.tempo.model.LibraryArtist;
+import com.cappielloantonio.tempo.model.LibraryGenre;
+import com.cappielloantonio.tempo.model.LibraryPlaylist;
+import com.cappielloantonio.tempo.model.LibrarySong;
+import com.cappielloantonio.tempo.subsonic.Subsonic;
+import com.cappielloantonio.tempo.subsonic.base.ApiResponse;
+import com.cappielloantonio.tempo.subsonic.models.AlbumID3;
+import com.cappielloantonio.tempo.subsonic.models.ArtistID3;
+import com.cappielloantonio.tempo.subsonic.models.Child;
+import com.cappielloantonio.tempo.subsonic.models.Genre;
+import com.cappielloantonio.tempo.subsonic.models.IndexID3;
+import com.cappielloantonio.tempo.subsonic.models.Indexes;
+import com.cappielloantonio.tempo.subsonic.models.Playlist;
+import com.cappielloantonio.tempo.subsonic.models.SubsonicResponse;
+import com.cappielloantonio.tempo.util.Constants;
+import com.cappielloantonio.tempo.util.Preferences;
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+
+/**
+ * Local mirror of the server library (artists, albums, album tracks, genres and playlists).
+ * Catalogue screens observe the mirror and ask for a background refresh, so they render from
+ * disk immediately. {@link #sync()} keeps the mirror up to date incrementally: nothing is
+ * listed again unless getIndexes reports a change since the last sync, and album tracks are
+ * only fetched again for albums whose track signature changed.
+ */
+public class LibraryRepository {
+    private static final String TAG = "LibraryRepository";
+
+    private static final int ALBUM_PAGE_SIZE = 500;
+    private static final int QUERY_CHUNK_SIZE = 500;
+    private static final int ACTIVITY_LIST_SIZE = 500;
+
+    // Sync is network bound and may take a while on first run, so it stays off the database thread
+    private static final ExecutorService syncExecutor = Executors.newSingleThreadExecutor();
+    private static final AtomicBoolean isSyncing = new AtomicBoolean(false);
+    private static final MutableLiveData<Boolean> albumsLoading = new MutableLiveData<>(false);
+
+    // Prime, so that any multiplier below it permutes the rowids
+    private static final int SHUFFLE_MODULUS = 2147483647;
+    // Room pages with LIMIT/OFFSET, so placeholders are cheap (one COUNT per generation) and let
+    // fast scrolls jump straight to the target page. maxSize drops pages far from the viewport.
+    private static final PagingConfig CATALOGUE_PAGING_CONFIG = new PagingConfig(60, 120, true, 120, 480);
+
+    private final LibraryDao libraryDao = AppDatabase.getInstance().libraryDao();
+
+    /**
+     * Artists whose name contains the filter, paged from the mirror in the given
+     * Constants.ARTIST_ORDER_BY_* order. The seed fixes the permutation used by the random order,
+     * so that it stays the same across page loads and invalidations.
+     */
+    public LiveData<PagingData<ArtistID3>> getArtistsPaged(String filter, String order, int seed) {
+        checkServer();
+
+        String orderBy;
+
+        if (Constants.ARTIST_ORDER_BY_RANDOM.equals(order)) {
+            orderBy = getShuffleOrder(seed);
+        } else {
+            orderBy = "name COLLATE NOCASE";
+        }
+
+        SupportSQLiteQuery query = getCatalogueQuery("library_artist", filter, orderBy);
+        Pager<Integer, LibraryArtist> pager = new Pager<>(CATALOGUE_PAGING_CONFIG, () -> libraryDao.getArtistsPaged(query));
+
+        return Transformations.map(PagingLiveData.getLiveData(pager), artists -> PagingDataTransforms.map(artists, MoreExecutors.directExecutor(), LibraryArtist::toArtistID3));
+    }
+
+    /**
+     * Albums whose name contains the filter, paged from the mirror in the given
+     * Constants.ALBUM_ORDER_BY_* order. See {@link #getArtistsPaged} for the seed.
+     */
+    public LiveData<PagingData<AlbumID3>> getAlbumsPaged(String filter, String order, int seed) {
+        checkServer();
+
+        String orderBy;
+
+        switch (order) {
+            case Constants.ALBUM_ORDER_BY_ARTIST:
+                orderBy = "artist IS NULL, artist COLLATE NOCASE, name COLLATE NOCASE";
+                break;
+            case Constants.ALBUM_ORDER_BY_YEAR:
+                orderBy = "year, name COLLATE NOCASE";
+                break;
+            case Constants.ALBUM_ORDER_BY_RANDOM:
+                orderBy = getShuffleOrder(seed);
+                break;
+            case Constants.ALBUM_ORDER_BY_RECENTLY_ADDED:
+                orderBy = "created DESC";
+                break;
+            case Constants.ALBUM_ORDER_BY_RECENTLY_PLAYED:
+                orderBy = "played DESC";
+                break;
+            case Constants.ALBUM_ORDER_BY_MOST_PLAYED:
+                orderBy = "play_count DESC";
+                break;
+            default:
+                orderBy = "name COLLATE NOCASE";
+                break;
+        }
+
+        SupportSQLiteQuery query = getCatalogueQuery("library_album", filter, orderBy);
+        Pager<Integer, LibraryAlbum> pager = new Pager<>(CATALOGUE_PAGING_CONFIG, () -> libraryDao.getAlbumsPaged(query));
+
+        return Transformations.map(PagingLiveData.getLiveData(pager), albums -> PagingDataTransforms.map(albums, MoreExecutors.directExecutor(), LibraryAlbum::toAlbumID3));
+    }
+
+    public LiveData<List<Genre>> getGenres() {
+        checkServer();
+        return Transformations.map(libraryDao.getGenres(), genres -> genres.stream()
+                .map(LibraryGenre::toGenre)
+                .collect(Collectors.toList()));
+    }
+
+    public LiveData<List<Playlist>> getPlaylists() {
+        checkServer();
+        return Transformations.map(libraryDao.getPlaylists(), playlists -> playlists.stream()
+                .map(LibraryPlaylist::toPlaylist)
+                .collect(Collectors.toList()));
+    }
+
+    /**
+     * Tracks of an album as last synced, or an empty list if they have not been mirrored yet.
+     */
+    public ListenableFuture<List<Child>> getAlbumSongs(String albumId) {
+        checkServer();
+        return DatabaseExecutor.submit(() -> new ArrayList<>(libraryDao.getAlbumSongs(albumId)));
+    }
+
+    /**
+     * Replaces the mirrored tracks of an album with a fresh copy from the server, so that starred
+     * state, ratings and play counts catch up between syncs. The track signature is kept.
+     */
+    public void storeAlbumSongs(String albumId, List<Child> songs) {
+        checkServer();
+
+        List<LibrarySong> rows = songs.stream().map(LibrarySong::new).collect(Collectors.toList());
+
+        DatabaseExecutor.execute(() -> AppDatabase.getInstance().runInTransaction(() -> {
+            libraryDao.deleteAlbumSongs(Collections.singletonList(albumId));
+            libraryDao.insertSongs(rows);
+        }));
+    }
+
+    public ListenableFuture<List<String>> getStarredSongIds() {
+        checkServer();
+        return DatabaseExecutor.submit(libraryDao::getStarredSongIds);
+    }
+
+    /**
+     * True while the album catalogue is being listed from the server.
+     */
+    public LiveData<Boolean> getAlbumsLoadingStatus() {
+        return albumsLoading;
+    }
+
+    public void refreshArtists() {
+        App.getSubsonicClientInstance(false)
+                .getBrowsingClient()
+                .getArtists()
+                .enqueue(new Callback<ApiResponse>() {
+                    @Override
+                    public void onResponse(@NonNull Call<ApiResponse> call, @NonNull Response<ApiResponse> response) {
+                        if (response.isSuccessful() && response.body() != null) {
+                            storeArtists(response.body().getSubsonicResponse());
+                        }
+                    }
+
+                    @Override
+                    public void onFailure(@NonNull Call<ApiResponse> call, @NonNull Throwable t) {
+
+                    }
+                });
+    }
+
+    public void refreshGenres() {
+        App.getSubsonicClientInstance(false)
+                .getBrowsingClient()
+                .getGenres()
+                .enqueue(new Callback<ApiResponse>() {
+                    @Override
+                    public void onResponse(@NonNull Call<ApiResponse> call, @NonNull Response<ApiResponse> response) {
+                        if (response.isSuccessful() && response.body() != null) {
+                            storeGenres(response.body().getSubsonicResponse());
+                        }
+                    }
+
+                    @Override
+                    public void onFailure(@NonNull Call<ApiResponse> call, @NonNull Throwable t) {
+
+                    }
+                });
+    }
+
+    public void refreshPlaylists() {
+        App.getSubsonicClientInstance(false)
+                .getPlaylistClient()
+                .getPlaylists()
+                .enqueue(new Callback<ApiResponse>() {
+                    @Override
+                    public void onResponse(@NonNull Call<ApiResponse> call, @NonNull Response<ApiResponse> response) {
+                        if (response.isSuccessful() && response.body() != null) {
+                            storePlaylists(response.body().getSubsonicResponse());
+                        }
+                    }
+
+                    @Override
+                    public void onFailure(@NonNull Call<ApiResponse> call, @NonNull Throwable t) {
+
+                    }
+                });
+    }
+
+    /**
+     * Starts an incremental sync of the whole library, unless one is already running.
+     */
+    public void sync() {
+        if (!isSyncing.compareAndSet(false, true)) return;
+
+        syncExecutor.execute(() -> {
+            try {
+                syncLibrary();
+            } catch (Exception e) {
+                Log.e(TAG, "Library sync failed", e);
+            } finally {
+                isSyncing.set(false);
+            }
+        });
+    }
+
+    private void syncLibrary() {
+        checkServer();
+
+        String serverId = Preferences.getServerId();
+        Subsonic subsonic = App.getSubsonicClientInstance(false);
+        long lastModified = Preferences.getLibraryLastModified();
+
+        SubsonicResponse indexesResponse = execute(subsonic.getBrowsingClient().getIndexes(null, lastModified > 0 ? lastModified : null));
+        if (indexesResponse == null) return;
+
+        Indexes indexes = indexesResponse.getIndexes();
+        boolean isModified = indexes == null || indexes.getLastModified() == 0 || indexes.getLastModified() > lastModified;
+
+        if (isModified) {
+            storeArtists(execute(subsonic.getBrowsingClient().getArtists()));
+
+            if (syncAlbums(subsonic, serverId) && indexes != null && isCurrentServer(serverId)) {
+                Preferences.setLibraryLastModified(indexes.getLastModified());
+            }
+        }
+
+        if (!isCurrentServer(serverId)) return;
+
+        syncAlbumActivity(subsonic, serverId);
+
+        if (!isCurrentServer(serverId)) return;
+
+        storeGenres(execute(subsonic.getBrowsingClient().getGenres()));
+        storePlaylists(execute(subsonic.getPlaylistClient().getPlaylists()));
+    }
+
+    /**
+     * Lists every album, drops the ones gone from the server and fetches tracks for the new or
+     * changed ones. Returns false if anything was left out, so that the next sync lists them again.
+     */
+    private boolean syncAlbums(Subsonic subsonic, String serverId) {
+        Map<String, LibraryAlbum> storedAlbums = DatabaseExecutor.call(() -> {
+            Map<String, LibraryAlbum> albums = new HashMap<>();
+            for (LibraryAlbum album : libraryDao.getAlbumsSimple()) albums.put(album.getId(), album);
+            return albums;
+        }, null);
+
+        if (storedAlbums == null) return false;
+
+        Set<String> remoteIds = new HashSet<>();
+        Map<String, String> changedAlbums = new HashMap<>();
+
+        albumsLoading.postValue(true);
+
+        try {
+            for (int offset = 0; ; offset += ALBUM_PAGE_SIZE) {
+                SubsonicResponse response = execute(subsonic.getAlbumSongListClient().getAlbumList2("alphabeticalByName", ALBUM_PAGE_SIZE, offset, null, null));
+                if (response == null || response.getAlbumList2() == null || !isCurrentServer(serverId)) return false;
+
+                List<AlbumID3> albums = response.getAlbumList2().getAlbums() != null ? response.getAlbumList2().getAlbums() : Collections.emptyList();
+                List<LibraryAlbum> page = new ArrayList<>();
+
+                for (AlbumID3 album : albums) {
+                    if (album.getId() == null) continue;
+
+                    LibraryAlbum stored = storedAlbums.get(album.getId());
+                    String storedSignature = stored != null ? stored.getTracksSignature() : null;
+                    String signature = LibraryAlbum.getTracksSignature(album);
+
+                    remoteIds.add(album.getId());
+                    page.add(new LibraryAlbum(album.getId(), album, storedSignature));
+
+                    if (!signature.equals(storedSignature)) {
+                        changedAlbums.put(album.getId(), signature);
+                    }
+                }
+
+                DatabaseExecutor.execute(() -> libraryDao.insertAlbums(page));
+
+                if (albums.size() < ALBUM_PAGE_SIZE) break;
+            }
+        } finally {
+            albumsLoading.postValue(false);
+        }
+
+        List<String> removedIds = storedAlbums.keySet().stream()
+                .filter(id -> !remoteIds.contains(id))
+                .collect(Collectors.toList());
+
+        if (!removedIds.isEmpty()) {
+            DatabaseExecutor.execute(() -> AppDatabase.getInstance().runInTransaction(() -> {
+                for (List<String> chunk : Lists.partition(removedIds, QUERY_CHUNK_SIZE)) {
+                    libraryDao.deleteAlbumSongs(chunk);
+                    libraryDao.deleteAlbums(chunk);
+                }
+            }));
+        }
+
+        boolean isComplete = true;
+
+        for (Map.Entry<String, String> album : changedAlbums.entrySet()) {
+            if (!isCurrentServer(serverId)) return false;
+            isComplete &= syncAlbumSongs(subsonic, album.getKey(), album.getValue());
+        }
+
+        return isComplete;
+    }
+
+    /**
+     * Starring or playing an album does not change the indexes, so the full relist misses it.
+     * The recently played, most played and starred listings are cheap, and are run on every sync
+     * to keep the play count, last play and starred state of the mirrored albums current.
+     */
+    private void syncAlbumActivity(Subsonic subsonic, String serverId) {
+        Map<String, AlbumID3> albums = new HashMap<>();
+
+        List<AlbumID3> recent = listAlbums(subsonic, "recent", ACTIVITY_LIST_SIZE);
+        List<AlbumID3> frequent = listAlbums(subsonic, "frequent", ACTIVITY_LIST_SIZE);
+        List<AlbumID3> starred = listAlbums(subsonic, "starred", Integer.MAX_VALUE);
+
+        if (!isCurrentServer(serverId)) return;
+
+        for (List<AlbumID3> list : Arrays.asList(recent, frequent, starred)) {
+            if (list == null) continue;
+            for (AlbumID3 album : list) if (album.getId() != null) albums.put(album.getId(), album);
+        }
+
+        if (albums.isEmpty() && starred == null) return;
+
+        DatabaseExecutor.execute(() -> AppDatabase.getInstance().runInTransaction(() -> {
+            // Only a complete starred listing tells which albums are no longer starred
+            if (starred != null) libraryDao.clearStarredAlbums();
+
+            for (AlbumID3 album : albums.values()) {
+                libraryDao.updateAlbumActivity(album.getId(), album.getPlayCount() != null ? album.getPlayCount() : 0, album.getPlayed(), album.getStarred());
+            }
+        }));
+    }
+
+    /**
+     * Up to limit albums of a getAlbumList2 listing, or null if any page could not be loaded.
+     */
+    @Nullable
+    private static List<AlbumID3> listAlbums(Subsonic subsonic, String type, int limit) {
+        List<AlbumID3> albums = new ArrayList<>();
+
+        while (albums.size() < limit) {
+            int size = Math.min(ALBUM_PAGE_SIZE, limit - albums.size());
+
+            SubsonicResponse response = execute(subsonic.getAlbumSongListClient().getAlbumList2(type, size, albums.size(), null, null));
+            if (response == null || response.getAlbumList2() == null) return null;
+
+            List<AlbumID3> page = response.getAlbumList2().getAlbums() != null ? response.getAlbumList2().getAlbums() : Collections.emptyList();
+            albums.addAll(page);
+
+            if (page.size() < size) break;
+        }
+
+        return albums;
+    }
+
+    private boolean syncAlbumSongs(Subsonic subsonic, String albumId, String tracksSignature) {
+        SubsonicResponse response = execute(subsonic.getBrowsingClient().getAlbum(albumId));
+        if (response == null || response.getAlbum() == null) return false;
+
+        List<LibrarySong> songs = response.getAlbum().getSongs() != null
+                ? response.getAlbum().getSongs().stream().map(LibrarySong::new).collect(Collectors.toList())
+                : Collections.emptyList();
+
+        DatabaseExecutor.execute(() -> AppDatabase.getInstance().runInTransaction(() -> {
+            libraryDao.deleteAlbumSongs(Collections.singletonList(albumId));
+            libraryDao.insertSongs(songs);
+            libraryDao.setTracksSignature(albumId, tracksSignature);
+        }));
+
+        return true;
+    }
+
+    private void storeArtists(@Nullable SubsonicResponse response) {
+        if (response == null || response.getArtists() == null || response.getArtists().getIndices() == null) return;
+
+        List<LibraryArtist> artists = new ArrayList<>();
+
+        for (IndexID3 index : response.getArtists().getIndices()) {
+            if (index == null || index.getArtists() == null) continue;
+
+            for (ArtistID3 artist : index.getArtists()) {
+                if (artist.getId() != null) artists.add(new LibraryArtist(artist.getId(), artist));
+            }
+        }
+
+        DatabaseExecutor.execute(() -> AppDatabase.getInstance().runInTransaction(() -> {
+            libraryDao.deleteAllArtists();
+            libraryDao.insertArtists(artists);
+        }));
+    }
+
+    private void storeGenres(@Nullable SubsonicResponse response) {
+        if (response == null || response.getGenres() == null || response.getGenres().getGenres() == null) return;
+
+        List<LibraryGenre> genres = response.getGenres().getGenres().stream()
+                .filter(genre -> genre.getGenre() != null)
+                .map(genre -> new LibraryGenre(genre.getGenre(), genre))
+                .collect(Collectors.toList());
+
+        DatabaseExecutor.execute(() -> AppDatabase.getInstance().runInTransaction(() -> {
+            libraryDao.deleteAllGenres();
+            libraryDao.insertGenres(genres);
+        }));
+    }
+
+    private void storePlaylists(@Nullable SubsonicResponse response) {
+        if (response == null || response.getPlaylists() == null || response.getPlaylists().getPlaylists() == null) return;
+
+        List<LibraryPlaylist> playlists = response.getPlaylists().getPlaylists().stream()
+                .map(LibraryPlaylist::new)
+                .collect(Collectors.toList());
+
+        DatabaseExecutor.execute(() -> AppDatabase.getInstance().runInTransaction(() -> {
+            libraryDao.deleteAllPlaylists();
+            libraryDao.insertPlaylists(playlists);
+        }));
+    }
+
+    private static SupportSQLiteQuery getCatalogueQuery(String table, String filter, String orderBy) {
+        // id last, so that rows with equal sort keys keep their position across pages
+        String order = " ORDER BY " + orderBy + ", id";
+
+        if (filter == null || filter.trim().isEmpty()) {
+            return new SimpleSQLiteQuery("SELECT * FROM " + table + order);
+        }
+
+        String pattern = "%" + filter.trim().replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+        return new SimpleSQLiteQuery("SELECT * FROM " + table + " WHERE name LIKE ? ESCAPE '\\'" + order, new Object[]{pattern});
+    }
+
+    /**
+     * Deterministic permutation of the rows for the given seed. ORDER BY RANDOM() would reshuffle
+     * on every page load, duplicating and skipping items while scrolling.
+     */
+    private static String getShuffleOrder(int seed) {
+        return "(rowid * " + (Math.abs(seed % (SHUFFLE_MODULUS - 1)) + 1) + ") % " + SHUFFLE_MODULUS;
+    }
+
+    /**
+     * Wipes the mirror when it was built for a different server than the one in use. Queued on
+     * the database thread, so it always runs before reads issued afterwards.
+     */
+    private static synchronized void checkServer() {
+        String serverId = Preferences.getServerId();
+
+        if (!Objects.equals(serverId, Preferences.getLibraryServerId())) {
+            Preferences.setLibraryServerId(serverId);
+            Preferences.setLibraryLastModified(0);
+
+            LibraryDao libraryDao = AppDatabase.getInstance().libraryDao();
+
+            DatabaseExecutor.execute(() -> AppDatabase.getInstance().runInTransaction(() -> {
+                libraryDao.deleteAllSongs();
+                libraryDao.deleteAllAlbums();
+                libraryDao.deleteAllArtists();
+                libraryDao.deleteAllGenres();
+                libraryDao.deleteAllPlaylists();
+            }));
+        }
+    }
+
+    private static boolean isCurrentServer(String serverId) {
+        return Objects.equals(serverId, Preferences.getServerId());
+    }
+
+    @Nullable
+    private static SubsonicResponse execute(Call<ApiResponse> call) {
+        try {
+            Response<ApiResponse> response = call.execute();
+
+            if (response.isSuccessful() && response.body() != null) {
+                return response.body().getSubsonicResponse();
+            }
+        } catch (IOException e) {
+            Log.w(TAG, "Library sync request failed", e);
+        }
+
+        return null;
+    }
+}
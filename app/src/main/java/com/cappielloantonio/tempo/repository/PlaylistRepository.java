@@ -12,7 +12,9 @@ import androidx.lifecycle.MutableLiveData;
 import com.cappielloantonio.tempo.App;
 import com.cappielloantonio.tempo.R;
 import com.cappielloantonio.tempo.database.AppDatabase;
+import com.cappielloantonio.tempo.database.DatabaseExecutor;
 import com.cappielloantonio.tempo.database.dao.PlaylistDao;
+import com.cappielloantonio.tempo.subsonic.Subsonic;
 import com.cappielloantonio.tempo.subsonic.base.ApiResponse;
 import com.cappielloantonio.tempo.subsonic.models.Child;
 import com.cappielloantonio.tempo.subsonic.models.Playlist;
@@ -31,16 +33,18 @@ public class PlaylistRepository {
     public MutableLiveData<List<Playlist>> getPlaylists(boolean random, int size) {
         MutableLiveData<List<Playlist>> listLivePlaylists = new MutableLiveData<>(new ArrayList<>());
 
-        App.getSubsonicClientInstance(false)
-                .getPlaylistClient()
-                .getPlaylists()
-                .enqueue(new Callback<ApiResponse>() {
+        Subsonic subsonic = App.getSubsonicClientInstance(false);
+
+        subsonic.getRequestScheduler()
+                .enqueue(subsonic.getPlaylistClient().getPlaylists(), new Callback<ApiResponse>() {
                     @Override
                     public void onResponse(@NonNull Call<ApiResponse> call, @NonNull Response<ApiResponse> response) {
                         if (response.isSuccessful() && response.body() != null && response.body().getSubsonicResponse().getPlaylists() != null && response.body().getSubsonicResponse().getPlaylists().getPlaylists() != null) {
                             List<Playlist> playlists = response.body().getSubsonicResponse().getPlaylists().getPlaylists();
 
                             if (random) {
+                                // Shuffle a copy, the response may be shared
+                                playlists = new ArrayList<>(playlists);
                                 Collections.shuffle(playlists);
                                 listLivePlaylists.setValue(playlists.subList(0, Math.min(playlists.size(), size)));
                             } else {
@@ -171,45 +175,11 @@ public class PlaylistRepository {
 
     @androidx.media3.common.util.UnstableApi
     public void insert(Playlist playlist) {
-        InsertThreadSafe insert = new InsertThreadSafe(playlistDao, playlist);
-        Thread thread = new Thread(insert);
-        thread.start();
+        DatabaseExecutor.execute(() -> playlistDao.insert(playlist));
     }
 
     @androidx.media3.common.util.UnstableApi
     public void delete(Playlist playlist) {
-        DeleteThreadSafe delete = new DeleteThreadSafe(playlistDao, playlist);
-        Thread thread = new Thread(delete);
-        thread.start();
-    }
-
-    private static class InsertThreadSafe implements Runnable {
-        private final PlaylistDao playlistDao;
-        private final Playlist playlist;
-
-        public InsertThreadSafe(PlaylistDao playlistDao, Playlist playlist) {
-            this.playlistDao = playlistDao;
-            this.playlist = playlist;
-        }
-
-        @Override
-        public void run() {
-            playlistDao.insert(playlist);
-        }
-    }
-
-    private static class DeleteThreadSafe implements Runnable {
-        private final PlaylistDao playlistDao;
-        private final Playlist playlist;
-
-        public DeleteThreadSafe(PlaylistDao playlistDao, Playlist playlist) {
-            this.playlistDao = playlistDao;
-            this.playlist = playlist;
-        }
-
-        @Override
-        public void run() {
-            playlistDao.delete(playlist);
-        }
+        DatabaseExecutor.execute(() -> playlistDao.delete(playlist));
     }
 }
@@ -6,13 +6,15 @@ import androidx.lifecycle.MutableLiveData;
 
 import com.cappielloantonio.tempo.App;
 import com.cappielloantonio.tempo.database.AppDatabase;
+import com.cappielloantonio.tempo.database.DatabaseExecutor;
 import com.cappielloantonio.tempo.database.dao.QueueDao;
 import com.cappielloantonio.tempo.model.Queue;
 import com.cappielloantonio.tempo.subsonic.base.ApiResponse;
 import com.cappielloantonio.tempo.subsonic.models.Child;
 import com.cappielloantonio.tempo.subsonic.models.PlayQueue;
+import com.google.common.util.concurrent.ListenableFuture;
 
-import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -23,30 +25,19 @@ import retrofit2.Response;
 public class QueueRepository {
     private static final String TAG = "QueueRepository";
 
+    // Spacing between consecutive track orders, so that edits can slot rows in without renumbering
+    private static final long TRACK_ORDER_GAP = 1L << 20;
+
     private final QueueDao queueDao = AppDatabase.getInstance().queueDao();
 
     public LiveData<List<Queue>> getLiveQueue() {
         return queueDao.getAll();
     }
 
-    public List<Child> getMedia() {
-        List<Child> media = new ArrayList<>();
-
-        GetMediaThreadSafe getMedia = new GetMediaThreadSafe(queueDao);
-        Thread thread = new Thread(getMedia);
-        thread.start();
-
-        try {
-            thread.join();
-            media = getMedia.getMedia().stream()
-                    .map(Child.class::cast)
-                    .collect(Collectors.toList());
-
-        } catch (InterruptedException e) {
-            e.printStackTrace();
-        }
-
-        return media;
+    public ListenableFuture<List<Child>> getMedia() {
+        return DatabaseExecutor.submit(() -> queueDao.getAllSimple().stream()
+                .map(Child.class::cast)
+                .collect(Collectors.toList()));
     }
 
     public MutableLiveData<PlayQueue> getPlayQueue() {
@@ -90,274 +81,158 @@ public class QueueRepository {
     }
 
     public void insert(Child media, boolean reset, int afterIndex) {
-        try {
-            List<Queue> mediaList = new ArrayList<>();
-
-            if (!reset) {
-                GetMediaThreadSafe getMediaThreadSafe = new GetMediaThreadSafe(queueDao);
-                Thread getMediaThread = new Thread(getMediaThreadSafe);
-                getMediaThread.start();
-                getMediaThread.join();
-
-                mediaList = getMediaThreadSafe.getMedia();
-            }
+        insertAll(Collections.singletonList(media), reset, afterIndex);
+    }
 
-            Queue queueItem = new Queue(media);
-            mediaList.add(afterIndex, queueItem);
+    public void insertAll(List<Child> toAdd, boolean reset, int afterIndex) {
+        List<Queue> queueItems = toAdd.stream().map(Queue::new).collect(Collectors.toList());
 
-            for (int i = 0; i < mediaList.size(); i++) {
-                mediaList.get(i).setTrackOrder(i);
+        DatabaseExecutor.execute(() -> AppDatabase.getInstance().runInTransaction(() -> {
+            if (reset) {
+                queueDao.deleteAll();
             }
 
-            Thread delete = new Thread(new DeleteAllThreadSafe(queueDao));
-            delete.start();
-            delete.join();
-
-            Thread insertAll = new Thread(new InsertAllThreadSafe(queueDao, mediaList));
-            insertAll.start();
-            insertAll.join();
-        } catch (InterruptedException e) {
-            e.printStackTrace();
-        }
+            insertAt(afterIndex, queueItems);
+        }));
     }
 
-    public void insertAll(List<Child> toAdd, boolean reset, int afterIndex) {
-        try {
-            List<Queue> media = new ArrayList<>();
+    public void move(int from, int to) {
+        if (from == to) return;
 
-            if (!reset) {
-                GetMediaThreadSafe getMediaThreadSafe = new GetMediaThreadSafe(queueDao);
-                Thread getMediaThread = new Thread(getMediaThreadSafe);
-                getMediaThread.start();
-                getMediaThread.join();
+        DatabaseExecutor.execute(() -> AppDatabase.getInstance().runInTransaction(() -> {
+            Long trackOrder = queueDao.getTrackOrderAt(from);
+            if (trackOrder == null) return;
 
-                media = getMediaThreadSafe.getMedia();
-            }
+            // Neighbours of the destination slot once the moved row is taken out of the sequence
+            int before = from < to ? to : to - 1;
+            Long newTrackOrder = getTrackOrderBetween(before, before + 1, 1);
 
-            for (int i = 0; i < toAdd.size(); i++) {
-                Queue queueItem = new Queue(toAdd.get(i));
-                media.add(afterIndex + i, queueItem);
+            if (newTrackOrder == null) {
+                rebalance();
+                trackOrder = queueDao.getTrackOrderAt(from);
+                newTrackOrder = getTrackOrderBetween(before, before + 1, 1);
             }
 
-            for (int i = 0; i < media.size(); i++) {
-                media.get(i).setTrackOrder(i);
+            if (trackOrder != null && newTrackOrder != null) {
+                queueDao.setTrackOrder(trackOrder, newTrackOrder);
             }
-
-            Thread delete = new Thread(new DeleteAllThreadSafe(queueDao));
-            delete.start();
-            delete.join();
-
-            Thread insertAll = new Thread(new InsertAllThreadSafe(queueDao, media));
-            insertAll.start();
-            insertAll.join();
-        } catch (InterruptedException e) {
-            e.printStackTrace();
-        }
+        }));
     }
 
     public void delete(int position) {
-        DeleteThreadSafe delete = new DeleteThreadSafe(queueDao, position);
-        Thread thread = new Thread(delete);
-        thread.start();
+        DatabaseExecutor.execute(() -> {
+            Long trackOrder = queueDao.getTrackOrderAt(position);
+            if (trackOrder != null) queueDao.delete(trackOrder);
+        });
     }
 
-    public void deleteAll() {
-        DeleteAllThreadSafe deleteAll = new DeleteAllThreadSafe(queueDao);
-        Thread thread = new Thread(deleteAll);
-        thread.start();
+    public void deleteRange(int from, int to) {
+        if (from >= to) return;
+
+        DatabaseExecutor.execute(() -> AppDatabase.getInstance().runInTransaction(() -> removeRange(from, to)));
     }
 
-    public int count() {
-        int count = 0;
+    public void replaceRange(int from, int to, List<Child> replacement) {
+        List<Queue> queueItems = replacement.stream().map(Queue::new).collect(Collectors.toList());
 
-        CountThreadSafe countThread = new CountThreadSafe(queueDao);
-        Thread thread = new Thread(countThread);
-        thread.start();
+        DatabaseExecutor.execute(() -> AppDatabase.getInstance().runInTransaction(() -> {
+            removeRange(from, to);
+            insertAt(from, queueItems);
+        }));
+    }
 
-        try {
-            thread.join();
-            count = countThread.getCount();
-        } catch (InterruptedException e) {
-            e.printStackTrace();
-        }
+    public void deleteAll() {
+        DatabaseExecutor.execute(queueDao::deleteAll);
+    }
 
-        return count;
+    public ListenableFuture<Integer> count() {
+        return DatabaseExecutor.submit(queueDao::count);
     }
 
     public void setLastPlayedTimestamp(String id) {
-        SetLastPlayedTimestampThreadSafe timestamp = new SetLastPlayedTimestampThreadSafe(queueDao, id);
-        Thread thread = new Thread(timestamp);
-        thread.start();
+        long timestamp = System.currentTimeMillis();
+        DatabaseExecutor.execute(() -> queueDao.setLastPlay(id, timestamp));
     }
 
     public void setPlayingPausedTimestamp(String id, long ms) {
-        SetPlayingPausedTimestampThreadSafe timestamp = new SetPlayingPausedTimestampThreadSafe(queueDao, id, ms);
-        Thread thread = new Thread(timestamp);
-        thread.start();
+        DatabaseExecutor.execute(() -> queueDao.setPlayingChanged(id, ms));
     }
 
-    public int getLastPlayedMediaIndex() {
-        int index = 0;
-
-        GetLastPlayedMediaThreadSafe getLastPlayedMediaThreadSafe = new GetLastPlayedMediaThreadSafe(queueDao);
-        Thread thread = new Thread(getLastPlayedMediaThreadSafe);
-        thread.start();
-
-        try {
-            thread.join();
-            Queue lastMediaPlayed = getLastPlayedMediaThreadSafe.getQueueItem();
-            index = lastMediaPlayed.getTrackOrder();
-        } catch (InterruptedException e) {
-            e.printStackTrace();
-        }
-
-        return index;
+    public ListenableFuture<Queue> getLastPlayedMedia() {
+        return DatabaseExecutor.submit(queueDao::getLastPlayed);
     }
 
-    public long getLastPlayedMediaTimestamp() {
-        long timestamp = 0;
-
-        GetLastPlayedMediaThreadSafe getLastPlayedMediaThreadSafe = new GetLastPlayedMediaThreadSafe(queueDao);
-        Thread thread = new Thread(getLastPlayedMediaThreadSafe);
-        thread.start();
-
-        try {
-            thread.join();
-            Queue lastMediaPlayed = getLastPlayedMediaThreadSafe.getQueueItem();
-            timestamp = lastMediaPlayed.getPlayingChanged();
-        } catch (InterruptedException e) {
-            e.printStackTrace();
-        }
-
-        return timestamp;
+    public ListenableFuture<Integer> getLastPlayedMediaIndex() {
+        return DatabaseExecutor.submit(queueDao::getLastPlayedIndex);
     }
 
-    private static class GetMediaThreadSafe implements Runnable {
-        private final QueueDao queueDao;
-        private List<Queue> media;
+    private void insertAt(int index, List<Queue> queueItems) {
+        if (queueItems.isEmpty()) return;
 
-        public GetMediaThreadSafe(QueueDao queueDao) {
-            this.queueDao = queueDao;
-        }
+        int position = Math.max(0, Math.min(index, queueDao.count()));
 
-        @Override
-        public void run() {
-            media = queueDao.getAllSimple();
-        }
+        Long first = getTrackOrderBetween(position - 1, position, queueItems.size());
 
-        public List<Queue> getMedia() {
-            return media;
+        if (first == null) {
+            rebalance();
+            first = getTrackOrderBetween(position - 1, position, queueItems.size());
         }
-    }
 
-    private static class InsertAllThreadSafe implements Runnable {
-        private final QueueDao queueDao;
-        private final List<Queue> media;
+        long step = getTrackOrderStep(position - 1, position, queueItems.size());
 
-        public InsertAllThreadSafe(QueueDao queueDao, List<Queue> media) {
-            this.queueDao = queueDao;
-            this.media = media;
+        for (int i = 0; i < queueItems.size(); i++) {
+            queueItems.get(i).setTrackOrder(first + i * step);
         }
 
-        @Override
-        public void run() {
-            queueDao.insertAll(media);
-        }
+        queueDao.insertAll(queueItems);
     }
 
-    private static class DeleteThreadSafe implements Runnable {
-        private final QueueDao queueDao;
-        private final int position;
-
-        public DeleteThreadSafe(QueueDao queueDao, int position) {
-            this.queueDao = queueDao;
-            this.position = position;
-        }
+    private void removeRange(int from, int to) {
+        Long first = queueDao.getTrackOrderAt(from);
+        Long last = queueDao.getTrackOrderAt(to - 1);
 
-        @Override
-        public void run() {
-            queueDao.delete(position);
+        if (first != null) {
+            queueDao.deleteRange(first, last != null ? last : Long.MAX_VALUE);
         }
     }
 
-    private static class DeleteAllThreadSafe implements Runnable {
-        private final QueueDao queueDao;
+    /**
+     * First of {@code count} evenly spaced track orders fitting between the rows at positions
+     * {@code before} and {@code after}, or null if the gap between them is exhausted.
+     */
+    private Long getTrackOrderBetween(int before, int after, int count) {
+        Long lower = before >= 0 ? queueDao.getTrackOrderAt(before) : null;
+        Long upper = queueDao.getTrackOrderAt(after);
 
-        public DeleteAllThreadSafe(QueueDao queueDao) {
-            this.queueDao = queueDao;
-        }
+        if (lower == null && upper == null) return 0L;
+        if (upper == null) return lower + TRACK_ORDER_GAP;
+        if (lower == null) return upper - (long) count * TRACK_ORDER_GAP;
+        if (upper - lower <= count) return null;
 
-        @Override
-        public void run() {
-            queueDao.deleteAll();
-        }
+        return lower + (upper - lower) / (count + 1);
     }
 
-    private static class CountThreadSafe implements Runnable {
-        private final QueueDao queueDao;
-        private int count = 0;
+    private long getTrackOrderStep(int before, int after, int count) {
+        Long lower = before >= 0 ? queueDao.getTrackOrderAt(before) : null;
+        Long upper = queueDao.getTrackOrderAt(after);
 
-        public CountThreadSafe(QueueDao queueDao) {
-            this.queueDao = queueDao;
-        }
+        if (lower == null || upper == null) return TRACK_ORDER_GAP;
 
-        @Override
-        public void run() {
-            count = queueDao.count();
-        }
-
-        public int getCount() {
-            return count;
-        }
+        return (upper - lower) / (count + 1);
     }
 
-    private static class SetLastPlayedTimestampThreadSafe implements Runnable {
-        private final QueueDao queueDao;
-        private final String mediaId;
+    /**
+     * Respaces every row by {@link #TRACK_ORDER_GAP}. Only needed once repeated inserts at the same
+     * spot have used up the gap between two neighbours.
+     */
+    private void rebalance() {
+        List<Queue> media = queueDao.getAllSimple();
 
-        public SetLastPlayedTimestampThreadSafe(QueueDao queueDao, String mediaId) {
-            this.queueDao = queueDao;
-            this.mediaId = mediaId;
+        for (int i = 0; i < media.size(); i++) {
+            media.get(i).setTrackOrder((long) i * TRACK_ORDER_GAP);
         }
 
-        @Override
-        public void run() {
-            queueDao.setLastPlay(mediaId, System.currentTimeMillis());
-        }
-    }
-
-    private static class SetPlayingPausedTimestampThreadSafe implements Runnable {
-        private final QueueDao queueDao;
-        private final String mediaId;
-        private final long ms;
-
-        public SetPlayingPausedTimestampThreadSafe(QueueDao queueDao, String mediaId, long ms) {
-            this.queueDao = queueDao;
-            this.mediaId = mediaId;
-            this.ms = ms;
-        }
-
-        @Override
-        public void run() {
-            queueDao.setPlayingChanged(mediaId, ms);
-        }
-    }
-
-    private static class GetLastPlayedMediaThreadSafe implements Runnable {
-        private final QueueDao queueDao;
-        private Queue lastMediaPlayed;
-
-        public GetLastPlayedMediaThreadSafe(QueueDao queueDao) {
-            this.queueDao = queueDao;
-        }
-
-        @Override
-        public void run() {
-            lastMediaPlayed = queueDao.getLastPlayed();
-        }
-
-        public Queue getQueueItem() {
-            return lastMediaPlayed;
-        }
+        queueDao.deleteAll();
+        queueDao.insertAll(media);
     }
 }
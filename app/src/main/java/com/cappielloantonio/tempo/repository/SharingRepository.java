@@ -4,6 +4,7 @@ import androidx.annotation.NonNull;
 import androidx.lifecycle.MutableLiveData;
 
 import com.cappielloantonio.tempo.App;
+import com.cappielloantonio.tempo.subsonic.Subsonic;
 import com.cappielloantonio.tempo.subsonic.base.ApiResponse;
 import com.cappielloantonio.tempo.subsonic.models.Share;
 
@@ -18,10 +19,10 @@ public class SharingRepository {
     public MutableLiveData<List<Share>> getShares() {
         MutableLiveData<List<Share>> shares = new MutableLiveData<>(new ArrayList<>());
 
-        App.getSubsonicClientInstance(false)
-                .getSharingClient()
-                .getShares()
-                .enqueue(new Callback<ApiResponse>() {
+        Subsonic subsonic = App.getSubsonicClientInstance(false);
+
+        subsonic.getRequestScheduler()
+                .enqueue(subsonic.getSharingClient().getShares(), new Callback<ApiResponse>() {
                     @Override
                     public void onResponse(@NonNull Call<ApiResponse> call, @NonNull Response<ApiResponse> response) {
                         if (response.isSuccessful() && response.body() != null && response.body().getSubsonicResponse().getShares() != null && response.body().getSubsonicResponse().getShares().getShares() != null) {
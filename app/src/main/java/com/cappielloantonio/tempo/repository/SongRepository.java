@@ -1,11 +1,15 @@
 package com.cappielloantonio.tempo.repository;
 
 import androidx.annotation.NonNull;
+import androidx.core.content.ContextCompat;
 import androidx.lifecycle.MutableLiveData;
 
 import com.cappielloantonio.tempo.App;
+import com.cappielloantonio.tempo.subsonic.Subsonic;
 import com.cappielloantonio.tempo.subsonic.base.ApiResponse;
 import com.cappielloantonio.tempo.subsonic.models.Child;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
 
 import java.util.ArrayList;
 import java.util.Collections;
@@ -21,31 +25,22 @@ public class SongRepository {
     public MutableLiveData<List<Child>> getStarredSongs(boolean random, int size) {
         MutableLiveData<List<Child>> starredSongs = new MutableLiveData<>(Collections.emptyList());
 
-        App.getSubsonicClientInstance(false)
-                .getAlbumSongListClient()
-                .getStarred2()
-                .enqueue(new Callback<ApiResponse>() {
-                    @Override
-                    public void onResponse(@NonNull Call<ApiResponse> call, @NonNull Response<ApiResponse> response) {
-                        if (response.isSuccessful() && response.body() != null && response.body().getSubsonicResponse().getStarred2() != null) {
-                            List<Child> songs = response.body().getSubsonicResponse().getStarred2().getSongs();
-
-                            if (songs != null) {
-                                if (!random) {
-                                    starredSongs.setValue(songs);
-                                } else {
-                                    Collections.shuffle(songs);
-                                    starredSongs.setValue(songs.subList(0, Math.min(size, songs.size())));
-                                }
-                            }
-                        }
-                    }
+        Futures.addCallback(new StarredRepository().getStarredSongs(), new FutureCallback<List<Child>>() {
+            @Override
+            public void onSuccess(List<Child> songs) {
+                if (!random) {
+                    starredSongs.setValue(songs);
+                } else {
+                    Collections.shuffle(songs);
+                    starredSongs.setValue(songs.subList(0, Math.min(size, songs.size())));
+                }
+            }
 
-                    @Override
-                    public void onFailure(@NonNull Call<ApiResponse> call, @NonNull Throwable t) {
+            @Override
+            public void onFailure(@NonNull Throwable t) {
 
-                    }
-                });
+            }
+        }, ContextCompat.getMainExecutor(App.getContext()));
 
         return starredSongs;
     }
@@ -76,10 +71,10 @@ public class SongRepository {
     public MutableLiveData<List<Child>> getRandomSample(int number, Integer fromYear, Integer toYear) {
         MutableLiveData<List<Child>> randomSongsSample = new MutableLiveData<>();
 
-        App.getSubsonicClientInstance(false)
-                .getAlbumSongListClient()
-                .getRandomSongs(number, fromYear, toYear)
-                .enqueue(new Callback<ApiResponse>() {
+        Subsonic subsonic = App.getSubsonicClientInstance(false);
+
+        subsonic.getRequestScheduler()
+                .enqueue(subsonic.getAlbumSongListClient().getRandomSongs(number, fromYear, toYear), new Callback<ApiResponse>() {
                     @Override
                     public void onResponse(@NonNull Call<ApiResponse> call, @NonNull Response<ApiResponse> response) {
                         List<Child> songs = new ArrayList<>();
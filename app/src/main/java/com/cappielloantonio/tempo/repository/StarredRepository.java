@@ -0,0 +1,101 @@
+package com.cappielloantonio.tempo.repository;
+
+import androidx.annotation.NonNull;
+
+import com.cappielloantonio.tempo.App;
+import com.cappielloantonio.tempo.subsonic.Subsonic;
+import com.cappielloantonio.tempo.subsonic.base.ApiResponse;
+import com.cappielloantonio.tempo.subsonic.models.AlbumID3;
+import com.cappielloantonio.tempo.subsonic.models.ArtistID3;
+import com.cappielloantonio.tempo.subsonic.models.Child;
+import com.cappielloantonio.tempo.subsonic.models.Starred2;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.SettableFuture;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+
+/**
+ * Snapshot of getStarred2 shared by every starred list in the app. The payload holds all the
+ * starred songs, albums and artists at once, so it is fetched a single time and each list is
+ * derived from it; callers asking while the request is in flight wait on that same request.
+ * The snapshot is dropped by {@link #invalidate()} (after a star or unstar), when the server
+ * changes, or after {@link #SNAPSHOT_TTL_MS} to pick up changes made from other clients.
+ */
+public class StarredRepository {
+    private static final long SNAPSHOT_TTL_MS = 5 * 60 * 1000;
+
+    private static ListenableFuture<Starred2> snapshot;
+    private static Subsonic snapshotClient;
+    private static long snapshotTime;
+
+    /**
+     * Every call returns a new list, so callers are free to shuffle or filter it.
+     */
+    public ListenableFuture<List<Child>> getStarredSongs() {
+        return Futures.transform(getSnapshot(), starred -> starred.getSongs() != null ? new ArrayList<>(starred.getSongs()) : new ArrayList<>(), MoreExecutors.directExecutor());
+    }
+
+    public ListenableFuture<List<AlbumID3>> getStarredAlbums() {
+        return Futures.transform(getSnapshot(), starred -> starred.getAlbums() != null ? new ArrayList<>(starred.getAlbums()) : new ArrayList<>(), MoreExecutors.directExecutor());
+    }
+
+    public ListenableFuture<List<ArtistID3>> getStarredArtists() {
+        return Futures.transform(getSnapshot(), starred -> starred.getArtists() != null ? new ArrayList<>(starred.getArtists()) : new ArrayList<>(), MoreExecutors.directExecutor());
+    }
+
+    /**
+     * Drops the snapshot. A request already in flight still answers its callers, but its
+     * result is not kept since it may predate the change.
+     */
+    public static synchronized void invalidate() {
+        snapshot = null;
+    }
+
+    private static synchronized ListenableFuture<Starred2> getSnapshot() {
+        Subsonic subsonic = App.getSubsonicClientInstance(false);
+
+        if (snapshot != null && snapshotClient == subsonic && System.currentTimeMillis() - snapshotTime < SNAPSHOT_TTL_MS) {
+            return snapshot;
+        }
+
+        SettableFuture<Starred2> future = SettableFuture.create();
+
+        snapshot = future;
+        snapshotClient = subsonic;
+        snapshotTime = System.currentTimeMillis();
+
+        subsonic.getRequestScheduler()
+                .enqueue(subsonic.getAlbumSongListClient().getStarred2(), new Callback<ApiResponse>() {
+                    @Override
+                    public void onResponse(@NonNull Call<ApiResponse> call, @NonNull Response<ApiResponse> response) {
+                        if (response.isSuccessful() && response.body() != null && response.body().getSubsonicResponse().getStarred2() != null) {
+                            future.set(response.body().getSubsonicResponse().getStarred2());
+                        } else {
+                            discard(future);
+                            future.setException(new IOException("getStarred2 failed: " + response.code()));
+                        }
+                    }
+
+                    @Override
+                    public void onFailure(@NonNull Call<ApiResponse> call, @NonNull Throwable t) {
+                        discard(future);
+                        future.setException(t);
+                    }
+                });
+
+        return future;
+    }
+
+    // Failures are not cached, the next caller tries again
+    private static synchronized void discard(ListenableFuture<Starred2> future) {
+        if (snapshot == future) snapshot = null;
+    }
+}
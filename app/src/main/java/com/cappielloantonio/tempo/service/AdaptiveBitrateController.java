@@ -0,0 +1,105 @@
+package com.cappielloantonio.tempo.service;
+
+import android.net.Uri;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.media3.common.C;
+import androidx.media3.common.MediaItem;
+import androidx.media3.common.Player;
+import androidx.media3.common.Timeline;
+import androidx.media3.common.util.UnstableApi;
+
+import com.cappielloantonio.tempo.util.AdaptiveBitrateSelector;
+import com.cappielloantonio.tempo.util.MediaMetadataStore;
+import com.cappielloantonio.tempo.util.MusicUtil;
+
+/**
+ * Feeds the rebuffers of the local player to {@link AdaptiveBitrateSelector} and moves the
+ * upcoming items the player hasn't started loading to the bitrate currently selected, so that a
+ * queue built on a good link doesn't keep stalling once the link degrades, and the other way
+ * around.
+ */
+@UnstableApi
+public class AdaptiveBitrateController implements Player.Listener {
+    private static final int LOOK_AHEAD = 5;
+
+    private final Player player;
+
+    private int lastPlaybackState;
+    private boolean isSeeking;
+
+    public AdaptiveBitrateController(Player player) {
+        this.player = player;
+        this.lastPlaybackState = player.getPlaybackState();
+
+        player.addListener(this);
+    }
+
+    public void release() {
+        player.removeListener(this);
+    }
+
+    @Override
+    public void onPositionDiscontinuity(@NonNull Player.PositionInfo oldPosition, @NonNull Player.PositionInfo newPosition, int reason) {
+        if (reason == Player.DISCONTINUITY_REASON_SEEK) isSeeking = true;
+    }
+
+    @Override
+    public void onPlaybackStateChanged(int playbackState) {
+        // Buffering after a seek is expected, only a stall during playback counts
+        if (playbackState == Player.STATE_BUFFERING && lastPlaybackState == Player.STATE_READY && player.getPlayWhenReady() && !isSeeking) {
+            AdaptiveBitrateSelector.onRebuffer();
+            adaptUpcomingMediaItems();
+        }
+
+        if (playbackState == Player.STATE_READY) isSeeking = false;
+
+        lastPlaybackState = playbackState;
+    }
+
+    @Override
+    public void onMediaItemTransition(@Nullable MediaItem mediaItem, int reason) {
+        adaptUpcomingMediaItems();
+    }
+
+    private void adaptUpcomingMediaItems() {
+        Timeline timeline = player.getCurrentTimeline();
+
+        if (timeline.isEmpty()) return;
+
+        int currentIndex = player.getCurrentMediaItemIndex();
+        int index = currentIndex;
+
+        // Once the current item is fully buffered the player is already loading the next one
+        boolean isLoadingNext = player.getDuration() != C.TIME_UNSET && player.getBufferedPosition() >= player.getDuration();
+        Timeline.Window window = new Timeline.Window();
+
+        for (int i = 0; i < LOOK_AHEAD; i++) {
+            index = timeline.getNextWindowIndex(index, player.getRepeatMode() == Player.REPEAT_MODE_ONE ? Player.REPEAT_MODE_OFF : player.getRepeatMode(), player.getShuffleModeEnabled());
+            if (index == C.INDEX_UNSET || index == currentIndex) return;
+            if (i == 0 && isLoadingNext) continue;
+
+            MediaItem mediaItem = timeline.getWindow(index, window).mediaItem;
+            MediaItem adapted = adapt(mediaItem);
+
+            if (adapted != mediaItem) player.replaceMediaItem(index, adapted);
+        }
+    }
+
+    private MediaItem adapt(MediaItem mediaItem) {
+        if (mediaItem.localConfiguration == null) return mediaItem;
+
+        Uri uri = mediaItem.localConfiguration.uri;
+        Uri adaptedUri = MusicUtil.getAdaptedStreamUri(uri);
+
+        if (adaptedUri.equals(uri)) return mediaItem;
+
+        MediaMetadataStore.setUri(mediaItem.mediaMetadata.extras, adaptedUri.toString());
+
+        return mediaItem.buildUpon()
+                .setUri(adaptedUri)
+                .setRequestMetadata(mediaItem.requestMetadata.buildUpon().setMediaUri(adaptedUri).build())
+                .build();
+    }
+}
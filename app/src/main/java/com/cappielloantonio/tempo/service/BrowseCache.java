@@ -0,0 +1,144 @@
+package com.cappielloantonio.tempo.service;
+
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.media3.common.MediaItem;
+import androidx.media3.session.LibraryResult;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Keeps the children of the browse tree nodes loaded for Android Auto, so that opening a node
+ * again, or asking for the following page of it, does not go back to the server.
+ * <ul>
+ *     <li>a result younger than its time to live is served as is;</li>
+ *     <li>an older one is still served right away, up to {@link #MAX_STALE_MS}, while it is
+ *     loaded again in the background for the next time (stale while revalidate);</li>
+ *     <li>loads of the same node are shared, a failed reload keeps the previous result.</li>
+ * </ul>
+ * Items resolve through the session media items written by the load, so the cache has to be
+ * cleared whenever those are.
+ */
+public class BrowseCache {
+    private static final String TAG = "BrowseCache";
+
+    public static final long TTL_SHORT_MS = 60 * 1000;
+    public static final long TTL_MEDIUM_MS = 5 * 60 * 1000;
+    public static final long TTL_LONG_MS = 30 * 60 * 1000;
+
+    private static final long MAX_STALE_MS = 6 * 60 * 60 * 1000;
+    private static final int MAX_ENTRIES = 64;
+
+    private final Map<String, Entry> entries = new LinkedHashMap<String, Entry>(MAX_ENTRIES, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+
+    /**
+     * @param id     the node whose children are asked for
+     * @param ttl    how long a result of this node stays fresh
+     * @param loader loads the children from the repository
+     */
+    public synchronized ListenableFuture<LibraryResult<ImmutableList<MediaItem>>> get(String id, long ttl, Supplier<ListenableFuture<LibraryResult<ImmutableList<MediaItem>>>> loader) {
+        Entry entry = entries.get(id);
+        long now = SystemClock.elapsedRealtime();
+
+        if (entry != null && entry.items != null) {
+            long age = now - entry.loadedAt;
+
+            if (age < ttl) {
+                return Futures.immediateFuture(LibraryResult.ofItemList(entry.items, null));
+            }
+
+            if (age < MAX_STALE_MS) {
+                if (entry.loading == null) load(id, entry, loader);
+                return Futures.immediateFuture(LibraryResult.ofItemList(entry.items, null));
+            }
+        }
+
+        if (entry == null) {
+            entry = new Entry();
+            entries.put(id, entry);
+        }
+
+        return entry.loading != null ? entry.loading : load(id, entry, loader);
+    }
+
+    /**
+     * Loads the children of a node ahead of it being opened, unless fresh ones are already here.
+     */
+    public void prefetch(String id, long ttl, Supplier<ListenableFuture<LibraryResult<ImmutableList<MediaItem>>>> loader) {
+        get(id, ttl, loader);
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    /**
+     * @return the given page of a result, all of it when no page size is set
+     */
+    public static LibraryResult<ImmutableList<MediaItem>> getPage(LibraryResult<ImmutableList<MediaItem>> result, int page, int pageSize) {
+        if (result.resultCode != LibraryResult.RESULT_SUCCESS || result.value == null) return result;
+        if (page < 0 || pageSize <= 0 || pageSize == Integer.MAX_VALUE) return result;
+
+        ImmutableList<MediaItem> items = result.value;
+        long from = (long) page * pageSize;
+
+        if (from == 0 && pageSize >= items.size()) return result;
+        if (from >= items.size()) return LibraryResult.ofItemList(ImmutableList.of(), result.params);
+
+        return LibraryResult.ofItemList(items.subList((int) from, (int) Math.min(from + pageSize, items.size())), result.params);
+    }
+
+    private ListenableFuture<LibraryResult<ImmutableList<MediaItem>>> load(String id, Entry entry, Supplier<ListenableFuture<LibraryResult<ImmutableList<MediaItem>>>> loader) {
+        ListenableFuture<LibraryResult<ImmutableList<MediaItem>>> loading = loader.get();
+        entry.loading = loading;
+
+        Futures.addCallback(loading, new FutureCallback<LibraryResult<ImmutableList<MediaItem>>>() {
+            @Override
+            public void onSuccess(@Nullable LibraryResult<ImmutableList<MediaItem>> result) {
+                synchronized (BrowseCache.this) {
+                    entry.loading = null;
+
+                    if (result != null && result.resultCode == LibraryResult.RESULT_SUCCESS && result.value != null) {
+                        entry.items = result.value;
+                        entry.loadedAt = SystemClock.elapsedRealtime();
+                    }
+                }
+            }
+
+            @Override
+            public void onFailure(@NonNull Throwable t) {
+                synchronized (BrowseCache.this) {
+                    entry.loading = null;
+                }
+
+                Log.w(TAG, "Could not load " + id, t);
+            }
+        }, MoreExecutors.directExecutor());
+
+        return loading;
+    }
+
+    private static class Entry {
+        @Nullable
+        ImmutableList<MediaItem> items;
+        long loadedAt;
+        @Nullable
+        ListenableFuture<LibraryResult<ImmutableList<MediaItem>>> loading;
+    }
+}
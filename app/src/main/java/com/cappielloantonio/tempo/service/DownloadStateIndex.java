@@ -0,0 +1,133 @@
+package com.cappielloantonio.tempo.service;
+
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+
+import androidx.annotation.Nullable;
+import androidx.media3.common.util.UnstableApi;
+import androidx.media3.exoplayer.offline.Download;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Download state of every media id known to the download manager. It is written from the
+ * download manager callbacks and read from any thread, adapter binds and media mapping
+ * included. Listeners are told on the main thread which ids changed, changes made in a burst
+ * (a batch completing, a remove all) reaching them as a single call.
+ */
+@UnstableApi
+public class DownloadStateIndex {
+    public enum AggregateState {
+        ALL,
+        SOME,
+        NONE
+    }
+
+    public interface Listener {
+        void onDownloadStateChanged(Set<String> ids);
+    }
+
+    private final Map<String, Download> downloads = new ConcurrentHashMap<>();
+    private final CopyOnWriteArrayList<Listener> listeners = new CopyOnWriteArrayList<>();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    private Set<String> pendingChanges = new HashSet<>();
+
+    public boolean isDownloaded(String id) {
+        @Nullable Download download = id != null ? downloads.get(id) : null;
+        return download != null && download.state != Download.STATE_FAILED;
+    }
+
+    /**
+     * @return the uri the given id was requested from, null if the download manager doesn't know
+     * the id
+     */
+    @Nullable
+    public Uri getUri(String id) {
+        @Nullable Download download = id != null ? downloads.get(id) : null;
+        return download != null ? download.request.uri : null;
+    }
+
+    /**
+     * @return the ids among the given ones that are downloaded
+     */
+    public Set<String> getDownloaded(Collection<String> ids) {
+        Set<String> downloaded = new HashSet<>();
+
+        for (String id : ids) {
+            if (isDownloaded(id)) downloaded.add(id);
+        }
+
+        return downloaded;
+    }
+
+    /**
+     * State of a group of ids as a whole, such as the tracks of an album or a playlist.
+     */
+    public AggregateState getAggregateState(Collection<String> ids) {
+        int downloaded = 0;
+
+        for (String id : ids) {
+            if (isDownloaded(id)) downloaded++;
+        }
+
+        if (downloaded == 0) return AggregateState.NONE;
+        return downloaded == ids.size() ? AggregateState.ALL : AggregateState.SOME;
+    }
+
+    /**
+     * Copy of the index at the time of the call, unaffected by later changes.
+     */
+    public Map<String, Download> snapshot() {
+        return Collections.unmodifiableMap(new HashMap<>(downloads));
+    }
+
+    public void addListener(Listener listener) {
+        listeners.addIfAbsent(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    void put(Download download) {
+        downloads.put(download.request.id, download);
+        notifyChanged(download.request.id);
+    }
+
+    void remove(String id) {
+        if (downloads.remove(id) != null) notifyChanged(id);
+    }
+
+    private void notifyChanged(String id) {
+        boolean isScheduled;
+
+        synchronized (this) {
+            isScheduled = !pendingChanges.isEmpty();
+            pendingChanges.add(id);
+        }
+
+        if (!isScheduled) mainHandler.post(this::dispatchChanges);
+    }
+
+    private void dispatchChanges() {
+        Set<String> changes;
+
+        synchronized (this) {
+            changes = Collections.unmodifiableSet(pendingChanges);
+            pendingChanges = new HashSet<>();
+        }
+
+        for (Listener listener : listeners) {
+            listener.onDownloadStateChanged(changes);
+        }
+    }
+}
@@ -3,8 +3,11 @@ package com.cappielloantonio.tempo.service;
 import static androidx.media3.common.util.Assertions.checkNotNull;
 
 import android.content.Context;
+import android.os.Handler;
 
+import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import androidx.media3.common.C;
 import androidx.media3.common.MediaItem;
 import androidx.media3.common.util.Log;
 import androidx.media3.common.util.UnstableApi;
@@ -20,32 +23,91 @@ import androidx.media3.exoplayer.offline.DownloadService;
 
 import com.cappielloantonio.tempo.repository.DownloadRepository;
 import com.cappielloantonio.tempo.util.DownloadUtil;
+import com.cappielloantonio.tempo.util.NetworkUtil;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
+/**
+ * Queues downloads straight into the {@link DownloadManager}, a batch at a time, and runs them
+ * by {@link Priority} lane: downloads of a lane only run once no download of a higher lane is
+ * waiting, the others are held with {@link #STOP_REASON_LANE}. The number of parallel downloads
+ * follows the link quality, up to {@link #MAX_PARALLEL_DOWNLOADS}.
+ * The lanes are not persisted, after a restart held downloads run in the {@link Priority#USER}
+ * lane.
+ */
 @UnstableApi
 public class DownloaderManager {
     private static final String TAG = "DownloaderManager";
 
+    public static final int MAX_PARALLEL_DOWNLOADS = 4;
+    // Below this estimate parallel downloads only slow each other down
+    private static final long SLOW_LINK_BITRATE = 1_000_000;
+    private static final int STOP_REASON_LANE = 0x1A4E;
+
+    public enum Priority {
+        // The item being played
+        PLAYING,
+        // Asked for by the user
+        USER,
+        // Starred sync
+        SYNC
+    }
+
     private final Context context;
     private final DataSource.Factory dataSourceFactory;
+    private final DownloadManager downloadManager;
     private final DownloadIndex downloadIndex;
+    private final Map<String, Priority> lanes = new HashMap<>();
 
-    private static HashMap<String, Download> downloads;
+    private static final DownloadStateIndex downloadStateIndex = new DownloadStateIndex();
 
     public DownloaderManager(Context context, DataSource.Factory dataSourceFactory, DownloadManager downloadManager) {
         this.context = context.getApplicationContext();
         this.dataSourceFactory = dataSourceFactory;
+        this.downloadManager = downloadManager;
 
-        downloads = new HashMap<>();
         downloadIndex = downloadManager.getDownloadIndex();
 
         loadDownloads();
+
+        downloadManager.addListener(new DownloadManager.Listener() {
+            @Override
+            public void onDownloadChanged(@NonNull DownloadManager downloadManager, @NonNull Download download, @Nullable Exception finalException) {
+                if (download.isTerminalState()) lanes.remove(download.request.id);
+                updateLanes();
+            }
+
+            @Override
+            public void onDownloadRemoved(@NonNull DownloadManager downloadManager, @NonNull Download download) {
+                lanes.remove(download.request.id);
+                updateLanes();
+            }
+        });
+
+        // Moving to or from a metered network changes no download, the limit is re-applied here
+        Handler handler = Util.createHandlerForCurrentOrMainLooper();
+        NetworkUtil.addListener(() -> handler.post(() -> downloadManager.setMaxParallelDownloads(getParallelDownloads())));
     }
 
     private DownloadRequest buildDownloadRequest(MediaItem mediaItem) {
+        MediaItem.LocalConfiguration localConfiguration = checkNotNull(mediaItem.localConfiguration);
+
+        // Progressive audio needs no preparation, the request is built without a DownloadHelper
+        if (Util.inferContentTypeForUriAndMimeType(localConfiguration.uri, localConfiguration.mimeType) == C.CONTENT_TYPE_OTHER) {
+            return new DownloadRequest.Builder(mediaItem.mediaId, localConfiguration.uri)
+                    .setMimeType(localConfiguration.mimeType)
+                    .setCustomCacheKey(localConfiguration.customCacheKey)
+                    .setData(Util.getUtf8Bytes(mediaItem.mediaId))
+                    .build();
+        }
+
         return DownloadHelper
                 .forMediaItem(
                         context,
@@ -56,36 +118,76 @@ public class DownloaderManager {
                 .copyWithId(mediaItem.mediaId);
     }
 
+    public DownloadStateIndex getDownloadStateIndex() {
+        return downloadStateIndex;
+    }
+
     public boolean isDownloaded(String mediaId) {
-        @Nullable Download download = downloads.get(mediaId);
-        return download != null && download.state != Download.STATE_FAILED;
+        return downloadStateIndex.isDownloaded(mediaId);
     }
 
     public boolean isDownloaded(MediaItem mediaItem) {
         return isDownloaded(mediaItem.mediaId);
     }
 
+    /**
+     * @return whether at least one of the items is downloaded
+     */
     public boolean areDownloaded(List<MediaItem> mediaItems) {
-        return mediaItems.stream().anyMatch(this::isDownloaded);
+        List<String> ids = new ArrayList<>(mediaItems.size());
+
+        for (MediaItem mediaItem : mediaItems) {
+            ids.add(mediaItem.mediaId);
+        }
+
+        return downloadStateIndex.getAggregateState(ids) != DownloadStateIndex.AggregateState.NONE;
     }
 
     public void download(MediaItem mediaItem, com.cappielloantonio.tempo.model.Download download) {
-        download.setDownloadUri(mediaItem.requestMetadata.mediaUri.toString());
+        download(mediaItem, download, Priority.USER);
+    }
 
-        DownloadService.sendAddDownload(context, DownloaderService.class, buildDownloadRequest(mediaItem), false);
-        insertDatabase(download);
+    public void download(MediaItem mediaItem, com.cappielloantonio.tempo.model.Download download, Priority priority) {
+        List<MediaItem> mediaItems = new ArrayList<>();
+        List<com.cappielloantonio.tempo.model.Download> downloads = new ArrayList<>();
+
+        mediaItems.add(mediaItem);
+        downloads.add(download);
+
+        download(mediaItems, downloads, priority);
     }
 
     public void download(List<MediaItem> mediaItems, List<com.cappielloantonio.tempo.model.Download> downloads) {
+        download(mediaItems, downloads, Priority.USER);
+    }
+
+    /**
+     * Queues the whole batch with the download manager, writes its rows in a single transaction
+     * and starts the download service once. Must be called on the main thread.
+     */
+    public void download(List<MediaItem> mediaItems, List<com.cappielloantonio.tempo.model.Download> downloads, Priority priority) {
+        if (mediaItems.isEmpty()) return;
+
+        boolean isHeld = hasPendingDownloads(priority.ordinal() - 1);
+
         for (int counter = 0; counter < mediaItems.size(); counter++) {
-            download(mediaItems.get(counter), downloads.get(counter));
+            MediaItem mediaItem = mediaItems.get(counter);
+
+            downloads.get(counter).setDownloadUri(mediaItem.requestMetadata.mediaUri.toString());
+            lanes.put(mediaItem.mediaId, priority);
+            downloadManager.addDownload(buildDownloadRequest(mediaItem), isHeld ? STOP_REASON_LANE : Download.STOP_REASON_NONE);
         }
+
+        insertDatabase(downloads);
+        updateLanes();
+
+        DownloadService.start(context, DownloaderService.class);
     }
 
     public void remove(MediaItem mediaItem, com.cappielloantonio.tempo.model.Download download) {
-        DownloadService.sendRemoveDownload(context, DownloaderService.class, buildDownloadRequest(mediaItem).id, false);
+        DownloadService.sendRemoveDownload(context, DownloaderService.class, mediaItem.mediaId, false);
         deleteDatabase(download.getId());
-        downloads.remove(download.getId());
+        downloadStateIndex.remove(download.getId());
     }
 
     public void remove(List<MediaItem> mediaItems, List<com.cappielloantonio.tempo.model.Download> downloads) {
@@ -100,38 +202,85 @@ public class DownloaderManager {
         DownloadUtil.eraseDownloadFolder(context);
     }
 
+    /**
+     * Lets the highest lane with waiting downloads run and holds the lanes below it, then sizes
+     * the parallel downloads to the current link.
+     */
+    private void updateLanes() {
+        Priority top = null;
+
+        for (Download download : downloadManager.getCurrentDownloads()) {
+            Priority lane = getLane(download);
+            if (top == null || lane.ordinal() < top.ordinal()) top = lane;
+        }
+
+        if (top == null) return;
+
+        for (Download download : downloadManager.getCurrentDownloads()) {
+            boolean isHeld = getLane(download) != top;
+
+            if (isHeld && download.stopReason == Download.STOP_REASON_NONE) {
+                downloadManager.setStopReason(download.request.id, STOP_REASON_LANE);
+            } else if (!isHeld && download.stopReason == STOP_REASON_LANE) {
+                downloadManager.setStopReason(download.request.id, Download.STOP_REASON_NONE);
+            }
+        }
+
+        downloadManager.setMaxParallelDownloads(getParallelDownloads());
+    }
+
+    private boolean hasPendingDownloads(int maxLane) {
+        for (Download download : downloadManager.getCurrentDownloads()) {
+            if (getLane(download).ordinal() <= maxLane) return true;
+        }
+
+        return false;
+    }
+
+    private Priority getLane(Download download) {
+        Priority lane = lanes.get(download.request.id);
+        return lane != null ? lane : Priority.USER;
+    }
+
+    private int getParallelDownloads() {
+        if (DownloadUtil.getBandwidthMeter(context).getBitrateEstimate() < SLOW_LINK_BITRATE) return 1;
+        return NetworkUtil.isMetered() ? 2 : MAX_PARALLEL_DOWNLOADS;
+    }
+
     private void loadDownloads() {
         try (DownloadCursor loadedDownloads = downloadIndex.getDownloads()) {
             while (loadedDownloads.moveToNext()) {
                 Download download = loadedDownloads.getDownload();
-                downloads.put(download.request.id, download);
+                downloadStateIndex.put(download);
             }
         } catch (IOException e) {
             Log.w(TAG, "Failed to query downloads", e);
         }
     }
 
-    public static String getDownloadNotificationMessage(String id) {
-        com.cappielloantonio.tempo.model.Download download = getDownloadRepository().getDownload(id);
-        return download != null ? download.getTitle() : null;
+    public static ListenableFuture<String> getDownloadNotificationMessage(String id) {
+        return Futures.transform(
+                getDownloadRepository().getDownload(id),
+                download -> download != null ? download.getTitle() : null,
+                MoreExecutors.directExecutor());
     }
 
     public static void updateRequestDownload(Download download) {
         updateDatabase(download.request.id);
-        downloads.put(download.request.id, download);
+        downloadStateIndex.put(download);
     }
 
     public static void removeRequestDownload(Download download) {
         deleteDatabase(download.request.id);
-        downloads.remove(download.request.id);
+        downloadStateIndex.remove(download.request.id);
     }
 
     private static DownloadRepository getDownloadRepository() {
         return new DownloadRepository();
     }
 
-    private static void insertDatabase(com.cappielloantonio.tempo.model.Download download) {
-        getDownloadRepository().insert(download);
+    private static void insertDatabase(List<com.cappielloantonio.tempo.model.Download> downloads) {
+        getDownloadRepository().insertAll(downloads);
     }
 
     private static void deleteDatabase(String id) {
@@ -5,6 +5,7 @@ import android.content.Context;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import androidx.core.content.ContextCompat;
 import androidx.media3.common.util.NotificationUtil;
 import androidx.media3.common.util.UnstableApi;
 import androidx.media3.exoplayer.offline.Download;
@@ -16,6 +17,8 @@ import androidx.media3.exoplayer.scheduler.Scheduler;
 
 import com.cappielloantonio.tempo.R;
 import com.cappielloantonio.tempo.util.DownloadUtil;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
 
 import java.util.List;
 
@@ -89,22 +92,42 @@ public class DownloaderService extends androidx.media3.exoplayer.offline.Downloa
 
         @Override
         public void onDownloadChanged(@NonNull DownloadManager downloadManager, Download download, @Nullable Exception finalException) {
+            if (download.state == Download.STATE_COMPLETED) {
+                DownloaderManager.updateRequestDownload(download);
+            } else if (download.state != Download.STATE_FAILED) {
+                return;
+            }
+
+            int notificationId = nextNotificationId++;
+
+            // The title is read from the database, the notification is posted once it is there
+            Futures.addCallback(DownloaderManager.getDownloadNotificationMessage(download.request.id), new FutureCallback<String>() {
+                @Override
+                public void onSuccess(@Nullable String message) {
+                    setNotification(download, notificationId, message);
+                }
+
+                @Override
+                public void onFailure(@NonNull Throwable t) {
+                    setNotification(download, notificationId, null);
+                }
+            }, ContextCompat.getMainExecutor(context));
+        }
+
+        private void setNotification(Download download, int notificationId, @Nullable String message) {
             Notification notification;
 
             if (download.state == Download.STATE_COMPLETED) {
-                notification = notificationHelper.buildDownloadCompletedNotification(context, R.drawable.ic_check_circle, null, DownloaderManager.getDownloadNotificationMessage(download.request.id));
+                notification = notificationHelper.buildDownloadCompletedNotification(context, R.drawable.ic_check_circle, null, message);
                 notification = Notification.Builder.recoverBuilder(context, notification).setGroup(DownloadUtil.DOWNLOAD_NOTIFICATION_SUCCESSFUL_GROUP).build();
-                NotificationUtil.setNotification(this.context, successfulDownloadGroupNotificationId, successfulDownloadGroupNotification);
-                DownloaderManager.updateRequestDownload(download);
-            } else if (download.state == Download.STATE_FAILED) {
-                notification = notificationHelper.buildDownloadFailedNotification(context, R.drawable.ic_error, null, DownloaderManager.getDownloadNotificationMessage(download.request.id));
-                notification = Notification.Builder.recoverBuilder(context, notification).setGroup(DownloadUtil.DOWNLOAD_NOTIFICATION_FAILED_GROUP).build();
-                NotificationUtil.setNotification(this.context, failedDownloadGroupNotificationId, failedDownloadGroupNotification);
+                NotificationUtil.setNotification(context, successfulDownloadGroupNotificationId, successfulDownloadGroupNotification);
             } else {
-                return;
+                notification = notificationHelper.buildDownloadFailedNotification(context, R.drawable.ic_error, null, message);
+                notification = Notification.Builder.recoverBuilder(context, notification).setGroup(DownloadUtil.DOWNLOAD_NOTIFICATION_FAILED_GROUP).build();
+                NotificationUtil.setNotification(context, failedDownloadGroupNotificationId, failedDownloadGroupNotification);
             }
 
-            NotificationUtil.setNotification(context, nextNotificationId++, notification);
+            NotificationUtil.setNotification(context, notificationId, notification);
         }
 
         @Override
@@ -6,6 +6,7 @@ import android.util.Log;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.annotation.OptIn;
+import androidx.core.content.ContextCompat;
 import androidx.lifecycle.LifecycleOwner;
 import androidx.lifecycle.LiveData;
 import androidx.lifecycle.Observer;
@@ -19,6 +20,7 @@ import androidx.media3.session.SessionToken;
 import com.cappielloantonio.tempo.App;
 import com.cappielloantonio.tempo.interfaces.MediaIndexCallback;
 import com.cappielloantonio.tempo.model.Chronology;
+import com.cappielloantonio.tempo.model.Queue;
 import com.cappielloantonio.tempo.repository.ChronologyRepository;
 import com.cappielloantonio.tempo.repository.QueueRepository;
 import com.cappielloantonio.tempo.repository.SongRepository;
@@ -110,6 +112,7 @@ public class MediaManager {
                             mediaBrowserListenableFuture.get().pause();
                         }
 
+                        QueueWindow.close(mediaBrowserListenableFuture.get());
                         mediaBrowserListenableFuture.get().stop();
                         mediaBrowserListenableFuture.get().clearMediaItems();
                         clearDatabase();
@@ -143,10 +146,19 @@ public class MediaManager {
                 try {
                     if (mediaBrowserListenableFuture.isDone()) {
                         if (mediaBrowserListenableFuture.get().getMediaItemCount() < 1) {
-                            List<Child> media = getQueueRepository().getMedia();
-                            if (media != null && media.size() >= 1) {
-                                init(mediaBrowserListenableFuture, media);
-                            }
+                            Futures.addCallback(getQueueRepository().getMedia(), new FutureCallback<List<Child>>() {
+                                @Override
+                                public void onSuccess(List<Child> media) {
+                                    if (media != null && media.size() >= 1) {
+                                        init(mediaBrowserListenableFuture, media);
+                                    }
+                                }
+
+                                @Override
+                                public void onFailure(@NonNull Throwable t) {
+                                    Log.e(TAG, "Failed to restore queue", t);
+                                }
+                            }, ContextCompat.getMainExecutor(App.getContext()));
                         }
                     }
                 } catch (ExecutionException | InterruptedException e) {
@@ -161,10 +173,32 @@ public class MediaManager {
             mediaBrowserListenableFuture.addListener(() -> {
                 try {
                     if (mediaBrowserListenableFuture.isDone()) {
-                        mediaBrowserListenableFuture.get().clearMediaItems();
-                        mediaBrowserListenableFuture.get().setMediaItems(MappingUtil.mapMediaItems(media));
-                        mediaBrowserListenableFuture.get().seekTo(getQueueRepository().getLastPlayedMediaIndex(), getQueueRepository().getLastPlayedMediaTimestamp());
-                        mediaBrowserListenableFuture.get().prepare();
+                        MediaBrowser browser = mediaBrowserListenableFuture.get();
+                        QueueWindow.close(browser);
+                        browser.clearMediaItems();
+                        browser.setMediaItems(MappingUtil.mapMediaItems(media));
+
+                        ListenableFuture<Integer> lastPlayedIndex = getQueueRepository().getLastPlayedMediaIndex();
+                        ListenableFuture<Queue> lastPlayedMedia = getQueueRepository().getLastPlayedMedia();
+
+                        Futures.addCallback(Futures.<Object>allAsList(lastPlayedIndex, lastPlayedMedia), new FutureCallback<List<Object>>() {
+                            @Override
+                            public void onSuccess(List<Object> result) {
+                                Integer index = (Integer) result.get(0);
+                                Queue lastPlayed = (Queue) result.get(1);
+
+                                if (index != null && lastPlayed != null) {
+                                    browser.seekTo(index, lastPlayed.getPlayingChanged());
+                                }
+
+                                browser.prepare();
+                            }
+
+                            @Override
+                            public void onFailure(@NonNull Throwable t) {
+                                browser.prepare();
+                            }
+                        }, ContextCompat.getMainExecutor(App.getContext()));
                     }
                 } catch (ExecutionException | InterruptedException e) {
                     e.printStackTrace();
@@ -179,16 +213,20 @@ public class MediaManager {
                 try {
                     if (mediaBrowserListenableFuture.isDone()) {
                         MediaBrowser browser = mediaBrowserListenableFuture.get();
+                        List<Child> window = QueueWindow.getWindow(media, startIndex);
+                        int windowIndex = QueueWindow.getWindowPosition(media, startIndex);
+
                         browser.clearMediaItems();
-                        browser.setMediaItems(MappingUtil.mapMediaItems(media));
+                        browser.setMediaItems(MappingUtil.mapMediaItems(window));
+                        QueueWindow.open(browser, media, startIndex);
                         browser.prepare();
 
                         Player.Listener timelineListener = new Player.Listener() {
                             @Override
                             public void onTimelineChanged(Timeline timeline, int reason) {
                                 int itemCount = browser.getMediaItemCount();
-                                if (itemCount > 0 && startIndex >= 0 && startIndex < itemCount) {
-                                    browser.seekTo(startIndex, 0);
+                                if (itemCount > 0 && windowIndex >= 0 && windowIndex < itemCount) {
+                                    browser.seekTo(windowIndex, 0);
                                     browser.play();
                                     browser.removeListener(this);
                                 }
@@ -196,7 +234,7 @@ public class MediaManager {
                         };
                         browser.addListener(timelineListener);
 
-                        enqueueDatabase(media, true, 0);
+                        enqueueDatabase(window, true, 0);
                     }
                 } catch (ExecutionException | InterruptedException e) {
                     e.printStackTrace();
@@ -210,6 +248,7 @@ public class MediaManager {
             mediaBrowserListenableFuture.addListener(() -> {
                 try {
                     if (mediaBrowserListenableFuture.isDone()) {
+                        QueueWindow.close(mediaBrowserListenableFuture.get());
                         mediaBrowserListenableFuture.get().clearMediaItems();
                         mediaBrowserListenableFuture.get().setMediaItem(MappingUtil.mapMediaItem(media));
                         mediaBrowserListenableFuture.get().prepare();
@@ -228,6 +267,7 @@ public class MediaManager {
             mediaBrowserListenableFuture.addListener(() -> {
                 try {
                     if (mediaBrowserListenableFuture.isDone()) {
+                        QueueWindow.close(mediaBrowserListenableFuture.get());
                         mediaBrowserListenableFuture.get().clearMediaItems();
                         mediaBrowserListenableFuture.get().setMediaItem(MappingUtil.mapInternetRadioStation(internetRadioStation));
                         mediaBrowserListenableFuture.get().prepare();
@@ -245,6 +285,7 @@ public class MediaManager {
             mediaBrowserListenableFuture.addListener(() -> {
                 try {
                     if (mediaBrowserListenableFuture.isDone()) {
+                        QueueWindow.close(mediaBrowserListenableFuture.get());
                         mediaBrowserListenableFuture.get().clearMediaItems();
                         mediaBrowserListenableFuture.get().setMediaItem(MappingUtil.mapMediaItem(podcastEpisode));
                         mediaBrowserListenableFuture.get().prepare();
@@ -303,8 +344,8 @@ public class MediaManager {
                 try {
                     if (mediaBrowserListenableFuture.isDone()) {
                         mediaBrowserListenableFuture.get().removeMediaItems(startIndex, endIndex + 1);
-                        mediaBrowserListenableFuture.get().addMediaItems(MappingUtil.mapMediaItems(media).subList(startIndex, endIndex + 1));
-                        swapDatabase(media);
+                        mediaBrowserListenableFuture.get().addMediaItems(MappingUtil.mapMediaItems(media.subList(startIndex, endIndex + 1)));
+                        shuffleDatabase(media, startIndex, endIndex);
                     }
                 } catch (ExecutionException | InterruptedException e) {
                     e.printStackTrace();
@@ -319,7 +360,7 @@ public class MediaManager {
                 try {
                     if (mediaBrowserListenableFuture.isDone()) {
                         mediaBrowserListenableFuture.get().moveMediaItem(from, to);
-                        swapDatabase(media);
+                        moveDatabase(from, to);
                     }
                 } catch (ExecutionException | InterruptedException e) {
                     e.printStackTrace();
@@ -441,23 +482,25 @@ public class MediaManager {
         getQueueRepository().insert(media, reset, afterIndex);
     }
 
-    private static void swapDatabase(List<Child> media) {
-        getQueueRepository().insertAll(media, true, 0);
+    private static void moveDatabase(int from, int to) {
+        getQueueRepository().move(from, to);
+    }
+
+    private static void shuffleDatabase(List<Child> media, int startIndex, int endIndex) {
+        getQueueRepository().replaceRange(startIndex, endIndex + 1, media.subList(startIndex, endIndex + 1));
     }
 
     private static void removeDatabase(List<Child> media, int toRemove) {
         if (toRemove != -1) {
             media.remove(toRemove);
-            getQueueRepository().insertAll(media, true, 0);
+            getQueueRepository().delete(toRemove);
         }
     }
 
     private static void removeRangeDatabase(List<Child> media, int fromItem, int toItem) {
-        List<Child> toRemove = media.subList(fromItem, toItem);
-
-        media.removeAll(toRemove);
+        media.subList(fromItem, toItem).clear();
 
-        getQueueRepository().insertAll(media, true, 0);
+        getQueueRepository().deleteRange(fromItem, toItem);
     }
 
     public static void clearDatabase() {
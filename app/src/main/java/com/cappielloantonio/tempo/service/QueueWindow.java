@@ -0,0 +1,229 @@
+package com.cappielloantonio.tempo.service;
+
+import android.os.Bundle;
+import android.os.Handler;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.media3.common.C;
+import androidx.media3.common.MediaItem;
+import androidx.media3.common.Player;
+import androidx.media3.common.Timeline;
+import androidx.media3.common.util.UnstableApi;
+import androidx.media3.session.MediaController;
+import androidx.media3.session.SessionCommand;
+import androidx.media3.session.SessionResult;
+
+import com.cappielloantonio.tempo.repository.QueueRepository;
+import com.cappielloantonio.tempo.subsonic.models.Child;
+import com.cappielloantonio.tempo.util.Constants;
+import com.cappielloantonio.tempo.util.MappingUtil;
+
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Plays selections too large to be mapped and handed to the player at once, such as a whole
+ * library on shuffle. {@link MediaManager} only hands the player a window of
+ * {@link Constants#PLAYABLE_MEDIA_LIMIT} items around the tapped one, then sends the whole
+ * selection to the service with {@link #COMMAND_OPEN}. The service side keeps it and extends
+ * the window by {@link #EXTENSION} items whenever fewer than {@link #MARGIN} remain ahead of
+ * the current one.
+ * <ul>
+ *     <li>new items go right after the last item of the window, ahead of anything the user
+ *     queued at the end meanwhile, and are mirrored in the queue table;</li>
+ *     <li>items before the window are not brought back, previous stops at the start of the
+ *     window;</li>
+ *     <li>any other queue sent by the app closes the selection, and so does the last item of
+ *     the window leaving the queue, such as when another controller replaces it.</li>
+ * </ul>
+ * The selection is only touched on the player thread, items are mapped on a background thread.
+ */
+@UnstableApi
+public class QueueWindow implements Player.Listener {
+    public static final String COMMAND_OPEN = "com.cappielloantonio.tempo.service.QUEUE_WINDOW_OPEN";
+    public static final SessionCommand SESSION_COMMAND_OPEN = new SessionCommand(COMMAND_OPEN, Bundle.EMPTY);
+
+    private static final String ARG_MEDIA = "media";
+    private static final String ARG_TO = "to";
+
+    private static final int MARGIN = Constants.PRE_PLAYABLE_MEDIA;
+    private static final int EXTENSION = Constants.PLAYABLE_MEDIA_LIMIT / 2;
+
+    private static final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    private final Player player;
+    private final Handler handler;
+
+    @Nullable
+    private Selection selection;
+    private boolean isExtending;
+
+    public QueueWindow(Player player) {
+        this.player = player;
+        this.handler = new Handler(player.getApplicationLooper());
+
+        player.addListener(this);
+    }
+
+    public void release() {
+        player.removeListener(this);
+        handler.removeCallbacksAndMessages(null);
+        selection = null;
+    }
+
+    /**
+     * @return the part of the selection to hand the player, the whole of it when small enough
+     */
+    public static List<Child> getWindow(List<Child> media, int position) {
+        if (media.size() <= Constants.PLAYABLE_MEDIA_LIMIT) return media;
+
+        int from = getWindowStart(media, position);
+        return media.subList(from, from + Constants.PLAYABLE_MEDIA_LIMIT);
+    }
+
+    /**
+     * @return the position in the window of the item at the given position of the selection
+     */
+    public static int getWindowPosition(List<Child> media, int position) {
+        if (media.size() <= Constants.PLAYABLE_MEDIA_LIMIT) return position;
+
+        return position - getWindowStart(media, position);
+    }
+
+    /**
+     * Hands the service the selection whose window was just set on the controller. A selection
+     * small enough to have been set whole closes the previous one.
+     */
+    public static void open(MediaController controller, List<Child> media, int position) {
+        Bundle args = new Bundle();
+
+        if (media.size() > Constants.PLAYABLE_MEDIA_LIMIT) {
+            args.putParcelableArrayList(ARG_MEDIA, new ArrayList<>(media));
+            args.putInt(ARG_TO, getWindowStart(media, position) + Constants.PLAYABLE_MEDIA_LIMIT);
+        }
+
+        controller.sendCustomCommand(SESSION_COMMAND_OPEN, args);
+    }
+
+    /**
+     * Stops windowing, for when the queue is replaced by something else.
+     */
+    public static void close(MediaController controller) {
+        controller.sendCustomCommand(SESSION_COMMAND_OPEN, Bundle.EMPTY);
+    }
+
+    /**
+     * Handles {@link #COMMAND_OPEN} on the player thread.
+     */
+    public ListenableFuture<SessionResult> onOpen(Bundle args) {
+        ArrayList<Child> media = args.getParcelableArrayList(ARG_MEDIA);
+        int to = args.getInt(ARG_TO);
+
+        if (media == null || to <= 0 || to > media.size()) {
+            selection = null;
+        } else {
+            selection = new Selection(media, to);
+            extend();
+        }
+
+        return Futures.immediateFuture(new SessionResult(SessionResult.RESULT_SUCCESS));
+    }
+
+    @Override
+    public void onEvents(@NonNull Player player, @NonNull Player.Events events) {
+        if (selection != null && !isExtending && events.contains(Player.EVENT_TIMELINE_CHANGED) && indexOf(selection.getLastId()) == C.INDEX_UNSET) {
+            selection = null;
+        }
+
+        if (events.containsAny(
+                Player.EVENT_MEDIA_ITEM_TRANSITION,
+                Player.EVENT_TIMELINE_CHANGED,
+                Player.EVENT_SHUFFLE_MODE_ENABLED_CHANGED)) {
+            extend();
+        }
+    }
+
+    private void extend() {
+        Selection selection = this.selection;
+
+        if (selection == null || isExtending || selection.to >= selection.media.size()) return;
+        if (getUpcomingCount() >= MARGIN) return;
+
+        int to = Math.min(selection.to + EXTENSION, selection.media.size());
+        List<Child> chunk = new ArrayList<>(selection.media.subList(selection.to, to));
+
+        isExtending = true;
+
+        // Mapping looks the downloads up in the database, which the player thread can't wait for
+        executor.execute(() -> {
+            List<MediaItem> mediaItems = MappingUtil.mapMediaItems(chunk);
+
+            handler.post(() -> {
+                isExtending = false;
+                if (this.selection != selection) return;
+
+                int index = indexOf(selection.getLastId());
+
+                if (index == C.INDEX_UNSET) {
+                    this.selection = null;
+                    return;
+                }
+
+                selection.to = to;
+                player.addMediaItems(index + 1, mediaItems);
+                new QueueRepository().insertAll(chunk, false, index + 1);
+            });
+        });
+    }
+
+    private int getUpcomingCount() {
+        Timeline timeline = player.getCurrentTimeline();
+
+        if (timeline.isEmpty()) return 0;
+
+        int currentIndex = player.getCurrentMediaItemIndex();
+        int index = currentIndex;
+        int count = 0;
+
+        while (count < MARGIN) {
+            index = timeline.getNextWindowIndex(index, Player.REPEAT_MODE_OFF, player.getShuffleModeEnabled());
+            if (index == C.INDEX_UNSET) break;
+
+            count++;
+        }
+
+        return count;
+    }
+
+    private int indexOf(String mediaId) {
+        for (int i = player.getMediaItemCount() - 1; i >= 0; i--) {
+            if (player.getMediaItemAt(i).mediaId.equals(mediaId)) return i;
+        }
+
+        return C.INDEX_UNSET;
+    }
+
+    private static int getWindowStart(List<Child> media, int position) {
+        return Math.max(0, Math.min(position - Constants.PRE_PLAYABLE_MEDIA, media.size() - Constants.PLAYABLE_MEDIA_LIMIT));
+    }
+
+    private static class Selection {
+        final List<Child> media;
+        int to;
+
+        Selection(List<Child> media, int to) {
+            this.media = media;
+            this.to = to;
+        }
+
+        String getLastId() {
+            return media.get(to - 1).getId();
+        }
+    }
+}
@@ -0,0 +1,268 @@
+package com.cappielloantonio.tempo.service;
+
+import android.content.Context;
+import android.net.Uri;
+import android.os.Bundle;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.media3.common.C;
+import androidx.media3.common.MediaItem;
+import androidx.media3.common.MimeTypes;
+import androidx.media3.common.Player;
+import androidx.media3.common.PriorityTaskManager;
+import androidx.media3.common.Timeline;
+import androidx.media3.common.util.UnstableApi;
+import androidx.media3.datasource.DataSpec;
+import androidx.media3.datasource.cache.CacheWriter;
+
+import com.cappielloantonio.tempo.util.Constants;
+import com.cappielloantonio.tempo.util.DownloadUtil;
+import com.cappielloantonio.tempo.util.MediaMetadataStore;
+import com.cappielloantonio.tempo.util.NetworkUtil;
+import com.cappielloantonio.tempo.util.Preferences;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Writes the beginning of the next items of the queue into the streaming cache, so that the
+ * following track starts from disk instead of waiting on a cold network fetch.
+ * <ul>
+ *     <li>the {@link #LOOK_AHEAD} items following the current one, in play order, get their
+ *     first {@link #PREFETCH_SECONDS} seconds cached; the player buffers the rest itself;</li>
+ *     <li>prefetching only runs while the current item is ready, and yields to the player
+ *     through {@link DownloadUtil#getPriorityTaskManager()} whenever it is loading;</li>
+ *     <li>a queue, shuffle or repeat change cancels the work that no longer applies;</li>
+ *     <li>nothing is fetched on metered networks, for downloaded items or for radio streams,
+ *     and prefetching never takes more than a {@link #CACHE_SHARE} of the streaming cache.</li>
+ * </ul>
+ */
+@UnstableApi
+public class StreamingCachePrefetcher implements Player.Listener {
+    private static final String TAG = "StreamingCachePrefetcher";
+    private static final String THREAD_NAME = "tempo-prefetch";
+
+    private static final int LOOK_AHEAD = 2;
+    private static final int PREFETCH_SECONDS = 30;
+    private static final int CACHE_SHARE = 4;
+    // Assumed when neither the item nor its stream uri tell the bitrate
+    private static final int DEFAULT_BITRATE_KBPS = 320;
+
+    private final Context context;
+    private final Player player;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, THREAD_NAME);
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private PrefetchTask task;
+
+    public StreamingCachePrefetcher(Context context, Player player) {
+        this.context = context.getApplicationContext();
+        this.player = player;
+
+        player.addListener(this);
+    }
+
+    @Override
+    public void onEvents(@NonNull Player player, @NonNull Player.Events events) {
+        if (events.containsAny(
+                Player.EVENT_TIMELINE_CHANGED,
+                Player.EVENT_MEDIA_ITEM_TRANSITION,
+                Player.EVENT_SHUFFLE_MODE_ENABLED_CHANGED,
+                Player.EVENT_REPEAT_MODE_CHANGED,
+                Player.EVENT_PLAYBACK_STATE_CHANGED)) {
+            update();
+        }
+    }
+
+    public void release() {
+        player.removeListener(this);
+        cancel();
+        executor.shutdown();
+    }
+
+    private void update() {
+        List<DataSpec> dataSpecs = player.getPlaybackState() != Player.STATE_IDLE && !NetworkUtil.isMetered()
+                ? getPrefetchDataSpecs()
+                : Collections.emptyList();
+
+        if (task != null && !task.isCancelled && isSameWork(task.dataSpecs, dataSpecs)) return;
+
+        cancel();
+
+        // Wait for the current item to be ready so that its own start is never delayed
+        if (dataSpecs.isEmpty() || player.getPlaybackState() != Player.STATE_READY) return;
+
+        task = new PrefetchTask(dataSpecs);
+        executor.execute(task);
+    }
+
+    private void cancel() {
+        if (task != null) {
+            task.cancel();
+            task = null;
+        }
+    }
+
+    private static boolean isSameWork(List<DataSpec> a, List<DataSpec> b) {
+        if (a.size() != b.size()) return false;
+
+        for (int i = 0; i < a.size(); i++) {
+            if (!a.get(i).uri.equals(b.get(i).uri) || a.get(i).length != b.get(i).length) return false;
+        }
+
+        return true;
+    }
+
+    private List<DataSpec> getPrefetchDataSpecs() {
+        List<DataSpec> dataSpecs = new ArrayList<>();
+
+        long streamingCacheSize = Preferences.getStreamingCacheSize();
+        if (streamingCacheSize <= 0) return dataSpecs;
+
+        long budget = streamingCacheSize * 1024 * 1024 / CACHE_SHARE / LOOK_AHEAD;
+
+        for (MediaItem mediaItem : getUpcomingMediaItems()) {
+            DataSpec dataSpec = buildDataSpec(mediaItem, budget);
+            if (dataSpec != null) dataSpecs.add(dataSpec);
+        }
+
+        return dataSpecs;
+    }
+
+    private List<MediaItem> getUpcomingMediaItems() {
+        List<MediaItem> mediaItems = new ArrayList<>();
+        Timeline timeline = player.getCurrentTimeline();
+
+        if (timeline.isEmpty()) return mediaItems;
+
+        // Repeating the current item does not say anything about what comes after it
+        int repeatMode = player.getRepeatMode() == Player.REPEAT_MODE_ONE ? Player.REPEAT_MODE_OFF : player.getRepeatMode();
+        int currentIndex = player.getCurrentMediaItemIndex();
+        int index = currentIndex;
+        Timeline.Window window = new Timeline.Window();
+
+        for (int i = 0; i < LOOK_AHEAD; i++) {
+            index = timeline.getNextWindowIndex(index, repeatMode, player.getShuffleModeEnabled());
+            if (index == C.INDEX_UNSET || index == currentIndex) break;
+
+            mediaItems.add(timeline.getWindow(index, window).mediaItem);
+        }
+
+        return mediaItems;
+    }
+
+    @Nullable
+    private DataSpec buildDataSpec(MediaItem mediaItem, long budget) {
+        MediaItem.LocalConfiguration localConfiguration = mediaItem.localConfiguration;
+        Bundle extras = mediaItem.mediaMetadata.extras;
+
+        if (localConfiguration == null || extras == null) return null;
+
+        Uri uri = localConfiguration.uri;
+        String type = extras.getString("type");
+
+        if (!Constants.MEDIA_TYPE_MUSIC.equals(type) && !Constants.MEDIA_TYPE_PODCAST.equals(type)) return null;
+        if (uri.getScheme() == null || !uri.getScheme().startsWith("http")) return null;
+        if (MimeTypes.APPLICATION_M3U8.equals(localConfiguration.mimeType)) return null;
+        if (DownloadUtil.getDownloadTracker(context).isDownloaded(mediaItem)) return null;
+
+        long length = Math.min((long) getBitrate(uri, MediaMetadataStore.getExtras(extras)) * 1000 / 8 * PREFETCH_SECONDS, budget);
+
+        return new DataSpec.Builder()
+                .setUri(uri)
+                .setKey(localConfiguration.customCacheKey)
+                .setLength(length)
+                .build();
+    }
+
+    /**
+     * Song id of a stream for the log, stream urls carry the authentication parameters.
+     */
+    private static String getLogId(DataSpec dataSpec) {
+        String id = dataSpec.uri.getQueryParameter("id");
+        return id != null ? id : "an unknown stream";
+    }
+
+    private int getBitrate(Uri uri, Bundle extras) {
+        int bitrate = extras.getInt("bitrate", 0);
+
+        try {
+            String maxBitRate = uri.getQueryParameter("maxBitRate");
+            int maxBitrate = maxBitRate != null ? Integer.parseInt(maxBitRate) : 0;
+
+            if (maxBitrate > 0 && (bitrate <= 0 || maxBitrate < bitrate)) bitrate = maxBitrate;
+        } catch (NumberFormatException ignored) {
+        }
+
+        return bitrate > 0 ? bitrate : DEFAULT_BITRATE_KBPS;
+    }
+
+    private class PrefetchTask implements Runnable {
+        final List<DataSpec> dataSpecs;
+
+        volatile boolean isCancelled;
+        volatile CacheWriter cacheWriter;
+
+        PrefetchTask(List<DataSpec> dataSpecs) {
+            this.dataSpecs = dataSpecs;
+        }
+
+        void cancel() {
+            isCancelled = true;
+
+            CacheWriter writer = cacheWriter;
+            if (writer != null) writer.cancel();
+        }
+
+        @Override
+        public void run() {
+            PriorityTaskManager priorityTaskManager = DownloadUtil.getPriorityTaskManager();
+            priorityTaskManager.add(C.PRIORITY_DOWNLOAD);
+
+            try {
+                for (DataSpec dataSpec : dataSpecs) {
+                    if (isCancelled || NetworkUtil.isMetered()) return;
+                    prefetch(priorityTaskManager, dataSpec);
+                }
+            } catch (InterruptedException | InterruptedIOException exception) {
+                Thread.currentThread().interrupt();
+            } finally {
+                priorityTaskManager.remove(C.PRIORITY_DOWNLOAD);
+            }
+        }
+
+        private void prefetch(PriorityTaskManager priorityTaskManager, DataSpec dataSpec) throws InterruptedException, InterruptedIOException {
+            cacheWriter = new CacheWriter(DownloadUtil.getStreamingCacheWriterDataSource(context), dataSpec, null, null);
+
+            try {
+                while (!isCancelled) {
+                    priorityTaskManager.proceed(C.PRIORITY_DOWNLOAD);
+
+                    try {
+                        cacheWriter.cache();
+                        Log.d(TAG, "Prefetched " + dataSpec.length + " bytes of " + getLogId(dataSpec));
+                        return;
+                    } catch (PriorityTaskManager.PriorityTooLowException exception) {
+                        // The player started loading, resume from where the writer stopped
+                    }
+                }
+            } catch (InterruptedIOException exception) {
+                if (!isCancelled) throw exception;
+            } catch (IOException exception) {
+                Log.w(TAG, "Prefetch failed for " + getLogId(dataSpec), exception);
+            } finally {
+                cacheWriter = null;
+            }
+        }
+    }
+}
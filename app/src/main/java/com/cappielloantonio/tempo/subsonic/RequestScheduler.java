@@ -0,0 +1,133 @@
+package com.cappielloantonio.tempo.subsonic;
+
+import androidx.annotation.NonNull;
+
+import com.cappielloantonio.tempo.subsonic.base.ApiResponse;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+
+/**
+ * Schedules the bursts of read requests issued when a screen is first shown (the home tab
+ * alone fires around twenty), so that they don't compete with each other for the connection:
+ * <ul>
+ *     <li>at most {@link #MAX_IN_FLIGHT} scheduled requests run at once, the rest wait in
+ *     their lane in the order they were issued;</li>
+ *     <li>the {@link Priority#LOW} lane only runs when nothing is waiting in the
+ *     {@link Priority#HIGH} one;</li>
+ *     <li>a request identical to one already waiting or running is not sent again, its
+ *     callback gets the same response.</li>
+ * </ul>
+ * Responses may therefore be shared between callers, which must not modify them in place.
+ * There is one scheduler per {@link Subsonic} instance, hence per server.
+ */
+public class RequestScheduler {
+    private static final int MAX_IN_FLIGHT = 4;
+
+    public enum Priority {
+        // Content the user is waiting for
+        HIGH,
+        // Fan-out and background refreshes
+        LOW
+    }
+
+    private final ArrayDeque<Request> highQueue = new ArrayDeque<>();
+    private final ArrayDeque<Request> lowQueue = new ArrayDeque<>();
+    private final Map<String, Request> requests = new HashMap<>();
+
+    private int inFlight = 0;
+
+    public void enqueue(Call<ApiResponse> call, Callback<ApiResponse> callback) {
+        enqueue(call, Priority.HIGH, callback);
+    }
+
+    public synchronized void enqueue(Call<ApiResponse> call, Priority priority, Callback<ApiResponse> callback) {
+        String key = call.request().method() + " " + call.request().url();
+        Request request = requests.get(key);
+
+        if (request != null) {
+            request.waiters.add(new Waiter(call, callback));
+
+            if (priority == Priority.HIGH && request.priority == Priority.LOW && lowQueue.remove(request)) {
+                request.priority = Priority.HIGH;
+                highQueue.add(request);
+            }
+
+            return;
+        }
+
+        request = new Request(key, call, priority);
+        request.waiters.add(new Waiter(call, callback));
+        requests.put(key, request);
+
+        if (priority == Priority.HIGH) {
+            highQueue.add(request);
+        } else {
+            lowQueue.add(request);
+        }
+
+        dispatch();
+    }
+
+    private synchronized void dispatch() {
+        while (inFlight < MAX_IN_FLIGHT) {
+            Request request = !highQueue.isEmpty() ? highQueue.poll() : lowQueue.poll();
+            if (request == null) return;
+
+            inFlight++;
+            request.call.enqueue(new Callback<ApiResponse>() {
+                @Override
+                public void onResponse(@NonNull Call<ApiResponse> call, @NonNull Response<ApiResponse> response) {
+                    for (Waiter waiter : complete(request)) {
+                        waiter.callback.onResponse(waiter.call, response);
+                    }
+                }
+
+                @Override
+                public void onFailure(@NonNull Call<ApiResponse> call, @NonNull Throwable t) {
+                    for (Waiter waiter : complete(request)) {
+                        waiter.callback.onFailure(waiter.call, t);
+                    }
+                }
+            });
+        }
+    }
+
+    private synchronized List<Waiter> complete(Request request) {
+        requests.remove(request.key);
+        inFlight--;
+        dispatch();
+
+        return new ArrayList<>(request.waiters);
+    }
+
+    private static class Request {
+        final String key;
+        final Call<ApiResponse> call;
+        final List<Waiter> waiters = new ArrayList<>();
+        Priority priority;
+
+        Request(String key, Call<ApiResponse> call, Priority priority) {
+            this.key = key;
+            this.call = call;
+            this.priority = priority;
+        }
+    }
+
+    private static class Waiter {
+        final Call<ApiResponse> call;
+        final Callback<ApiResponse> callback;
+
+        Waiter(Call<ApiResponse> call, Callback<ApiResponse> callback) {
+            this.call = call;
+            this.callback = callback;
+        }
+    }
+}
@@ -2,8 +2,8 @@ package com.cappielloantonio.tempo.subsonic
 
 import com.cappielloantonio.tempo.App
 import com.cappielloantonio.tempo.subsonic.utils.CacheUtil
+import com.cappielloantonio.tempo.util.HttpClientUtil
 import com.google.gson.GsonBuilder
-import okhttp3.Cache
 import okhttp3.OkHttpClient
 import okhttp3.logging.HttpLoggingInterceptor
 import retrofit2.Retrofit
@@ -35,15 +35,13 @@ class RetrofitClient(subsonic: Subsonic) {
         // SystemClient 60
         // AlbumSongListClient 60
 
-        return OkHttpClient.Builder()
+        // Derived from the shared client: connection pool and dispatcher are reused
+        return HttpClientUtil.getOkHttpClient().newBuilder()
             .callTimeout(2, TimeUnit.MINUTES)
-            .connectTimeout(20, TimeUnit.SECONDS)
-            .readTimeout(30, TimeUnit.SECONDS)
-            .writeTimeout(30, TimeUnit.SECONDS)
             .addInterceptor(getHttpLoggingInterceptor())
             .addInterceptor(cacheUtil.offlineInterceptor)
             // .addNetworkInterceptor(cacheUtil.onlineInterceptor)
-            .cache(getCache())
+            .cache(HttpClientUtil.getApiCache(App.getContext()))
             .build()
     }
 
@@ -52,9 +50,4 @@ class RetrofitClient(subsonic: Subsonic) {
         loggingInterceptor.setLevel(HttpLoggingInterceptor.Level.BODY)
         return loggingInterceptor
     }
-
-    private fun getCache(): Cache {
-        val cacheSize = 10 * 1024 * 1024
-        return Cache(App.getContext().cacheDir, cacheSize.toLong())
-    }
-}
\ No newline at end of file
+}
@@ -15,8 +15,11 @@ import com.cappielloantonio.tempo.subsonic.api.sharing.SharingClient;
 import com.cappielloantonio.tempo.subsonic.api.system.SystemClient;
 import com.cappielloantonio.tempo.subsonic.base.Version;
 
+import com.cappielloantonio.tempo.util.Util;
+
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class Subsonic {
     private static final Version API_MAX_VERSION = Version.of("1.15.0");
@@ -24,6 +27,7 @@ public class Subsonic {
     private final Version apiVersion = API_MAX_VERSION;
     private final SubsonicPreferences preferences;
 
+    private RetrofitClient retrofitClient;
     private SystemClient systemClient;
     private BrowsingClient browsingClient;
     private MediaRetrievalClient mediaRetrievalClient;
@@ -37,6 +41,9 @@ public class Subsonic {
     private InternetRadioClient internetRadioClient;
     private SharingClient sharingClient;
     private OpenClient openClient;
+    private RequestScheduler requestScheduler;
+
+    private final Map<String, String> endpointUrls = new ConcurrentHashMap<>();
 
     public Subsonic(SubsonicPreferences preferences) {
         this.preferences = preferences;
@@ -46,6 +53,13 @@ public class Subsonic {
         return apiVersion;
     }
 
+    public synchronized RetrofitClient getRetrofitClient() {
+        if (retrofitClient == null) {
+            retrofitClient = new RetrofitClient(this);
+        }
+        return retrofitClient;
+    }
+
     public SystemClient getSystemClient() {
         if (systemClient == null) {
             systemClient = new SystemClient(this);
@@ -137,6 +151,13 @@ public class Subsonic {
         return openClient;
     }
 
+    public synchronized RequestScheduler getRequestScheduler() {
+        if (requestScheduler == null) {
+            requestScheduler = new RequestScheduler();
+        }
+        return requestScheduler;
+    }
+
     public String getUrl() {
         String url = preferences.getServerUrl() + "/rest/";
         return url.replace("//rest", "/rest");
@@ -159,4 +180,42 @@ public class Subsonic {
 
         return params;
     }
+
+    /**
+     * Returns "{server}/rest/{endpoint}?u=..&v=..&c=.." with the authentication parameters already
+     * encoded, ready for the caller to append its own "&key=value" pairs. Urls handed to players
+     * and image loaders are built for every bound item, so the prefix is computed once per
+     * endpoint; credential or server changes always create a new Subsonic instance.
+     */
+    public String getEndpointUrl(String endpoint) {
+        String endpointUrl = endpointUrls.get(endpoint);
+
+        if (endpointUrl == null) {
+            endpointUrl = getUrl() + endpoint + "?" + getAuthQuery();
+            endpointUrls.put(endpoint, endpointUrl);
+        }
+
+        return endpointUrl;
+    }
+
+    private String getAuthQuery() {
+        Map<String, String> params = getParams();
+
+        StringBuilder query = new StringBuilder();
+
+        if (params.get("u") != null)
+            query.append("&u=").append(Util.encode(params.get("u")));
+        if (params.get("p") != null)
+            query.append("&p=").append(params.get("p"));
+        if (params.get("s") != null)
+            query.append("&s=").append(params.get("s"));
+        if (params.get("t") != null)
+            query.append("&t=").append(params.get("t"));
+        if (params.get("v") != null)
+            query.append("&v=").append(params.get("v"));
+        if (params.get("c") != null)
+            query.append("&c=").append(params.get("c"));
+
+        return query.length() > 0 ? query.substring(1) : "";
+    }
 }
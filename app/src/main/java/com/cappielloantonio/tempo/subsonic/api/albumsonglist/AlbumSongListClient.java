@@ -2,7 +2,6 @@ package com.cappielloantonio.tempo.subsonic.api.albumsonglist;
 
 import android.util.Log;
 
-import com.cappielloantonio.tempo.subsonic.RetrofitClient;
 import com.cappielloantonio.tempo.subsonic.Subsonic;
 import com.cappielloantonio.tempo.subsonic.base.ApiResponse;
 
@@ -16,7 +15,7 @@ public class AlbumSongListClient {
 
     public AlbumSongListClient(Subsonic subsonic) {
         this.subsonic = subsonic;
-        this.albumSongListService = new RetrofitClient(subsonic).getRetrofit().create(AlbumSongListService.class);
+        this.albumSongListService = subsonic.getRetrofitClient().getRetrofit().create(AlbumSongListService.class);
     }
 
     public Call<ApiResponse> getAlbumList(String type, int size, int offset) {
@@ -2,7 +2,6 @@ package com.cappielloantonio.tempo.subsonic.api.bookmarks;
 
 import android.util.Log;
 
-import com.cappielloantonio.tempo.subsonic.RetrofitClient;
 import com.cappielloantonio.tempo.subsonic.Subsonic;
 import com.cappielloantonio.tempo.subsonic.base.ApiResponse;
 
@@ -18,7 +17,7 @@ public class BookmarksClient {
 
     public BookmarksClient(Subsonic subsonic) {
         this.subsonic = subsonic;
-        this.bookmarksService = new RetrofitClient(subsonic).getRetrofit().create(BookmarksService.class);
+        this.bookmarksService = subsonic.getRetrofitClient().getRetrofit().create(BookmarksService.class);
     }
 
     public Call<ApiResponse> getPlayQueue() {
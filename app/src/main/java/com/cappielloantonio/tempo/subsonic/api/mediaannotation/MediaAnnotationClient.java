@@ -2,7 +2,6 @@ package com.cappielloantonio.tempo.subsonic.api.mediaannotation;
 
 import android.util.Log;
 
-import com.cappielloantonio.tempo.subsonic.RetrofitClient;
 import com.cappielloantonio.tempo.subsonic.Subsonic;
 import com.cappielloantonio.tempo.subsonic.base.ApiResponse;
 
@@ -16,7 +15,7 @@ public class MediaAnnotationClient {
 
     public MediaAnnotationClient(Subsonic subsonic) {
         this.subsonic = subsonic;
-        this.mediaAnnotationService = new RetrofitClient(subsonic).getRetrofit().create(MediaAnnotationService.class);
+        this.mediaAnnotationService = subsonic.getRetrofitClient().getRetrofit().create(MediaAnnotationService.class);
     }
 
     public Call<ApiResponse> star(String id, String albumId, String artistId) {
@@ -2,7 +2,6 @@ package com.cappielloantonio.tempo.subsonic.api.mediaretrieval;
 
 import android.util.Log;
 
-import com.cappielloantonio.tempo.subsonic.RetrofitClient;
 import com.cappielloantonio.tempo.subsonic.Subsonic;
 import com.cappielloantonio.tempo.subsonic.base.ApiResponse;
 
@@ -16,7 +15,7 @@ public class MediaRetrievalClient {
 
     public MediaRetrievalClient(Subsonic subsonic) {
         this.subsonic = subsonic;
-        this.mediaRetrievalService = new RetrofitClient(subsonic).getRetrofit().create(MediaRetrievalService.class);
+        this.mediaRetrievalService = subsonic.getRetrofitClient().getRetrofit().create(MediaRetrievalService.class);
     }
 
     public Call<ApiResponse> stream(String id, Integer maxBitRate, String format) {
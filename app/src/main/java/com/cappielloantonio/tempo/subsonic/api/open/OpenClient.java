@@ -2,7 +2,6 @@ package com.cappielloantonio.tempo.subsonic.api.open;
 
 import android.util.Log;
 
-import com.cappielloantonio.tempo.subsonic.RetrofitClient;
 import com.cappielloantonio.tempo.subsonic.Subsonic;
 import com.cappielloantonio.tempo.subsonic.base.ApiResponse;
 
@@ -16,7 +15,7 @@ public class OpenClient {
 
     public OpenClient(Subsonic subsonic) {
         this.subsonic = subsonic;
-        this.openService = new RetrofitClient(subsonic).getRetrofit().create(OpenService.class);
+        this.openService = subsonic.getRetrofitClient().getRetrofit().create(OpenService.class);
     }
 
     public Call<ApiResponse> getLyricsBySongId(String id) {
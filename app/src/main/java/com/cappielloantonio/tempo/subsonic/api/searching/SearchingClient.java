@@ -2,7 +2,6 @@ package com.cappielloantonio.tempo.subsonic.api.searching;
 
 import android.util.Log;
 
-import com.cappielloantonio.tempo.subsonic.RetrofitClient;
 import com.cappielloantonio.tempo.subsonic.Subsonic;
 import com.cappielloantonio.tempo.subsonic.base.ApiResponse;
 
@@ -16,7 +15,7 @@ public class SearchingClient {
 
     public SearchingClient(Subsonic subsonic) {
         this.subsonic = subsonic;
-        this.searchingService = new RetrofitClient(subsonic).getRetrofit().create(SearchingService.class);
+        this.searchingService = subsonic.getRetrofitClient().getRetrofit().create(SearchingService.class);
     }
 
     public Call<ApiResponse> search2(String query, int songCount, int albumCount, int artistCount) {
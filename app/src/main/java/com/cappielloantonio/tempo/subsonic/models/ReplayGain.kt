@@ -0,0 +1,14 @@
+package com.cappielloantonio.tempo.subsonic.models
+
+import android.os.Parcelable
+import androidx.annotation.Keep
+import kotlinx.parcelize.Parcelize
+
+@Keep
+@Parcelize
+open class ReplayGain(
+    var trackGain: Float? = null,
+    var albumGain: Float? = null,
+    var trackPeak: Float? = null,
+    var albumPeak: Float? = null
+) : Parcelable
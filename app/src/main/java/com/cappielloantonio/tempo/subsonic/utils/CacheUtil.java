@@ -1,11 +1,6 @@
 package com.cappielloantonio.tempo.subsonic.utils;
 
-import android.content.Context;
-import android.net.ConnectivityManager;
-import android.net.Network;
-import android.net.NetworkCapabilities;
-
-import com.cappielloantonio.tempo.App;
+import com.cappielloantonio.tempo.util.NetworkUtil;
 
 import okhttp3.Interceptor;
 import okhttp3.Request;
@@ -29,7 +24,7 @@ public class CacheUtil {
 
     public Interceptor offlineInterceptor = chain -> {
         Request request = chain.request();
-        if (!isConnected()) {
+        if (!NetworkUtil.isConnected()) {
             request = request.newBuilder()
                     .header("Cache-Control", "public, only-if-cached, max-stale=" + maxStale)
                     .removeHeader("Pragma")
@@ -37,22 +32,4 @@ public class CacheUtil {
         }
         return chain.proceed(request);
     };
-
-    private boolean isConnected() {
-        ConnectivityManager connectivityManager = (ConnectivityManager) App.getContext().getSystemService(Context.CONNECTIVITY_SERVICE);
-
-        if (connectivityManager != null) {
-            Network network = connectivityManager.getActiveNetwork();
-
-            if (network != null) {
-                NetworkCapabilities capabilities = connectivityManager.getNetworkCapabilities(network);
-
-                if (capabilities != null) {
-                    return capabilities.hasCapability(NetworkCapabilities.NET_CAPABILITY_INTERNET);
-                }
-            }
-        }
-
-        return false;
-    }
 }
@@ -1,9 +1,5 @@
 package com.cappielloantonio.tempo.ui.activity;
 
-import android.content.Context;
-import android.content.IntentFilter;
-import android.net.ConnectivityManager;
-import android.net.NetworkInfo;
 import android.os.Bundle;
 import android.os.Handler;
 import android.util.Log;
@@ -22,7 +18,6 @@ import androidx.navigation.ui.NavigationUI;
 import com.cappielloantonio.tempo.App;
 import com.cappielloantonio.tempo.BuildConfig;
 import com.cappielloantonio.tempo.R;
-import com.cappielloantonio.tempo.broadcast.receiver.ConnectivityStatusBroadcastReceiver;
 import com.cappielloantonio.tempo.databinding.ActivityMainBinding;
 import com.cappielloantonio.tempo.github.utils.UpdateUtil;
 import com.cappielloantonio.tempo.service.MediaManager;
@@ -32,6 +27,7 @@ import com.cappielloantonio.tempo.ui.dialog.GithubTempoUpdateDialog;
 import com.cappielloantonio.tempo.ui.dialog.ServerUnreachableDialog;
 import com.cappielloantonio.tempo.ui.fragment.PlayerBottomSheetFragment;
 import com.cappielloantonio.tempo.util.Constants;
+import com.cappielloantonio.tempo.util.NetworkUtil;
 import com.cappielloantonio.tempo.util.Preferences;
 import com.cappielloantonio.tempo.viewmodel.MainViewModel;
 import com.google.android.material.bottomnavigation.BottomNavigationView;
@@ -55,8 +51,6 @@ public class MainActivity extends BaseActivity {
     public NavController navController;
     private BottomSheetBehavior bottomSheetBehavior;
 
-    ConnectivityStatusBroadcastReceiver connectivityStatusBroadcastReceiver;
-
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         SplashScreen.installSplashScreen(this);
@@ -70,8 +64,7 @@ public class MainActivity extends BaseActivity {
 
         mainViewModel = new ViewModelProvider(this).get(MainViewModel.class);
 
-        connectivityStatusBroadcastReceiver = new ConnectivityStatusBroadcastReceiver(this);
-        connectivityStatusReceiverManager(true);
+        observeConnectivity();
 
         init();
         checkConnectionType();
@@ -94,7 +87,6 @@ public class MainActivity extends BaseActivity {
     @Override
     protected void onDestroy() {
         super.onDestroy();
-        connectivityStatusReceiverManager(false);
         bind = null;
     }
 
@@ -146,10 +138,22 @@ public class MainActivity extends BaseActivity {
 
     private void checkBottomSheetAfterStateChanged() {
         final Handler handler = new Handler();
-        final Runnable runnable = () -> setBottomSheetInPeek(mainViewModel.isQueueLoaded());
+        final Runnable runnable = this::refreshBottomSheet;
         handler.postDelayed(runnable, 100);
     }
 
+    /**
+     * Counts the queue again, the bottom sheet is shown or hidden by the single observer once
+     * the count arrives.
+     */
+    private void refreshBottomSheet() {
+        if (!mainViewModel.isQueueLoaded().hasObservers()) {
+            mainViewModel.isQueueLoaded().observe(this, this::setBottomSheetInPeek);
+        }
+
+        mainViewModel.refreshQueueLoaded();
+    }
+
     public void collapseBottomSheetDelayed() {
         final Handler handler = new Handler();
         final Runnable runnable = () -> bottomSheetBehavior.setState(BottomSheetBehavior.STATE_COLLAPSED);
@@ -290,7 +294,7 @@ public class MainActivity extends BaseActivity {
     }
 
     public void goFromLogin() {
-        setBottomSheetInPeek(mainViewModel.isQueueLoaded());
+        refreshBottomSheet();
         goToHome();
     }
 
@@ -332,13 +336,10 @@ public class MainActivity extends BaseActivity {
     }
 
     // CONNECTION
-    private void connectivityStatusReceiverManager(boolean isActive) {
-        if (isActive) {
-            IntentFilter filter = new IntentFilter(ConnectivityManager.CONNECTIVITY_ACTION);
-            registerReceiver(connectivityStatusBroadcastReceiver, filter);
-        } else {
-            unregisterReceiver(connectivityStatusBroadcastReceiver);
-        }
+    private void observeConnectivity() {
+        NetworkUtil.getConnected().observe(this, isConnected -> {
+            if (bind != null) bind.offlineModeTextView.setVisibility(isConnected ? View.GONE : View.VISIBLE);
+        });
     }
 
     private void pingServer() {
@@ -353,6 +354,7 @@ public class MainActivity extends BaseActivity {
                     pingServer();
                 } else {
                     Preferences.setOpenSubsonic(subsonicResponse.getOpenSubsonic() != null && subsonicResponse.getOpenSubsonic());
+                    mainViewModel.syncLibrary();
                 }
             });
         } else {
@@ -370,6 +372,7 @@ public class MainActivity extends BaseActivity {
                         }
                     } else {
                         Preferences.setOpenSubsonic(subsonicResponse.getOpenSubsonic() != null && subsonicResponse.getOpenSubsonic());
+                        mainViewModel.syncLibrary();
                     }
                 });
             }
@@ -399,10 +402,7 @@ public class MainActivity extends BaseActivity {
 
     private void checkConnectionType() {
         if (Preferences.isWifiOnly()) {
-            ConnectivityManager connectivityManager = (ConnectivityManager) getSystemService(Context.CONNECTIVITY_SERVICE);
-            NetworkInfo networkInfo = connectivityManager.getActiveNetworkInfo();
-
-            if (networkInfo != null && networkInfo.getType() != ConnectivityManager.TYPE_WIFI) {
+            if (NetworkUtil.getNetworkCapabilities() != null && !NetworkUtil.isWifi()) {
                 ConnectionAlertDialog dialog = new ConnectionAlertDialog();
                 dialog.show(getSupportFragmentManager(), null);
             }
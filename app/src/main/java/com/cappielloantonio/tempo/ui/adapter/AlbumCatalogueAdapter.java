@@ -4,68 +4,42 @@ import android.os.Bundle;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
-import android.widget.Filter;
-import android.widget.Filterable;
 
 import androidx.annotation.NonNull;
+import androidx.paging.PagingDataAdapter;
+import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.RecyclerView;
 
+import com.bumptech.glide.Glide;
 import com.cappielloantonio.tempo.databinding.ItemLibraryCatalogueAlbumBinding;
 import com.cappielloantonio.tempo.glide.CustomGlideRequest;
 import com.cappielloantonio.tempo.interfaces.ClickCallback;
 import com.cappielloantonio.tempo.subsonic.models.AlbumID3;
 import com.cappielloantonio.tempo.util.Constants;
-import com.cappielloantonio.tempo.util.MusicUtil;
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Comparator;
-import java.util.List;
+import java.util.Objects;
 
-public class AlbumCatalogueAdapter extends RecyclerView.Adapter<AlbumCatalogueAdapter.ViewHolder> implements Filterable {
-    private final ClickCallback click;
-    private String currentFilter;
-    private boolean showArtist;
-
-    private final Filter filtering = new Filter() {
+public class AlbumCatalogueAdapter extends PagingDataAdapter<AlbumID3, AlbumCatalogueAdapter.ViewHolder> {
+    private static final DiffUtil.ItemCallback<AlbumID3> DIFF_CALLBACK = new DiffUtil.ItemCallback<AlbumID3>() {
         @Override
-        protected FilterResults performFiltering(CharSequence constraint) {
-            List<AlbumID3> filteredList = new ArrayList<>();
-
-            if (constraint == null || constraint.length() == 0) {
-                filteredList.addAll(albumsFull);
-            } else {
-                String filterPattern = constraint.toString().toLowerCase().trim();
-                currentFilter = filterPattern;
-
-                for (AlbumID3 item : albumsFull) {
-                    if (item.getName().toLowerCase().contains(filterPattern)) {
-                        filteredList.add(item);
-                    }
-                }
-            }
-
-            FilterResults results = new FilterResults();
-            results.values = filteredList;
-
-            return results;
+        public boolean areItemsTheSame(@NonNull AlbumID3 oldItem, @NonNull AlbumID3 newItem) {
+            return Objects.equals(oldItem.getId(), newItem.getId());
         }
 
         @Override
-        protected void publishResults(CharSequence constraint, FilterResults results) {
-            albums = (List<AlbumID3>) results.values;
-            notifyDataSetChanged();
+        public boolean areContentsTheSame(@NonNull AlbumID3 oldItem, @NonNull AlbumID3 newItem) {
+            return Objects.equals(oldItem.getName(), newItem.getName())
+                    && Objects.equals(oldItem.getArtist(), newItem.getArtist())
+                    && Objects.equals(oldItem.getCoverArtId(), newItem.getCoverArtId());
         }
     };
 
-    private List<AlbumID3> albums;
-    private List<AlbumID3> albumsFull;
+    private final ClickCallback click;
+    private final boolean showArtist;
 
     public AlbumCatalogueAdapter(ClickCallback click, boolean showArtist) {
+        super(DIFF_CALLBACK);
         this.click = click;
-        this.albums = Collections.emptyList();
-        this.albumsFull = Collections.emptyList();
-        this.currentFilter = "";
         this.showArtist = showArtist;
     }
 
@@ -77,12 +51,21 @@ public class AlbumCatalogueAdapter extends RecyclerView.Adapter<AlbumCatalogueAd
     }
 
     @Override
-    public void onBindViewHolder(ViewHolder holder, int position) {
-        AlbumID3 album = albums.get(position);
+    public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
+        AlbumID3 album = getItem(position);
+
+        holder.item.artistNameLabel.setVisibility(showArtist ? View.VISIBLE : View.GONE);
+
+        // Placeholder for a page that is not loaded yet
+        if (album == null) {
+            holder.item.albumNameLabel.setText(null);
+            holder.item.artistNameLabel.setText(null);
+            Glide.with(holder.itemView).clear(holder.item.albumCatalogueCoverImageView);
+            return;
+        }
 
         holder.item.albumNameLabel.setText(album.getName());
         holder.item.artistNameLabel.setText(album.getArtist());
-        holder.item.artistNameLabel.setVisibility(showArtist ? View.VISIBLE : View.GONE);
 
         CustomGlideRequest.Builder
                 .from(holder.itemView.getContext(), album.getCoverArtId(), CustomGlideRequest.ResourceType.Album)
@@ -90,35 +73,6 @@ public class AlbumCatalogueAdapter extends RecyclerView.Adapter<AlbumCatalogueAd
                 .into(holder.item.albumCatalogueCoverImageView);
     }
 
-    @Override
-    public int getItemCount() {
-        return albums.size();
-    }
-
-    public AlbumID3 getItem(int position) {
-        return albums.get(position);
-    }
-
-    public void setItems(List<AlbumID3> albums) {
-        this.albumsFull = new ArrayList<>(albums);
-        filtering.filter(currentFilter);
-    }
-
-    @Override
-    public int getItemViewType(int position) {
-        return position;
-    }
-
-    @Override
-    public long getItemId(int position) {
-        return position;
-    }
-
-    @Override
-    public Filter getFilter() {
-        return filtering;
-    }
-
     public class ViewHolder extends RecyclerView.ViewHolder {
         ItemLibraryCatalogueAlbumBinding item;
 
@@ -135,50 +89,25 @@ public class AlbumCatalogueAdapter extends RecyclerView.Adapter<AlbumCatalogueAd
         }
 
         private void onClick() {
+            AlbumID3 album = getItem(getBindingAdapterPosition());
+            if (album == null) return;
+
             Bundle bundle = new Bundle();
-            bundle.putParcelable(Constants.ALBUM_OBJECT, albums.get(getBindingAdapterPosition()));
+            bundle.putParcelable(Constants.ALBUM_OBJECT, album);
 
             click.onAlbumClick(bundle);
         }
 
         private boolean onLongClick() {
+            AlbumID3 album = getItem(getBindingAdapterPosition());
+            if (album == null) return false;
+
             Bundle bundle = new Bundle();
-            bundle.putParcelable(Constants.ALBUM_OBJECT, albums.get(getBindingAdapterPosition()));
+            bundle.putParcelable(Constants.ALBUM_OBJECT, album);
 
             click.onAlbumLongClick(bundle);
 
             return true;
         }
     }
-
-    public void sort(String order) {
-        switch (order) {
-            case Constants.ALBUM_ORDER_BY_NAME:
-                albums.sort(Comparator.comparing(AlbumID3::getName));
-                break;
-            case Constants.ALBUM_ORDER_BY_ARTIST:
-                albums.sort(Comparator.comparing(AlbumID3::getArtist, Comparator.nullsLast(Comparator.naturalOrder())));
-                break;
-            case Constants.ALBUM_ORDER_BY_YEAR:
-                albums.sort(Comparator.comparing(AlbumID3::getYear));
-                break;
-            case Constants.ALBUM_ORDER_BY_RANDOM:
-                Collections.shuffle(albums);
-                break;
-            case Constants.ALBUM_ORDER_BY_RECENTLY_ADDED:
-                albums.sort(Comparator.comparing(AlbumID3::getCreated));
-                Collections.reverse(albums);
-                break;
-            case Constants.ALBUM_ORDER_BY_RECENTLY_PLAYED:
-                albums.sort(Comparator.comparing(AlbumID3::getPlayed));
-                Collections.reverse(albums);
-                break;
-            case Constants.ALBUM_ORDER_BY_MOST_PLAYED:
-                albums.sort(Comparator.comparing(AlbumID3::getPlayCount));
-                Collections.reverse(albums);
-                break;
-        }
-
-        notifyDataSetChanged();
-    }
-}
\ No newline at end of file
+}
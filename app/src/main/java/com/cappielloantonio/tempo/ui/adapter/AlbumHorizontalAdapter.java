@@ -3,10 +3,10 @@ package com.cappielloantonio.tempo.ui.adapter;
 import android.os.Bundle;
 import android.view.LayoutInflater;
 import android.view.ViewGroup;
-import android.widget.Filter;
-import android.widget.Filterable;
 
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.AsyncListDiffer;
+import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.cappielloantonio.tempo.databinding.ItemHorizontalAlbumBinding;
@@ -14,59 +14,53 @@ import com.cappielloantonio.tempo.glide.CustomGlideRequest;
 import com.cappielloantonio.tempo.interfaces.ClickCallback;
 import com.cappielloantonio.tempo.subsonic.models.AlbumID3;
 import com.cappielloantonio.tempo.subsonic.models.Child;
+import com.cappielloantonio.tempo.util.CatalogueQuery;
 import com.cappielloantonio.tempo.util.Constants;
 import com.cappielloantonio.tempo.util.MusicUtil;
 
-import java.util.ArrayList;
-import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 
-public class AlbumHorizontalAdapter extends RecyclerView.Adapter<AlbumHorizontalAdapter.ViewHolder> implements Filterable {
-    private final ClickCallback click;
-    private final boolean isOffline;
-
-    private List<AlbumID3> albumsFull;
-    private List<AlbumID3> albums;
-    private String currentFilter;
-
-    private final Filter filtering = new Filter() {
+public class AlbumHorizontalAdapter extends RecyclerView.Adapter<AlbumHorizontalAdapter.ViewHolder> {
+    private static final DiffUtil.ItemCallback<AlbumID3> DIFF_CALLBACK = new DiffUtil.ItemCallback<AlbumID3>() {
         @Override
-        protected FilterResults performFiltering(CharSequence constraint) {
-            List<AlbumID3> filteredList = new ArrayList<>();
-
-            if (constraint == null || constraint.length() == 0) {
-                filteredList.addAll(albumsFull);
-            } else {
-                String filterPattern = constraint.toString().toLowerCase().trim();
-                currentFilter = filterPattern;
-
-                for (AlbumID3 item : albumsFull) {
-                    if (item.getName().toLowerCase().contains(filterPattern)) {
-                        filteredList.add(item);
-                    }
-                }
-            }
-
-            FilterResults results = new FilterResults();
-            results.values = filteredList;
-
-            return results;
+        public boolean areItemsTheSame(@NonNull AlbumID3 oldItem, @NonNull AlbumID3 newItem) {
+            return Objects.equals(oldItem.getId(), newItem.getId());
         }
 
         @Override
-        protected void publishResults(CharSequence constraint, FilterResults results) {
-            albums = (List<AlbumID3>) results.values;
-            notifyDataSetChanged();
+        public boolean areContentsTheSame(@NonNull AlbumID3 oldItem, @NonNull AlbumID3 newItem) {
+            return Objects.equals(oldItem.getName(), newItem.getName())
+                    && Objects.equals(oldItem.getArtist(), newItem.getArtist())
+                    && Objects.equals(oldItem.getCoverArtId(), newItem.getCoverArtId());
         }
     };
 
+    private static final Map<String, Comparator<AlbumID3>> ORDERS = new HashMap<>();
+
+    static {
+        ORDERS.put(Constants.ALBUM_ORDER_BY_NAME, Comparator.comparing(AlbumID3::getName, Comparator.nullsLast(String.CASE_INSENSITIVE_ORDER)));
+        ORDERS.put(Constants.ALBUM_ORDER_BY_ARTIST, Comparator.comparing(AlbumID3::getArtist, Comparator.nullsLast(String.CASE_INSENSITIVE_ORDER)));
+        ORDERS.put(Constants.ALBUM_ORDER_BY_YEAR, Comparator.comparingInt(AlbumID3::getYear));
+        ORDERS.put(Constants.ALBUM_ORDER_BY_RECENTLY_ADDED, Comparator.comparing(AlbumID3::getCreated, Comparator.nullsLast(Comparator.reverseOrder())));
+        ORDERS.put(Constants.ALBUM_ORDER_BY_RECENTLY_PLAYED, Comparator.comparing(AlbumID3::getPlayed, Comparator.nullsLast(Comparator.reverseOrder())));
+        ORDERS.put(Constants.ALBUM_ORDER_BY_MOST_PLAYED, Comparator.comparing(AlbumID3::getPlayCount, Comparator.nullsLast(Comparator.reverseOrder())));
+        ORDERS.put(Constants.ALBUM_ORDER_BY_MOST_RECENTLY_STARRED, Comparator.comparing(AlbumID3::getStarred, Comparator.nullsLast(Comparator.reverseOrder())));
+        ORDERS.put(Constants.ALBUM_ORDER_BY_LEAST_RECENTLY_STARRED, Comparator.comparing(AlbumID3::getStarred, Comparator.nullsLast(Comparator.naturalOrder())));
+    }
+
+    private final ClickCallback click;
+    private final boolean isOffline;
+
+    private final AsyncListDiffer<AlbumID3> differ = new AsyncListDiffer<>(this, DIFF_CALLBACK);
+    private final CatalogueQuery<AlbumID3> query = new CatalogueQuery<>(AlbumID3::getName, ORDERS, differ::submitList);
+
     public AlbumHorizontalAdapter(ClickCallback click, boolean isOffline) {
         this.click = click;
         this.isOffline = isOffline;
-        this.albums = Collections.emptyList();
-        this.albumsFull = Collections.emptyList();
-        this.currentFilter = "";
     }
 
     @NonNull
@@ -78,7 +72,7 @@ public class AlbumHorizontalAdapter extends RecyclerView.Adapter<AlbumHorizontal
 
     @Override
     public void onBindViewHolder(ViewHolder holder, int position) {
-        AlbumID3 album = albums.get(position);
+        AlbumID3 album = differ.getCurrentList().get(position);
 
         holder.item.albumTitleTextView.setText(album.getName());
         holder.item.albumArtistTextView.setText(album.getArtist());
@@ -91,22 +85,19 @@ public class AlbumHorizontalAdapter extends RecyclerView.Adapter<AlbumHorizontal
 
     @Override
     public int getItemCount() {
-        return albums.size();
+        return differ.getCurrentList().size();
     }
 
     public void setItems(List<AlbumID3> albums) {
-        this.albumsFull = albums != null ? albums : Collections.emptyList();
-        filtering.filter(currentFilter);
-        notifyDataSetChanged();
+        query.setItems(albums);
     }
 
-    @Override
-    public Filter getFilter() {
-        return filtering;
+    public void filter(String filter) {
+        query.setFilter(filter);
     }
 
     public AlbumID3 getItem(int id) {
-        return albums.get(id);
+        return differ.getCurrentList().get(id);
     }
 
     public class ViewHolder extends RecyclerView.ViewHolder {
@@ -127,14 +118,14 @@ public class AlbumHorizontalAdapter extends RecyclerView.Adapter<AlbumHorizontal
 
         private void onClick() {
             Bundle bundle = new Bundle();
-            bundle.putParcelable(Constants.ALBUM_OBJECT, albums.get(getBindingAdapterPosition()));
+            bundle.putParcelable(Constants.ALBUM_OBJECT, getItem(getBindingAdapterPosition()));
 
             click.onAlbumClick(bundle);
         }
 
         private boolean onLongClick() {
             Bundle bundle = new Bundle();
-            bundle.putParcelable(Constants.ALBUM_OBJECT, albums.get(getBindingAdapterPosition()));
+            bundle.putParcelable(Constants.ALBUM_OBJECT, getItem(getBindingAdapterPosition()));
 
             click.onAlbumLongClick(bundle);
 
@@ -143,19 +134,6 @@ public class AlbumHorizontalAdapter extends RecyclerView.Adapter<AlbumHorizontal
     }
 
     public void sort(String order) {
-        switch (order) {
-            case Constants.ALBUM_ORDER_BY_NAME:
-                albums.sort(Comparator.comparing(AlbumID3::getName));
-                break;
-            case Constants.ALBUM_ORDER_BY_MOST_RECENTLY_STARRED:
-                albums.sort(Comparator.comparing(AlbumID3::getStarred, Comparator.nullsLast(Comparator.reverseOrder())));
-                break;
-            case Constants.ALBUM_ORDER_BY_LEAST_RECENTLY_STARRED:
-                albums.sort(Comparator.comparing(AlbumID3::getStarred, Comparator.nullsLast(Comparator.naturalOrder())));
-
-                break;
-        }
-
-        notifyDataSetChanged();
+        query.setOrder(order);
     }
 }
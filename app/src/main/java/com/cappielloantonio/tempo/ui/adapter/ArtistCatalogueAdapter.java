@@ -3,64 +3,40 @@ package com.cappielloantonio.tempo.ui.adapter;
 import android.os.Bundle;
 import android.view.LayoutInflater;
 import android.view.ViewGroup;
-import android.widget.Filter;
-import android.widget.Filterable;
 
 import androidx.annotation.NonNull;
+import androidx.paging.PagingDataAdapter;
+import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.RecyclerView;
 
+import com.bumptech.glide.Glide;
 import com.cappielloantonio.tempo.databinding.ItemLibraryCatalogueArtistBinding;
 import com.cappielloantonio.tempo.glide.CustomGlideRequest;
 import com.cappielloantonio.tempo.interfaces.ClickCallback;
 import com.cappielloantonio.tempo.subsonic.models.ArtistID3;
 import com.cappielloantonio.tempo.util.Constants;
-import com.cappielloantonio.tempo.util.MusicUtil;
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Comparator;
-import java.util.List;
+import java.util.Objects;
 
-public class ArtistCatalogueAdapter extends RecyclerView.Adapter<ArtistCatalogueAdapter.ViewHolder> implements Filterable {
-    private final ClickCallback click;
-
-    private final Filter filtering = new Filter() {
+public class ArtistCatalogueAdapter extends PagingDataAdapter<ArtistID3, ArtistCatalogueAdapter.ViewHolder> {
+    private static final DiffUtil.ItemCallback<ArtistID3> DIFF_CALLBACK = new DiffUtil.ItemCallback<ArtistID3>() {
         @Override
-        protected FilterResults performFiltering(CharSequence constraint) {
-            List<ArtistID3> filteredList = new ArrayList<>();
-
-            if (constraint == null || constraint.length() == 0) {
-                filteredList.addAll(artistFull);
-            } else {
-                String filterPattern = constraint.toString().toLowerCase().trim();
-
-                for (ArtistID3 item : artistFull) {
-                    if (item.getName().toLowerCase().contains(filterPattern)) {
-                        filteredList.add(item);
-                    }
-                }
-            }
-
-            FilterResults results = new FilterResults();
-            results.values = filteredList;
-
-            return results;
+        public boolean areItemsTheSame(@NonNull ArtistID3 oldItem, @NonNull ArtistID3 newItem) {
+            return Objects.equals(oldItem.getId(), newItem.getId());
         }
 
         @Override
-        protected void publishResults(CharSequence constraint, FilterResults results) {
-            artists.clear();
-            if (results.count > 0) artists.addAll((List) results.values);
-            notifyDataSetChanged();
+        public boolean areContentsTheSame(@NonNull ArtistID3 oldItem, @NonNull ArtistID3 newItem) {
+            return Objects.equals(oldItem.getName(), newItem.getName())
+                    && Objects.equals(oldItem.getCoverArtId(), newItem.getCoverArtId());
         }
     };
 
-    private List<ArtistID3> artists;
-    private List<ArtistID3> artistFull;
+    private final ClickCallback click;
 
     public ArtistCatalogueAdapter(ClickCallback click) {
+        super(DIFF_CALLBACK);
         this.click = click;
-        this.artists = Collections.emptyList();
     }
 
     @NonNull
@@ -71,8 +47,15 @@ public class ArtistCatalogueAdapter extends RecyclerView.Adapter<ArtistCatalogue
     }
 
     @Override
-    public void onBindViewHolder(ViewHolder holder, int position) {
-        ArtistID3 artist = artists.get(position);
+    public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
+        ArtistID3 artist = getItem(position);
+
+        // Placeholder for a page that is not loaded yet
+        if (artist == null) {
+            holder.item.artistNameLabel.setText(null);
+            Glide.with(holder.itemView).clear(holder.item.artistCatalogueCoverImageView);
+            return;
+        }
 
         holder.item.artistNameLabel.setText(artist.getName());
 
@@ -82,36 +65,6 @@ public class ArtistCatalogueAdapter extends RecyclerView.Adapter<ArtistCatalogue
                 .into(holder.item.artistCatalogueCoverImageView);
     }
 
-    @Override
-    public int getItemCount() {
-        return artists.size();
-    }
-
-    public ArtistID3 getItem(int position) {
-        return artists.get(position);
-    }
-
-    public void setItems(List<ArtistID3> artists) {
-        this.artists = artists;
-        this.artistFull = new ArrayList<>(artists);
-        notifyDataSetChanged();
-    }
-
-    @Override
-    public int getItemViewType(int position) {
-        return position;
-    }
-
-    @Override
-    public long getItemId(int position) {
-        return position;
-    }
-
-    @Override
-    public Filter getFilter() {
-        return filtering;
-    }
-
     public class ViewHolder extends RecyclerView.ViewHolder {
         ItemLibraryCatalogueArtistBinding item;
 
@@ -127,32 +80,25 @@ public class ArtistCatalogueAdapter extends RecyclerView.Adapter<ArtistCatalogue
         }
 
         public void onClick() {
+            ArtistID3 artist = getItem(getBindingAdapterPosition());
+            if (artist == null) return;
+
             Bundle bundle = new Bundle();
-            bundle.putParcelable(Constants.ARTIST_OBJECT, artists.get(getBindingAdapterPosition()));
+            bundle.putParcelable(Constants.ARTIST_OBJECT, artist);
 
             click.onArtistClick(bundle);
         }
 
         public boolean onLongClick() {
+            ArtistID3 artist = getItem(getBindingAdapterPosition());
+            if (artist == null) return false;
+
             Bundle bundle = new Bundle();
-            bundle.putParcelable(Constants.ARTIST_OBJECT, artists.get(getBindingAdapterPosition()));
+            bundle.putParcelable(Constants.ARTIST_OBJECT, artist);
 
             click.onArtistLongClick(bundle);
 
             return true;
         }
     }
-
-    public void sort(String order) {
-        switch (order) {
-            case Constants.ARTIST_ORDER_BY_NAME:
-                artists.sort(Comparator.comparing(ArtistID3::getName));
-                break;
-            case Constants.ARTIST_ORDER_BY_RANDOM:
-                Collections.shuffle(artists);
-                break;
-        }
-
-        notifyDataSetChanged();
-    }
 }
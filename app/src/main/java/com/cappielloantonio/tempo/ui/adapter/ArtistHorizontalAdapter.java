@@ -4,10 +4,10 @@ import android.os.Bundle;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
-import android.widget.Filter;
-import android.widget.Filterable;
 
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.AsyncListDiffer;
+import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.cappielloantonio.tempo.databinding.ItemHorizontalArtistBinding;
@@ -15,57 +15,46 @@ import com.cappielloantonio.tempo.glide.CustomGlideRequest;
 import com.cappielloantonio.tempo.interfaces.ClickCallback;
 import com.cappielloantonio.tempo.subsonic.models.AlbumID3;
 import com.cappielloantonio.tempo.subsonic.models.ArtistID3;
+import com.cappielloantonio.tempo.util.CatalogueQuery;
 import com.cappielloantonio.tempo.util.Constants;
 import com.cappielloantonio.tempo.util.MusicUtil;
 
-import java.util.ArrayList;
-import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 
-public class ArtistHorizontalAdapter extends RecyclerView.Adapter<ArtistHorizontalAdapter.ViewHolder> implements Filterable {
-    private final ClickCallback click;
-
-    private List<ArtistID3> artistsFull;
-    private List<ArtistID3> artists;
-    private String currentFilter;
-
-    private final Filter filtering = new Filter() {
+public class ArtistHorizontalAdapter extends RecyclerView.Adapter<ArtistHorizontalAdapter.ViewHolder> {
+    private static final DiffUtil.ItemCallback<ArtistID3> DIFF_CALLBACK = new DiffUtil.ItemCallback<ArtistID3>() {
         @Override
-        protected FilterResults performFiltering(CharSequence constraint) {
-            List<ArtistID3> filteredList = new ArrayList<>();
-
-            if (constraint == null || constraint.length() == 0) {
-                filteredList.addAll(artistsFull);
-            } else {
-                String filterPattern = constraint.toString().toLowerCase().trim();
-                currentFilter = filterPattern;
-
-                for (ArtistID3 item : artistsFull) {
-                    if (item.getName().toLowerCase().contains(filterPattern)) {
-                        filteredList.add(item);
-                    }
-                }
-            }
-
-            FilterResults results = new FilterResults();
-            results.values = filteredList;
-
-            return results;
+        public boolean areItemsTheSame(@NonNull ArtistID3 oldItem, @NonNull ArtistID3 newItem) {
+            return Objects.equals(oldItem.getId(), newItem.getId());
         }
 
         @Override
-        protected void publishResults(CharSequence constraint, FilterResults results) {
-            artists = (List<ArtistID3>) results.values;
-            notifyDataSetChanged();
+        public boolean areContentsTheSame(@NonNull ArtistID3 oldItem, @NonNull ArtistID3 newItem) {
+            return Objects.equals(oldItem.getName(), newItem.getName())
+                    && oldItem.getAlbumCount() == newItem.getAlbumCount()
+                    && Objects.equals(oldItem.getCoverArtId(), newItem.getCoverArtId());
         }
     };
 
+    private static final Map<String, Comparator<ArtistID3>> ORDERS = new HashMap<>();
+
+    static {
+        ORDERS.put(Constants.ARTIST_ORDER_BY_NAME, Comparator.comparing(ArtistID3::getName, Comparator.nullsLast(String.CASE_INSENSITIVE_ORDER)));
+        ORDERS.put(Constants.ARTIST_ORDER_BY_MOST_RECENTLY_STARRED, Comparator.comparing(ArtistID3::getStarred, Comparator.nullsLast(Comparator.reverseOrder())));
+        ORDERS.put(Constants.ARTIST_ORDER_BY_LEAST_RECENTLY_STARRED, Comparator.comparing(ArtistID3::getStarred, Comparator.nullsLast(Comparator.naturalOrder())));
+    }
+
+    private final ClickCallback click;
+
+    private final AsyncListDiffer<ArtistID3> differ = new AsyncListDiffer<>(this, DIFF_CALLBACK);
+    private final CatalogueQuery<ArtistID3> query = new CatalogueQuery<>(ArtistID3::getName, ORDERS, differ::submitList);
+
     public ArtistHorizontalAdapter(ClickCallback click) {
         this.click = click;
-        this.artists = Collections.emptyList();
-        this.artistsFull = Collections.emptyList();
-        this.currentFilter = "";
     }
 
     @NonNull
@@ -77,12 +66,13 @@ public class ArtistHorizontalAdapter extends RecyclerView.Adapter<ArtistHorizont
 
     @Override
     public void onBindViewHolder(ViewHolder holder, int position) {
-        ArtistID3 artist = artists.get(position);
+        ArtistID3 artist = differ.getCurrentList().get(position);
 
         holder.item.artistNameTextView.setText(artist.getName());
 
         if (artist.getAlbumCount() > 0) {
             holder.item.artistInfoTextView.setText("Album count: " + artist.getAlbumCount());
+            holder.item.artistInfoTextView.setVisibility(View.VISIBLE);
         } else {
             holder.item.artistInfoTextView.setVisibility(View.GONE);
         }
@@ -95,27 +85,19 @@ public class ArtistHorizontalAdapter extends RecyclerView.Adapter<ArtistHorizont
 
     @Override
     public int getItemCount() {
-        return artists.size();
+        return differ.getCurrentList().size();
     }
 
     public void setItems(List<ArtistID3> artists) {
-        this.artistsFull = artists != null ? artists : Collections.emptyList();
-        filtering.filter(currentFilter);
-        notifyDataSetChanged();
+        query.setItems(artists);
     }
 
-    @Override
-    public Filter getFilter() {
-        return filtering;
+    public void filter(String filter) {
+        query.setFilter(filter);
     }
 
     public ArtistID3 getItem(int id) {
-        return artists.get(id);
-    }
-
-    @Override
-    public int getItemViewType(int position) {
-        return position;
+        return differ.getCurrentList().get(id);
     }
 
     @Override
@@ -141,14 +123,14 @@ public class ArtistHorizontalAdapter extends RecyclerView.Adapter<ArtistHorizont
 
         private void onClick() {
             Bundle bundle = new Bundle();
-            bundle.putParcelable(Constants.ARTIST_OBJECT, artists.get(getBindingAdapterPosition()));
+            bundle.putParcelable(Constants.ARTIST_OBJECT, getItem(getBindingAdapterPosition()));
 
             click.onArtistClick(bundle);
         }
 
         public boolean onLongClick() {
             Bundle bundle = new Bundle();
-            bundle.putParcelable(Constants.ARTIST_OBJECT, artists.get(getBindingAdapterPosition()));
+            bundle.putParcelable(Constants.ARTIST_OBJECT, getItem(getBindingAdapterPosition()));
 
             click.onArtistLongClick(bundle);
 
@@ -157,19 +139,6 @@ public class ArtistHorizontalAdapter extends RecyclerView.Adapter<ArtistHorizont
     }
 
     public void sort(String order) {
-        switch (order) {
-            case Constants.ARTIST_ORDER_BY_NAME:
-                artists.sort(Comparator.comparing(ArtistID3::getName));
-                break;
-            case Constants.ARTIST_ORDER_BY_MOST_RECENTLY_STARRED:
-                artists.sort(Comparator.comparing(ArtistID3::getStarred, Comparator.nullsLast(Comparator.reverseOrder())));
-                break;
-            case Constants.ARTIST_ORDER_BY_LEAST_RECENTLY_STARRED:
-                artists.sort(Comparator.comparing(ArtistID3::getStarred, Comparator.nullsLast(Comparator.naturalOrder())));
-
-                break;
-        }
-
-        notifyDataSetChanged();
+        query.setOrder(order);
     }
 }
@@ -0,0 +1,34 @@
+package com.cappielloantonio.tempo.ui.adapter;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.DiffUtil;
+
+import com.cappielloantonio.tempo.subsonic.models.Child;
+
+import java.util.Objects;
+
+/**
+ * Compares songs by id, and by what the song rows show of them.
+ */
+class ChildDiffCallback extends DiffUtil.ItemCallback<Child> {
+    @Override
+    public boolean areItemsTheSame(@NonNull Child oldItem, @NonNull Child newItem) {
+        return Objects.equals(oldItem.getId(), newItem.getId());
+    }
+
+    @Override
+    public boolean areContentsTheSame(@NonNull Child oldItem, @NonNull Child newItem) {
+        return Objects.equals(oldItem.getTitle(), newItem.getTitle())
+                && Objects.equals(oldItem.getArtist(), newItem.getArtist())
+                && Objects.equals(oldItem.getAlbum(), newItem.getAlbum())
+                && Objects.equals(oldItem.getDuration(), newItem.getDuration())
+                && Objects.equals(oldItem.getTrack(), newItem.getTrack())
+                && Objects.equals(oldItem.getDiscNumber(), newItem.getDiscNumber())
+                && Objects.equals(oldItem.getCoverArtId(), newItem.getCoverArtId())
+                && Objects.equals(oldItem.getStarred(), newItem.getStarred())
+                && Objects.equals(oldItem.getUserRating(), newItem.getUserRating())
+                && Objects.equals(oldItem.getBitrate(), newItem.getBitrate())
+                && Objects.equals(oldItem.getBitDepth(), newItem.getBitDepth())
+                && Objects.equals(oldItem.getSamplingRate(), newItem.getSamplingRate());
+    }
+}
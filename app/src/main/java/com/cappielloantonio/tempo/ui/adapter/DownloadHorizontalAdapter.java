@@ -6,7 +6,10 @@ import android.view.View;
 import android.view.ViewGroup;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.media3.common.util.UnstableApi;
+import androidx.recyclerview.widget.AsyncListDiffer;
+import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.cappielloantonio.tempo.R;
@@ -16,17 +19,42 @@ import com.cappielloantonio.tempo.interfaces.ClickCallback;
 import com.cappielloantonio.tempo.subsonic.models.Child;
 import com.cappielloantonio.tempo.util.Constants;
 import com.cappielloantonio.tempo.util.MusicUtil;
-import com.cappielloantonio.tempo.util.Util;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.stream.Collectors;
 
 @UnstableApi
 public class DownloadHorizontalAdapter extends RecyclerView.Adapter<DownloadHorizontalAdapter.ViewHolder> {
+    private static final String PAYLOAD_DIVIDER = "payload_divider";
+
+    private static final DiffUtil.ItemCallback<Row> DIFF_CALLBACK = new DiffUtil.ItemCallback<Row>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull Row oldItem, @NonNull Row newItem) {
+            return oldItem.key.equals(newItem.key);
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull Row oldItem, @NonNull Row newItem) {
+            return oldItem.count == newItem.count
+                    && Objects.equals(oldItem.song.getTitle(), newItem.song.getTitle())
+                    && Objects.equals(oldItem.song.getAlbum(), newItem.song.getAlbum())
+                    && Objects.equals(oldItem.song.getArtist(), newItem.song.getArtist())
+                    && Objects.equals(oldItem.song.getDuration(), newItem.song.getDuration())
+                    && Objects.equals(oldItem.song.getCoverArtId(), newItem.song.getCoverArtId());
+        }
+    };
+
     private final ClickCallback click;
+    private final AsyncListDiffer<Row> differ = new AsyncListDiffer<>(this, DIFF_CALLBACK);
+
+    // Ids handed out to row keys, so that rows keep theirs across updates
+    private final Map<String, Long> rowIds = new HashMap<>();
 
     private String view;
     private String filterKey;
@@ -34,13 +62,12 @@ public class DownloadHorizontalAdapter extends RecyclerView.Adapter<DownloadHori
 
     private List<Child> songs;
     private List<Child> shuffling;
-    private List<Child> grouped;
 
     public DownloadHorizontalAdapter(ClickCallback click) {
         this.click = click;
         this.view = Constants.DOWNLOAD_TYPE_TRACK;
         this.songs = Collections.emptyList();
-        this.grouped = Collections.emptyList();
+        setHasStableIds(true);
     }
 
     @NonNull
@@ -51,29 +78,42 @@ public class DownloadHorizontalAdapter extends RecyclerView.Adapter<DownloadHori
     }
 
     @Override
-    public void onBindViewHolder(ViewHolder holder, int position) {
-        switch (view) {
+    public void onBindViewHolder(@NonNull ViewHolder holder, int position, @NonNull List<Object> payloads) {
+        if (payloads.size() == 1 && payloads.contains(PAYLOAD_DIVIDER)) {
+            bindDivider(holder, position);
+        } else {
+            super.onBindViewHolder(holder, position, payloads);
+        }
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
+        Row row = differ.getCurrentList().get(position);
+
+        switch (row.view) {
             case Constants.DOWNLOAD_TYPE_TRACK:
-                initTrackLayout(holder, position);
+                initTrackLayout(holder, row);
                 break;
             case Constants.DOWNLOAD_TYPE_ALBUM:
-                initAlbumLayout(holder, position);
+                initAlbumLayout(holder, row);
                 break;
             case Constants.DOWNLOAD_TYPE_ARTIST:
-                initArtistLayout(holder, position);
+                initArtistLayout(holder, row);
                 break;
             case Constants.DOWNLOAD_TYPE_GENRE:
-                initGenreLayout(holder, position);
+                initGenreLayout(holder, row);
                 break;
             case Constants.DOWNLOAD_TYPE_YEAR:
-                initYearLayout(holder, position);
+                initYearLayout(holder, row);
                 break;
         }
+
+        bindDivider(holder, position);
     }
 
     @Override
     public int getItemCount() {
-        return grouped.size();
+        return differ.getCurrentList().size();
     }
 
     public void setItems(String view, String filterKey, String filterValue, List<Child> songs) {
@@ -82,108 +122,116 @@ public class DownloadHorizontalAdapter extends RecyclerView.Adapter<DownloadHori
         this.filterValue = filterValue;
 
         this.songs = songs;
-        this.grouped = groupSong(songs);
-        this.shuffling = shufflingSong(new ArrayList<>(songs));
+        this.shuffling = filterSong(filterKey, filterValue, new ArrayList<>(songs));
 
-        notifyDataSetChanged();
+        // Dividers depend on the previous row, which inserts and removes don't rebind
+        differ.submitList(groupSong(songs), () -> notifyItemRangeChanged(0, getItemCount(), PAYLOAD_DIVIDER));
     }
 
     public Child getItem(int id) {
-        return grouped.get(id);
+        return differ.getCurrentList().get(id).song;
     }
 
     public List<Child> getShuffling() {
         return shuffling;
     }
 
-    @Override
-    public int getItemViewType(int position) {
-        return position;
-    }
-
     @Override
     public long getItemId(int position) {
-        return position;
+        String key = differ.getCurrentList().get(position).key;
+        Long id = rowIds.get(key);
+
+        if (id == null) {
+            id = (long) rowIds.size();
+            rowIds.put(key, id);
+        }
+
+        return id;
     }
 
-    private List<Child> groupSong(List<Child> songs) {
+    /**
+     * @return the value songs are grouped by in the given view, null for songs without one
+     */
+    @Nullable
+    private static String getGroupValue(String view, Child song) {
         switch (view) {
             case Constants.DOWNLOAD_TYPE_TRACK:
-                return filterSong(filterKey, filterValue, songs.stream().filter(song -> Objects.nonNull(song.getId())).filter(Util.distinctByKey(Child::getId)).collect(Collectors.toList()));
+                return song.getId();
             case Constants.DOWNLOAD_TYPE_ALBUM:
-                return filterSong(filterKey, filterValue, songs.stream().filter(song -> Objects.nonNull(song.getAlbumId())).filter(Util.distinctByKey(Child::getAlbumId)).collect(Collectors.toList()));
+                return song.getAlbumId();
             case Constants.DOWNLOAD_TYPE_ARTIST:
-                return filterSong(filterKey, filterValue, songs.stream().filter(song -> Objects.nonNull(song.getArtistId())).filter(Util.distinctByKey(Child::getArtistId)).collect(Collectors.toList()));
+                return song.getArtistId();
             case Constants.DOWNLOAD_TYPE_GENRE:
-                return filterSong(filterKey, filterValue, songs.stream().filter(song -> Objects.nonNull(song.getGenre())).filter(Util.distinctByKey(Child::getGenre)).collect(Collectors.toList()));
+                return song.getGenre();
             case Constants.DOWNLOAD_TYPE_YEAR:
-                return filterSong(filterKey, filterValue, songs.stream().filter(song -> Objects.nonNull(song.getYear())).filter(Util.distinctByKey(Child::getYear)).collect(Collectors.toList()));
+                return song.getYear() != null ? song.getYear().toString() : null;
+            default:
+                return null;
         }
-
-        return Collections.emptyList();
     }
 
-    private List<Child> filterSong(String filterKey, String filterValue, List<Child> songs) {
-        if (filterValue != null) {
-            switch (filterKey) {
-                case Constants.DOWNLOAD_TYPE_TRACK:
-                    return songs.stream().filter(child -> child.getId().equals(filterValue)).collect(Collectors.toList());
-                case Constants.DOWNLOAD_TYPE_ALBUM:
-                    return songs.stream().filter(child -> Objects.equals(child.getAlbumId(), filterValue)).collect(Collectors.toList());
-                case Constants.DOWNLOAD_TYPE_GENRE:
-                    return songs.stream().filter(child -> Objects.equals(child.getGenre(), filterValue)).collect(Collectors.toList());
-                case Constants.DOWNLOAD_TYPE_YEAR:
-                    return songs.stream().filter(child -> Objects.equals(child.getYear(), Integer.valueOf(filterValue))).collect(Collectors.toList());
-                case Constants.DOWNLOAD_TYPE_ARTIST:
-                    return songs.stream().filter(child -> Objects.equals(child.getArtistId(), filterValue)).collect(Collectors.toList());
-            }
-        }
+    /**
+     * Groups the songs by the current view in one pass, each row counting the songs of its group.
+     */
+    private List<Row> groupSong(List<Child> songs) {
+        Map<String, Integer> counts = new HashMap<>();
+        Map<String, Child> groups = new LinkedHashMap<>();
 
-        return songs;
-    }
+        for (Child song : songs) {
+            String value = getGroupValue(view, song);
+            if (value == null) continue;
+
+            counts.merge(value, 1, Integer::sum);
 
-    private List<Child> shufflingSong(List<Child> songs) {
-        if (filterValue == null) {
-            return songs;
+            if (filterValue != null && !Objects.equals(getGroupValue(filterKey, song), filterValue)) continue;
+
+            groups.putIfAbsent(value, song);
         }
 
-        switch (filterKey) {
-            case Constants.DOWNLOAD_TYPE_TRACK:
-                return songs.stream().filter(child -> child.getId().equals(filterValue)).collect(Collectors.toList());
-            case Constants.DOWNLOAD_TYPE_ALBUM:
-                return songs.stream().filter(child -> Objects.equals(child.getAlbumId(), filterValue)).collect(Collectors.toList());
-            case Constants.DOWNLOAD_TYPE_GENRE:
-                return songs.stream().filter(child -> Objects.equals(child.getGenre(), filterValue)).collect(Collectors.toList());
-            case Constants.DOWNLOAD_TYPE_YEAR:
-                return songs.stream().filter(child -> Objects.equals(child.getYear(), Integer.valueOf(filterValue))).collect(Collectors.toList());
-            case Constants.DOWNLOAD_TYPE_ARTIST:
-                return songs.stream().filter(child -> Objects.equals(child.getArtistId(), filterValue)).collect(Collectors.toList());
-            default:
-                return songs;
+        List<Row> rows = new ArrayList<>(groups.size());
+
+        for (Map.Entry<String, Child> group : groups.entrySet()) {
+            rows.add(new Row(view, group.getKey(), group.getValue(), counts.get(group.getKey())));
         }
+
+        return rows;
     }
 
-    private String countSong(String filterKey, String filterValue, List<Child> songs) {
-        if (filterValue != null) {
-            switch (filterKey) {
-                case Constants.DOWNLOAD_TYPE_TRACK:
-                    return String.valueOf(songs.stream().filter(child -> child.getId().equals(filterValue)).count());
-                case Constants.DOWNLOAD_TYPE_ALBUM:
-                    return String.valueOf(songs.stream().filter(child -> Objects.equals(child.getAlbumId(), filterValue)).count());
-                case Constants.DOWNLOAD_TYPE_GENRE:
-                    return String.valueOf(songs.stream().filter(child -> Objects.equals(child.getGenre(), filterValue)).count());
-                case Constants.DOWNLOAD_TYPE_YEAR:
-                    return String.valueOf(songs.stream().filter(child -> Objects.equals(child.getYear(), Integer.valueOf(filterValue))).count());
-                case Constants.DOWNLOAD_TYPE_ARTIST:
-                    return String.valueOf(songs.stream().filter(child -> Objects.equals(child.getArtistId(), filterValue)).count());
-            }
+    private List<Child> filterSong(String filterKey, String filterValue, List<Child> songs) {
+        if (filterValue == null) return songs;
+
+        return songs.stream().filter(child -> Objects.equals(getGroupValue(filterKey, child), filterValue)).collect(Collectors.toList());
+    }
+
+    private void bindDivider(ViewHolder holder, int position) {
+        List<Row> rows = differ.getCurrentList();
+        Row row = rows.get(position);
+
+        holder.item.divider.setPadding(0, 0, 0, 0);
+
+        if (!row.view.equals(Constants.DOWNLOAD_TYPE_TRACK) && !row.view.equals(Constants.DOWNLOAD_TYPE_ALBUM)) {
+            holder.item.divider.setVisibility(View.GONE);
+            return;
         }
 
-        return "0";
+        holder.item.divider.setVisibility(View.VISIBLE);
+
+        if (position == 0) return;
+
+        Child previous = rows.get(position - 1).song;
+        boolean isNewSection = row.view.equals(Constants.DOWNLOAD_TYPE_TRACK)
+                ? !Objects.equals(previous.getAlbum(), row.song.getAlbum())
+                : !Objects.equals(previous.getArtist(), row.song.getArtist());
+
+        if (isNewSection) {
+            holder.item.divider.setPadding(0, (int) holder.itemView.getContext().getResources().getDimension(R.dimen.downloaded_item_padding), 0, 0);
+        } else {
+            holder.item.divider.setVisibility(View.GONE);
+        }
     }
 
-    private void initTrackLayout(ViewHolder holder, int position) {
-        Child song = grouped.get(position);
+    private void initTrackLayout(ViewHolder holder, Row row) {
+        Child song = row.song;
 
         holder.item.downloadedItemTitleTextView.setText(song.getTitle());
         holder.item.downloadedItemSubtitleTextView.setText(
@@ -204,20 +252,13 @@ public class DownloadHorizontalAdapter extends RecyclerView.Adapter<DownloadHori
 
         holder.item.itemCoverImageView.setVisibility(View.VISIBLE);
         holder.item.downloadedItemMoreButton.setVisibility(View.VISIBLE);
-        holder.item.divider.setVisibility(View.VISIBLE);
-
-        if (position > 0 && grouped.get(position - 1) != null && !Objects.equals(grouped.get(position - 1).getAlbum(), grouped.get(position).getAlbum())) {
-            holder.item.divider.setPadding(0, (int) holder.itemView.getContext().getResources().getDimension(R.dimen.downloaded_item_padding), 0, 0);
-        } else {
-            if (position > 0) holder.item.divider.setVisibility(View.GONE);
-        }
     }
 
-    private void initAlbumLayout(ViewHolder holder, int position) {
-        Child song = grouped.get(position);
+    private void initAlbumLayout(ViewHolder holder, Row row) {
+        Child song = row.song;
 
         holder.item.downloadedItemTitleTextView.setText(song.getAlbum());
-        holder.item.downloadedItemSubtitleTextView.setText(holder.itemView.getContext().getString(R.string.download_item_single_subtitle_formatter, countSong(Constants.DOWNLOAD_TYPE_ALBUM, song.getAlbumId(), songs)));
+        holder.item.downloadedItemSubtitleTextView.setText(holder.itemView.getContext().getString(R.string.download_item_single_subtitle_formatter, String.valueOf(row.count)));
         holder.item.downloadedItemPreTextView.setText(song.getArtist());
 
         CustomGlideRequest.Builder
@@ -227,20 +268,14 @@ public class DownloadHorizontalAdapter extends RecyclerView.Adapter<DownloadHori
 
         holder.item.itemCoverImageView.setVisibility(View.VISIBLE);
         holder.item.downloadedItemMoreButton.setVisibility(View.VISIBLE);
-        holder.item.divider.setVisibility(View.VISIBLE);
-
-        if (position > 0 && grouped.get(position - 1) != null && !Objects.equals(grouped.get(position - 1).getArtist(), grouped.get(position).getArtist())) {
-            holder.item.divider.setPadding(0, (int) holder.itemView.getContext().getResources().getDimension(R.dimen.downloaded_item_padding), 0, 0);
-        } else {
-            if (position > 0) holder.item.divider.setVisibility(View.GONE);
-        }
     }
 
-    private void initArtistLayout(ViewHolder holder, int position) {
-        Child song = grouped.get(position);
+    private void initArtistLayout(ViewHolder holder, Row row) {
+        Child song = row.song;
 
         holder.item.downloadedItemTitleTextView.setText(song.getArtist());
-        holder.item.downloadedItemSubtitleTextView.setText(holder.itemView.getContext().getString(R.string.download_item_single_subtitle_formatter, countSong(Constants.DOWNLOAD_TYPE_ARTIST, song.getArtistId(), songs)));
+        holder.item.downloadedItemSubtitleTextView.setText(holder.itemView.getContext().getString(R.string.download_item_single_subtitle_formatter, String.valueOf(row.count)));
+        holder.item.downloadedItemPreTextView.setText(null);
 
         CustomGlideRequest.Builder
                 .from(holder.itemView.getContext(), song.getCoverArtId(), CustomGlideRequest.ResourceType.Song)
@@ -249,29 +284,45 @@ public class DownloadHorizontalAdapter extends RecyclerView.Adapter<DownloadHori
 
         holder.item.itemCoverImageView.setVisibility(View.VISIBLE);
         holder.item.downloadedItemMoreButton.setVisibility(View.VISIBLE);
-        holder.item.divider.setVisibility(View.GONE);
     }
 
-    private void initGenreLayout(ViewHolder holder, int position) {
-        Child song = grouped.get(position);
+    private void initGenreLayout(ViewHolder holder, Row row) {
+        Child song = row.song;
 
         holder.item.downloadedItemTitleTextView.setText(song.getGenre());
-        holder.item.downloadedItemSubtitleTextView.setText(holder.itemView.getContext().getString(R.string.download_item_single_subtitle_formatter, countSong(Constants.DOWNLOAD_TYPE_GENRE, song.getGenre(), songs)));
+        holder.item.downloadedItemSubtitleTextView.setText(holder.itemView.getContext().getString(R.string.download_item_single_subtitle_formatter, String.valueOf(row.count)));
+        holder.item.downloadedItemPreTextView.setText(null);
 
         holder.item.itemCoverImageView.setVisibility(View.GONE);
         holder.item.downloadedItemMoreButton.setVisibility(View.VISIBLE);
-        holder.item.divider.setVisibility(View.GONE);
     }
 
-    private void initYearLayout(ViewHolder holder, int position) {
-        Child song = grouped.get(position);
+    private void initYearLayout(ViewHolder holder, Row row) {
+        Child song = row.song;
 
         holder.item.downloadedItemTitleTextView.setText(String.valueOf(song.getYear()));
-        holder.item.downloadedItemSubtitleTextView.setText(holder.itemView.getContext().getString(R.string.download_item_single_subtitle_formatter, countSong(Constants.DOWNLOAD_TYPE_YEAR, song.getYear().toString(), songs)));
+        holder.item.downloadedItemSubtitleTextView.setText(holder.itemView.getContext().getString(R.string.download_item_single_subtitle_formatter, String.valueOf(row.count)));
+        holder.item.downloadedItemPreTextView.setText(null);
 
         holder.item.itemCoverImageView.setVisibility(View.GONE);
         holder.item.downloadedItemMoreButton.setVisibility(View.VISIBLE);
-        holder.item.divider.setVisibility(View.GONE);
+    }
+
+    /**
+     * A row of the list: a song, or the first song of a group along with the size of the group.
+     */
+    private static class Row {
+        final String view;
+        final String key;
+        final Child song;
+        final int count;
+
+        Row(String view, String value, Child song, int count) {
+            this.view = view;
+            this.key = view + "/" + value;
+            this.song = song;
+            this.count = count;
+        }
     }
 
     public class ViewHolder extends RecyclerView.ViewHolder {
@@ -293,27 +344,28 @@ public class DownloadHorizontalAdapter extends RecyclerView.Adapter<DownloadHori
 
         public void onClick() {
             Bundle bundle = new Bundle();
+            Row row = differ.getCurrentList().get(getBindingAdapterPosition());
 
-            switch (view) {
+            switch (row.view) {
                 case Constants.DOWNLOAD_TYPE_TRACK:
-                    bundle.putParcelableArrayList(Constants.TRACKS_OBJECT, new ArrayList<>(grouped));
+                    bundle.putParcelableArrayList(Constants.TRACKS_OBJECT, differ.getCurrentList().stream().map(item -> item.song).collect(Collectors.toCollection(ArrayList::new)));
                     bundle.putInt(Constants.ITEM_POSITION, getBindingAdapterPosition());
                     click.onMediaClick(bundle);
                     break;
                 case Constants.DOWNLOAD_TYPE_ALBUM:
-                    bundle.putString(Constants.DOWNLOAD_TYPE_ALBUM, grouped.get(getBindingAdapterPosition()).getAlbumId());
+                    bundle.putString(Constants.DOWNLOAD_TYPE_ALBUM, row.song.getAlbumId());
                     click.onAlbumClick(bundle);
                     break;
                 case Constants.DOWNLOAD_TYPE_ARTIST:
-                    bundle.putString(Constants.DOWNLOAD_TYPE_ARTIST, grouped.get(getBindingAdapterPosition()).getArtistId());
+                    bundle.putString(Constants.DOWNLOAD_TYPE_ARTIST, row.song.getArtistId());
                     click.onArtistClick(bundle);
                     break;
                 case Constants.DOWNLOAD_TYPE_GENRE:
-                    bundle.putString(Constants.DOWNLOAD_TYPE_GENRE, grouped.get(getBindingAdapterPosition()).getGenre());
+                    bundle.putString(Constants.DOWNLOAD_TYPE_GENRE, row.song.getGenre());
                     click.onGenreClick(bundle);
                     break;
                 case Constants.DOWNLOAD_TYPE_YEAR:
-                    bundle.putString(Constants.DOWNLOAD_TYPE_YEAR, grouped.get(getBindingAdapterPosition()).getYear().toString());
+                    bundle.putString(Constants.DOWNLOAD_TYPE_YEAR, row.song.getYear().toString());
                     click.onYearClick(bundle);
                     break;
             }
@@ -321,25 +373,14 @@ public class DownloadHorizontalAdapter extends RecyclerView.Adapter<DownloadHori
 
         private boolean onLongClick() {
             ArrayList<Child> filteredSongs = new ArrayList<>();
+            Row row = differ.getCurrentList().get(getBindingAdapterPosition());
 
             Bundle bundle = new Bundle();
 
-            switch (view) {
-                case Constants.DOWNLOAD_TYPE_TRACK:
-                    filteredSongs.add(grouped.get(getBindingAdapterPosition()));
-                    break;
-                case Constants.DOWNLOAD_TYPE_ALBUM:
-                    filteredSongs.addAll(filterSong(Constants.DOWNLOAD_TYPE_ALBUM, grouped.get(getBindingAdapterPosition()).getAlbumId(), songs));
-                    break;
-                case Constants.DOWNLOAD_TYPE_ARTIST:
-                    filteredSongs.addAll(filterSong(Constants.DOWNLOAD_TYPE_ARTIST, grouped.get(getBindingAdapterPosition()).getArtistId(), songs));
-                    break;
-                case Constants.DOWNLOAD_TYPE_GENRE:
-                    filteredSongs.addAll(filterSong(Constants.DOWNLOAD_TYPE_GENRE, grouped.get(getBindingAdapterPosition()).getGenre(), songs));
-                    break;
-                case Constants.DOWNLOAD_TYPE_YEAR:
-                    filteredSongs.addAll(filterSong(Constants.DOWNLOAD_TYPE_YEAR, grouped.get(getBindingAdapterPosition()).getYear().toString(), songs));
-                    break;
+            if (row.view.equals(Constants.DOWNLOAD_TYPE_TRACK)) {
+                filteredSongs.add(row.song);
+            } else {
+                filteredSongs.addAll(filterSong(row.view, getGroupValue(row.view, row.song), songs));
             }
 
             if (filteredSongs.isEmpty()) return false;
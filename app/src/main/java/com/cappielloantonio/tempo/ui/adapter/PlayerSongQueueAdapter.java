@@ -2,6 +2,8 @@ package com.cappielloantonio.tempo.ui.adapter;
 
 import android.graphics.drawable.Drawable;
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
 import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.View;
@@ -10,6 +12,7 @@ import android.view.ViewGroup;
 import androidx.annotation.NonNull;
 import androidx.appcompat.content.res.AppCompatResources;
 import androidx.media3.session.MediaBrowser;
+import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.bumptech.glide.RequestBuilder;
@@ -30,10 +33,18 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
 
 public class PlayerSongQueueAdapter extends RecyclerView.Adapter<PlayerSongQueueAdapter.ViewHolder> {
     private static final String TAG = "PlayerSongQueueAdapter";
+
+    private static final Executor diffExecutor = Executors.newSingleThreadExecutor();
+    private static final DiffUtil.ItemCallback<Child> DIFF_CALLBACK = new ChildDiffCallback();
+
     private final ClickCallback click;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private int itemsGeneration;
 
     private ListenableFuture<MediaBrowser> mediaBrowserListenableFuture;
     private List<Child> songs;
@@ -54,9 +65,19 @@ public class PlayerSongQueueAdapter extends RecyclerView.Adapter<PlayerSongQueue
         return new ViewHolder(view);
     }
 
+    @Override
+    public void onBindViewHolder(@NonNull ViewHolder holder, int position, @NonNull List<Object> payloads) {
+        if (payloads.size() == 1 && payloads.contains("payload_playback")) {
+            bindPlaybackState(holder, songs.get(position));
+            bindPlayedState(holder);
+        } else {
+            super.onBindViewHolder(holder, position, payloads);
+        }
+    }
+
     @Override
     public void onBindViewHolder(ViewHolder holder, int position) {
-        Child song = songs.get(holder.getLayoutPosition());
+        Child song = songs.get(position);
 
         holder.item.queueSongTitleTextView.setText(song.getTitle());
         holder.item.queueSongSubtitleTextView.setText(
@@ -79,25 +100,10 @@ public class PlayerSongQueueAdapter extends RecyclerView.Adapter<PlayerSongQueue
                 .thumbnail(thumbnail)
                 .into(holder.item.queueSongCoverImageView);
 
-        MediaManager.getCurrentIndex(mediaBrowserListenableFuture, new MediaIndexCallback() {
-            @Override
-            public void onRecovery(int index) {
-                if (holder.getLayoutPosition() < index) {
-                    holder.item.queueSongTitleTextView.setAlpha(0.2f);
-                    holder.item.queueSongSubtitleTextView.setAlpha(0.2f);
-                    holder.item.ratingIndicatorImageView.setAlpha(0.2f);
-                } else {
-                    holder.item.queueSongTitleTextView.setAlpha(1.0f);
-                    holder.item.queueSongSubtitleTextView.setAlpha(1.0f);
-                    holder.item.ratingIndicatorImageView.setAlpha(1.0f);
-                }
-            }
-        });
+        bindPlayedState(holder);
 
         if (Preferences.showItemRating()) {
-            if (song.getStarred() == null && song.getUserRating() == null) {
-                holder.item.ratingIndicatorImageView.setVisibility(View.GONE);
-            }
+            holder.item.ratingIndicatorImageView.setVisibility(song.getStarred() == null && song.getUserRating() == null ? View.GONE : View.VISIBLE);
 
             holder.item.preferredIcon.setVisibility(song.getStarred() != null ? View.VISIBLE : View.GONE);
             holder.item.ratingBarLayout.setVisibility(song.getUserRating() != null ? View.VISIBLE : View.GONE);
@@ -137,6 +143,23 @@ public class PlayerSongQueueAdapter extends RecyclerView.Adapter<PlayerSongQueue
         bindPlaybackState(holder, song);
     }
 
+    private void bindPlayedState(@NonNull PlayerSongQueueAdapter.ViewHolder holder) {
+        MediaManager.getCurrentIndex(mediaBrowserListenableFuture, new MediaIndexCallback() {
+            @Override
+            public void onRecovery(int index) {
+                if (holder.getLayoutPosition() < index) {
+                    holder.item.queueSongTitleTextView.setAlpha(0.2f);
+                    holder.item.queueSongSubtitleTextView.setAlpha(0.2f);
+                    holder.item.ratingIndicatorImageView.setAlpha(0.2f);
+                } else {
+                    holder.item.queueSongTitleTextView.setAlpha(1.0f);
+                    holder.item.queueSongSubtitleTextView.setAlpha(1.0f);
+                    holder.item.ratingIndicatorImageView.setAlpha(1.0f);
+                }
+            }
+        });
+    }
+
     private void bindPlaybackState(@NonNull PlayerSongQueueAdapter.ViewHolder holder, @NonNull Child song) {
         boolean isCurrent = currentPlayingId != null && currentPlayingId.equals(song.getId());
 
@@ -158,9 +181,57 @@ public class PlayerSongQueueAdapter extends RecyclerView.Adapter<PlayerSongQueue
         return this.songs;
     }
 
+    /**
+     * Diffs the new queue against the shown one in the background, then applies the changes.
+     * Rows only get rebound for what changed, plus a light pass on the bound ones for the
+     * played and playing state, which follows the position of the current item.
+     */
     public void setItems(List<Child> songs) {
-        this.songs = songs;
-        notifyDataSetChanged();
+        List<Child> oldSongs = new ArrayList<>(this.songs);
+        List<Child> newSongs = new ArrayList<>(songs);
+        int generation = ++itemsGeneration;
+
+        diffExecutor.execute(() -> {
+            DiffUtil.DiffResult diffResult = DiffUtil.calculateDiff(new DiffUtil.Callback() {
+                @Override
+                public int getOldListSize() {
+                    return oldSongs.size();
+                }
+
+                @Override
+                public int getNewListSize() {
+                    return newSongs.size();
+                }
+
+                @Override
+                public boolean areItemsTheSame(int oldItemPosition, int newItemPosition) {
+                    return DIFF_CALLBACK.areItemsTheSame(oldSongs.get(oldItemPosition), newSongs.get(newItemPosition));
+                }
+
+                @Override
+                public boolean areContentsTheSame(int oldItemPosition, int newItemPosition) {
+                    return DIFF_CALLBACK.areContentsTheSame(oldSongs.get(oldItemPosition), newSongs.get(newItemPosition));
+                }
+            });
+
+            mainHandler.post(() -> {
+                if (generation != itemsGeneration) return;
+
+                // Moved or removed by hand meanwhile, the diff no longer matches what is shown
+                boolean isShown = this.songs.equals(oldSongs);
+
+                this.songs = newSongs;
+
+                if (isShown) {
+                    diffResult.dispatchUpdatesTo(this);
+                } else {
+                    notifyDataSetChanged();
+                }
+
+                currentPlayingPositions = findPositionsById(currentPlayingId);
+                notifyItemRangeChanged(0, newSongs.size(), "payload_playback");
+            });
+        });
     }
 
     @Override
@@ -95,11 +95,6 @@ public class PodcastChannelCatalogueAdapter extends RecyclerView.Adapter<Podcast
         notifyDataSetChanged();
     }
 
-    @Override
-    public int getItemViewType(int position) {
-        return position;
-    }
-
     @Override
     public long getItemId(int position) {
         return position;
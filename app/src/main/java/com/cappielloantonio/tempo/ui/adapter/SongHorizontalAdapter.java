@@ -13,12 +13,14 @@ import androidx.annotation.NonNull;
 import androidx.appcompat.content.res.AppCompatResources;
 import androidx.media3.common.util.UnstableApi;
 import androidx.media3.session.MediaBrowser;
+import androidx.recyclerview.widget.AsyncListDiffer;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.cappielloantonio.tempo.R;
 import com.cappielloantonio.tempo.databinding.ItemHorizontalTrackBinding;
 import com.cappielloantonio.tempo.glide.CustomGlideRequest;
 import com.cappielloantonio.tempo.interfaces.ClickCallback;
+import com.cappielloantonio.tempo.service.DownloadStateIndex;
 import com.cappielloantonio.tempo.subsonic.models.AlbumID3;
 import com.cappielloantonio.tempo.subsonic.models.Child;
 import com.cappielloantonio.tempo.subsonic.models.DiscTitle;
@@ -43,8 +45,9 @@ public class SongHorizontalAdapter extends RecyclerView.Adapter<SongHorizontalAd
     private final boolean showAlbum;
     private final AlbumID3 album;
 
+    private final AsyncListDiffer<Child> differ = new AsyncListDiffer<>(this, new ChildDiffCallback());
+
     private List<Child> songsFull;
-    private List<Child> songs;
     private String currentFilter;
 
     private String currentPlayingId;
@@ -52,6 +55,14 @@ public class SongHorizontalAdapter extends RecyclerView.Adapter<SongHorizontalAd
     private List<Integer> currentPlayingPositions = Collections.emptyList();
     private ListenableFuture<MediaBrowser> mediaBrowserListenableFuture;
 
+    private final DownloadStateIndex.Listener downloadStateListener = ids -> {
+        for (int i = 0; i < differ.getCurrentList().size(); i++) {
+            if (ids.contains(differ.getCurrentList().get(i).getId())) {
+                notifyItemChanged(i, "payload_download");
+            }
+        }
+    };
+
     private final Filter filtering = new Filter() {
         @Override
         protected FilterResults performFiltering(CharSequence constraint) {
@@ -78,14 +89,7 @@ public class SongHorizontalAdapter extends RecyclerView.Adapter<SongHorizontalAd
 
         @Override
         protected void publishResults(CharSequence constraint, FilterResults results) {
-            songs = (List<Child>) results.values;
-            notifyDataSetChanged();
-
-            for (int pos : currentPlayingPositions) {
-                if (pos >= 0 && pos < songs.size()) {
-                    notifyItemChanged(pos, "payload_playback");
-                }
-            }
+            differ.submitList((List<Child>) results.values, this::onCurrentListCommitted);
         }
     };
 
@@ -93,7 +97,6 @@ public class SongHorizontalAdapter extends RecyclerView.Adapter<SongHorizontalAd
         this.click = click;
         this.showCoverArt = showCoverArt;
         this.showAlbum = showAlbum;
-        this.songs = Collections.emptyList();
         this.songsFull = Collections.emptyList();
         this.currentFilter = "";
         this.album = album;
@@ -109,8 +112,10 @@ public class SongHorizontalAdapter extends RecyclerView.Adapter<SongHorizontalAd
 
     @Override
     public void onBindViewHolder(@NonNull ViewHolder holder, int position, @NonNull List<Object> payloads) {
-        if (!payloads.isEmpty() && payloads.contains("payload_playback")) {
-            bindPlaybackState(holder, songs.get(position));
+        if (!payloads.isEmpty() && (payloads.contains("payload_playback") || payloads.contains("payload_download") || payloads.contains("payload_disc"))) {
+            if (payloads.contains("payload_playback")) bindPlaybackState(holder, differ.getCurrentList().get(position));
+            if (payloads.contains("payload_download")) bindDownloadState(holder, differ.getCurrentList().get(position));
+            if (payloads.contains("payload_disc")) bindDiscDivider(holder, position);
         } else {
             super.onBindViewHolder(holder, position, payloads);
         }
@@ -118,7 +123,7 @@ public class SongHorizontalAdapter extends RecyclerView.Adapter<SongHorizontalAd
 
     @Override
     public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
-        Child song = songs.get(position);
+        Child song = differ.getCurrentList().get(position);
 
         holder.item.searchResultSongTitleTextView.setText(song.getTitle());
 
@@ -135,11 +140,7 @@ public class SongHorizontalAdapter extends RecyclerView.Adapter<SongHorizontalAd
 
         holder.item.trackNumberTextView.setText(MusicUtil.getReadableTrackNumber(holder.itemView.getContext(), song.getTrack()));
 
-        if (DownloadUtil.getDownloadTracker(holder.itemView.getContext()).isDownloaded(song.getId())) {
-            holder.item.searchResultDownloadIndicatorImageView.setVisibility(View.VISIBLE);
-        } else {
-            holder.item.searchResultDownloadIndicatorImageView.setVisibility(View.GONE);
-        }
+        bindDownloadState(holder, song);
 
         if (showCoverArt) CustomGlideRequest.Builder
                 .from(holder.itemView.getContext(), song.getCoverArtId(), CustomGlideRequest.ResourceType.Song)
@@ -149,6 +150,31 @@ public class SongHorizontalAdapter extends RecyclerView.Adapter<SongHorizontalAd
         holder.item.trackNumberTextView.setVisibility(showCoverArt ? View.INVISIBLE : View.VISIBLE);
         holder.item.songCoverImageView.setVisibility(showCoverArt ? View.VISIBLE : View.INVISIBLE);
 
+        bindDiscDivider(holder, position);
+
+        if (Preferences.showItemRating()) {
+            holder.item.ratingIndicatorImageView.setVisibility(song.getStarred() == null && song.getUserRating() == null ? View.GONE : View.VISIBLE);
+
+            holder.item.preferredIcon.setVisibility(song.getStarred() != null ? View.VISIBLE : View.GONE);
+            holder.item.ratingBarLayout.setVisibility(song.getUserRating() != null ? View.VISIBLE : View.GONE);
+
+            if (song.getUserRating() != null) {
+                holder.item.oneStarIcon.setImageDrawable(AppCompatResources.getDrawable(holder.itemView.getContext(), song.getUserRating() >= 1 ? R.drawable.ic_star : R.drawable.ic_star_outlined));
+                holder.item.twoStarIcon.setImageDrawable(AppCompatResources.getDrawable(holder.itemView.getContext(), song.getUserRating() >= 2 ? R.drawable.ic_star : R.drawable.ic_star_outlined));
+                holder.item.threeStarIcon.setImageDrawable(AppCompatResources.getDrawable(holder.itemView.getContext(), song.getUserRating() >= 3 ? R.drawable.ic_star : R.drawable.ic_star_outlined));
+                holder.item.fourStarIcon.setImageDrawable(AppCompatResources.getDrawable(holder.itemView.getContext(), song.getUserRating() >= 4 ? R.drawable.ic_star : R.drawable.ic_star_outlined));
+                holder.item.fiveStarIcon.setImageDrawable(AppCompatResources.getDrawable(holder.itemView.getContext(), song.getUserRating() >= 5 ? R.drawable.ic_star : R.drawable.ic_star_outlined));
+            }
+        } else {
+            holder.item.ratingIndicatorImageView.setVisibility(View.GONE);
+        }
+
+        bindPlaybackState(holder, song);
+    }
+
+    private void bindDiscDivider(@NonNull ViewHolder holder, int position) {
+        List<Child> songs = differ.getCurrentList();
+
         if (!showCoverArt &&
                 (position == 0 ||
                         (position > 0 && songs.get(position - 1) != null &&
@@ -171,28 +197,17 @@ public class SongHorizontalAdapter extends RecyclerView.Adapter<SongHorizontalAd
                     holder.item.discTitleTextView.setText(holder.itemView.getContext().getString(R.string.disc_titlefull, discTitle.get().getDisc().toString() , discTitle.get().getTitle()));
                 }
             }
+        } else {
+            holder.item.differentDiskDividerSector.setVisibility(View.GONE);
         }
+    }
 
-        if (Preferences.showItemRating()) {
-            if (song.getStarred() == null && song.getUserRating() == null) {
-                holder.item.ratingIndicatorImageView.setVisibility(View.GONE);
-            }
-
-            holder.item.preferredIcon.setVisibility(song.getStarred() != null ? View.VISIBLE : View.GONE);
-            holder.item.ratingBarLayout.setVisibility(song.getUserRating() != null ? View.VISIBLE : View.GONE);
-
-            if (song.getUserRating() != null) {
-                holder.item.oneStarIcon.setImageDrawable(AppCompatResources.getDrawable(holder.itemView.getContext(), song.getUserRating() >= 1 ? R.drawable.ic_star : R.drawable.ic_star_outlined));
-                holder.item.twoStarIcon.setImageDrawable(AppCompatResources.getDrawable(holder.itemView.getContext(), song.getUserRating() >= 2 ? R.drawable.ic_star : R.drawable.ic_star_outlined));
-                holder.item.threeStarIcon.setImageDrawable(AppCompatResources.getDrawable(holder.itemView.getContext(), song.getUserRating() >= 3 ? R.drawable.ic_star : R.drawable.ic_star_outlined));
-                holder.item.fourStarIcon.setImageDrawable(AppCompatResources.getDrawable(holder.itemView.getContext(), song.getUserRating() >= 4 ? R.drawable.ic_star : R.drawable.ic_star_outlined));
-                holder.item.fiveStarIcon.setImageDrawable(AppCompatResources.getDrawable(holder.itemView.getContext(), song.getUserRating() >= 5 ? R.drawable.ic_star : R.drawable.ic_star_outlined));
-            }
+    private void bindDownloadState(@NonNull ViewHolder holder, @NonNull Child song) {
+        if (DownloadUtil.getDownloadTracker(holder.itemView.getContext()).isDownloaded(song.getId())) {
+            holder.item.searchResultDownloadIndicatorImageView.setVisibility(View.VISIBLE);
         } else {
-            holder.item.ratingIndicatorImageView.setVisibility(View.GONE);
+            holder.item.searchResultDownloadIndicatorImageView.setVisibility(View.GONE);
         }
-
-        bindPlaybackState(holder, song);
     }
 
     private void bindPlaybackState(@NonNull ViewHolder holder, @NonNull Child song) {
@@ -222,23 +237,32 @@ public class SongHorizontalAdapter extends RecyclerView.Adapter<SongHorizontalAd
 
     @Override
     public int getItemCount() {
-        return songs.size();
+        return differ.getCurrentList().size();
+    }
+
+    // Rows follow the download state while the list is shown, completed downloads included
+    @Override
+    public void onAttachedToRecyclerView(@NonNull RecyclerView recyclerView) {
+        super.onAttachedToRecyclerView(recyclerView);
+        DownloadUtil.getDownloadTracker(recyclerView.getContext()).getDownloadStateIndex().addListener(downloadStateListener);
+    }
+
+    @Override
+    public void onDetachedFromRecyclerView(@NonNull RecyclerView recyclerView) {
+        DownloadUtil.getDownloadTracker(recyclerView.getContext()).getDownloadStateIndex().removeListener(downloadStateListener);
+        super.onDetachedFromRecyclerView(recyclerView);
     }
 
     public void setItems(List<Child> songs) {
         this.songsFull = songs != null ? songs : Collections.emptyList();
         filtering.filter(currentFilter);
-        notifyDataSetChanged();
     }
 
-    @Override
-    public int getItemViewType(int position) {
-        return position;
-    }
+    private void onCurrentListCommitted() {
+        currentPlayingPositions = findPositionsById(currentPlayingId);
 
-    @Override
-    public long getItemId(int position) {
-        return position;
+        // Disc dividers depend on the previous row, which inserts and removes don't rebind
+        if (!showCoverArt) notifyItemRangeChanged(0, getItemCount(), "payload_disc");
     }
 
     public void setPlaybackState(String mediaId, boolean playing) {
@@ -259,12 +283,12 @@ public class SongHorizontalAdapter extends RecyclerView.Adapter<SongHorizontalAd
         currentPlayingPositions = mediaId != null ? findPositionsById(mediaId) : Collections.emptyList();
 
         for (int pos : oldPositions) {
-            if (pos >= 0 && pos < songs.size()) {
+            if (pos >= 0 && pos < differ.getCurrentList().size()) {
                 notifyItemChanged(pos, "payload_playback");
             }
         }
         for (int pos : currentPlayingPositions) {
-            if (!oldPositions.contains(pos) && pos >= 0 && pos < songs.size()) {
+            if (!oldPositions.contains(pos) && pos >= 0 && pos < differ.getCurrentList().size()) {
                 notifyItemChanged(pos, "payload_playback");
             }
         }
@@ -273,8 +297,8 @@ public class SongHorizontalAdapter extends RecyclerView.Adapter<SongHorizontalAd
     private List<Integer> findPositionsById(String id) {
         if (id == null) return Collections.emptyList();
         List<Integer> positions = new ArrayList<>();
-        for (int i = 0; i < songs.size(); i++) {
-            if (id.equals(songs.get(i).getId())) {
+        for (int i = 0; i < differ.getCurrentList().size(); i++) {
+            if (id.equals(differ.getCurrentList().get(i).getId())) {
                 positions.add(i);
             }
         }
@@ -287,7 +311,7 @@ public class SongHorizontalAdapter extends RecyclerView.Adapter<SongHorizontalAd
     }
 
     public Child getItem(int id) {
-        return songs.get(id);
+        return differ.getCurrentList().get(id);
     }
 
     public class ViewHolder extends RecyclerView.ViewHolder {
@@ -309,11 +333,11 @@ public class SongHorizontalAdapter extends RecyclerView.Adapter<SongHorizontalAd
 
         public void onClick() {
             int pos = getBindingAdapterPosition();
-            Child tappedSong = songs.get(pos);
+            Child tappedSong = differ.getCurrentList().get(pos);
 
             Bundle bundle = new Bundle();
-            bundle.putParcelableArrayList(Constants.TRACKS_OBJECT, new ArrayList<>(MusicUtil.limitPlayableMedia(songs, getBindingAdapterPosition())));
-            bundle.putInt(Constants.ITEM_POSITION, MusicUtil.getPlayableMediaPosition(songs, getBindingAdapterPosition()));
+            bundle.putParcelableArrayList(Constants.TRACKS_OBJECT, new ArrayList<>(differ.getCurrentList()));
+            bundle.putInt(Constants.ITEM_POSITION, pos);
 
             if (tappedSong.getId().equals(currentPlayingId)) {
                 Log.i("SongHorizontalAdapter", "Tapping on currently playing song, toggling playback");
@@ -335,7 +359,7 @@ public class SongHorizontalAdapter extends RecyclerView.Adapter<SongHorizontalAd
 
         private boolean onLongClick() {
             Bundle bundle = new Bundle();
-            bundle.putParcelable(Constants.TRACK_OBJECT, songs.get(getBindingAdapterPosition()));
+            bundle.putParcelable(Constants.TRACK_OBJECT, differ.getCurrentList().get(getBindingAdapterPosition()));
 
             click.onMediaLongClick(bundle);
 
@@ -344,19 +368,21 @@ public class SongHorizontalAdapter extends RecyclerView.Adapter<SongHorizontalAd
     }
 
     public void sort(String order) {
+        List<Child> sorted = new ArrayList<>(differ.getCurrentList());
+
         switch (order) {
             case Constants.MEDIA_BY_TITLE:
-                songs.sort(Comparator.comparing(Child::getTitle));
+                sorted.sort(Comparator.comparing(Child::getTitle));
                 break;
             case Constants.MEDIA_MOST_RECENTLY_STARRED:
-                songs.sort(Comparator.comparing(Child::getStarred, Comparator.nullsLast(Comparator.reverseOrder())));
+                sorted.sort(Comparator.comparing(Child::getStarred, Comparator.nullsLast(Comparator.reverseOrder())));
                 break;
             case Constants.MEDIA_LEAST_RECENTLY_STARRED:
-                songs.sort(Comparator.comparing(Child::getStarred, Comparator.nullsLast(Comparator.naturalOrder())));
+                sorted.sort(Comparator.comparing(Child::getStarred, Comparator.nullsLast(Comparator.naturalOrder())));
                 break;
         }
 
-        notifyDataSetChanged();
+        differ.submitList(sorted, this::onCurrentListCommitted);
     }
 
     public void setMediaBrowserListenableFuture(ListenableFuture<MediaBrowser> mediaBrowserListenableFuture) {
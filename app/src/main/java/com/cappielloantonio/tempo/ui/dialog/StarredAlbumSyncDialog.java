@@ -14,6 +14,7 @@ import androidx.media3.common.util.UnstableApi;
 import com.cappielloantonio.tempo.R;
 import com.cappielloantonio.tempo.databinding.DialogStarredAlbumSyncBinding;
 import com.cappielloantonio.tempo.model.Download;
+import com.cappielloantonio.tempo.service.DownloaderManager;
 import com.cappielloantonio.tempo.util.DownloadUtil;
 import com.cappielloantonio.tempo.util.MappingUtil;
 import com.cappielloantonio.tempo.util.Preferences;
@@ -64,7 +65,8 @@ public class StarredAlbumSyncDialog extends DialogFragment {
                     if (allSongs != null && !allSongs.isEmpty()) {
                         DownloadUtil.getDownloadTracker(context).download(
                                 MappingUtil.mapDownloads(allSongs),
-                                allSongs.stream().map(Download::new).collect(Collectors.toList())
+                                allSongs.stream().map(Download::new).collect(Collectors.toList()),
+                                DownloaderManager.Priority.SYNC
                         );
                     }
                     dialog.dismiss();
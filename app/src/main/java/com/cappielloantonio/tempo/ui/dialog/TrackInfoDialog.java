@@ -11,6 +11,7 @@ import com.cappielloantonio.tempo.R;
 import com.cappielloantonio.tempo.databinding.DialogTrackInfoBinding;
 import com.cappielloantonio.tempo.glide.CustomGlideRequest;
 import com.cappielloantonio.tempo.util.Constants;
+import com.cappielloantonio.tempo.util.MediaMetadataStore;
 import com.cappielloantonio.tempo.util.MusicUtil;
 import com.cappielloantonio.tempo.util.Preferences;
 import com.google.android.material.dialog.MaterialAlertDialogBuilder;
@@ -52,41 +53,45 @@ public class TrackInfoDialog extends DialogFragment {
     }
 
     private void setTrackInfo() {
+        Bundle extras = MediaMetadataStore.getExtras(mediaMetadata);
+
         bind.trakTitleInfoTextView.setText(mediaMetadata.title);
         bind.trakArtistInfoTextView.setText(
                 mediaMetadata.artist != null
                         ? mediaMetadata.artist
-                        : mediaMetadata.extras != null && Objects.equals(mediaMetadata.extras.getString("type"), Constants.MEDIA_TYPE_RADIO)
-                        ? mediaMetadata.extras.getString("uri", getString(R.string.label_placeholder))
+                        : extras != null && Objects.equals(extras.getString("type"), Constants.MEDIA_TYPE_RADIO)
+                        ? extras.getString("uri", getString(R.string.label_placeholder))
                         : "");
 
-        if (mediaMetadata.extras != null) {
+        if (extras != null) {
             CustomGlideRequest.Builder
-                    .from(requireContext(), mediaMetadata.extras.getString("coverArtId", ""), CustomGlideRequest.ResourceType.Song)
+                    .from(requireContext(), extras.getString("coverArtId", ""), CustomGlideRequest.ResourceType.Song)
                     .build()
                     .into(bind.trackCoverInfoImageView);
 
-            bind.titleValueSector.setText(mediaMetadata.extras.getString("title", getString(R.string.label_placeholder)));
-            bind.albumValueSector.setText(mediaMetadata.extras.getString("album", getString(R.string.label_placeholder)));
-            bind.artistValueSector.setText(mediaMetadata.extras.getString("artist", getString(R.string.label_placeholder)));
-            bind.trackNumberValueSector.setText(mediaMetadata.extras.getInt("track", 0) != 0 ? String.valueOf(mediaMetadata.extras.getInt("track", 0)) : getString(R.string.label_placeholder));
-            bind.yearValueSector.setText(mediaMetadata.extras.getInt("year", 0) != 0 ? String.valueOf(mediaMetadata.extras.getInt("year", 0)) : getString(R.string.label_placeholder));
-            bind.genreValueSector.setText(mediaMetadata.extras.getString("genre", getString(R.string.label_placeholder)));
-            bind.sizeValueSector.setText(mediaMetadata.extras.getLong("size", 0) != 0 ? MusicUtil.getReadableByteCount(mediaMetadata.extras.getLong("size", 0)) : getString(R.string.label_placeholder));
-            bind.contentTypeValueSector.setText(mediaMetadata.extras.getString("contentType", getString(R.string.label_placeholder)));
-            bind.suffixValueSector.setText(mediaMetadata.extras.getString("suffix", getString(R.string.label_placeholder)));
-            bind.transcodedContentTypeValueSector.setText(mediaMetadata.extras.getString("transcodedContentType", getString(R.string.label_placeholder)));
-            bind.transcodedSuffixValueSector.setText(mediaMetadata.extras.getString("transcodedSuffix", getString(R.string.label_placeholder)));
-            bind.durationValueSector.setText(mediaMetadata.extras.getInt("duration", 0) != 0 ? MusicUtil.getReadableDurationString(mediaMetadata.extras.getInt("duration", 0), false) : getString(R.string.label_placeholder));
-            bind.bitrateValueSector.setText(mediaMetadata.extras.getInt("bitrate", 0) != 0 ? mediaMetadata.extras.getInt("bitrate", 0) + " kbps" : getString(R.string.label_placeholder));
-            bind.samplingRateValueSector.setText(mediaMetadata.extras.getInt("samplingRate", 0) != 0 ? mediaMetadata.extras.getInt("samplingRate", 0) + " Hz" : getString(R.string.label_placeholder));
-            bind.bitDepthValueSector.setText(mediaMetadata.extras.getInt("bitDepth", 0) != 0 ? mediaMetadata.extras.getInt("bitDepth", 0) + " bits" : getString(R.string.label_placeholder));
-            bind.pathValueSector.setText(mediaMetadata.extras.getString("path", getString(R.string.label_placeholder)));
-            bind.discNumberValueSector.setText(mediaMetadata.extras.getInt("discNumber", 0) != 0 ? String.valueOf(mediaMetadata.extras.getInt("discNumber", 0)) : getString(R.string.label_placeholder));
+            bind.titleValueSector.setText(extras.getString("title", getString(R.string.label_placeholder)));
+            bind.albumValueSector.setText(extras.getString("album", getString(R.string.label_placeholder)));
+            bind.artistValueSector.setText(extras.getString("artist", getString(R.string.label_placeholder)));
+            bind.trackNumberValueSector.setText(extras.getInt("track", 0) != 0 ? String.valueOf(extras.getInt("track", 0)) : getString(R.string.label_placeholder));
+            bind.yearValueSector.setText(extras.getInt("year", 0) != 0 ? String.valueOf(extras.getInt("year", 0)) : getString(R.string.label_placeholder));
+            bind.genreValueSector.setText(extras.getString("genre", getString(R.string.label_placeholder)));
+            bind.sizeValueSector.setText(extras.getLong("size", 0) != 0 ? MusicUtil.getReadableByteCount(extras.getLong("size", 0)) : getString(R.string.label_placeholder));
+            bind.contentTypeValueSector.setText(extras.getString("contentType", getString(R.string.label_placeholder)));
+            bind.suffixValueSector.setText(extras.getString("suffix", getString(R.string.label_placeholder)));
+            bind.transcodedContentTypeValueSector.setText(extras.getString("transcodedContentType", getString(R.string.label_placeholder)));
+            bind.transcodedSuffixValueSector.setText(extras.getString("transcodedSuffix", getString(R.string.label_placeholder)));
+            bind.durationValueSector.setText(extras.getInt("duration", 0) != 0 ? MusicUtil.getReadableDurationString(extras.getInt("duration", 0), false) : getString(R.string.label_placeholder));
+            bind.bitrateValueSector.setText(extras.getInt("bitrate", 0) != 0 ? extras.getInt("bitrate", 0) + " kbps" : getString(R.string.label_placeholder));
+            bind.samplingRateValueSector.setText(extras.getInt("samplingRate", 0) != 0 ? extras.getInt("samplingRate", 0) + " Hz" : getString(R.string.label_placeholder));
+            bind.bitDepthValueSector.setText(extras.getInt("bitDepth", 0) != 0 ? extras.getInt("bitDepth", 0) + " bits" : getString(R.string.label_placeholder));
+            bind.pathValueSector.setText(extras.getString("path", getString(R.string.label_placeholder)));
+            bind.discNumberValueSector.setText(extras.getInt("discNumber", 0) != 0 ? String.valueOf(extras.getInt("discNumber", 0)) : getString(R.string.label_placeholder));
         }
     }
 
     private void setTrackTranscodingInfo() {
+        Bundle extras = MediaMetadataStore.getExtras(mediaMetadata);
+
         StringBuilder info = new StringBuilder();
 
         boolean prioritizeServerTranscoding = Preferences.isServerPrioritized();
@@ -94,7 +99,7 @@ public class TrackInfoDialog extends DialogFragment {
         String transcodingExtension = MusicUtil.getTranscodingFormatPreference();
         String transcodingBitrate = Integer.parseInt(MusicUtil.getBitratePreference()) != 0 ? Integer.parseInt(MusicUtil.getBitratePreference()) + "kbps" : "Original";
 
-        if (mediaMetadata.extras != null && mediaMetadata.extras.getString("uri", "").contains(Constants.DOWNLOAD_URI)) {
+        if (extras != null && extras.getString("uri", "").contains(Constants.DOWNLOAD_URI)) {
             info.append(getString(R.string.track_info_summary_downloaded_file));
 
             bind.trakTranscodingInfoTextView.setText(info);
@@ -160,7 +160,7 @@ public class AlbumListPageFragment extends Fragment implements ClickCallback {
 
             @Override
             public boolean onQueryTextChange(String newText) {
-                albumHorizontalAdapter.getFilter().filter(newText);
+                albumHorizontalAdapter.filter(newText);
                 return false;
             }
         });
@@ -29,6 +29,7 @@ import com.cappielloantonio.tempo.glide.CustomGlideRequest;
 import com.cappielloantonio.tempo.interfaces.ClickCallback;
 import com.cappielloantonio.tempo.model.Download;
 import com.cappielloantonio.tempo.subsonic.models.AlbumID3;
+import com.cappielloantonio.tempo.subsonic.models.Child;
 import com.cappielloantonio.tempo.service.MediaManager;
 import com.cappielloantonio.tempo.service.MediaService;
 import com.cappielloantonio.tempo.ui.activity.MainActivity;
@@ -45,6 +46,7 @@ import com.google.common.util.concurrent.ListenableFuture;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
 import java.util.Objects;
 import java.util.stream.Collectors;
 
@@ -129,13 +131,13 @@ public class AlbumPageFragment extends Fragment implements ClickCallback {
         }
 
         if (item.getItemId() == R.id.action_download_album) {
-            albumPageViewModel.getAlbumSongLiveList().observe(getViewLifecycleOwner(), songs -> {
+            albumPageViewModel.getAlbumSongs().observe(getViewLifecycleOwner(), songs -> {
                 DownloadUtil.getDownloadTracker(requireContext()).download(MappingUtil.mapDownloads(songs), songs.stream().map(Download::new).collect(Collectors.toList()));
             });
             return true;
         }
         if (item.getItemId() == R.id.action_add_to_playlist) {
-            albumPageViewModel.getAlbumSongLiveList().observe(getViewLifecycleOwner(), songs -> {
+            albumPageViewModel.getAlbumSongs().observe(getViewLifecycleOwner(), songs -> {
                 Bundle bundle = new Bundle();
                 bundle.putParcelableArrayList(Constants.TRACKS_OBJECT, new ArrayList<>(songs));
 
@@ -253,8 +255,10 @@ public class AlbumPageFragment extends Fragment implements ClickCallback {
                 });
 
                 bind.albumPageShuffleButton.setOnClickListener(v -> {
-                    Collections.shuffle(songs);
-                    MediaManager.startQueue(mediaBrowserListenableFuture, songs, 0);
+                    // The list is shared with the song adapter, so shuffle a copy
+                    List<Child> shuffled = new ArrayList<>(songs);
+                    Collections.shuffle(shuffled);
+                    MediaManager.startQueue(mediaBrowserListenableFuture, shuffled, 0);
                     activity.setBottomSheetInPeek(true);
                 });
             }
@@ -35,10 +35,6 @@ import com.cappielloantonio.tempo.ui.activity.MainActivity;
 import com.cappielloantonio.tempo.ui.adapter.ArtistCatalogueAdapter;
 import com.cappielloantonio.tempo.util.Constants;
 import com.cappielloantonio.tempo.viewmodel.ArtistCatalogueViewModel;
-import com.cappielloantonio.tempo.subsonic.models.ArtistID3;
-
-import java.util.ArrayList;
-import java.util.List;
 
 @UnstableApi
 public class ArtistCatalogueFragment extends Fragment implements ClickCallback {
@@ -79,6 +75,7 @@ public class ArtistCatalogueFragment extends Fragment implements ClickCallback {
 
     private void initData() {
         artistCatalogueViewModel = new ViewModelProvider(requireActivity()).get(ArtistCatalogueViewModel.class);
+        artistCatalogueViewModel.setFilter(null);
         artistCatalogueViewModel.loadArtists();
     }
 
@@ -114,7 +111,7 @@ public class ArtistCatalogueFragment extends Fragment implements ClickCallback {
         artistAdapter = new ArtistCatalogueAdapter(this);
         artistAdapter.setStateRestorationPolicy(RecyclerView.Adapter.StateRestorationPolicy.PREVENT_WHEN_EMPTY);
         bind.artistCatalogueRecyclerView.setAdapter(artistAdapter);
-        artistCatalogueViewModel.getArtistList().observe(getViewLifecycleOwner(), artistList -> artistAdapter.setItems(artistList));
+        artistCatalogueViewModel.getArtistList().observe(getViewLifecycleOwner(), artistList -> artistAdapter.submitData(getViewLifecycleOwner().getLifecycle(), artistList));
 
         bind.artistCatalogueRecyclerView.setOnTouchListener((v, event) -> {
             hideKeyboard(v);
@@ -139,13 +136,13 @@ public class ArtistCatalogueFragment extends Fragment implements ClickCallback {
             public boolean onQueryTextSubmit(String query) {
                 // this toast may be overkill...
                 Toast.makeText(requireContext(), "Search: " + query, Toast.LENGTH_SHORT).show();
-                filterArtists(query);
+                artistCatalogueViewModel.setFilter(query);
                 return true;
             }
 
             @Override
             public boolean onQueryTextChange(String newText) {
-                filterArtists(newText);
+                artistCatalogueViewModel.setFilter(newText);
                 return true;
             }
         });
@@ -153,29 +150,6 @@ public class ArtistCatalogueFragment extends Fragment implements ClickCallback {
         searchView.setPadding(-32, 0, 0, 0);
     }
 
-    private void filterArtists(String query) {
-        List<ArtistID3> allArtists = artistCatalogueViewModel.getArtistList().getValue();
-        
-        if (allArtists == null || allArtists.isEmpty()) {
-            return;
-        }
-        
-        if (query == null || query.trim().isEmpty()) {
-            artistAdapter.setItems(allArtists);
-        } else {
-            String searchQuery = query.toLowerCase().trim();
-            List<ArtistID3> filteredArtists = new ArrayList<>();
-            
-            for (ArtistID3 artist : allArtists) {
-                if (artist.getName() != null && 
-                    artist.getName().toLowerCase().contains(searchQuery)) {
-                    filteredArtists.add(artist);
-                }
-            }
-            artistAdapter.setItems(filteredArtists);
-        }
-    }
-
     private void hideKeyboard(View view) {
         InputMethodManager imm = (InputMethodManager) activity.getSystemService(Context.INPUT_METHOD_SERVICE);
         imm.hideSoftInputFromWindow(view.getWindowToken(), 0);
@@ -187,10 +161,10 @@ public class ArtistCatalogueFragment extends Fragment implements ClickCallback {
 
         popup.setOnMenuItemClickListener(menuItem -> {
             if (menuItem.getItemId() == R.id.menu_artist_sort_name) {
-                artistAdapter.sort(Constants.ARTIST_ORDER_BY_NAME);
+                artistCatalogueViewModel.setOrder(Constants.ARTIST_ORDER_BY_NAME);
                 return true;
             } else if (menuItem.getItemId() == R.id.menu_artist_sort_random) {
-                artistAdapter.sort(Constants.ARTIST_ORDER_BY_RANDOM);
+                artistCatalogueViewModel.setOrder(Constants.ARTIST_ORDER_BY_RANDOM);
                 return true;
             }
 
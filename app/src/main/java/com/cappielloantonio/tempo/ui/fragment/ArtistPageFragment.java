@@ -16,6 +16,7 @@ import androidx.media3.common.util.UnstableApi;
 import androidx.media3.session.MediaBrowser;
 import androidx.media3.session.SessionToken;
 import androidx.navigation.Navigation;
+import androidx.paging.PagingData;
 import androidx.recyclerview.widget.GridLayoutManager;
 import androidx.recyclerview.widget.LinearLayoutManager;
 
@@ -210,7 +211,7 @@ public class ArtistPageFragment extends Fragment implements ClickCallback {
             } else {
                 if (bind != null)
                     bind.artistPageAlbumsSector.setVisibility(!albums.isEmpty() ? View.VISIBLE : View.GONE);
-                albumCatalogueAdapter.setItems(albums);
+                albumCatalogueAdapter.submitData(getViewLifecycleOwner().getLifecycle(), PagingData.from(albums));
             }
         });
     }
@@ -236,7 +237,7 @@ public class ArtistPageFragment extends Fragment implements ClickCallback {
                     artists.addAll(artist.getSimilarArtists());
                 }
 
-                artistCatalogueAdapter.setItems(artists);
+                artistCatalogueAdapter.submitData(getViewLifecycleOwner().getLifecycle(), PagingData.from(artists));
             }
         });
 
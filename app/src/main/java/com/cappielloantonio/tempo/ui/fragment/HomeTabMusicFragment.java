@@ -65,6 +65,7 @@ import com.google.android.material.snackbar.Snackbar;
 import com.google.common.util.concurrent.ListenableFuture;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -72,6 +73,24 @@ import java.util.stream.Collectors;
 public class HomeTabMusicFragment extends Fragment implements ClickCallback {
     private static final String TAG = "HomeFragment";
 
+    private static final List<String> DEFAULT_SECTOR_ORDER = Arrays.asList(
+            Constants.HOME_SECTOR_DISCOVERY,
+            Constants.HOME_SECTOR_MADE_FOR_YOU,
+            Constants.HOME_SECTOR_RADIO_STATION,
+            Constants.HOME_SECTOR_BEST_OF,
+            Constants.HOME_SECTOR_STARRED_TRACKS,
+            Constants.HOME_SECTOR_STARRED_ALBUMS,
+            Constants.HOME_SECTOR_STARRED_ARTISTS,
+            Constants.HOME_SECTOR_MOST_PLAYED,
+            Constants.HOME_SECTOR_LAST_PLAYED,
+            Constants.HOME_SECTOR_NEW_RELEASES,
+            Constants.HOME_SECTOR_FLASHBACK,
+            Constants.HOME_SECTOR_RECENTLY_ADDED,
+            Constants.HOME_SECTOR_TOP_SONGS,
+            Constants.HOME_SECTOR_PINNED_PLAYLISTS,
+            Constants.HOME_SECTOR_SHARED
+    );
+
     private FragmentHomeTabMusicBinding bind;
     private MainActivity activity;
     private HomeViewModel homeViewModel;
@@ -116,21 +135,7 @@ public class HomeTabMusicFragment extends Fragment implements ClickCallback {
 
         initSyncStarredView();
         initSyncStarredAlbumsView();
-        initDiscoverSongSlideView();
-        initSimilarSongView();
-        initArtistRadio();
-        initArtistBestOf();
-        initStarredTracksView();
-        initStarredAlbumsView();
-        initStarredArtistsView();
-        initMostPlayedAlbumView();
-        initRecentPlayedAlbumView();
-        initNewReleasesView();
-        initYearSongView();
-        initRecentAddedAlbumView();
-        initTopSongsView();
-        initPinnedPlaylistsView();
-        initSharesView();
+        initSectorViews();
         initHomeReorganizer();
 
         reorder();
@@ -273,6 +278,73 @@ public class HomeTabMusicFragment extends Fragment implements ClickCallback {
         bind.gridTracksPreTextView.setOnClickListener(view -> showPopupMenu(view, R.menu.filter_top_songs_popup_menu));
     }
 
+    /**
+     * Initializes the sectors in the order they are displayed, skipping hidden ones. Their
+     * requests are served by the request scheduler in the order they are issued, so the
+     * sectors at the top of the screen load first and the rest queue behind them.
+     */
+    private void initSectorViews() {
+        List<String> sectorIds = new ArrayList<>();
+
+        if (homeViewModel.getHomeSectorList() != null) {
+            for (HomeSector sector : homeViewModel.getHomeSectorList()) {
+                if (sector.isVisible()) sectorIds.add(sector.getId());
+            }
+        } else {
+            sectorIds.addAll(DEFAULT_SECTOR_ORDER);
+        }
+
+        for (String sectorId : sectorIds) {
+            switch (sectorId) {
+                case Constants.HOME_SECTOR_DISCOVERY:
+                    initDiscoverSongSlideView();
+                    break;
+                case Constants.HOME_SECTOR_MADE_FOR_YOU:
+                    initSimilarSongView();
+                    break;
+                case Constants.HOME_SECTOR_BEST_OF:
+                    initArtistBestOf();
+                    break;
+                case Constants.HOME_SECTOR_RADIO_STATION:
+                    initArtistRadio();
+                    break;
+                case Constants.HOME_SECTOR_TOP_SONGS:
+                    initTopSongsView();
+                    break;
+                case Constants.HOME_SECTOR_STARRED_TRACKS:
+                    initStarredTracksView();
+                    break;
+                case Constants.HOME_SECTOR_STARRED_ALBUMS:
+                    initStarredAlbumsView();
+                    break;
+                case Constants.HOME_SECTOR_STARRED_ARTISTS:
+                    initStarredArtistsView();
+                    break;
+                case Constants.HOME_SECTOR_NEW_RELEASES:
+                    initNewReleasesView();
+                    break;
+                case Constants.HOME_SECTOR_FLASHBACK:
+                    initYearSongView();
+                    break;
+                case Constants.HOME_SECTOR_MOST_PLAYED:
+                    initMostPlayedAlbumView();
+                    break;
+                case Constants.HOME_SECTOR_LAST_PLAYED:
+                    initRecentPlayedAlbumView();
+                    break;
+                case Constants.HOME_SECTOR_RECENTLY_ADDED:
+                    initRecentAddedAlbumView();
+                    break;
+                case Constants.HOME_SECTOR_PINNED_PLAYLISTS:
+                    initPinnedPlaylistsView();
+                    break;
+                case Constants.HOME_SECTOR_SHARED:
+                    initSharesView();
+                    break;
+            }
+        }
+    }
+
     private void initSyncStarredView() {
         if (Preferences.isStarredSyncEnabled()) {
             homeViewModel.getAllStarredTracks().observeForever(new Observer<List<Child>>() {
@@ -309,12 +381,9 @@ public class HomeTabMusicFragment extends Fragment implements ClickCallback {
                     public void onChanged(List<Child> songs) {
                         if (songs != null) {
                             DownloaderManager manager = DownloadUtil.getDownloadTracker(requireContext());
+                            List<Child> toDownload = songs.stream().filter(song -> !manager.isDownloaded(song.getId())).collect(Collectors.toList());
 
-                            for (Child song : songs) {
-                                if (!manager.isDownloaded(song.getId())) {
-                                    manager.download(MappingUtil.mapDownload(song), new Download(song));
-                                }
-                            }
+                            manager.download(MappingUtil.mapDownloads(toDownload), toDownload.stream().map(Download::new).collect(Collectors.toList()), DownloaderManager.Priority.SYNC);
                         }
 
                         homeViewModel.getAllStarredTracks().removeObserver(this);
@@ -367,12 +436,9 @@ public class HomeTabMusicFragment extends Fragment implements ClickCallback {
                 public void onChanged(List<Child> allSongs) {
                     if (allSongs != null) {
                         DownloaderManager manager = DownloadUtil.getDownloadTracker(requireContext());
+                        List<Child> toDownload = allSongs.stream().filter(song -> !manager.isDownloaded(song.getId())).collect(Collectors.toList());
 
-                        for (Child song : allSongs) {
-                            if (!manager.isDownloaded(song.getId())) {
-                                manager.download(MappingUtil.mapDownload(song), new Download(song));
-                            }
-                        }
+                        manager.download(MappingUtil.mapDownloads(toDownload), toDownload.stream().map(Download::new).collect(Collectors.toList()), DownloaderManager.Priority.SYNC);
                     }
 
                     homeViewModel.getAllStarredAlbumSongs().removeObserver(this);
@@ -969,8 +1035,8 @@ public class HomeTabMusicFragment extends Fragment implements ClickCallback {
             MediaManager.startQueue(mediaBrowserListenableFuture, bundle.getParcelableArrayList(Constants.TRACKS_OBJECT), bundle.getInt(Constants.ITEM_POSITION));
             activity.setBottomSheetInPeek(true);
         }
-        topSongAdapter.notifyDataSetChanged();
-        starredSongAdapter.notifyDataSetChanged();
+        if (topSongAdapter != null) topSongAdapter.notifyDataSetChanged();
+        if (starredSongAdapter != null) starredSongAdapter.notifyDataSetChanged();
     }
 
     @Override
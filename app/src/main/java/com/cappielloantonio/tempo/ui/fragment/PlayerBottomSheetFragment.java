@@ -30,6 +30,7 @@ import com.cappielloantonio.tempo.subsonic.models.PlayQueue;
 import com.cappielloantonio.tempo.ui.activity.MainActivity;
 import com.cappielloantonio.tempo.ui.fragment.pager.PlayerControllerVerticalPager;
 import com.cappielloantonio.tempo.util.Constants;
+import com.cappielloantonio.tempo.util.MediaMetadataStore;
 import com.cappielloantonio.tempo.util.MusicUtil;
 import com.cappielloantonio.tempo.util.Preferences;
 import com.cappielloantonio.tempo.viewmodel.PlayerBottomSheetViewModel;
@@ -167,29 +168,31 @@ public class PlayerBottomSheetFragment extends Fragment {
     }
 
     private void setMetadata(MediaMetadata mediaMetadata) {
-        if (mediaMetadata.extras != null) {
-            playerBottomSheetViewModel.setLiveMedia(getViewLifecycleOwner(), mediaMetadata.extras.getString("type"), mediaMetadata.extras.getString("id"));
-            playerBottomSheetViewModel.setLiveAlbum(getViewLifecycleOwner(), mediaMetadata.extras.getString("type"), mediaMetadata.extras.getString("albumId"));
-            playerBottomSheetViewModel.setLiveArtist(getViewLifecycleOwner(), mediaMetadata.extras.getString("type"), mediaMetadata.extras.getString("artistId"));
-            playerBottomSheetViewModel.setLiveDescription(mediaMetadata.extras.getString("description", null));
+        Bundle extras = MediaMetadataStore.getExtras(mediaMetadata);
 
-            bind.playerHeaderLayout.playerHeaderMediaTitleLabel.setText(mediaMetadata.extras.getString("title"));
+        if (extras != null) {
+            playerBottomSheetViewModel.setLiveMedia(getViewLifecycleOwner(), extras.getString("type"), extras.getString("id"));
+            playerBottomSheetViewModel.setLiveAlbum(getViewLifecycleOwner(), extras.getString("type"), extras.getString("albumId"));
+            playerBottomSheetViewModel.setLiveArtist(getViewLifecycleOwner(), extras.getString("type"), extras.getString("artistId"));
+            playerBottomSheetViewModel.setLiveDescription(extras.getString("description", null));
+
+            bind.playerHeaderLayout.playerHeaderMediaTitleLabel.setText(extras.getString("title"));
             bind.playerHeaderLayout.playerHeaderMediaArtistLabel.setText(
                     mediaMetadata.artist != null
                             ? mediaMetadata.artist
-                            : Objects.equals(mediaMetadata.extras.getString("type"), Constants.MEDIA_TYPE_RADIO)
-                            ? mediaMetadata.extras.getString("uri", getString(R.string.label_placeholder))
+                            : Objects.equals(extras.getString("type"), Constants.MEDIA_TYPE_RADIO)
+                            ? extras.getString("uri", getString(R.string.label_placeholder))
                             : "");
 
             CustomGlideRequest.Builder
-                    .from(requireContext(), mediaMetadata.extras.getString("coverArtId"), CustomGlideRequest.ResourceType.Song)
+                    .from(requireContext(), extras.getString("coverArtId"), CustomGlideRequest.ResourceType.Song)
                     .build()
                     .into(bind.playerHeaderLayout.playerHeaderMediaCoverImage);
 
-            bind.playerHeaderLayout.playerHeaderMediaTitleLabel.setVisibility(mediaMetadata.extras.getString("title") != null && !Objects.equals(mediaMetadata.extras.getString("title"), "") ? View.VISIBLE : View.GONE);
+            bind.playerHeaderLayout.playerHeaderMediaTitleLabel.setVisibility(extras.getString("title") != null && !Objects.equals(extras.getString("title"), "") ? View.VISIBLE : View.GONE);
             bind.playerHeaderLayout.playerHeaderMediaArtistLabel.setVisibility(
-                    (mediaMetadata.extras.getString("artist") != null && !Objects.equals(mediaMetadata.extras.getString("artist"), ""))
-                            || (Objects.equals(mediaMetadata.extras.getString("type"), Constants.MEDIA_TYPE_RADIO) && mediaMetadata.extras.getString("uri") != null)
+                    (extras.getString("artist") != null && !Objects.equals(extras.getString("artist"), ""))
+                            || (Objects.equals(extras.getString("type"), Constants.MEDIA_TYPE_RADIO) && extras.getString("uri") != null)
                             ? View.VISIBLE
                             : View.GONE);
         }
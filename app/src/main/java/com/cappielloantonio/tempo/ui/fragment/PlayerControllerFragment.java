@@ -42,6 +42,7 @@ import com.cappielloantonio.tempo.ui.dialog.RatingDialog;
 import com.cappielloantonio.tempo.ui.dialog.TrackInfoDialog;
 import com.cappielloantonio.tempo.ui.fragment.pager.PlayerControllerHorizontalPager;
 import com.cappielloantonio.tempo.util.Constants;
+import com.cappielloantonio.tempo.util.MediaMetadataStore;
 import com.cappielloantonio.tempo.util.MusicUtil;
 import com.cappielloantonio.tempo.util.Preferences;
 import com.cappielloantonio.tempo.viewmodel.PlayerBottomSheetViewModel;
@@ -202,12 +203,14 @@ public class PlayerControllerFragment extends Fragment {
     }
 
     private void setMetadata(MediaMetadata mediaMetadata) {
+        Bundle extras = MediaMetadataStore.getExtras(mediaMetadata);
+
         playerMediaTitleLabel.setText(String.valueOf(mediaMetadata.title));
         playerArtistNameLabel.setText(
                 mediaMetadata.artist != null
                         ? String.valueOf(mediaMetadata.artist)
-                        : mediaMetadata.extras != null && Objects.equals(mediaMetadata.extras.getString("type"), Constants.MEDIA_TYPE_RADIO)
-                        ? mediaMetadata.extras.getString("uri", getString(R.string.label_placeholder))
+                        : extras != null && Objects.equals(extras.getString("type"), Constants.MEDIA_TYPE_RADIO)
+                        ? extras.getString("uri", getString(R.string.label_placeholder))
                         : "");
 
         playerMediaTitleLabel.setSelected(true);
@@ -216,17 +219,19 @@ public class PlayerControllerFragment extends Fragment {
         playerMediaTitleLabel.setVisibility(mediaMetadata.title != null && !Objects.equals(mediaMetadata.title, "") ? View.VISIBLE : View.GONE);
         playerArtistNameLabel.setVisibility(
                 (mediaMetadata.artist != null && !Objects.equals(mediaMetadata.artist, ""))
-                        || mediaMetadata.extras != null && Objects.equals(mediaMetadata.extras.getString("type"), Constants.MEDIA_TYPE_RADIO) && mediaMetadata.extras.getString("uri") != null
+                        || extras != null && Objects.equals(extras.getString("type"), Constants.MEDIA_TYPE_RADIO) && extras.getString("uri") != null
                         ? View.VISIBLE
                         : View.GONE);
     }
 
     private void setMediaInfo(MediaMetadata mediaMetadata) {
-        if (mediaMetadata.extras != null) {
-            String extension = mediaMetadata.extras.getString("suffix", getString(R.string.player_unknown_format));
-            String bitrate = mediaMetadata.extras.getInt("bitrate", 0) != 0 ? mediaMetadata.extras.getInt("bitrate", 0) + "kbps" : "Original";
-            String samplingRate = mediaMetadata.extras.getInt("samplingRate", 0) != 0 ? new DecimalFormat("0.#").format(mediaMetadata.extras.getInt("samplingRate", 0) / 1000.0) + "kHz" : "";
-            String bitDepth = mediaMetadata.extras.getInt("bitDepth", 0) != 0 ? mediaMetadata.extras.getInt("bitDepth", 0) + "b" : "";
+        Bundle extras = MediaMetadataStore.getExtras(mediaMetadata);
+
+        if (extras != null) {
+            String extension = extras.getString("suffix", getString(R.string.player_unknown_format));
+            String bitrate = extras.getInt("bitrate", 0) != 0 ? extras.getInt("bitrate", 0) + "kbps" : "Original";
+            String samplingRate = extras.getInt("samplingRate", 0) != 0 ? new DecimalFormat("0.#").format(extras.getInt("samplingRate", 0) / 1000.0) + "kHz" : "";
+            String bitDepth = extras.getInt("bitDepth", 0) != 0 ? extras.getInt("bitDepth", 0) + "b" : "";
 
             playerMediaExtension.setText(extension);
 
@@ -24,12 +24,14 @@ import com.cappielloantonio.tempo.R;
 import com.cappielloantonio.tempo.databinding.InnerFragmentPlayerCoverBinding;
 import com.cappielloantonio.tempo.glide.CustomGlideRequest;
 import com.cappielloantonio.tempo.model.Download;
+import com.cappielloantonio.tempo.service.DownloaderManager;
 import com.cappielloantonio.tempo.service.MediaManager;
 import com.cappielloantonio.tempo.service.MediaService;
 import com.cappielloantonio.tempo.ui.dialog.PlaylistChooserDialog;
 import com.cappielloantonio.tempo.util.Constants;
 import com.cappielloantonio.tempo.util.DownloadUtil;
 import com.cappielloantonio.tempo.util.MappingUtil;
+import com.cappielloantonio.tempo.util.MediaMetadataStore;
 import com.cappielloantonio.tempo.util.Preferences;
 import com.cappielloantonio.tempo.viewmodel.PlayerBottomSheetViewModel;
 import com.cappielloantonio.tempo.subsonic.models.Child;
@@ -117,7 +119,8 @@ public class PlayerCoverFragment extends Fragment {
                 bind.innerButtonTopLeft.setOnClickListener(view -> {
                     DownloadUtil.getDownloadTracker(requireContext()).download(
                             MappingUtil.mapDownload(song),
-                            new Download(song)
+                            new Download(song),
+                            DownloaderManager.Priority.PLAYING
                     );
                 });
 
@@ -189,8 +192,10 @@ public class PlayerCoverFragment extends Fragment {
     }
 
     private void setCover(MediaMetadata mediaMetadata) {
+        Bundle extras = MediaMetadataStore.getExtras(mediaMetadata);
+
         CustomGlideRequest.Builder
-                .from(requireContext(), mediaMetadata.extras != null ? mediaMetadata.extras.getString("coverArtId") : null, CustomGlideRequest.ResourceType.Song)
+                .from(requireContext(), extras != null ? extras.getString("coverArtId") : null, CustomGlideRequest.ResourceType.Song)
                 .build()
                 .into(bind.nowPlayingSongCoverImageView);
     }
@@ -3,22 +3,22 @@ package com.cappielloantonio.tempo.ui.fragment;
 import android.annotation.SuppressLint;
 import android.content.ComponentName;
 import android.os.Bundle;
-import android.os.Handler;
+import android.text.Layout;
 import android.text.Spannable;
 import android.text.SpannableString;
-import android.text.Layout;
 import android.text.style.ForegroundColorSpan;
-import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
 import android.view.WindowManager;
+import android.widget.TextView;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.annotation.OptIn;
 import androidx.fragment.app.Fragment;
 import androidx.lifecycle.ViewModelProvider;
+import androidx.media3.common.Player;
 import androidx.media3.common.util.UnstableApi;
 import androidx.media3.session.MediaBrowser;
 import androidx.media3.session.SessionToken;
@@ -46,8 +46,30 @@ public class PlayerLyricsFragment extends Fragment {
     private PlayerBottomSheetViewModel playerBottomSheetViewModel;
     private ListenableFuture<MediaBrowser> mediaBrowserListenableFuture;
     private MediaBrowser mediaBrowser;
-    private Handler syncLyricsHandler;
-    private Runnable syncLyricsRunnable;
+
+    // Synced lyrics of the current song, laid out once: the text, the character offset and the
+    // start time of each line, start times made non-decreasing for the binary search
+    private Spannable syncedLyrics;
+    private int[] lineOffsets;
+    private int[] lineLengths;
+    private int[] lineStarts;
+    private int highlightedLine = -1;
+    private ForegroundColorSpan shadowSpan;
+    private ForegroundColorSpan highlightSpan;
+
+    private final Runnable syncLyricsRunnable = this::syncLyrics;
+    private final Player.Listener playerListener = new Player.Listener() {
+        @Override
+        public void onEvents(@NonNull Player player, @NonNull Player.Events events) {
+            if (events.containsAny(
+                    Player.EVENT_IS_PLAYING_CHANGED,
+                    Player.EVENT_POSITION_DISCONTINUITY,
+                    Player.EVENT_PLAYBACK_PARAMETERS_CHANGED,
+                    Player.EVENT_MEDIA_ITEM_TRANSITION)) {
+                syncLyrics();
+            }
+        }
+    };
 
     @Override
     public View onCreateView(@NonNull LayoutInflater inflater, ViewGroup container, Bundle savedInstanceState) {
@@ -114,9 +136,13 @@ public class PlayerLyricsFragment extends Fragment {
     }
 
     private void releaseHandler() {
-        if (syncLyricsHandler != null) {
-            syncLyricsHandler.removeCallbacks(syncLyricsRunnable);
-            syncLyricsHandler = null;
+        if (mediaBrowser != null) {
+            mediaBrowser.removeListener(playerListener);
+            mediaBrowser = null;
+        }
+
+        if (bind != null) {
+            bind.nowPlayingSongLyricsTextView.removeCallbacks(syncLyricsRunnable);
         }
     }
 
@@ -128,7 +154,8 @@ public class PlayerLyricsFragment extends Fragment {
         mediaBrowserListenableFuture.addListener(() -> {
             try {
                 mediaBrowser = mediaBrowserListenableFuture.get();
-                defineProgressHandler();
+                mediaBrowser.addListener(playerListener);
+                syncLyrics();
             } catch (Exception e) {
                 e.printStackTrace();
             }
@@ -151,6 +178,7 @@ public class PlayerLyricsFragment extends Fragment {
         playerBottomSheetViewModel.getLiveDescription().observe(getViewLifecycleOwner(), description -> {
             if (bind != null) {
                 bind.nowPlayingSongLyricsSrollView.smoothScrollTo(0, 0);
+                resetSyncedLyrics();
 
                 if (lyrics != null && !lyrics.trim().equals("")) {
                     bind.nowPlayingSongLyricsTextView.setText(MusicUtil.getReadableLyrics(lyrics));
@@ -186,109 +214,121 @@ public class PlayerLyricsFragment extends Fragment {
             StringBuilder lyricsBuilder = new StringBuilder();
             List<Line> lines = lyricsList.getStructuredLyrics().get(0).getLine();
 
-            if (lines != null) {
-                for (Line line : lines) {
-                    lyricsBuilder.append(line.getValue().trim()).append("\n");
-                }
-            }
+            int[] offsets = new int[lines.size()];
+            int[] lengths = new int[lines.size()];
+            int[] starts = new int[lines.size()];
 
-            bind.nowPlayingSongLyricsTextView.setText(lyricsBuilder.toString());
-        }
-    }
+            for (int i = 0; i < lines.size(); i++) {
+                Line line = lines.get(i);
+                String value = line.getValue().trim();
 
-    private void defineProgressHandler() {
-        playerBottomSheetViewModel.getLiveLyricsList().observe(getViewLifecycleOwner(), lyricsList -> {
-            if (lyricsList != null) {
+                offsets[i] = lyricsBuilder.length();
+                lengths[i] = value.length();
+                starts[i] = Math.max(line.getStart() != null ? line.getStart() : 0, i > 0 ? starts[i - 1] : 0);
 
-                if (lyricsList.getStructuredLyrics() != null && lyricsList.getStructuredLyrics().get(0) != null && !lyricsList.getStructuredLyrics().get(0).getSynced()) {
-                    releaseHandler();
-                    return;
-                }
+                lyricsBuilder.append(value).append("\n");
+            }
 
-                syncLyricsHandler = new Handler();
-                syncLyricsRunnable = () -> {
-                    if (syncLyricsHandler != null) {
-                        if (bind != null) {
-                            displaySyncedLyrics();
-                        }
+            if (!lyricsList.getStructuredLyrics().get(0).getSynced() || lines.isEmpty()) {
+                bind.nowPlayingSongLyricsTextView.setText(lyricsBuilder.toString());
+                return;
+            }
 
-                        syncLyricsHandler.postDelayed(syncLyricsRunnable, 250);
-                    }
-                };
+            syncedLyrics = new SpannableString(lyricsBuilder.toString());
+            lineOffsets = offsets;
+            lineLengths = lengths;
+            lineStarts = starts;
 
-                syncLyricsHandler.postDelayed(syncLyricsRunnable, 250);
-            } else {
-                releaseHandler();
-            }
-        });
-    }
+            // Set as spannable so that moving the highlight redraws the text in place
+            bind.nowPlayingSongLyricsTextView.setText(syncedLyrics, TextView.BufferType.SPANNABLE);
+            syncedLyrics = (Spannable) bind.nowPlayingSongLyricsTextView.getText();
 
-    private void displaySyncedLyrics() {
-        LyricsList lyricsList = playerBottomSheetViewModel.getLiveLyricsList().getValue();
-        int timestamp = (int) (mediaBrowser.getCurrentPosition());
+            syncLyrics();
+        }
+    }
 
-        if (lyricsList != null && lyricsList.getStructuredLyrics() != null && !lyricsList.getStructuredLyrics().isEmpty() && lyricsList.getStructuredLyrics().get(0).getLine() != null) {
-            StringBuilder lyricsBuilder = new StringBuilder();
-            List<Line> lines = lyricsList.getStructuredLyrics().get(0).getLine();
+    private void resetSyncedLyrics() {
+        syncedLyrics = null;
+        lineOffsets = null;
+        lineLengths = null;
+        lineStarts = null;
+        highlightedLine = -1;
 
-            if (lines == null || lines.isEmpty()) return;
+        bind.nowPlayingSongLyricsTextView.removeCallbacks(syncLyricsRunnable);
+    }
 
-            for (Line line : lines) {
-                lyricsBuilder.append(line.getValue().trim()).append("\n");
-            }
+    /**
+     * Highlights the line being sung and, while playing, schedules the next call for when the
+     * following line starts.
+     */
+    private void syncLyrics() {
+        if (bind == null) return;
 
-            Line toHighlight = lines.stream().filter(line -> line != null && line.getStart() != null && line.getStart() < timestamp).reduce((first, second) -> second).orElse(null);
+        bind.nowPlayingSongLyricsTextView.removeCallbacks(syncLyricsRunnable);
 
-            if (toHighlight != null) {
-                String lyrics = lyricsBuilder.toString();
-                Spannable spannableString = new SpannableString(lyrics);
+        if (mediaBrowser == null || syncedLyrics == null) return;
 
-                int startingPosition = getStartPosition(lines, toHighlight);
-                int endingPosition = startingPosition + toHighlight.getValue().length();
+        long position = mediaBrowser.getCurrentPosition();
+        int line = getLineAt(position);
 
-                spannableString.setSpan(new ForegroundColorSpan(requireContext().getResources().getColor(R.color.shadowsLyricsTextColor, null)), 0, lyrics.length(), Spannable.SPAN_EXCLUSIVE_EXCLUSIVE);
-                spannableString.setSpan(new ForegroundColorSpan(requireContext().getResources().getColor(R.color.lyricsTextColor, null)), startingPosition, endingPosition, Spannable.SPAN_EXCLUSIVE_EXCLUSIVE);
+        highlightLine(line);
 
-                bind.nowPlayingSongLyricsTextView.setText(spannableString);
+        if (mediaBrowser.isPlaying() && line + 1 < lineStarts.length) {
+            float speed = mediaBrowser.getPlaybackParameters().speed;
+            long delay = (long) ((lineStarts[line + 1] - position) / speed) + 1;
 
-                if (playerBottomSheetViewModel.getSyncLyricsState()) {
-                    bind.nowPlayingSongLyricsSrollView.smoothScrollTo(0, getScroll(lines, toHighlight));
-                }
-            }
+            bind.nowPlayingSongLyricsTextView.postDelayed(syncLyricsRunnable, Math.max(delay, 0));
         }
     }
 
-    private int getStartPosition(List<Line> lines, Line toHighlight) {
-        int start = 0;
+    /**
+     * @return the index of the last line started before the given position, -1 if none has
+     */
+    private int getLineAt(long position) {
+        int low = 0;
+        int high = lineStarts.length - 1;
+        int line = -1;
 
-        for (Line line : lines) {
-            if (line != toHighlight) {
-                start = start + line.getValue().length() + 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+
+            if (lineStarts[middle] < position) {
+                line = middle;
+                low = middle + 1;
             } else {
-                break;
+                high = middle - 1;
             }
         }
 
-        return start;
+        return line;
     }
 
-    private int getLineCount(List<Line> lines, Line toHighlight) {
-        int start = 0;
+    private void highlightLine(int line) {
+        if (line == highlightedLine) return;
 
-        for (Line line : lines) {
-            if (line != toHighlight) {
-                bind.tempLyricsLineTextView.setText(line.getValue());
-                start = start + bind.tempLyricsLineTextView.getLineCount();
-            } else {
-                break;
-            }
+        highlightedLine = line;
+
+        if (line < 0) {
+            syncedLyrics.removeSpan(shadowSpan);
+            syncedLyrics.removeSpan(highlightSpan);
+            return;
         }
 
-        return start;
+        if (shadowSpan == null) {
+            shadowSpan = new ForegroundColorSpan(requireContext().getResources().getColor(R.color.shadowsLyricsTextColor, null));
+            highlightSpan = new ForegroundColorSpan(requireContext().getResources().getColor(R.color.lyricsTextColor, null));
+        }
+
+        // Setting a span already attached only moves it
+        syncedLyrics.setSpan(shadowSpan, 0, syncedLyrics.length(), Spannable.SPAN_EXCLUSIVE_EXCLUSIVE);
+        syncedLyrics.setSpan(highlightSpan, lineOffsets[line], lineOffsets[line] + lineLengths[line], Spannable.SPAN_EXCLUSIVE_EXCLUSIVE);
+
+        if (playerBottomSheetViewModel.getSyncLyricsState()) {
+            bind.nowPlayingSongLyricsSrollView.smoothScrollTo(0, getScroll(lineOffsets[line]));
+        }
     }
 
-    private int getScroll(List<Line> lines, Line toHighlight) {
-        int startIndex = getStartPosition(lines, toHighlight);
+    private int getScroll(int startIndex) {
         Layout layout = bind.nowPlayingSongLyricsTextView.getLayout();
         if (layout == null) return 0;
 
@@ -302,4 +342,4 @@ public class PlayerLyricsFragment extends Fragment {
 
         return Math.max(scroll, 0);
     }
-}
\ No newline at end of file
+}
@@ -171,8 +171,13 @@ public class PlayerQueueFragment extends Fragment implements ClickCallback {
 
             @Override
             public void onSwiped(@NonNull RecyclerView.ViewHolder viewHolder, int direction) {
-                MediaManager.remove(mediaBrowserListenableFuture, playerSongQueueAdapter.getItems(), viewHolder.getBindingAdapterPosition());
-                viewHolder.getBindingAdapter().notifyDataSetChanged();
+                int position = viewHolder.getBindingAdapterPosition();
+
+                // A copy, the shown list only changes through the diff of the queue update
+                MediaManager.remove(mediaBrowserListenableFuture, new ArrayList<>(playerSongQueueAdapter.getItems()), position);
+
+                // Put the row back until the queue update removes it, or for the current item, which stays
+                viewHolder.getBindingAdapter().notifyItemChanged(position);
             }
         }).attachToRecyclerView(bind.playerQueueRecyclerView);
     }
@@ -107,7 +107,7 @@ public class PlaylistCatalogueFragment extends Fragment implements ClickCallback
         bind.playlistCatalogueRecyclerView.setAdapter(playlistHorizontalAdapter);
 
         if (getActivity() != null) {
-            playlistCatalogueViewModel.getPlaylistList(getViewLifecycleOwner()).observe(getViewLifecycleOwner(), playlists -> {
+            playlistCatalogueViewModel.getPlaylistList().observe(getViewLifecycleOwner(), playlists -> {
                 if (playlists != null) playlistHorizontalAdapter.setItems(playlists);
             });
         }
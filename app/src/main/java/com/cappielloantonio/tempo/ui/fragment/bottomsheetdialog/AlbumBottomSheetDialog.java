@@ -26,6 +26,7 @@ import com.cappielloantonio.tempo.glide.CustomGlideRequest;
 import com.cappielloantonio.tempo.interfaces.MediaCallback;
 import com.cappielloantonio.tempo.model.Download;
 import com.cappielloantonio.tempo.repository.AlbumRepository;
+import com.cappielloantonio.tempo.service.DownloadStateIndex;
 import com.cappielloantonio.tempo.service.MediaManager;
 import com.cappielloantonio.tempo.service.MediaService;
 import com.cappielloantonio.tempo.subsonic.models.AlbumID3;
@@ -236,9 +237,10 @@ public class AlbumBottomSheetDialog extends BottomSheetDialogFragment implements
 
     private void initDownloadUI(TextView removeAll) {
         albumBottomSheetViewModel.getAlbumTracks().observe(getViewLifecycleOwner(), songs -> {
-            List<MediaItem> mediaItems = MappingUtil.mapDownloads(songs);
+            List<String> ids = songs.stream().map(Child::getId).collect(Collectors.toList());
+            DownloadStateIndex downloadStateIndex = DownloadUtil.getDownloadTracker(requireContext()).getDownloadStateIndex();
 
-            if (DownloadUtil.getDownloadTracker(requireContext()).areDownloaded(mediaItems)) {
+            if (downloadStateIndex.getAggregateState(ids) != DownloadStateIndex.AggregateState.NONE) {
                 removeAll.setVisibility(View.VISIBLE);
             }
         });
@@ -0,0 +1,105 @@
+package com.cappielloantonio.tempo.util;
+
+import android.os.SystemClock;
+
+import androidx.media3.common.util.UnstableApi;
+import androidx.media3.exoplayer.upstream.BandwidthMeter;
+
+import com.cappielloantonio.tempo.App;
+
+import java.util.ArrayDeque;
+
+/**
+ * Picks the transcoding bitrate of streams from the throughput measured on the shared http
+ * stack ({@link DownloadUtil#getBandwidthMeter}) and from the recent rebuffers, never above the
+ * bitrate configured by the user for the current transport.
+ * <ul>
+ *     <li>the selection is the highest step of {@link #BITRATES} fitting in
+ *     {@link #BANDWIDTH_FRACTION} of the estimate, one step lower for each rebuffer of the last
+ *     {@link #REBUFFER_WINDOW_MS};</li>
+ *     <li>going down happens at once, going up needs {@link #UP_SWITCH_MARGIN} of headroom and
+ *     {@link #MIN_UP_SWITCH_INTERVAL_MS} since the last change, so the bitrate doesn't flap
+ *     between two steps;</li>
+ *     <li>an "Original" cap is only selected when the link comfortably carries the highest
+ *     step.</li>
+ * </ul>
+ */
+@UnstableApi
+public class AdaptiveBitrateSelector {
+    private static final int[] BITRATES = {32, 48, 64, 80, 96, 112, 128, 160, 192, 256, 320};
+    private static final int UNCAPPED = Integer.MAX_VALUE;
+
+    private static final float BANDWIDTH_FRACTION = 0.7f;
+    private static final float UP_SWITCH_MARGIN = 1.3f;
+    private static final long MIN_UP_SWITCH_INTERVAL_MS = 30 * 1000;
+    private static final long REBUFFER_WINDOW_MS = 2 * 60 * 1000;
+
+    private static final ArrayDeque<Long> rebuffers = new ArrayDeque<>();
+
+    private static int selectedBitrate = UNCAPPED;
+    private static long lastSwitchTime = 0;
+
+    /**
+     * @param maxBitrate the bitrate preference for the current transport, "0" meaning original
+     * @return the maxBitRate parameter to stream with, in the same format as the preference
+     */
+    public static synchronized String select(String maxBitrate) {
+        int cap = parseBitrate(maxBitrate);
+        long now = SystemClock.elapsedRealtime();
+
+        while (!rebuffers.isEmpty() && now - rebuffers.peekFirst() > REBUFFER_WINDOW_MS) {
+            rebuffers.pollFirst();
+        }
+
+        long usableKbps = (long) (getBitrateEstimateKbps() * BANDWIDTH_FRACTION);
+        int target = Math.min(getStep(usableKbps, rebuffers.size()), cap);
+        int current = Math.min(selectedBitrate, cap);
+
+        if (target < current) {
+            setSelectedBitrate(target, now);
+        } else if (target > current && now - lastSwitchTime >= MIN_UP_SWITCH_INTERVAL_MS && usableKbps >= (long) (Math.min(target, BITRATES[BITRATES.length - 1]) * UP_SWITCH_MARGIN)) {
+            setSelectedBitrate(target, now);
+        } else {
+            selectedBitrate = current;
+        }
+
+        return selectedBitrate == UNCAPPED ? "0" : String.valueOf(selectedBitrate);
+    }
+
+    public static synchronized void onRebuffer() {
+        rebuffers.addLast(SystemClock.elapsedRealtime());
+    }
+
+    private static void setSelectedBitrate(int bitrate, long now) {
+        selectedBitrate = bitrate;
+        lastSwitchTime = now;
+    }
+
+    private static int getStep(long usableKbps, int rebufferCount) {
+        int step = -1;
+
+        for (int i = 0; i < BITRATES.length; i++) {
+            if (BITRATES[i] <= usableKbps) step = i;
+        }
+
+        if (step == BITRATES.length - 1 && rebufferCount == 0 && usableKbps >= BITRATES[step] * 2L) {
+            return UNCAPPED;
+        }
+
+        return BITRATES[Math.max(step - rebufferCount, 0)];
+    }
+
+    private static long getBitrateEstimateKbps() {
+        BandwidthMeter bandwidthMeter = DownloadUtil.getBandwidthMeter(App.getContext());
+        return bandwidthMeter.getBitrateEstimate() / 1000;
+    }
+
+    private static int parseBitrate(String bitrate) {
+        try {
+            int value = Integer.parseInt(bitrate);
+            return value > 0 ? value : UNCAPPED;
+        } catch (NumberFormatException exception) {
+            return UNCAPPED;
+        }
+    }
+}
@@ -0,0 +1,207 @@
+package com.cappielloantonio.tempo.util;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import androidx.annotation.Nullable;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+/**
+ * Filters and sorts an in-memory catalogue list off the main thread.
+ * <ul>
+ *     <li>the filter key of every item is folded once per list (case and diacritics), so that a
+ *     keystroke is a plain substring scan;</li>
+ *     <li>a filter extending the previous one only scans the previous matches;</li>
+ *     <li>the rank of every item in an order is computed once per list and reused, so that a
+ *     result is put in order by sorting the ranks of its matches.</li>
+ * </ul>
+ * Results are delivered on the main thread, stale ones are dropped.
+ */
+public class CatalogueQuery<T> {
+    private static final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private static final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+
+    private final Function<T, String> key;
+    private final Map<String, Comparator<T>> comparators;
+    private final Consumer<List<T>> consumer;
+
+    // Main thread
+    private List<T> source = Collections.emptyList();
+    private String filter = "";
+    @Nullable
+    private String order;
+    private int generation;
+
+    // Executor thread
+    private List<T> items = Collections.emptyList();
+    private String[] keys = new String[0];
+    // Per order, the rank of every item and the item of every rank
+    private final Map<String, int[][]> ranks = new HashMap<>();
+    @Nullable
+    private String lastFilter;
+    @Nullable
+    private int[] lastMatches;
+
+    /**
+     * @param key         text the filter is matched against
+     * @param comparators orders that can be set, by Constants.*_ORDER_BY_* name
+     * @param consumer    receives every result on the main thread
+     */
+    public CatalogueQuery(Function<T, String> key, Map<String, Comparator<T>> comparators, Consumer<List<T>> consumer) {
+        this.key = key;
+        this.comparators = comparators;
+        this.consumer = consumer;
+    }
+
+    public void setItems(@Nullable List<T> items) {
+        source = items != null ? new ArrayList<>(items) : Collections.emptyList();
+        update();
+    }
+
+    public void setFilter(@Nullable String filter) {
+        String value = normalize(filter).trim();
+        if (value.equals(this.filter)) return;
+
+        this.filter = value;
+        update();
+    }
+
+    /**
+     * @param order one of the orders given to the constructor, null for the order of the list
+     */
+    public void setOrder(@Nullable String order) {
+        this.order = order != null && comparators.containsKey(order) ? order : null;
+        update();
+    }
+
+    /**
+     * Case and diacritic folded form of a text, as matched by the filter.
+     */
+    public static String normalize(@Nullable CharSequence text) {
+        if (text == null) return "";
+
+        String value = text.toString();
+
+        if (!Normalizer.isNormalized(value, Normalizer.Form.NFD)) {
+            value = Normalizer.normalize(value, Normalizer.Form.NFD);
+        }
+
+        return MARKS.matcher(value).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+
+    private void update() {
+        int generation = ++this.generation;
+
+        List<T> source = this.source;
+        String filter = this.filter;
+        String order = this.order;
+
+        executor.execute(() -> {
+            List<T> result = query(source, filter, order);
+
+            mainHandler.post(() -> {
+                if (generation == this.generation) consumer.accept(result);
+            });
+        });
+    }
+
+    private List<T> query(List<T> source, String filter, @Nullable String order) {
+        if (source != items) index(source);
+
+        int[] matches = match(filter);
+        int[][] ranks = order != null ? getRanks(order) : null;
+
+        if (ranks != null) {
+            int[] rank = ranks[0];
+            int[] byRank = ranks[1];
+
+            int[] sorted = new int[matches.length];
+            for (int i = 0; i < matches.length; i++) sorted[i] = rank[matches[i]];
+            Arrays.sort(sorted);
+
+            for (int i = 0; i < sorted.length; i++) matches[i] = byRank[sorted[i]];
+        }
+
+        List<T> result = new ArrayList<>(matches.length);
+        for (int index : matches) result.add(items.get(index));
+
+        return result;
+    }
+
+    private void index(List<T> source) {
+        items = source;
+        keys = new String[source.size()];
+
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = normalize(key.apply(source.get(i)));
+        }
+
+        ranks.clear();
+        lastFilter = null;
+        lastMatches = null;
+    }
+
+    private int[] match(String filter) {
+        int[] candidates;
+
+        if (lastFilter != null && lastMatches != null && filter.startsWith(lastFilter)) {
+            if (filter.equals(lastFilter)) return lastMatches.clone();
+            candidates = lastMatches;
+        } else {
+            candidates = null;
+        }
+
+        int count = candidates != null ? candidates.length : keys.length;
+        int[] matches = new int[count];
+        int size = 0;
+
+        for (int i = 0; i < count; i++) {
+            int index = candidates != null ? candidates[i] : i;
+            if (filter.isEmpty() || keys[index].contains(filter)) matches[size++] = index;
+        }
+
+        lastFilter = filter;
+        lastMatches = Arrays.copyOf(matches, size);
+
+        return lastMatches.clone();
+    }
+
+    private int[][] getRanks(String order) {
+        int[][] cached = ranks.get(order);
+        if (cached != null) return cached;
+
+        Comparator<T> comparator = comparators.get(order);
+
+        Integer[] sorted = new Integer[items.size()];
+        for (int i = 0; i < sorted.length; i++) sorted[i] = i;
+        Arrays.sort(sorted, (a, b) -> comparator.compare(items.get(a), items.get(b)));
+
+        int[] rank = new int[sorted.length];
+        int[] byRank = new int[sorted.length];
+
+        for (int i = 0; i < sorted.length; i++) {
+            rank[sorted[i]] = i;
+            byRank[i] = sorted[i];
+        }
+
+        cached = new int[][]{rank, byRank};
+        ranks.put(order, cached);
+
+        return cached;
+    }
+}
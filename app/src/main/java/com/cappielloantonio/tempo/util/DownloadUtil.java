@@ -4,32 +4,39 @@ import android.app.Notification;
 import android.content.Context;
 
 import androidx.core.app.NotificationCompat;
+import androidx.media3.common.C;
+import androidx.media3.common.PriorityTaskManager;
+import androidx.media3.common.audio.AudioProcessor;
 import androidx.media3.common.util.UnstableApi;
 import androidx.media3.database.DatabaseProvider;
 import androidx.media3.database.StandaloneDatabaseProvider;
 import androidx.media3.datasource.DataSource;
 import androidx.media3.datasource.DataSpec;
 import androidx.media3.datasource.DefaultDataSource;
-import androidx.media3.datasource.DefaultHttpDataSource;
 import androidx.media3.datasource.ResolvingDataSource;
 import androidx.media3.datasource.cache.Cache;
 import androidx.media3.datasource.cache.CacheDataSource;
-import androidx.media3.datasource.cache.LeastRecentlyUsedCacheEvictor;
 import androidx.media3.datasource.cache.NoOpCacheEvictor;
 import androidx.media3.datasource.cache.SimpleCache;
+import androidx.media3.datasource.okhttp.OkHttpDataSource;
 import androidx.media3.exoplayer.DefaultRenderersFactory;
 import androidx.media3.exoplayer.RenderersFactory;
+import androidx.media3.exoplayer.audio.AudioSink;
+import androidx.media3.exoplayer.audio.DefaultAudioSink;
 import androidx.media3.exoplayer.offline.DownloadManager;
 import androidx.media3.exoplayer.offline.DownloadNotificationHelper;
+import androidx.media3.exoplayer.upstream.BandwidthMeter;
+import androidx.media3.exoplayer.upstream.DefaultBandwidthMeter;
 
+import com.cappielloantonio.tempo.App;
 import com.cappielloantonio.tempo.service.DownloaderManager;
 
 import java.io.File;
-import java.net.CookieHandler;
-import java.net.CookieManager;
-import java.net.CookiePolicy;
 import java.util.ArrayList;
-import java.util.concurrent.Executors;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 @UnstableApi
 public final class DownloadUtil {
@@ -40,6 +47,8 @@ public final class DownloadUtil {
 
     private static final String STREAMING_CACHE_CONTENT_DIRECTORY = "streaming_cache";
     private static final String DOWNLOAD_CONTENT_DIRECTORY = "downloads";
+    private static final String DOWNLOAD_THREAD_NAME = "tempo-download";
+    private static final long DOWNLOAD_THREAD_KEEP_ALIVE_SECONDS = 30;
 
     private static DataSource.Factory dataSourceFactory;
     private static DataSource.Factory httpDataSourceFactory;
@@ -51,6 +60,8 @@ public final class DownloadUtil {
     private static DownloadManager downloadManager;
     private static DownloaderManager downloaderManager;
     private static DownloadNotificationHelper downloadNotificationHelper;
+    private static PriorityTaskManager priorityTaskManager;
+    private static DefaultBandwidthMeter bandwidthMeter;
 
     public static boolean useExtensionRenderers() {
         return true;
@@ -65,19 +76,49 @@ public final class DownloadUtil {
         return new DefaultRenderersFactory(context.getApplicationContext()).setExtensionRendererMode(extensionRendererMode);
     }
 
+    /**
+     * Same as {@link #buildRenderersFactory(Context, boolean)}, with the given processor applied
+     * to the audio in the sink.
+     */
+    public static RenderersFactory buildRenderersFactory(Context context, boolean preferExtensionRenderer, AudioProcessor audioProcessor) {
+        @DefaultRenderersFactory.ExtensionRendererMode int extensionRendererMode =
+                useExtensionRenderers()
+                        ? (preferExtensionRenderer ? DefaultRenderersFactory.EXTENSION_RENDERER_MODE_PREFER : DefaultRenderersFactory.EXTENSION_RENDERER_MODE_ON)
+                        : DefaultRenderersFactory.EXTENSION_RENDERER_MODE_OFF;
+
+        return new DefaultRenderersFactory(context.getApplicationContext()) {
+            @Override
+            protected AudioSink buildAudioSink(Context context, boolean enableFloatOutput, boolean enableAudioTrackPlaybackParams) {
+                return new DefaultAudioSink.Builder(context)
+                        .setEnableFloatOutput(enableFloatOutput)
+                        .setEnableAudioTrackPlaybackParams(enableAudioTrackPlaybackParams)
+                        .setAudioProcessors(new AudioProcessor[]{audioProcessor})
+                        .build();
+            }
+        }.setExtensionRendererMode(extensionRendererMode);
+    }
+
     public static synchronized DataSource.Factory getHttpDataSourceFactory() {
         if (httpDataSourceFactory == null) {
-            CookieManager cookieManager = new CookieManager();
-            cookieManager.setCookiePolicy(CookiePolicy.ACCEPT_ORIGINAL_SERVER);
-            CookieHandler.setDefault(cookieManager);
-            httpDataSourceFactory = new DefaultHttpDataSource
-                    .Factory()
-                    .setAllowCrossProtocolRedirects(true);
+            httpDataSourceFactory = new OkHttpDataSource.Factory(HttpClientUtil.getCallFactory())
+                    .setTransferListener(getBandwidthMeter(App.getContext()));
         }
 
         return httpDataSourceFactory;
     }
 
+    /**
+     * Measures every transfer made through {@link #getHttpDataSourceFactory()}: playback, prefetch
+     * and downloads. It is not the player's own meter, which would count playback twice.
+     */
+    public static synchronized BandwidthMeter getBandwidthMeter(Context context) {
+        if (bandwidthMeter == null) {
+            bandwidthMeter = new DefaultBandwidthMeter.Builder(context.getApplicationContext()).build();
+        }
+
+        return bandwidthMeter;
+    }
+
     public static synchronized DataSource.Factory getUpstreamDataSourceFactory(Context context) {
         DefaultDataSource.Factory upstreamFactory = new DefaultDataSource.Factory(context, getHttpDataSourceFactory());
         dataSourceFactory = buildReadOnlyCacheDataSource(upstreamFactory, getDownloadCache(context));
@@ -87,7 +128,9 @@ public final class DownloadUtil {
     public static synchronized DataSource.Factory getCacheDataSourceFactory(Context context) {
         CacheDataSource.Factory streamCacheFactory = new CacheDataSource.Factory()
                 .setCache(getStreamingCache(context))
-                .setUpstreamDataSourceFactory(getUpstreamDataSourceFactory(context));
+                .setCacheKeyFactory(StreamingCacheDataSource.CACHE_KEY_FACTORY)
+                .setUpstreamDataSourceFactory(getUpstreamDataSourceFactory(context))
+                .setEventListener(StreamingCacheDataSource.CACHE_EVENT_LISTENER);
 
         ResolvingDataSource.Factory resolvingFactory = new ResolvingDataSource.Factory(
                 new StreamingCacheDataSource.Factory(streamCacheFactory),
@@ -101,6 +144,33 @@ public final class DownloadUtil {
         return dataSourceFactory;
     }
 
+    /**
+     * Data source filling the streaming cache ahead of playback. Its network reads run at
+     * {@link C#PRIORITY_DOWNLOAD} and stop with a
+     * {@link PriorityTaskManager.PriorityTooLowException} whenever the player is loading.
+     */
+    public static synchronized CacheDataSource getStreamingCacheWriterDataSource(Context context) {
+        return new CacheDataSource.Factory()
+                .setCache(getStreamingCache(context))
+                .setCacheKeyFactory(StreamingCacheDataSource.CACHE_KEY_FACTORY)
+                .setUpstreamDataSourceFactory(getUpstreamDataSourceFactory(context))
+                .setUpstreamPriorityTaskManager(getPriorityTaskManager())
+                .setUpstreamPriority(C.PRIORITY_DOWNLOAD)
+                .createDataSource();
+    }
+
+    /**
+     * Shared between the player, which registers {@link C#PRIORITY_PLAYBACK} while it loads, and
+     * background work on the streaming cache.
+     */
+    public static synchronized PriorityTaskManager getPriorityTaskManager() {
+        if (priorityTaskManager == null) {
+            priorityTaskManager = new PriorityTaskManager();
+        }
+
+        return priorityTaskManager;
+    }
+
     public static synchronized DownloadNotificationHelper getDownloadNotificationHelper(Context context) {
         if (downloadNotificationHelper == null) {
             downloadNotificationHelper = new DownloadNotificationHelper(context, DOWNLOAD_NOTIFICATION_CHANNEL_ID);
@@ -134,7 +204,7 @@ public final class DownloadUtil {
 
             streamingCache = new SimpleCache(
                     streamingCacheDirectory,
-                    new LeastRecentlyUsedCacheEvictor(Preferences.getStreamingCacheSize() * 1024 * 1024),
+                    new StreamingCacheEvictor(Preferences.getStreamingCacheSize() * 1024 * 1024),
                     getDatabaseProvider(context)
             );
         }
@@ -149,13 +219,34 @@ public final class DownloadUtil {
                     getDatabaseProvider(context),
                     getDownloadCache(context),
                     getHttpDataSourceFactory(),
-                    Executors.newFixedThreadPool(6)
+                    getDownloadExecutor()
             );
 
             downloaderManager = new DownloaderManager(context, getHttpDataSourceFactory(), downloadManager);
         }
     }
 
+    /**
+     * One thread per parallel download at most, released once downloads are idle.
+     */
+    private static ExecutorService getDownloadExecutor() {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                DownloaderManager.MAX_PARALLEL_DOWNLOADS,
+                DownloaderManager.MAX_PARALLEL_DOWNLOADS,
+                DOWNLOAD_THREAD_KEEP_ALIVE_SECONDS,
+                TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(),
+                runnable -> {
+                    Thread thread = new Thread(runnable, DOWNLOAD_THREAD_NAME);
+                    thread.setDaemon(true);
+                    return thread;
+                }
+        );
+
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
     private static synchronized DatabaseProvider getDatabaseProvider(Context context) {
         if (databaseProvider == null) {
             databaseProvider = new StandaloneDatabaseProvider(context);
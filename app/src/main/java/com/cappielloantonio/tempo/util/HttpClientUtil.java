@@ -0,0 +1,140 @@
+package com.cappielloantonio.tempo.util;
+
+import android.content.Context;
+
+import androidx.annotation.NonNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.Cache;
+import okhttp3.Call;
+import okhttp3.ConnectionPool;
+import okhttp3.Cookie;
+import okhttp3.CookieJar;
+import okhttp3.Dispatcher;
+import okhttp3.HttpUrl;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+
+/**
+ * Process-wide HTTP stack. Retrofit, Media3 and Glide all derive their clients from the same
+ * {@link OkHttpClient}, so they share a single connection pool and dispatcher (and HTTP/2
+ * connections where the server negotiates it).
+ */
+public final class HttpClientUtil {
+    private static final int MAX_REQUESTS = 64;
+    private static final int MAX_REQUESTS_PER_HOST = 8;
+    private static final long API_CACHE_SIZE = 10 * 1024 * 1024;
+
+    private static OkHttpClient okHttpClient;
+    private static Cache apiCache;
+
+    private static final Call.Factory callFactory = request -> getOkHttpClient().newCall(request);
+
+    public static synchronized OkHttpClient getOkHttpClient() {
+        if (okHttpClient == null) {
+            Dispatcher dispatcher = new Dispatcher();
+            dispatcher.setMaxRequests(MAX_REQUESTS);
+            dispatcher.setMaxRequestsPerHost(MAX_REQUESTS_PER_HOST);
+
+            okHttpClient = new OkHttpClient.Builder()
+                    .dispatcher(dispatcher)
+                    .connectionPool(new ConnectionPool(5, 5, TimeUnit.MINUTES))
+                    .protocols(Arrays.asList(Protocol.HTTP_2, Protocol.HTTP_1_1))
+                    .cookieJar(new MemoryCookieJar())
+                    .retryOnConnectionFailure(true)
+                    .followSslRedirects(true)
+                    .connectTimeout(20, TimeUnit.SECONDS)
+                    .readTimeout(30, TimeUnit.SECONDS)
+                    .writeTimeout(30, TimeUnit.SECONDS)
+                    .build();
+        }
+
+        return okHttpClient;
+    }
+
+    /**
+     * A {@link Call.Factory} that always resolves the current shared client. Long-lived consumers
+     * (Media3 data sources, Glide) hold on to this instead of a client, so that {@link #reset()}
+     * is picked up without rebuilding them.
+     */
+    public static Call.Factory getCallFactory() {
+        return callFactory;
+    }
+
+    public static synchronized Cache getApiCache(Context context) {
+        if (apiCache == null) {
+            apiCache = new Cache(context.getCacheDir(), API_CACHE_SIZE);
+        }
+
+        return apiCache;
+    }
+
+    /**
+     * Drops pooled connections and cookies bound to the previous server and builds a fresh client
+     * on next use. In-flight calls are left to complete on the old client.
+     */
+    public static synchronized void reset() {
+        if (okHttpClient != null) {
+            okHttpClient.connectionPool().evictAll();
+            okHttpClient = null;
+        }
+    }
+
+    private static class MemoryCookieJar implements CookieJar {
+        private final Map<String, List<Cookie>> cookies = new HashMap<>();
+
+        @Override
+        public synchronized void saveFromResponse(@NonNull HttpUrl url, @NonNull List<Cookie> responseCookies) {
+            List<Cookie> hostCookies = cookies.get(url.host());
+
+            if (hostCookies == null) {
+                hostCookies = new ArrayList<>();
+                cookies.put(url.host(), hostCookies);
+            }
+
+            for (Cookie cookie : responseCookies) {
+                Iterator<Cookie> iterator = hostCookies.iterator();
+
+                while (iterator.hasNext()) {
+                    Cookie stored = iterator.next();
+                    if (stored.name().equals(cookie.name()) && stored.path().equals(cookie.path())) {
+                        iterator.remove();
+                    }
+                }
+
+                hostCookies.add(cookie);
+            }
+        }
+
+        @NonNull
+        @Override
+        public synchronized List<Cookie> loadForRequest(@NonNull HttpUrl url) {
+            List<Cookie> hostCookies = cookies.get(url.host());
+            List<Cookie> matching = new ArrayList<>();
+
+            if (hostCookies == null) return matching;
+
+            long now = System.currentTimeMillis();
+            Iterator<Cookie> iterator = hostCookies.iterator();
+
+            while (iterator.hasNext()) {
+                Cookie cookie = iterator.next();
+
+                if (cookie.expiresAt() < now) {
+                    iterator.remove();
+                } else if (cookie.matches(url)) {
+                    matching.add(cookie);
+                }
+            }
+
+            return matching;
+        }
+    }
+}
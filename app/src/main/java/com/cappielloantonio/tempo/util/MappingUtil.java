@@ -11,29 +11,46 @@ import androidx.media3.common.util.UnstableApi;
 
 import com.cappielloantonio.tempo.App;
 import com.cappielloantonio.tempo.glide.CustomGlideRequest;
-import com.cappielloantonio.tempo.model.Download;
-import com.cappielloantonio.tempo.repository.DownloadRepository;
 import com.cappielloantonio.tempo.subsonic.models.Child;
 import com.cappielloantonio.tempo.subsonic.models.InternetRadioStation;
 import com.cappielloantonio.tempo.subsonic.models.PodcastEpisode;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @OptIn(markerClass = UnstableApi.class)
 public class MappingUtil {
+    /**
+     * Maps a whole batch at once: the downloaded tracks are resolved from the download state
+     * index and the stream parameters are resolved once, instead of once per track.
+     */
     public static List<MediaItem> mapMediaItems(List<Child> items) {
-        ArrayList<MediaItem> mediaItems = new ArrayList<>();
+        Set<String> downloadedIds = DownloadUtil.getDownloadTracker(App.getContext())
+                .getDownloadStateIndex()
+                .getDownloaded(items.stream().map(Child::getId).collect(Collectors.toList()));
 
-        for (int i = 0; i < items.size(); i++) {
-            mediaItems.add(mapMediaItem(items.get(i)));
+        String streamParams = MusicUtil.getStreamParams();
+
+        ArrayList<MediaItem> mediaItems = new ArrayList<>(items.size());
+
+        for (Child item : items) {
+            Uri uri = downloadedIds.contains(item.getId())
+                    ? MusicUtil.getDownloadUri(item.getId())
+                    : MusicUtil.getStreamUri(item.getId(), streamParams);
+
+            mediaItems.add(mapMediaItem(item, uri));
         }
 
         return mediaItems;
     }
 
     public static MediaItem mapMediaItem(Child media) {
-        Uri uri = getUri(media);
+        return mapMediaItem(media, getUri(media));
+    }
+
+    private static MediaItem mapMediaItem(Child media, Uri uri) {
         Uri artworkUri = Uri.parse(CustomGlideRequest.createUrl(media.getCoverArtId(), Preferences.getImageSize()));
 
         Bundle bundle = new Bundle();
@@ -72,6 +89,8 @@ public class MappingUtil {
         bundle.putInt("originalHeight", media.getOriginalHeight() != null ? media.getOriginalHeight() : 0);
         bundle.putString("uri", uri.toString());
 
+        ReplayGainUtil.seed(media.getId(), media.getReplayGain());
+
         return new MediaItem.Builder()
                 .setMediaId(media.getId())
                 .setMediaMetadata(
@@ -83,7 +102,7 @@ public class MappingUtil {
                                 .setAlbumTitle(media.getAlbum())
                                 .setArtist(media.getArtist())
                                 .setArtworkUri(artworkUri)
-                                .setExtras(bundle)
+                                .setExtras(MediaMetadataStore.compact(bundle))
                                 .setIsBrowsable(false)
                                 .setIsPlayable(true)
                                 .build()
@@ -91,7 +110,6 @@ public class MappingUtil {
                 .setRequestMetadata(
                         new MediaItem.RequestMetadata.Builder()
                                 .setMediaUri(uri)
-                                .setExtras(bundle)
                                 .build()
                 )
                 .setMimeType(MimeTypes.BASE_TYPE_AUDIO)
@@ -100,16 +118,26 @@ public class MappingUtil {
     }
 
     public static List<MediaItem> mapDownloads(List<Child> items) {
-        ArrayList<MediaItem> downloads = new ArrayList<>();
+        boolean preferTranscodedDownload = Preferences.preferTranscodedDownload();
+
+        ArrayList<MediaItem> mediaItems = new ArrayList<>(items.size());
+
+        for (Child item : items) {
+            Uri uri = preferTranscodedDownload
+                    ? MusicUtil.getTranscodedDownloadUri(item.getId())
+                    : MusicUtil.getDownloadUri(item.getId());
 
-        for (int i = 0; i < items.size(); i++) {
-            downloads.add(mapDownload(items.get(i)));
+            mediaItems.add(mapDownload(item, uri));
         }
 
-        return downloads;
+        return mediaItems;
     }
 
     public static MediaItem mapDownload(Child media) {
+        return mapDownload(media, Preferences.preferTranscodedDownload() ? MusicUtil.getTranscodedDownloadUri(media.getId()) : MusicUtil.getDownloadUri(media.getId()));
+    }
+
+    private static MediaItem mapDownload(Child media, Uri uri) {
         return new MediaItem.Builder()
                 .setMediaId(media.getId())
                 .setMediaMetadata(
@@ -126,11 +154,11 @@ public class MappingUtil {
                 )
                 .setRequestMetadata(
                         new MediaItem.RequestMetadata.Builder()
-                                .setMediaUri(Preferences.preferTranscodedDownload() ? MusicUtil.getTranscodedDownloadUri(media.getId()) : MusicUtil.getDownloadUri(media.getId()))
+                                .setMediaUri(uri)
                                 .build()
                 )
                 .setMimeType(MimeTypes.BASE_TYPE_AUDIO)
-                .setUri(Preferences.preferTranscodedDownload() ? MusicUtil.getTranscodedDownloadUri(media.getId()) : MusicUtil.getDownloadUri(media.getId()))
+                .setUri(uri)
                 .build();
     }
 
@@ -148,7 +176,7 @@ public class MappingUtil {
                 .setMediaMetadata(
                         new MediaMetadata.Builder()
                                 .setTitle(internetRadioStation.getName())
-                                .setExtras(bundle)
+                                .setExtras(MediaMetadataStore.compact(bundle))
                                 .setIsBrowsable(false)
                                 .setIsPlayable(true)
                                 .build()
@@ -156,7 +184,6 @@ public class MappingUtil {
                 .setRequestMetadata(
                         new MediaItem.RequestMetadata.Builder()
                                 .setMediaUri(uri)
-                                .setExtras(bundle)
                                 .build()
                 )
                 // .setMimeType(MimeTypes.BASE_TYPE_AUDIO)
@@ -198,7 +225,7 @@ public class MappingUtil {
                                 .setAlbumTitle(podcastEpisode.getAlbum())
                                 .setArtist(podcastEpisode.getArtist())
                                 .setArtworkUri(artworkUri)
-                                .setExtras(bundle)
+                                .setExtras(MediaMetadataStore.compact(bundle))
                                 .setIsBrowsable(false)
                                 .setIsPlayable(true)
                                 .build()
@@ -206,7 +233,6 @@ public class MappingUtil {
                 .setRequestMetadata(
                         new MediaItem.RequestMetadata.Builder()
                                 .setMediaUri(uri)
-                                .setExtras(bundle)
                                 .build()
                 )
                 .setMimeType(MimeTypes.BASE_TYPE_AUDIO)
@@ -218,18 +244,13 @@ public class MappingUtil {
 
     private static Uri getUri(Child media) {
         return DownloadUtil.getDownloadTracker(App.getContext()).isDownloaded(media.getId())
-                ? getDownloadUri(media.getId())
+                ? MusicUtil.getDownloadUri(media.getId())
                 : MusicUtil.getStreamUri(media.getId());
     }
 
     private static Uri getUri(PodcastEpisode podcastEpisode) {
         return DownloadUtil.getDownloadTracker(App.getContext()).isDownloaded(podcastEpisode.getStreamId())
-                ? getDownloadUri(podcastEpisode.getStreamId())
+                ? MusicUtil.getDownloadUri(podcastEpisode.getStreamId())
                 : MusicUtil.getStreamUri(podcastEpisode.getStreamId());
     }
-
-    private static Uri getDownloadUri(String id) {
-        Download download = new DownloadRepository().getDownload(id);
-        return download != null && !download.getDownloadUri().isEmpty() ? Uri.parse(download.getDownloadUri()) : MusicUtil.getDownloadUri(id);
-    }
 }
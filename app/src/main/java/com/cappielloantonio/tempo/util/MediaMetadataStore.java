@@ -0,0 +1,158 @@
+package com.cappielloantonio.tempo.util;
+
+import android.os.Bundle;
+import android.util.Log;
+import android.util.LruCache;
+
+import androidx.annotation.Nullable;
+import androidx.media3.common.MediaItem;
+import androidx.media3.common.MediaMetadata;
+import androidx.media3.common.Timeline;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Holds the full extras of the media items mapped in this process, so that the items themselves
+ * only carry the id and the type. Queue timelines are parceled to every controller (the app,
+ * the notification, Android Auto) on each change, and none of them but the app reads the rest.
+ * <p>
+ * Extras are keyed by type and id, the least recently read ones dropped past
+ * {@link #MAX_ENTRIES}. The items of the player queue are pinned through {@link #pin}, so
+ * that browsing or mapping a large library can't evict them. Bundles returned by
+ * {@link #getExtras} are shared and must not be modified.
+ */
+public class MediaMetadataStore {
+    private static final String TAG = "MediaMetadataStore";
+
+    private static final int MAX_ENTRIES = 5000;
+
+    private static final String KEY_ID = "id";
+    private static final String KEY_TYPE = "type";
+    private static final String KEY_URI = "uri";
+
+    private static final LruCache<String, Bundle> extras = new LruCache<>(MAX_ENTRIES);
+    private static final Map<String, Bundle> pinned = new ConcurrentHashMap<>();
+
+    /**
+     * Stores the full extras of an item.
+     *
+     * @return the compact extras to set on the item
+     */
+    public static synchronized Bundle compact(Bundle full) {
+        String id = full.getString(KEY_ID);
+        String type = full.getString(KEY_TYPE);
+
+        Bundle compact = new Bundle(2);
+        compact.putString(KEY_ID, id);
+        compact.putString(KEY_TYPE, type);
+
+        if (id != null) put(getKey(type, id), full);
+
+        return compact;
+    }
+
+    /**
+     * @return the full extras of the item the given extras belong to, or the given extras
+     * themselves when they aren't known here
+     */
+    @Nullable
+    public static Bundle getExtras(@Nullable Bundle compact) {
+        if (compact == null) return null;
+
+        String id = compact.getString(KEY_ID);
+        if (id == null) return compact;
+
+        Bundle full = get(getKey(compact.getString(KEY_TYPE), id));
+
+        if (full == null) {
+            // Only id and type are left, readers would silently get blank values
+            Log.w(TAG, "No extras for " + getKey(compact.getString(KEY_TYPE), id));
+            return compact;
+        }
+
+        return full;
+    }
+
+    @Nullable
+    public static Bundle getExtras(MediaMetadata mediaMetadata) {
+        return getExtras(mediaMetadata.extras);
+    }
+
+    @Nullable
+    public static Bundle getExtras(MediaItem mediaItem) {
+        return getExtras(mediaItem.mediaMetadata.extras);
+    }
+
+    /**
+     * Records the uri an item is now played from, such as a stream moved to another bitrate.
+     */
+    public static synchronized void setUri(@Nullable Bundle compact, String uri) {
+        Bundle full = getExtras(compact);
+        if (full == null || full == compact) return;
+
+        // Copied rather than changed in place, readers may be holding the previous one
+        Bundle updated = new Bundle(full);
+        updated.putString(KEY_URI, uri);
+
+        put(getKey(compact.getString(KEY_TYPE), compact.getString(KEY_ID)), updated);
+    }
+
+    /**
+     * Keeps the extras of the items in the given player timeline from being evicted, and lets
+     * the ones pinned before that are no longer queued go back to the cache.
+     */
+    public static synchronized void pin(Timeline timeline) {
+        Set<String> keys = new HashSet<>();
+        Timeline.Window window = new Timeline.Window();
+
+        for (int i = 0; i < timeline.getWindowCount(); i++) {
+            Bundle compact = timeline.getWindow(i, window).mediaItem.mediaMetadata.extras;
+            String id = compact != null ? compact.getString(KEY_ID) : null;
+            if (id == null) continue;
+
+            String key = getKey(compact.getString(KEY_TYPE), id);
+            keys.add(key);
+
+            if (pinned.containsKey(key)) continue;
+
+            // Added before removed, so that a concurrent read always finds it in one of them
+            Bundle full = extras.get(key);
+            if (full == null) continue;
+
+            pinned.put(key, full);
+            extras.remove(key);
+        }
+
+        Iterator<Map.Entry<String, Bundle>> iterator = pinned.entrySet().iterator();
+
+        while (iterator.hasNext()) {
+            Map.Entry<String, Bundle> entry = iterator.next();
+            if (keys.contains(entry.getKey())) continue;
+
+            extras.put(entry.getKey(), entry.getValue());
+            iterator.remove();
+        }
+    }
+
+    @Nullable
+    private static Bundle get(String key) {
+        Bundle full = pinned.get(key);
+        return full != null ? full : extras.get(key);
+    }
+
+    private static void put(String key, Bundle full) {
+        if (pinned.containsKey(key)) {
+            pinned.put(key, full);
+        } else {
+            extras.put(key, full);
+        }
+    }
+
+    private static String getKey(@Nullable String type, String id) {
+        return type + "/" + id;
+    }
+}
@@ -1,120 +1,98 @@
 package com.cappielloantonio.tempo.util;
 
 import android.content.Context;
-import android.net.ConnectivityManager;
-import android.net.Network;
 import android.net.NetworkCapabilities;
 import android.net.Uri;
 import android.text.Html;
-import android.util.Log;
 
 import com.cappielloantonio.tempo.App;
 import com.cappielloantonio.tempo.R;
-import com.cappielloantonio.tempo.model.Download;
-import com.cappielloantonio.tempo.repository.DownloadRepository;
 import com.cappielloantonio.tempo.subsonic.models.Child;
 
 import java.text.CharacterIterator;
 import java.text.DecimalFormat;
 import java.text.StringCharacterIterator;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
-import java.util.Map;
 import java.util.stream.Collectors;
 
 public class MusicUtil {
     private static final String TAG = "MusicUtil";
 
     public static Uri getStreamUri(String id) {
-        Map<String, String> params = App.getSubsonicClientInstance(false).getParams();
-
-        StringBuilder uri = new StringBuilder();
-
-        uri.append(App.getSubsonicClientInstance(false).getUrl());
-        uri.append("stream");
-
-        if (params.containsKey("u") && params.get("u") != null)
-            uri.append("?u=").append(Util.encode(params.get("u")));
-        if (params.containsKey("p") && params.get("p") != null)
-            uri.append("&p=").append(params.get("p"));
-        if (params.containsKey("s") && params.get("s") != null)
-            uri.append("&s=").append(params.get("s"));
-        if (params.containsKey("t") && params.get("t") != null)
-            uri.append("&t=").append(params.get("t"));
-        if (params.containsKey("v") && params.get("v") != null)
-            uri.append("&v=").append(params.get("v"));
-        if (params.containsKey("c") && params.get("c") != null)
-            uri.append("&c=").append(params.get("c"));
-
-        if (!Preferences.isServerPrioritized())
-            uri.append("&maxBitRate=").append(getBitratePreference());
-        if (!Preferences.isServerPrioritized())
-            uri.append("&format=").append(getTranscodingFormatPreference());
+        return getStreamUri(id, getStreamParams());
+    }
+
+    /**
+     * Builds a stream uri with stream parameters previously resolved through
+     * {@link #getStreamParams()}, so that callers mapping many tracks at once only query the
+     * active network and the preferences once.
+     */
+    public static Uri getStreamUri(String id, String streamParams) {
+        String uri = App.getSubsonicClientInstance(false).getEndpointUrl("stream") + streamParams + "&id=" + id;
+        return Uri.parse(uri);
+    }
+
+    public static String getStreamParams() {
+        StringBuilder streamParams = new StringBuilder();
+
+        if (!Preferences.isServerPrioritized()) {
+            NetworkCapabilities networkCapabilities = NetworkUtil.getNetworkCapabilities();
+            String transcodingFormat = getTranscodingFormatPreference(networkCapabilities);
+
+            streamParams.append("&maxBitRate=").append(getStreamBitrate(networkCapabilities, transcodingFormat));
+            streamParams.append("&format=").append(transcodingFormat);
+        }
+
         if (Preferences.askForEstimateContentLength())
-            uri.append("&estimateContentLength=true");
+            streamParams.append("&estimateContentLength=true");
 
-        uri.append("&id=").append(id);
+        return streamParams.toString();
+    }
 
-        Log.d(TAG, "getStreamUri: " + uri);
+    /**
+     * Moves a stream uri built by {@link #getStreamUri(String)} to the transcoding parameters
+     * currently selected, for items queued before the link quality changed. Returns the same
+     * uri when it already matches or when the server picks the parameters.
+     */
+    public static Uri getAdaptedStreamUri(Uri uri) {
+        if (Preferences.isServerPrioritized() || !"stream".equals(uri.getLastPathSegment())) return uri;
 
-        return Uri.parse(uri.toString());
+        String maxBitRate = uri.getQueryParameter("maxBitRate");
+        String format = uri.getQueryParameter("format");
+
+        if (maxBitRate == null || format == null) return uri;
+
+        NetworkCapabilities networkCapabilities = NetworkUtil.getNetworkCapabilities();
+        String transcodingFormat = getTranscodingFormatPreference(networkCapabilities);
+        String bitrate = getStreamBitrate(networkCapabilities, transcodingFormat);
+
+        if (maxBitRate.equals(bitrate) && format.equals(transcodingFormat)) return uri;
+
+        // The rest of the query is kept verbatim, decoding and re-encoding it could alter the auth
+        String adapted = uri.toString()
+                .replaceFirst("([?&])maxBitRate=[^&]*", "$1maxBitRate=" + bitrate)
+                .replaceFirst("([?&])format=[^&]*", "$1format=" + transcodingFormat);
+
+        return Uri.parse(adapted);
     }
 
+    /**
+     * Resolved from the download state index, which the main thread can read without going to
+     * the database.
+     */
     public static Uri getDownloadUri(String id) {
-        StringBuilder uri = new StringBuilder();
-
-        Download download = new DownloadRepository().getDownload(id);
-
-        if (download == null || download.getDownloadUri().isEmpty()) {
-            Map<String, String> params = App.getSubsonicClientInstance(false).getParams();
-
-            uri.append(App.getSubsonicClientInstance(false).getUrl());
-            uri.append("download");
-
-            if (params.containsKey("u") && params.get("u") != null)
-                uri.append("?u=").append(Util.encode(params.get("u")));
-            if (params.containsKey("p") && params.get("p") != null)
-                uri.append("&p=").append(params.get("p"));
-            if (params.containsKey("s") && params.get("s") != null)
-                uri.append("&s=").append(params.get("s"));
-            if (params.containsKey("t") && params.get("t") != null)
-                uri.append("&t=").append(params.get("t"));
-            if (params.containsKey("v") && params.get("v") != null)
-                uri.append("&v=").append(params.get("v"));
-            if (params.containsKey("c") && params.get("c") != null)
-                uri.append("&c=").append(params.get("c"));
-
-            uri.append("&id=").append(id);
-        } else {
-            uri.append(download.getDownloadUri());
-        }
+        Uri uri = DownloadUtil.getDownloadTracker(App.getContext()).getDownloadStateIndex().getUri(id);
 
-        Log.d(TAG, "getDownloadUri: " + uri);
+        if (uri == null) {
+            return Uri.parse(App.getSubsonicClientInstance(false).getEndpointUrl("download") + "&id=" + id);
+        }
 
-        return Uri.parse(uri.toString());
+        return uri;
     }
 
     public static Uri getTranscodedDownloadUri(String id) {
-        Map<String, String> params = App.getSubsonicClientInstance(false).getParams();
-
-        StringBuilder uri = new StringBuilder();
-
-        uri.append(App.getSubsonicClientInstance(false).getUrl());
-        uri.append("stream");
-
-        if (params.containsKey("u") && params.get("u") != null)
-            uri.append("?u=").append(Util.encode(params.get("u")));
-        if (params.containsKey("p") && params.get("p") != null)
-            uri.append("&p=").append(params.get("p"));
-        if (params.containsKey("s") && params.get("s") != null)
-            uri.append("&s=").append(params.get("s"));
-        if (params.containsKey("t") && params.get("t") != null)
-            uri.append("&t=").append(params.get("t"));
-        if (params.containsKey("v") && params.get("v") != null)
-            uri.append("&v=").append(params.get("v"));
-        if (params.containsKey("c") && params.get("c") != null)
-            uri.append("&c=").append(params.get("c"));
+        StringBuilder uri = new StringBuilder(App.getSubsonicClientInstance(false).getEndpointUrl("stream"));
 
         if (!Preferences.isServerPrioritizedInTranscodedDownload())
             uri.append("&maxBitRate=").append(getBitratePreferenceForDownload());
@@ -123,8 +101,6 @@ public class MusicUtil {
 
         uri.append("&id=").append(id);
 
-        Log.d(TAG, "getTranscodedDownloadUri: " + uri);
-
         return Uri.parse(uri.toString());
     }
 
@@ -252,11 +228,16 @@ public class MusicUtil {
     }
 
     public static String getBitratePreference() {
-        Network network = getConnectivityManager().getActiveNetwork();
-        NetworkCapabilities networkCapabilities = getConnectivityManager().getNetworkCapabilities(network);
-        String audioTranscodeFormat = getTranscodingFormatPreference();
+        NetworkCapabilities networkCapabilities = NetworkUtil.getNetworkCapabilities();
+        return getBitratePreference(networkCapabilities, getTranscodingFormatPreference(networkCapabilities));
+    }
+
+    public static String getTranscodingFormatPreference() {
+        return getTranscodingFormatPreference(NetworkUtil.getNetworkCapabilities());
+    }
 
-        if (audioTranscodeFormat.equals("raw") || network == null || networkCapabilities == null)
+    private static String getBitratePreference(NetworkCapabilities networkCapabilities, String audioTranscodeFormat) {
+        if (audioTranscodeFormat.equals("raw") || networkCapabilities == null)
             return "0";
 
         if (networkCapabilities.hasTransport(NetworkCapabilities.TRANSPORT_WIFI)) {
@@ -268,11 +249,17 @@ public class MusicUtil {
         }
     }
 
-    public static String getTranscodingFormatPreference() {
-        Network network = getConnectivityManager().getActiveNetwork();
-        NetworkCapabilities networkCapabilities = getConnectivityManager().getNetworkCapabilities(network);
+    private static String getStreamBitrate(NetworkCapabilities networkCapabilities, String audioTranscodeFormat) {
+        String bitrate = getBitratePreference(networkCapabilities, audioTranscodeFormat);
+
+        // Without a transcoding format there is no bitrate to adapt
+        if (audioTranscodeFormat.equals("raw")) return bitrate;
 
-        if (network == null || networkCapabilities == null) return "raw";
+        return AdaptiveBitrateSelector.select(bitrate);
+    }
+
+    private static String getTranscodingFormatPreference(NetworkCapabilities networkCapabilities) {
+        if (networkCapabilities == null) return "raw";
 
         if (networkCapabilities.hasTransport(NetworkCapabilities.TRANSPORT_WIFI)) {
             return Preferences.getAudioTranscodeFormatWifi();
@@ -296,29 +283,6 @@ public class MusicUtil {
         return Preferences.getAudioTranscodeFormatTranscodedDownload();
     }
 
-    public static List<Child> limitPlayableMedia(List<Child> toLimit, int position) {
-        if (!toLimit.isEmpty() && toLimit.size() > Constants.PLAYABLE_MEDIA_LIMIT) {
-            int from = position < Constants.PRE_PLAYABLE_MEDIA ? 0 : position - Constants.PRE_PLAYABLE_MEDIA;
-            int to = Math.min(from + Constants.PLAYABLE_MEDIA_LIMIT, toLimit.size());
-
-            return toLimit.subList(from, to);
-        }
-
-        return toLimit;
-    }
-
-    public static int getPlayableMediaPosition(List<Child> toLimit, int position) {
-        if (!toLimit.isEmpty() && toLimit.size() > Constants.PLAYABLE_MEDIA_LIMIT) {
-            return Math.min(position, Constants.PRE_PLAYABLE_MEDIA);
-        }
-
-        return position;
-    }
-
-    private static ConnectivityManager getConnectivityManager() {
-        return (ConnectivityManager) App.getContext().getSystemService(Context.CONNECTIVITY_SERVICE);
-    }
-
     public static void ratingFilter(List<Child> toFilter) {
         if (toFilter == null || toFilter.isEmpty()) return;
 
@@ -4,26 +4,131 @@ import android.content.Context;
 import android.net.ConnectivityManager;
 import android.net.Network;
 import android.net.NetworkCapabilities;
-import android.net.NetworkInfo;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
 
 import com.cappielloantonio.tempo.App;
 
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Keeps the capabilities of the default network in memory, updated by a {@link
+ * ConnectivityManager.NetworkCallback}, so that interceptors, stream urls and the offline banner
+ * read the transport, metered, validated and bandwidth state without a binder call each time.
+ */
 public class NetworkUtil {
-    public static boolean isOffline() {
-        ConnectivityManager connectivityManager = (ConnectivityManager) App.getContext().getSystemService(Context.CONNECTIVITY_SERVICE);
+    private static final MutableLiveData<Boolean> connected = new MutableLiveData<>();
+    private static final List<Runnable> listeners = new CopyOnWriteArrayList<>();
+
+    @Nullable
+    private static volatile NetworkCapabilities networkCapabilities;
+    private static volatile boolean isRegistered;
 
-        if (connectivityManager != null) {
-            Network network = connectivityManager.getActiveNetwork();
+    /**
+     * Starts following the default network. Called once from {@link App}, the state is also
+     * registered lazily on first access.
+     */
+    public static synchronized void init(Context context) {
+        if (isRegistered) return;
+
+        ConnectivityManager connectivityManager = (ConnectivityManager) context.getApplicationContext().getSystemService(Context.CONNECTIVITY_SERVICE);
+        if (connectivityManager == null) return;
+
+        // The callback only reports changes, the current state is read once here
+        Network network = connectivityManager.getActiveNetwork();
+        setNetworkCapabilities(network != null ? connectivityManager.getNetworkCapabilities(network) : null);
+
+        connectivityManager.registerDefaultNetworkCallback(new ConnectivityManager.NetworkCallback() {
+            @Override
+            public void onAvailable(@NonNull Network network) {
+                // Before API 26 onCapabilitiesChanged is not guaranteed to follow
+                setNetworkCapabilities(connectivityManager.getNetworkCapabilities(network));
+            }
 
-            if (network != null) {
-                NetworkCapabilities capabilities = connectivityManager.getNetworkCapabilities(network);
+            @Override
+            public void onCapabilitiesChanged(@NonNull Network network, @NonNull NetworkCapabilities capabilities) {
+                setNetworkCapabilities(capabilities);
+            }
 
-                if (capabilities != null) {
-                    return !capabilities.hasCapability(NetworkCapabilities.NET_CAPABILITY_INTERNET) || !capabilities.hasCapability(NetworkCapabilities.NET_CAPABILITY_VALIDATED);
-                }
+            @Override
+            public void onLost(@NonNull Network network) {
+                setNetworkCapabilities(null);
             }
-        }
+        });
+
+        isRegistered = true;
+    }
+
+    /**
+     * @return the capabilities of the default network, or null when there is none
+     */
+    @Nullable
+    public static NetworkCapabilities getNetworkCapabilities() {
+        if (!isRegistered) init(App.getContext());
+        return networkCapabilities;
+    }
+
+    public static boolean isConnected() {
+        NetworkCapabilities capabilities = getNetworkCapabilities();
+        return capabilities != null && capabilities.hasCapability(NetworkCapabilities.NET_CAPABILITY_INTERNET);
+    }
+
+    public static boolean isOffline() {
+        NetworkCapabilities capabilities = getNetworkCapabilities();
+        return capabilities == null || !capabilities.hasCapability(NetworkCapabilities.NET_CAPABILITY_INTERNET) || !capabilities.hasCapability(NetworkCapabilities.NET_CAPABILITY_VALIDATED);
+    }
+
+    public static boolean isMetered() {
+        NetworkCapabilities capabilities = getNetworkCapabilities();
+        return capabilities == null || !capabilities.hasCapability(NetworkCapabilities.NET_CAPABILITY_NOT_METERED);
+    }
+
+    public static boolean isWifi() {
+        NetworkCapabilities capabilities = getNetworkCapabilities();
+        return capabilities != null && capabilities.hasTransport(NetworkCapabilities.TRANSPORT_WIFI);
+    }
+
+    public static boolean isCellular() {
+        NetworkCapabilities capabilities = getNetworkCapabilities();
+        return capabilities != null && capabilities.hasTransport(NetworkCapabilities.TRANSPORT_CELLULAR);
+    }
+
+    /**
+     * @return the downstream bandwidth the system estimates for the default network, 0 if unknown
+     */
+    public static int getDownstreamBandwidthKbps() {
+        NetworkCapabilities capabilities = getNetworkCapabilities();
+        return capabilities != null ? capabilities.getLinkDownstreamBandwidthKbps() : 0;
+    }
+
+    /**
+     * Whether the default network has internet access, for the offline banner.
+     */
+    public static LiveData<Boolean> getConnected() {
+        if (!isRegistered) init(App.getContext());
+        return connected;
+    }
+
+    /**
+     * Runs the listener on the connectivity thread whenever the default network or its
+     * capabilities change.
+     */
+    public static void addListener(Runnable listener) {
+        if (!isRegistered) init(App.getContext());
+        listeners.add(listener);
+    }
+
+    private static void setNetworkCapabilities(@Nullable NetworkCapabilities capabilities) {
+        networkCapabilities = capabilities;
+
+        boolean isConnected = capabilities != null && capabilities.hasCapability(NetworkCapabilities.NET_CAPABILITY_INTERNET);
+        if (!Objects.equals(connected.getValue(), isConnected)) connected.postValue(isConnected);
 
-        return true;
+        for (Runnable listener : listeners) listener.run();
     }
 }
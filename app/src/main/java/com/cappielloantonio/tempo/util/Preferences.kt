@@ -71,6 +71,8 @@ object Preferences {
     private const val LAST_INSTANT_MIX = "last_instant_mix"
     private const val EQUALIZER_ENABLED = "equalizer_enabled"
     private const val EQUALIZER_BAND_LEVELS = "equalizer_band_levels"
+    private const val LIBRARY_SERVER_ID = "library_server_id"
+    private const val LIBRARY_LAST_MODIFIED = "library_last_modified"
 
     @JvmStatic
     fun getServer(): String? {
@@ -566,4 +568,24 @@ object Preferences {
         if (parts.size < bandCount) return ShortArray(bandCount.toInt())
         return ShortArray(bandCount.toInt()) { i -> parts[i].toShortOrNull() ?: 0 }
     }
-}
\ No newline at end of file
+
+    @JvmStatic
+    fun getLibraryServerId(): String? {
+        return App.getInstance().preferences.getString(LIBRARY_SERVER_ID, null)
+    }
+
+    @JvmStatic
+    fun setLibraryServerId(serverId: String?) {
+        App.getInstance().preferences.edit().putString(LIBRARY_SERVER_ID, serverId).apply()
+    }
+
+    @JvmStatic
+    fun getLibraryLastModified(): Long {
+        return App.getInstance().preferences.getLong(LIBRARY_LAST_MODIFIED, 0)
+    }
+
+    @JvmStatic
+    fun setLibraryLastModified(lastModified: Long) {
+        App.getInstance().preferences.edit().putLong(LIBRARY_LAST_MODIFIED, lastModified).apply()
+    }
+}
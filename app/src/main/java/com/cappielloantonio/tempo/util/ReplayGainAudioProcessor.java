@@ -0,0 +1,218 @@
+package com.cappielloantonio.tempo.util;
+
+import androidx.media3.common.C;
+import androidx.media3.common.audio.BaseAudioProcessor;
+import androidx.media3.common.util.UnstableApi;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Applies the ReplayGain of the playing track in the audio sink, with a lookahead limiter so
+ * that positive gains never clip. The gains are worked out by {@link ReplayGainUtil} ahead of
+ * time: the one of the current track and the one of the track following it, which is switched
+ * to at the end of stream of the current one so that the first buffer of a gapless transition
+ * is already at the right level.
+ * <p>
+ * Gains are set from the player thread and only picked up on the playback thread, at a flush
+ * or between two buffers, so the level never changes within a buffer.
+ * <p>
+ * Buffers are processed in place of the sink's output buffer, nothing is allocated past
+ * {@link #onFlush()}.
+ */
+@UnstableApi
+public class ReplayGainAudioProcessor extends BaseAudioProcessor {
+    private static final float LOOKAHEAD_MS = 5f;
+    private static final float RELEASE_MS = 100f;
+    // Slightly under full scale, for the resampling and float to integer conversions after us
+    private static final float CEILING = 0.98f;
+
+    private volatile boolean isEnabled;
+    private volatile float currentGain = 1f;
+    private volatile float nextGain = 1f;
+    // Written after the gains, so that a reader seeing a generation sees its gains too
+    private volatile int gainsGeneration;
+
+    // Playback thread
+    private float gain = 1f;
+    private int appliedGainsGeneration;
+    private boolean isEndOfStreamQueued;
+
+    private int channelCount;
+    private boolean isFloat;
+    private int lookaheadFrames;
+    private float releaseCoefficient;
+
+    private float[] frame = new float[0];
+    private float[] delayLine = new float[0];
+    private int delayPosition;
+    private int delayedFrames;
+
+    private float envelope = 1f;
+    private float targetEnvelope = 1f;
+    private float attackStep;
+    private int holdFrames;
+
+    /**
+     * Takes effect from the next stream on.
+     */
+    public void setEnabled(boolean isEnabled) {
+        this.isEnabled = isEnabled;
+    }
+
+    /**
+     * Called from the player thread only.
+     *
+     * @param currentGain linear gain of the track playing now
+     * @param nextGain    linear gain of the track expected to follow it
+     */
+    public void setGains(float currentGain, float nextGain) {
+        this.currentGain = currentGain;
+        this.nextGain = nextGain;
+        gainsGeneration++;
+    }
+
+    @Override
+    protected AudioFormat onConfigure(AudioFormat inputAudioFormat) throws UnhandledAudioFormatException {
+        if (inputAudioFormat.encoding != C.ENCODING_PCM_16BIT && inputAudioFormat.encoding != C.ENCODING_PCM_FLOAT) {
+            throw new UnhandledAudioFormatException(inputAudioFormat);
+        }
+
+        return isEnabled ? inputAudioFormat : AudioFormat.NOT_SET;
+    }
+
+    @Override
+    public void queueInput(ByteBuffer inputBuffer) {
+        int remaining = inputBuffer.remaining();
+        if (remaining == 0) return;
+
+        int generation = gainsGeneration;
+
+        if (generation != appliedGainsGeneration) {
+            appliedGainsGeneration = generation;
+            gain = currentGain;
+        }
+
+        ByteBuffer outputBuffer = replaceOutputBuffer(remaining);
+
+        while (inputBuffer.hasRemaining()) {
+            float peak = 0f;
+
+            for (int channel = 0; channel < channelCount; channel++) {
+                float sample = (isFloat ? inputBuffer.getFloat() : inputBuffer.getShort() / 32768f) * gain;
+                frame[channel] = sample;
+                peak = Math.max(peak, Math.abs(sample));
+            }
+
+            updateEnvelope(peak);
+
+            int offset = delayPosition * channelCount;
+
+            for (int channel = 0; channel < channelCount; channel++) {
+                if (delayedFrames == lookaheadFrames) {
+                    write(outputBuffer, delayLine[offset + channel] * envelope);
+                }
+
+                delayLine[offset + channel] = frame[channel];
+            }
+
+            if (delayedFrames < lookaheadFrames) delayedFrames++;
+            delayPosition = (delayPosition + 1) % lookaheadFrames;
+        }
+
+        outputBuffer.flip();
+    }
+
+    @Override
+    protected void onQueueEndOfStream() {
+        isEndOfStreamQueued = true;
+
+        if (delayedFrames == 0) return;
+
+        // The tail of the track is still held in the lookahead
+        ByteBuffer outputBuffer = replaceOutputBuffer(delayedFrames * channelCount * (isFloat ? 4 : 2));
+        int position = (delayPosition - delayedFrames + lookaheadFrames) % lookaheadFrames;
+
+        for (int i = 0; i < delayedFrames; i++) {
+            updateEnvelope(0f);
+
+            int offset = position * channelCount;
+
+            for (int channel = 0; channel < channelCount; channel++) {
+                write(outputBuffer, delayLine[offset + channel] * envelope);
+            }
+
+            position = (position + 1) % lookaheadFrames;
+        }
+
+        delayedFrames = 0;
+        outputBuffer.flip();
+    }
+
+    @Override
+    protected void onFlush() {
+        // A flush after an end of stream is the start of the following track, otherwise a seek
+        appliedGainsGeneration = gainsGeneration;
+        gain = isEndOfStreamQueued ? nextGain : currentGain;
+        isEndOfStreamQueued = false;
+
+        channelCount = inputAudioFormat.channelCount;
+        isFloat = inputAudioFormat.encoding == C.ENCODING_PCM_FLOAT;
+        lookaheadFrames = Math.max(1, (int) (inputAudioFormat.sampleRate * LOOKAHEAD_MS / 1000));
+        releaseCoefficient = (float) (1 - Math.exp(-1000 / (inputAudioFormat.sampleRate * RELEASE_MS)));
+
+        if (frame.length != channelCount) frame = new float[channelCount];
+        if (delayLine.length != lookaheadFrames * channelCount) delayLine = new float[lookaheadFrames * channelCount];
+
+        delayPosition = 0;
+        delayedFrames = 0;
+        envelope = 1f;
+        targetEnvelope = 1f;
+        attackStep = 0f;
+        holdFrames = 0;
+    }
+
+    @Override
+    protected void onReset() {
+        frame = new float[0];
+        delayLine = new float[0];
+        gain = 1f;
+        isEndOfStreamQueued = false;
+    }
+
+    /**
+     * Moves the gain reduction so that it reaches what a peak entering the lookahead needs by
+     * the time the peak leaves it, holds it while the peak goes through, then releases it.
+     */
+    private void updateEnvelope(float peak) {
+        if (peak > CEILING) {
+            float required = CEILING / peak;
+
+            if (required < targetEnvelope) {
+                targetEnvelope = required;
+                attackStep = Math.max(attackStep, (envelope - required) / lookaheadFrames);
+            }
+
+            holdFrames = lookaheadFrames;
+        }
+
+        if (envelope > targetEnvelope) {
+            envelope = Math.max(targetEnvelope, envelope - attackStep);
+            if (envelope == targetEnvelope) attackStep = 0f;
+        } else if (holdFrames > 0) {
+            holdFrames--;
+        } else if (envelope < 1f) {
+            envelope = Math.min(1f, envelope + (1f - envelope) * releaseCoefficient + 1e-6f);
+            targetEnvelope = envelope;
+        }
+    }
+
+    private void write(ByteBuffer outputBuffer, float sample) {
+        sample = Math.max(-1f, Math.min(1f, sample));
+
+        if (isFloat) {
+            outputBuffer.putFloat(sample);
+        } else {
+            outputBuffer.putShort((short) (sample * Short.MAX_VALUE));
+        }
+    }
+}
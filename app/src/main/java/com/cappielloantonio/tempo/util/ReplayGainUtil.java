@@ -1,178 +1,172 @@
 package com.cappielloantonio.tempo.util;
 
+import android.util.LruCache;
+
+import androidx.annotation.Nullable;
 import androidx.annotation.OptIn;
+import androidx.media3.common.C;
 import androidx.media3.common.MediaItem;
 import androidx.media3.common.Metadata;
+import androidx.media3.common.Player;
 import androidx.media3.common.Tracks;
 import androidx.media3.common.util.UnstableApi;
 import androidx.media3.exoplayer.ExoPlayer;
+import androidx.media3.extractor.metadata.id3.InternalFrame;
+import androidx.media3.extractor.metadata.id3.TextInformationFrame;
+import androidx.media3.extractor.metadata.vorbis.VorbisComment;
 
-import com.cappielloantonio.tempo.model.ReplayGain;
+import com.cappielloantonio.tempo.subsonic.models.ReplayGain;
 
-import java.util.ArrayList;
-import java.util.List;
 import java.util.Objects;
 
+/**
+ * Works out the ReplayGain of the current and next tracks for {@link ReplayGainAudioProcessor}.
+ * Gains are cached by song id: seeded from the OpenSubsonic replayGain of the song when it is
+ * mapped, otherwise parsed once from the tags of the track the first time it plays.
+ */
 @OptIn(markerClass = UnstableApi.class)
 public class ReplayGainUtil {
     private static final String[] tags = {"REPLAYGAIN_TRACK_GAIN", "REPLAYGAIN_ALBUM_GAIN", "R128_TRACK_GAIN", "R128_ALBUM_GAIN"};
 
-    public static void setReplayGain(ExoPlayer player, Tracks tracks) {
-        List<Metadata> metadata = getMetadata(tracks);
-        List<ReplayGain> gains = getReplayGains(metadata);
+    private static final int MAX_ENTRIES = 5000;
 
-        applyReplayGain(player, gains);
-    }
+    private static final LruCache<String, ReplayGain> gains = new LruCache<>(MAX_ENTRIES);
 
-    private static List<Metadata> getMetadata(Tracks tracks) {
-        List<Metadata> metadata = new ArrayList<>();
+    /**
+     * Records the gains the server reports for a song, if any.
+     */
+    public static void seed(String id, @Nullable ReplayGain replayGain) {
+        if (id == null || replayGain == null) return;
+        if (replayGain.getTrackGain() == null && replayGain.getAlbumGain() == null) return;
 
-        if (tracks != null && !tracks.getGroups().isEmpty()) {
-            for (int i = 0; i < tracks.getGroups().size(); i++) {
-                Tracks.Group group = tracks.getGroups().get(i);
+        gains.put(id, replayGain);
+    }
 
-                if (group != null && group.getMediaTrackGroup() != null) {
-                    for (int j = 0; j < group.getMediaTrackGroup().length; j++) {
-                        metadata.add(group.getTrackFormat(j).metadata);
-                    }
-                }
-            }
+    public static void setReplayGain(ExoPlayer player, Tracks tracks, ReplayGainAudioProcessor audioProcessor) {
+        MediaItem currentMediaItem = player.getCurrentMediaItem();
+
+        if (currentMediaItem != null && gains.get(currentMediaItem.mediaId) == null) {
+            ReplayGain replayGain = getReplayGain(tracks);
+            if (replayGain != null) gains.put(currentMediaItem.mediaId, replayGain);
         }
 
-        return metadata;
+        String mode = Preferences.getReplayGainMode();
+        audioProcessor.setEnabled(!Objects.equals(mode, "disabled"));
+
+        int currentIndex = player.getCurrentMediaItemIndex();
+        int nextIndex = player.getNextMediaItemIndex();
+        int previousIndex = player.getPreviousMediaItemIndex();
+
+        MediaItem previousMediaItem = previousIndex != C.INDEX_UNSET ? player.getMediaItemAt(previousIndex) : null;
+        MediaItem nextMediaItem = nextIndex != C.INDEX_UNSET && player.getRepeatMode() != Player.REPEAT_MODE_ONE ? player.getMediaItemAt(nextIndex) : currentMediaItem;
+
+        float currentGain = currentIndex != C.INDEX_UNSET ? getGain(mode, currentMediaItem, previousMediaItem) : 0f;
+        float nextGain = nextMediaItem == currentMediaItem ? currentGain : getGain(mode, nextMediaItem, currentMediaItem);
+
+        audioProcessor.setGains(toLinear(currentGain), toLinear(nextGain));
     }
 
-    private static List<ReplayGain> getReplayGains(List<Metadata> metadata) {
-        List<ReplayGain> gains = new ArrayList<>();
+    @Nullable
+    private static ReplayGain getReplayGain(Tracks tracks) {
+        ReplayGain replayGain = null;
 
-        if (metadata != null) {
-            for (int i = 0; i < metadata.size(); i++) {
-                Metadata singleMetadata = metadata.get(i);
+        for (Tracks.Group group : tracks.getGroups()) {
+            if (group.getType() != C.TRACK_TYPE_AUDIO) continue;
 
-                if (singleMetadata != null) {
-                    for (int j = 0; j < singleMetadata.length(); j++) {
-                        Metadata.Entry entry = singleMetadata.get(j);
+            for (int i = 0; i < group.length; i++) {
+                Metadata metadata = group.getTrackFormat(i).metadata;
+                if (metadata == null) continue;
 
-                        if (checkReplayGain(entry)) {
-                            ReplayGain replayGain = setReplayGains(entry);
-                            gains.add(replayGain);
-                        }
-                    }
+                for (int j = 0; j < metadata.length(); j++) {
+                    replayGain = parseEntry(metadata.get(j), replayGain);
                 }
             }
         }
 
-        if (gains.size() == 0) gains.add(0, new ReplayGain());
-        if (gains.size() == 1) gains.add(1, new ReplayGain());
-
-        return gains;
+        return replayGain;
     }
 
-    private static boolean checkReplayGain(Metadata.Entry entry) {
-        for (String tag : tags) {
-            if (entry.toString().contains(tag)) {
-                return true;
-            }
+    @Nullable
+    private static ReplayGain parseEntry(Metadata.Entry entry, @Nullable ReplayGain replayGain) {
+        String key;
+        String value;
+
+        if (entry instanceof VorbisComment) {
+            key = ((VorbisComment) entry).key;
+            value = ((VorbisComment) entry).value;
+        } else if (entry instanceof TextInformationFrame) {
+            TextInformationFrame frame = (TextInformationFrame) entry;
+            key = frame.description;
+            value = frame.values.isEmpty() ? null : frame.values.get(0);
+        } else if (entry instanceof InternalFrame) {
+            key = ((InternalFrame) entry).description;
+            value = ((InternalFrame) entry).text;
+        } else {
+            return replayGain;
         }
 
-        return false;
-    }
-
-    private static ReplayGain setReplayGains(Metadata.Entry entry) {
-        ReplayGain replayGain = new ReplayGain();
+        if (key == null || value == null) return replayGain;
 
-        if (entry.toString().contains(tags[0])) {
-            replayGain.setTrackGain(parseReplayGainTag(entry));
-        }
+        for (int i = 0; i < tags.length; i++) {
+            if (!tags[i].equalsIgnoreCase(key)) continue;
 
-        if (entry.toString().contains(tags[1])) {
-            replayGain.setAlbumGain(parseReplayGainTag(entry));
-        }
+            Float gain = parseGain(value);
+            if (gain == null) return replayGain;
 
-        if (entry.toString().contains(tags[2])) {
-            replayGain.setTrackGain(parseReplayGainTag(entry) / 256f);
-        }
+            if (replayGain == null) replayGain = new ReplayGain();
 
-        if (entry.toString().contains(tags[3])) {
-            replayGain.setAlbumGain(parseReplayGainTag(entry) / 256f);
+            // R128 gains are Q7.8 fixed point
+            if (i == 0) replayGain.setTrackGain(gain);
+            if (i == 1) replayGain.setAlbumGain(gain);
+            if (i == 2) replayGain.setTrackGain(gain / 256f);
+            if (i == 3) replayGain.setAlbumGain(gain / 256f);
         }
 
         return replayGain;
     }
 
-    private static Float parseReplayGainTag(Metadata.Entry entry) {
-        try {
-            return Float.parseFloat(entry.toString().replaceAll("[^\\d.-]", ""));
-        } catch (NumberFormatException exception) {
-            return 0f;
-        }
-    }
-
-    private static void applyReplayGain(ExoPlayer player, List<ReplayGain> gains) {
-        if (Objects.equals(Preferences.getReplayGainMode(), "disabled") || gains == null || gains.isEmpty()) {
-            setNoReplayGain(player);
-            return;
-        }
+    @Nullable
+    private static Float parseGain(String value) {
+        String gain = value.trim();
 
-        if (Objects.equals(Preferences.getReplayGainMode(), "auto")) {
-            if (areTracksConsecutive(player)) {
-                setAutoReplayGain(player, gains);
-            } else {
-                setTrackReplayGain(player, gains);
-            }
-
-            return;
+        if (gain.regionMatches(true, Math.max(0, gain.length() - 2), "dB", 0, 2)) {
+            gain = gain.substring(0, gain.length() - 2).trim();
         }
 
-        if (Objects.equals(Preferences.getReplayGainMode(), "track")) {
-            setTrackReplayGain(player, gains);
-            return;
-        }
-
-        if (Objects.equals(Preferences.getReplayGainMode(), "album")) {
-            setAlbumReplayGain(player, gains);
-            return;
+        try {
+            return Float.parseFloat(gain);
+        } catch (NumberFormatException exception) {
+            return null;
         }
-
-        setNoReplayGain(player);
     }
 
-    private static void setNoReplayGain(ExoPlayer player) {
-        setReplayGain(player, 0f);
-    }
+    private static float getGain(@Nullable String mode, @Nullable MediaItem mediaItem, @Nullable MediaItem previousMediaItem) {
+        if (mediaItem == null || Objects.equals(mode, "disabled")) return 0f;
 
-    private static void setTrackReplayGain(ExoPlayer player, List<ReplayGain> gains) {
-        float trackGain = gains.get(0).getTrackGain() != 0f ? gains.get(0).getTrackGain() : gains.get(1).getTrackGain();
-
-        setReplayGain(player, trackGain != 0f ? trackGain : 0f);
-    }
+        ReplayGain replayGain = gains.get(mediaItem.mediaId);
+        if (replayGain == null) return 0f;
 
-    private static void setAlbumReplayGain(ExoPlayer player, List<ReplayGain> gains) {
-        float albumGain = gains.get(0).getAlbumGain() != 0f ? gains.get(0).getAlbumGain() : gains.get(1).getAlbumGain();
+        float trackGain = replayGain.getTrackGain() != null ? replayGain.getTrackGain() : 0f;
+        float albumGain = replayGain.getAlbumGain() != null ? replayGain.getAlbumGain() : 0f;
 
-        setReplayGain(player, albumGain != 0f ? albumGain : 0f);
-    }
+        if (Objects.equals(mode, "auto")) {
+            return areTracksConsecutive(previousMediaItem, mediaItem) && albumGain != 0f ? albumGain : trackGain;
+        }
 
-    private static void setAutoReplayGain(ExoPlayer player, List<ReplayGain> gains) {
-        float albumGain = gains.get(0).getAlbumGain() != 0f ? gains.get(0).getAlbumGain() : gains.get(1).getAlbumGain();
-        float trackGain = gains.get(0).getTrackGain() != 0f ? gains.get(0).getTrackGain() : gains.get(1).getTrackGain();
+        if (Objects.equals(mode, "track")) return trackGain;
+        if (Objects.equals(mode, "album")) return albumGain;
 
-        setReplayGain(player, albumGain != 0f ? albumGain : trackGain);
+        return 0f;
     }
 
-    private static boolean areTracksConsecutive(ExoPlayer player) {
-        MediaItem currentMediaItem = player.getCurrentMediaItem();
-        int currentMediaItemIndex = player.getCurrentMediaItemIndex();
-        MediaItem pastMediaItem = currentMediaItemIndex > 0 ? player.getMediaItemAt(currentMediaItemIndex - 1) : null;
-
-        return currentMediaItem != null &&
-                pastMediaItem != null &&
+    private static boolean areTracksConsecutive(@Nullable MediaItem pastMediaItem, MediaItem currentMediaItem) {
+        return pastMediaItem != null &&
                 pastMediaItem.mediaMetadata.albumTitle != null &&
                 currentMediaItem.mediaMetadata.albumTitle != null &&
                 pastMediaItem.mediaMetadata.albumTitle.toString().equals(currentMediaItem.mediaMetadata.albumTitle.toString());
     }
 
-    private static void setReplayGain(ExoPlayer player, float gain) {
-        player.setVolume((float) Math.pow(10f, gain / 20f));
+    private static float toLinear(float gain) {
+        return (float) Math.pow(10f, gain / 20f);
     }
 }
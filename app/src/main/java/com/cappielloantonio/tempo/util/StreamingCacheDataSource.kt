@@ -8,7 +8,9 @@ import androidx.media3.datasource.DataSource
 import androidx.media3.datasource.DataSpec
 import androidx.media3.datasource.TransferListener
 import androidx.media3.datasource.cache.CacheDataSource
+import androidx.media3.datasource.cache.CacheKeyFactory
 import androidx.media3.datasource.cache.ContentMetadata
+import java.util.concurrent.atomic.AtomicLong
 
 @UnstableApi
 class StreamingCacheDataSource private constructor(
@@ -18,6 +20,53 @@ class StreamingCacheDataSource private constructor(
 
     private var currentDataSpec: DataSpec? = null
 
+    companion object {
+        private val cachedBytesRead = AtomicLong()
+        private val totalBytesRead = AtomicLong()
+
+        /**
+         * Counts the bytes playback got from the streaming cache, see [getHitRatio].
+         */
+        @JvmField
+        val CACHE_EVENT_LISTENER = object : CacheDataSource.EventListener {
+            override fun onCachedBytesRead(cacheSizeBytes: Long, cachedBytesRead: Long) {
+                Companion.cachedBytesRead.addAndGet(cachedBytesRead)
+            }
+
+            override fun onCacheIgnored(reason: Int) {}
+        }
+
+        /**
+         * Share of the bytes read by playback since start that were served from the streaming
+         * cache rather than the network, or -1 if nothing was played yet.
+         */
+        @JvmStatic
+        fun getHitRatio(): Float {
+            val total = totalBytesRead.get()
+            return if (total > 0) cachedBytesRead.get().toFloat() / total else -1f
+        }
+
+        /**
+         * Stream urls carry the authentication salt and token, which change on every login. The
+         * transcoded bytes only depend on the server, the song and the transcoding parameters, so
+         * those make the key and a song stays cached across sessions.
+         */
+        @JvmField
+        val CACHE_KEY_FACTORY = CacheKeyFactory { dataSpec ->
+            val uri = dataSpec.uri
+            val id = uri.getQueryParameter("id")
+
+            when {
+                dataSpec.key != null -> dataSpec.key!!
+                id == null || uri.lastPathSegment != "stream" -> uri.toString()
+                else -> "${uri.scheme}://${uri.authority}${uri.path}" +
+                        "?id=$id" +
+                        "&format=${uri.getQueryParameter("format") ?: ""}" +
+                        "&maxBitRate=${uri.getQueryParameter("maxBitRate") ?: ""}"
+            }
+        }
+    }
+
     class Factory(private val cacheDatasourceFactory: CacheDataSource.Factory): DataSource.Factory {
         override fun createDataSource(): DataSource {
             return StreamingCacheDataSource(cacheDatasourceFactory.createDataSource())
@@ -25,7 +74,9 @@ class StreamingCacheDataSource private constructor(
     }
 
     override fun read(buffer: ByteArray, offset: Int, length: Int): Int {
-        return cacheDataSource.read(buffer, offset, length)
+        val read = cacheDataSource.read(buffer, offset, length)
+        if (read > 0) totalBytesRead.addAndGet(read.toLong())
+        return read
     }
 
     override fun addTransferListener(transferListener: TransferListener) {
@@ -48,14 +99,16 @@ class StreamingCacheDataSource private constructor(
         val dataSpec = currentDataSpec
 
         if (dataSpec != null) {
+            // Partial spans are kept with their byte ranges, the next read of the key only fetches
+            // the missing ranges and the content length is stored once a read reaches the end
             val cacheKey = cacheDataSource.cacheKeyFactory.buildCacheKey(dataSpec)
-            val contentLength = ContentMetadata.getContentLength(cacheDataSource.cache.getContentMetadata(cacheKey));
+            val contentLength = ContentMetadata.getContentLength(cacheDataSource.cache.getContentMetadata(cacheKey))
+            val cachedBytes = cacheDataSource.cache.getCachedBytes(cacheKey, 0, C.LENGTH_UNSET.toLong())
 
-            if (contentLength == C.LENGTH_UNSET.toLong()) {
-                Log.d(TAG, "Removing partial cache for $cacheKey")
-                cacheDataSource.cache.removeResource(cacheKey)
-            } else {
+            if (contentLength != C.LENGTH_UNSET.toLong() && cachedBytes >= contentLength) {
                 Log.d(TAG, "Key $cacheKey has been fully cached")
+            } else {
+                Log.d(TAG, "Key $cacheKey has $cachedBytes bytes cached")
             }
         }
     }
@@ -0,0 +1,226 @@
+package com.cappielloantonio.tempo.util;
+
+import android.net.Uri;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.media3.common.C;
+import androidx.media3.common.util.UnstableApi;
+import androidx.media3.datasource.cache.Cache;
+import androidx.media3.datasource.cache.CacheEvictor;
+import androidx.media3.datasource.cache.CacheSpan;
+
+import com.cappielloantonio.tempo.repository.ChronologyRepository;
+import com.cappielloantonio.tempo.repository.LibraryRepository;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Segmented LRU eviction for the streaming cache, so that a long podcast or a one-off shuffle
+ * session doesn't flush the tracks that are listened to over and over. Spans are split into:
+ * <ul>
+ *     <li>pinned: starred tracks, evicted last, or first once they alone take more than
+ *     {@link #PINNED_SHARE} of the cache;</li>
+ *     <li>frequent: tracks with at least {@link #FREQUENT_PLAY_COUNT} plays in the chronology,
+ *     or replayed from the cache after {@link #REPLAY_GAP_MS};</li>
+ *     <li>probation: everything else, evicted first.</li>
+ * </ul>
+ * Pinned and frequent spans together may take up to {@link #PROTECTED_SHARE} of the cache,
+ * beyond that the oldest frequent spans are evicted before new tracks. Each segment is least
+ * recently used first. Play counts and starred tracks are read from the database at start and
+ * every {@link #REFRESH_INTERVAL_MS} afterwards.
+ */
+@UnstableApi
+public class StreamingCacheEvictor implements CacheEvictor {
+    private static final String TAG = "StreamingCacheEvictor";
+
+    private static final int FREQUENT_PLAY_COUNT = 3;
+    private static final float PROTECTED_SHARE = 0.8f;
+    private static final float PINNED_SHARE = 0.5f;
+    // Reading a span again sooner than this is a seek or a prefetched start, not a replay
+    private static final long REPLAY_GAP_MS = 30 * 60 * 1000;
+    private static final long REFRESH_INTERVAL_MS = 10 * 60 * 1000;
+
+    private final long maxBytes;
+
+    private final TreeSet<CacheSpan> probation = new TreeSet<>(StreamingCacheEvictor::compare);
+    private final TreeSet<CacheSpan> frequent = new TreeSet<>(StreamingCacheEvictor::compare);
+    private final TreeSet<CacheSpan> pinned = new TreeSet<>(StreamingCacheEvictor::compare);
+    private final Set<String> replayedKeys = new HashSet<>();
+
+    private Set<String> frequentIds = Collections.emptySet();
+    private Set<String> starredIds = Collections.emptySet();
+
+    private long probationBytes;
+    private long frequentBytes;
+    private long pinnedBytes;
+    private long lastRefreshTime = -REFRESH_INTERVAL_MS;
+    private boolean isRefreshing;
+
+    public StreamingCacheEvictor(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    @Override
+    public boolean requiresCacheSpanTouches() {
+        return true;
+    }
+
+    @Override
+    public void onCacheInitialized() {
+        refresh();
+    }
+
+    @Override
+    public synchronized void onStartFile(@NonNull Cache cache, @NonNull String key, long position, long length) {
+        if (length != C.LENGTH_UNSET) evictCache(cache, length);
+        refresh();
+    }
+
+    @Override
+    public synchronized void onSpanAdded(@NonNull Cache cache, @NonNull CacheSpan span) {
+        add(span);
+        evictCache(cache, 0);
+    }
+
+    @Override
+    public synchronized void onSpanRemoved(@NonNull Cache cache, @NonNull CacheSpan span) {
+        remove(span);
+
+        // Once the track has left the cache, a later read of it is not a replay
+        if (cache.getCachedSpans(span.key).isEmpty()) replayedKeys.remove(span.key);
+    }
+
+    @Override
+    public synchronized void onSpanTouched(@NonNull Cache cache, @NonNull CacheSpan oldSpan, @NonNull CacheSpan newSpan) {
+        remove(oldSpan);
+
+        if (newSpan.lastTouchTimestamp - oldSpan.lastTouchTimestamp >= REPLAY_GAP_MS) {
+            replayedKeys.add(newSpan.key);
+        }
+
+        onSpanAdded(cache, newSpan);
+    }
+
+    private void evictCache(Cache cache, long requiredSpace) {
+        while (probationBytes + frequentBytes + pinnedBytes + requiredSpace > maxBytes) {
+            CacheSpan victim = getVictim();
+            if (victim == null) return;
+
+            try {
+                cache.removeSpan(victim);
+            } catch (Cache.CacheException exception) {
+                // The span stays on disk but out of the evictor, like the LRU evictor does
+                Log.w(TAG, "Failed to remove " + victim.key, exception);
+                remove(victim);
+            }
+        }
+    }
+
+    @Nullable
+    private CacheSpan getVictim() {
+        if (!pinned.isEmpty() && pinnedBytes > maxBytes * PINNED_SHARE) return pinned.first();
+        if (!frequent.isEmpty() && (probation.isEmpty() || frequentBytes + pinnedBytes > maxBytes * PROTECTED_SHARE)) return frequent.first();
+        if (!probation.isEmpty()) return probation.first();
+        if (!pinned.isEmpty()) return pinned.first();
+
+        return null;
+    }
+
+    private void add(CacheSpan span) {
+        String id = getMediaId(span.key);
+
+        if (id != null && starredIds.contains(id)) {
+            pinned.add(span);
+            pinnedBytes += span.length;
+        } else if (replayedKeys.contains(span.key) || id != null && frequentIds.contains(id)) {
+            frequent.add(span);
+            frequentBytes += span.length;
+        } else {
+            probation.add(span);
+            probationBytes += span.length;
+        }
+    }
+
+    private void remove(CacheSpan span) {
+        if (pinned.remove(span)) {
+            pinnedBytes -= span.length;
+        } else if (frequent.remove(span)) {
+            frequentBytes -= span.length;
+        } else if (probation.remove(span)) {
+            probationBytes -= span.length;
+        }
+    }
+
+    private synchronized void refresh() {
+        if (isRefreshing || SystemClock.elapsedRealtime() - lastRefreshTime < REFRESH_INTERVAL_MS) return;
+
+        isRefreshing = true;
+        lastRefreshTime = SystemClock.elapsedRealtime();
+
+        ListenableFuture<List<String>> frequentFuture = new ChronologyRepository().getIdsPlayedAtLeast(Preferences.getServerId(), FREQUENT_PLAY_COUNT);
+        ListenableFuture<List<String>> starredFuture = new LibraryRepository().getStarredSongIds();
+
+        Futures.addCallback(Futures.allAsList(frequentFuture, starredFuture), new FutureCallback<List<List<String>>>() {
+            @Override
+            public void onSuccess(List<List<String>> result) {
+                setSegments(new HashSet<>(result.get(0)), new HashSet<>(result.get(1)));
+            }
+
+            @Override
+            public void onFailure(@NonNull Throwable t) {
+                Log.w(TAG, "Failed to load play counts", t);
+                setSegments(frequentIds, starredIds);
+            }
+        }, MoreExecutors.directExecutor());
+    }
+
+    private synchronized void setSegments(Set<String> frequentIds, Set<String> starredIds) {
+        this.frequentIds = frequentIds;
+        this.starredIds = starredIds;
+        this.isRefreshing = false;
+
+        List<CacheSpan> spans = new ArrayList<>(probation);
+        spans.addAll(frequent);
+        spans.addAll(pinned);
+
+        probation.clear();
+        frequent.clear();
+        pinned.clear();
+        probationBytes = frequentBytes = pinnedBytes = 0;
+
+        for (CacheSpan span : spans) {
+            add(span);
+        }
+    }
+
+    @Nullable
+    private static String getMediaId(String key) {
+        try {
+            return Uri.parse(key).getQueryParameter("id");
+        } catch (UnsupportedOperationException exception) {
+            return null;
+        }
+    }
+
+    private static int compare(CacheSpan lhs, CacheSpan rhs) {
+        long lastTouchTimestampDelta = lhs.lastTouchTimestamp - rhs.lastTouchTimestamp;
+
+        if (lastTouchTimestampDelta == 0) {
+            return lhs.compareTo(rhs);
+        }
+
+        return lhs.lastTouchTimestamp < rhs.lastTouchTimestamp ? -1 : 1;
+    }
+}
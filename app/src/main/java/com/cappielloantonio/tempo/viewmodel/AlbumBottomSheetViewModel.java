@@ -15,6 +15,7 @@ import com.cappielloantonio.tempo.repository.AlbumRepository;
 import com.cappielloantonio.tempo.repository.ArtistRepository;
 import com.cappielloantonio.tempo.repository.FavoriteRepository;
 import com.cappielloantonio.tempo.repository.SharingRepository;
+import com.cappielloantonio.tempo.service.DownloaderManager;
 import com.cappielloantonio.tempo.subsonic.models.AlbumID3;
 import com.cappielloantonio.tempo.subsonic.models.ArtistID3;
 import com.cappielloantonio.tempo.subsonic.models.Child;
@@ -121,7 +122,8 @@ public class AlbumBottomSheetViewModel extends AndroidViewModel {
                         if (songs != null && !songs.isEmpty()) {
                             DownloadUtil.getDownloadTracker(context).download(
                                     MappingUtil.mapDownloads(songs),
-                                    songs.stream().map(Download::new).collect(Collectors.toList())
+                                    songs.stream().map(Download::new).collect(Collectors.toList()),
+                                    DownloaderManager.Priority.SYNC
                             );
                         }
                         tracksLiveData.removeObserver(this);
@@ -6,100 +6,58 @@ import androidx.annotation.NonNull;
 import androidx.lifecycle.AndroidViewModel;
 import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MutableLiveData;
+import androidx.lifecycle.Transformations;
+import androidx.lifecycle.ViewModelKt;
+import androidx.paging.PagingData;
+import androidx.paging.PagingLiveData;
 
-import com.cappielloantonio.tempo.App;
-import com.cappielloantonio.tempo.interfaces.MediaCallback;
-import com.cappielloantonio.tempo.subsonic.base.ApiResponse;
+import com.cappielloantonio.tempo.repository.LibraryRepository;
 import com.cappielloantonio.tempo.subsonic.models.AlbumID3;
+import com.cappielloantonio.tempo.util.Constants;
 
-import java.util.ArrayList;
-import java.util.List;
-
-import retrofit2.Call;
-import retrofit2.Callback;
+import java.util.Random;
 
 public class AlbumCatalogueViewModel extends AndroidViewModel {
-    private final MutableLiveData<List<AlbumID3>> albumList = new MutableLiveData<>(new ArrayList<>());
-    private final MutableLiveData<Boolean> loading = new MutableLiveData<>(true);
+    private final LibraryRepository libraryRepository;
+
+    private final MutableLiveData<String> filter = new MutableLiveData<>("");
+    private final LiveData<PagingData<AlbumID3>> albumList;
 
-    private int page = 0;
-    private Status status = Status.STOPPED;
+    private String order = Constants.ALBUM_ORDER_BY_NAME;
+    private int seed = 0;
 
     public AlbumCatalogueViewModel(@NonNull Application application) {
         super(application);
-    }
 
-    public LiveData<List<AlbumID3>> getAlbumList() {
-        return albumList;
-    }
+        libraryRepository = new LibraryRepository();
 
-    public LiveData<Boolean> getLoadingStatus() {
-        return loading;
+        // Cached once on the switched stream, so a new filter or order replaces the previous pager
+        albumList = PagingLiveData.cachedIn(
+                Transformations.switchMap(filter, query -> libraryRepository.getAlbumsPaged(query, order, seed)),
+                ViewModelKt.getViewModelScope(this)
+        );
     }
 
-    public void loadAlbums() {
-        page = 0;
-        status = Status.RUNNING;
-        albumList.setValue(new ArrayList<>());
-        loadAlbums(500);
+    public LiveData<PagingData<AlbumID3>> getAlbumList() {
+        return albumList;
     }
 
-    public void stopLoading() {
-        status = Status.STOPPED;
+    public void setFilter(String query) {
+        String value = query != null ? query.trim() : "";
+        if (!value.equals(filter.getValue())) filter.setValue(value);
     }
 
-    private void loadAlbums(int size) {
-        retrieveAlbums(new MediaCallback() {
-            @Override
-            public void onError(Exception exception) {
-            }
-
-            @Override
-            public void onLoadMedia(List<?> media) {
-                if (status == Status.STOPPED) {
-                    loading.setValue(false);
-                    return;
-                }
-
-                List<AlbumID3> liveAlbum = albumList.getValue();
-
-                liveAlbum.addAll((List<AlbumID3>) media);
-                albumList.setValue(liveAlbum);
-
-                if (media.size() == size) {
-                    loadAlbums(size);
-                    loading.setValue(true);
-                } else {
-                    status = Status.STOPPED;
-                    loading.setValue(false);
-                }
-            }
-        }, size, size * page++);
+    public void setOrder(String order) {
+        this.order = order;
+        if (Constants.ALBUM_ORDER_BY_RANDOM.equals(order)) seed = new Random().nextInt();
+        filter.setValue(filter.getValue());
     }
 
-
-    private void retrieveAlbums(MediaCallback callback, int size, int offset) {
-        App.getSubsonicClientInstance(false)
-                .getAlbumSongListClient()
-                .getAlbumList2("alphabeticalByName", size, offset, null, null)
-                .enqueue(new Callback<ApiResponse>() {
-                    @Override
-                    public void onResponse(@NonNull Call<ApiResponse> call, @NonNull retrofit2.Response<ApiResponse> response) {
-                        if (response.isSuccessful() && response.body() != null && response.body().getSubsonicResponse().getAlbumList2() != null && response.body().getSubsonicResponse().getAlbumList2().getAlbums() != null) {
-                            List<AlbumID3> albumList = new ArrayList<>(response.body().getSubsonicResponse().getAlbumList2().getAlbums());
-                            callback.onLoadMedia(albumList);
-                        }
-                    }
-
-                    @Override
-                    public void onFailure(@NonNull Call<ApiResponse> call, @NonNull Throwable t) {
-                        callback.onError(new Exception(t.getMessage()));
-                    }
-                });
+    public LiveData<Boolean> getLoadingStatus() {
+        return libraryRepository.getAlbumsLoadingStatus();
     }
 
-    private enum Status {
-        RUNNING,
-        STOPPED
+    public void loadAlbums() {
+        libraryRepository.sync();
     }
-}
\ No newline at end of file
+}
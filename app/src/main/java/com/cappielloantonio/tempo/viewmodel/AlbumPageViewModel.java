@@ -16,6 +16,7 @@ import com.cappielloantonio.tempo.subsonic.models.ArtistID3;
 import com.cappielloantonio.tempo.subsonic.models.Child;
 
 import java.util.List;
+import java.util.Objects;
 
 public class AlbumPageViewModel extends AndroidViewModel {
     private final AlbumRepository albumRepository;
@@ -23,6 +24,7 @@ public class AlbumPageViewModel extends AndroidViewModel {
     private String albumId;
     private String artistId;
     private final MutableLiveData<AlbumID3> album = new MutableLiveData<>(null);
+    private LiveData<List<Child>> albumSongs;
 
     public AlbumPageViewModel(@NonNull Application application) {
         super(application);
@@ -31,7 +33,18 @@ public class AlbumPageViewModel extends AndroidViewModel {
         artistRepository = new ArtistRepository();
     }
 
+    /**
+     * Tracks shown on the page: the mirrored ones first, then the ones fresh from the server.
+     */
     public LiveData<List<Child>> getAlbumSongLiveList() {
+        if (albumSongs == null) albumSongs = albumRepository.getLiveAlbumTracks(albumId);
+        return albumSongs;
+    }
+
+    /**
+     * Tracks for a one-shot action, emitted exactly once.
+     */
+    public LiveData<List<Child>> getAlbumSongs() {
         return albumRepository.getAlbumTracks(albumId);
     }
 
@@ -40,6 +53,8 @@ public class AlbumPageViewModel extends AndroidViewModel {
     }
 
     public void setAlbum(LifecycleOwner owner, AlbumID3 album) {
+        if (!Objects.equals(albumId, album.getId())) albumSongs = null;
+
         this.albumId = album.getId();
         this.album.postValue(album);
         this.artistId = album.getArtistId();
@@ -6,51 +6,54 @@ import androidx.annotation.NonNull;
 import androidx.lifecycle.AndroidViewModel;
 import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MutableLiveData;
+import androidx.lifecycle.Transformations;
+import androidx.lifecycle.ViewModelKt;
+import androidx.paging.PagingData;
+import androidx.paging.PagingLiveData;
 
-import com.cappielloantonio.tempo.App;
-import com.cappielloantonio.tempo.subsonic.base.ApiResponse;
+import com.cappielloantonio.tempo.repository.LibraryRepository;
 import com.cappielloantonio.tempo.subsonic.models.ArtistID3;
-import com.cappielloantonio.tempo.subsonic.models.IndexID3;
+import com.cappielloantonio.tempo.util.Constants;
 
-import java.util.ArrayList;
-import java.util.List;
-
-import retrofit2.Call;
-import retrofit2.Callback;
+import java.util.Random;
 
 public class ArtistCatalogueViewModel extends AndroidViewModel {
-    private final MutableLiveData<List<ArtistID3>> artistList = new MutableLiveData<>(new ArrayList<>());
+    private final LibraryRepository libraryRepository;
+
+    private final MutableLiveData<String> filter = new MutableLiveData<>("");
+    private final LiveData<PagingData<ArtistID3>> artistList;
+
+    private String order = Constants.ARTIST_ORDER_BY_NAME;
+    private int seed = 0;
 
     public ArtistCatalogueViewModel(@NonNull Application application) {
         super(application);
+
+        libraryRepository = new LibraryRepository();
+
+        // Cached once on the switched stream, so a new filter or order replaces the previous pager
+        artistList = PagingLiveData.cachedIn(
+                Transformations.switchMap(filter, query -> libraryRepository.getArtistsPaged(query, order, seed)),
+                ViewModelKt.getViewModelScope(this)
+        );
     }
 
-    public LiveData<List<ArtistID3>> getArtistList() {
+    public LiveData<PagingData<ArtistID3>> getArtistList() {
         return artistList;
     }
 
+    public void setFilter(String query) {
+        String value = query != null ? query.trim() : "";
+        if (!value.equals(filter.getValue())) filter.setValue(value);
+    }
+
+    public void setOrder(String order) {
+        this.order = order;
+        if (Constants.ARTIST_ORDER_BY_RANDOM.equals(order)) seed = new Random().nextInt();
+        filter.setValue(filter.getValue());
+    }
+
     public void loadArtists() {
-        App.getSubsonicClientInstance(false)
-                .getBrowsingClient()
-                .getArtists()
-                .enqueue(new Callback<ApiResponse>() {
-                    @Override
-                    public void onResponse(@NonNull Call<ApiResponse> call, @NonNull retrofit2.Response<ApiResponse> response) {
-                        if (response.isSuccessful() && response.body() != null && response.body().getSubsonicResponse().getArtists() != null) {
-                            List<ArtistID3> artists = new ArrayList<>();
-
-                            for (IndexID3 index : response.body().getSubsonicResponse().getArtists().getIndices()) {
-                                artists.addAll(index.getArtists());
-                            }
-
-                            artistList.setValue(artists);
-                        }
-                    }
-
-                    @Override
-                    public void onFailure(@NonNull Call<ApiResponse> call, @NonNull Throwable t) {
-
-                    }
-                });
+        libraryRepository.refreshArtists();
     }
 }
@@ -6,21 +6,22 @@ import androidx.annotation.NonNull;
 import androidx.lifecycle.AndroidViewModel;
 import androidx.lifecycle.LiveData;
 
-import com.cappielloantonio.tempo.repository.GenreRepository;
+import com.cappielloantonio.tempo.repository.LibraryRepository;
 import com.cappielloantonio.tempo.subsonic.models.Genre;
 
 import java.util.List;
 
 public class GenreCatalogueViewModel extends AndroidViewModel {
-    private final GenreRepository genreRepository;
+    private final LibraryRepository libraryRepository;
 
     public GenreCatalogueViewModel(@NonNull Application application) {
         super(application);
 
-        genreRepository = new GenreRepository();
+        libraryRepository = new LibraryRepository();
     }
 
     public LiveData<List<Genre>> getGenreList() {
-        return genreRepository.getGenres(false, -1);
+        libraryRepository.refreshGenres();
+        return libraryRepository.getGenres();
     }
 }
@@ -26,6 +26,9 @@ import com.cappielloantonio.tempo.subsonic.models.Playlist;
 import com.cappielloantonio.tempo.subsonic.models.Share;
 import com.cappielloantonio.tempo.util.Preferences;
 import com.google.common.reflect.TypeToken;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.MoreExecutors;
 import com.google.gson.Gson;
 
 import java.util.ArrayList;
@@ -121,8 +124,9 @@ public class HomeViewModel extends AndroidViewModel {
 
             albumRepository.getAlbums("byYear", 500, currentYear, currentYear).observe(owner, albums -> {
                 if (albums != null) {
-                    albums.sort(Comparator.comparing(AlbumID3::getCreated).reversed());
-                    newReleasedAlbum.postValue(albums.subList(0, Math.min(20, albums.size())));
+                    List<AlbumID3> sorted = new ArrayList<>(albums);
+                    sorted.sort(Comparator.comparing(AlbumID3::getCreated).reversed());
+                    newReleasedAlbum.postValue(sorted.subList(0, Math.min(20, sorted.size())));
                 }
             });
         }
@@ -358,16 +362,21 @@ public class HomeViewModel extends AndroidViewModel {
     }
 
     public void setOfflineFavorite() {
-        ArrayList<Favorite> favorites = getFavorites();
-        ArrayList<Favorite> favoritesToSave = getFavoritesToSave(favorites);
-        ArrayList<Favorite> favoritesToDelete = getFavoritesToDelete(favorites, favoritesToSave);
-
-        manageFavoriteToSave(favoritesToSave);
-        manageFavoriteToDelete(favoritesToDelete);
-    }
+        Futures.addCallback(favoriteRepository.getFavorites(), new FutureCallback<List<Favorite>>() {
+            @Override
+            public void onSuccess(List<Favorite> result) {
+                ArrayList<Favorite> favorites = new ArrayList<>(result);
+                ArrayList<Favorite> favoritesToSave = getFavoritesToSave(favorites);
+                ArrayList<Favorite> favoritesToDelete = getFavoritesToDelete(favorites, favoritesToSave);
+
+                manageFavoriteToSave(favoritesToSave);
+                manageFavoriteToDelete(favoritesToDelete);
+            }
 
-    private ArrayList<Favorite> getFavorites() {
-        return new ArrayList<>(favoriteRepository.getFavorites());
+            @Override
+            public void onFailure(@NonNull Throwable t) {
+            }
+        }, MoreExecutors.directExecutor());
     }
 
     private ArrayList<Favorite> getFavoritesToSave(ArrayList<Favorite> favorites) {
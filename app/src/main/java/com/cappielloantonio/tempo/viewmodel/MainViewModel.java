@@ -5,12 +5,17 @@ import android.app.Application;
 import androidx.annotation.NonNull;
 import androidx.lifecycle.AndroidViewModel;
 import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
 
 import com.cappielloantonio.tempo.github.models.LatestRelease;
+import com.cappielloantonio.tempo.repository.LibraryRepository;
 import com.cappielloantonio.tempo.repository.QueueRepository;
 import com.cappielloantonio.tempo.repository.SystemRepository;
 import com.cappielloantonio.tempo.subsonic.models.OpenSubsonicExtension;
 import com.cappielloantonio.tempo.subsonic.models.SubsonicResponse;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.MoreExecutors;
 
 import java.util.List;
 
@@ -18,6 +23,7 @@ public class MainViewModel extends AndroidViewModel {
     private static final String TAG = "SearchViewModel";
 
     private final SystemRepository systemRepository;
+    private final MutableLiveData<Boolean> isQueueLoaded = new MutableLiveData<>();
 
     public MainViewModel(@NonNull Application application) {
         super(application);
@@ -25,9 +31,27 @@ public class MainViewModel extends AndroidViewModel {
         systemRepository = new SystemRepository();
     }
 
-    public boolean isQueueLoaded() {
+    public LiveData<Boolean> isQueueLoaded() {
+        return isQueueLoaded;
+    }
+
+    /**
+     * Counts the queue again, the result is posted to {@link #isQueueLoaded()}.
+     */
+    public void refreshQueueLoaded() {
         QueueRepository queueRepository = new QueueRepository();
-        return queueRepository.count() != 0;
+
+        Futures.addCallback(queueRepository.count(), new FutureCallback<Integer>() {
+            @Override
+            public void onSuccess(Integer count) {
+                isQueueLoaded.postValue(count != null && count != 0);
+            }
+
+            @Override
+            public void onFailure(@NonNull Throwable t) {
+                isQueueLoaded.postValue(false);
+            }
+        }, MoreExecutors.directExecutor());
     }
 
     public LiveData<SubsonicResponse> ping() {
@@ -41,4 +65,8 @@ public class MainViewModel extends AndroidViewModel {
     public LiveData<LatestRelease> checkTempoUpdate() {
         return systemRepository.checkTempoUpdate();
     }
+
+    public void syncLibrary() {
+        new LibraryRepository().sync();
+    }
 }
@@ -20,6 +20,7 @@ import com.cappielloantonio.tempo.repository.FavoriteRepository;
 import com.cappielloantonio.tempo.repository.OpenRepository;
 import com.cappielloantonio.tempo.repository.QueueRepository;
 import com.cappielloantonio.tempo.repository.SongRepository;
+import com.cappielloantonio.tempo.service.DownloaderManager;
 import com.cappielloantonio.tempo.subsonic.models.AlbumID3;
 import com.cappielloantonio.tempo.subsonic.models.ArtistID3;
 import com.cappielloantonio.tempo.subsonic.models.Child;
@@ -31,6 +32,9 @@ import com.cappielloantonio.tempo.util.MappingUtil;
 import com.cappielloantonio.tempo.util.NetworkUtil;
 import com.cappielloantonio.tempo.util.OpenSubsonicExtensionsUtil;
 import com.cappielloantonio.tempo.util.Preferences;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.MoreExecutors;
 
 import java.util.Collections;
 import java.util.Date;
@@ -125,7 +129,8 @@ public class PlayerBottomSheetViewModel extends AndroidViewModel {
         if (Preferences.isStarredSyncEnabled()) {
             DownloadUtil.getDownloadTracker(context).download(
                     MappingUtil.mapDownload(media),
-                    new Download(media)
+                    new Download(media),
+                    DownloaderManager.Priority.SYNC
             );
         }
     }
@@ -222,15 +227,22 @@ public class PlayerBottomSheetViewModel extends AndroidViewModel {
 
     public boolean savePlayQueue() {
         Child media = getLiveMedia().getValue();
-        List<Child> queue = queueRepository.getMedia();
-        List<String> ids = queue.stream().map(Child::getId).collect(Collectors.toList());
 
-        if (media != null) {
-            queueRepository.savePlayQueue(ids, media.getId(), 0);
-            return true;
-        }
+        if (media == null) return false;
+
+        Futures.addCallback(queueRepository.getMedia(), new FutureCallback<List<Child>>() {
+            @Override
+            public void onSuccess(List<Child> queue) {
+                List<String> ids = queue.stream().map(Child::getId).collect(Collectors.toList());
+                queueRepository.savePlayQueue(ids, media.getId(), 0);
+            }
+
+            @Override
+            public void onFailure(@NonNull Throwable t) {
+            }
+        }, MoreExecutors.directExecutor());
 
-        return false;
+        return true;
     }
 
     public void changeSyncLyricsState() {
@@ -4,31 +4,30 @@ import android.app.Application;
 
 import androidx.annotation.NonNull;
 import androidx.lifecycle.AndroidViewModel;
-import androidx.lifecycle.LifecycleOwner;
 import androidx.lifecycle.LiveData;
-import androidx.lifecycle.MutableLiveData;
 
-import com.cappielloantonio.tempo.repository.PlaylistRepository;
+import com.cappielloantonio.tempo.repository.LibraryRepository;
 import com.cappielloantonio.tempo.subsonic.models.Playlist;
 
 import java.util.List;
 
 public class PlaylistCatalogueViewModel extends AndroidViewModel {
-    private final PlaylistRepository playlistRepository;
+    private final LibraryRepository libraryRepository;
 
     private String type;
 
-    private final MutableLiveData<List<Playlist>> playlistList = new MutableLiveData<>(null);
+    private LiveData<List<Playlist>> playlistList;
 
     public PlaylistCatalogueViewModel(@NonNull Application application) {
         super(application);
 
-        playlistRepository = new PlaylistRepository();
+        libraryRepository = new LibraryRepository();
     }
 
-    public LiveData<List<Playlist>> getPlaylistList(LifecycleOwner owner) {
-        if (playlistList.getValue() == null) {
-            playlistRepository.getPlaylists(false, -1).observe(owner, playlistList::postValue);
+    public LiveData<List<Playlist>> getPlaylistList() {
+        if (playlistList == null) {
+            libraryRepository.refreshPlaylists();
+            playlistList = libraryRepository.getPlaylists();
         }
 
         return playlistList;
@@ -5,11 +5,15 @@ import android.app.Application;
 import androidx.annotation.NonNull;
 import androidx.lifecycle.AndroidViewModel;
 import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
 
 import com.cappielloantonio.tempo.model.RecentSearch;
 import com.cappielloantonio.tempo.repository.SearchingRepository;
 import com.cappielloantonio.tempo.subsonic.models.SearchResult2;
 import com.cappielloantonio.tempo.subsonic.models.SearchResult3;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.MoreExecutors;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -59,9 +63,20 @@ public class SearchViewModel extends AndroidViewModel {
         return searchingRepository.getSuggestions(query);
     }
 
-    public List<String> getRecentSearchSuggestion() {
-        ArrayList<String> suggestions = new ArrayList<>();
-        suggestions.addAll(searchingRepository.getRecentSearchSuggestion());
+    public LiveData<List<String>> getRecentSearchSuggestion() {
+        MutableLiveData<List<String>> suggestions = new MutableLiveData<>();
+
+        Futures.addCallback(searchingRepository.getRecentSearchSuggestion(), new FutureCallback<List<String>>() {
+            @Override
+            public void onSuccess(List<String> recent) {
+                suggestions.postValue(new ArrayList<>(recent));
+            }
+
+            @Override
+            public void onFailure(@NonNull Throwable t) {
+                suggestions.postValue(new ArrayList<>());
+            }
+        }, MoreExecutors.directExecutor());
 
         return suggestions;
     }
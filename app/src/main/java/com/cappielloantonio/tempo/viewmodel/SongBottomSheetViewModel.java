@@ -17,6 +17,7 @@ import com.cappielloantonio.tempo.repository.ArtistRepository;
 import com.cappielloantonio.tempo.repository.FavoriteRepository;
 import com.cappielloantonio.tempo.repository.SharingRepository;
 import com.cappielloantonio.tempo.repository.SongRepository;
+import com.cappielloantonio.tempo.service.DownloaderManager;
 import com.cappielloantonio.tempo.subsonic.models.AlbumID3;
 import com.cappielloantonio.tempo.subsonic.models.ArtistID3;
 import com.cappielloantonio.tempo.subsonic.models.Child;
@@ -112,7 +113,8 @@ public class SongBottomSheetViewModel extends AndroidViewModel {
         if (Preferences.isStarredSyncEnabled()) {
             DownloadUtil.getDownloadTracker(context).download(
                     MappingUtil.mapDownload(media),
-                    new Download(media)
+                    new Download(media),
+                    DownloaderManager.Priority.SYNC
             );
         }
     }
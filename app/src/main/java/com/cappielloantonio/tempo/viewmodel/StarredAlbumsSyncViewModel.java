@@ -4,6 +4,7 @@ import android.app.Application;
 import android.app.Activity;
 
 import androidx.annotation.NonNull;
+import androidx.core.content.ContextCompat;
 import androidx.lifecycle.AndroidViewModel;
 import androidx.lifecycle.LifecycleOwner;
 import androidx.lifecycle.LiveData;
@@ -11,8 +12,11 @@ import androidx.lifecycle.Observer;
 import androidx.lifecycle.MutableLiveData;
 
 import com.cappielloantonio.tempo.repository.AlbumRepository;
+import com.cappielloantonio.tempo.repository.StarredRepository;
 import com.cappielloantonio.tempo.subsonic.models.AlbumID3;
 import com.cappielloantonio.tempo.subsonic.models.Child;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -35,17 +39,22 @@ public class StarredAlbumsSyncViewModel extends AndroidViewModel {
     }
 
     public LiveData<List<Child>> getAllStarredAlbumSongs() {
-        albumRepository.getStarredAlbums(false, -1).observeForever(new Observer<List<AlbumID3>>() {
+        // Straight from the starred snapshot: the repository LiveData starts out with an empty list
+        Futures.addCallback(new StarredRepository().getStarredAlbums(), new FutureCallback<List<AlbumID3>>() {
             @Override
-            public void onChanged(List<AlbumID3> albums) {
-                if (albums != null && !albums.isEmpty()) {
+            public void onSuccess(List<AlbumID3> albums) {
+                if (!albums.isEmpty()) {
                     collectAllAlbumSongs(albums, starredAlbumSongs::postValue);
                 } else {
                     starredAlbumSongs.postValue(new ArrayList<>());
                 }
-                albumRepository.getStarredAlbums(false, -1).removeObserver(this);
             }
-        });
+
+            @Override
+            public void onFailure(@NonNull Throwable t) {
+
+            }
+        }, ContextCompat.getMainExecutor(getApplication()));
         
         return starredAlbumSongs;
     }
@@ -21,7 +21,9 @@ import com.cappielloantonio.tempo.ui.activity.MainActivity
 import com.cappielloantonio.tempo.util.Constants
 import com.cappielloantonio.tempo.util.DownloadUtil
 import com.cappielloantonio.tempo.util.DynamicMediaSourceFactory
+import com.cappielloantonio.tempo.util.MediaMetadataStore
 import com.cappielloantonio.tempo.util.Preferences
+import com.cappielloantonio.tempo.util.ReplayGainAudioProcessor
 import com.cappielloantonio.tempo.util.ReplayGainUtil
 import com.google.common.collect.ImmutableList
 import com.google.common.util.concurrent.Futures
@@ -36,6 +38,10 @@ class MediaService : MediaLibraryService() {
     private lateinit var mediaLibrarySession: MediaLibrarySession
     private lateinit var shuffleCommands: List<CommandButton>
     private lateinit var repeatCommands: List<CommandButton>
+    private lateinit var streamingCachePrefetcher: StreamingCachePrefetcher
+    private lateinit var adaptiveBitrateController: AdaptiveBitrateController
+    private lateinit var queueWindow: QueueWindow
+    private val replayGainAudioProcessor = ReplayGainAudioProcessor()
     lateinit var equalizerManager: EqualizerManager
 
     private var customLayout = ImmutableList.of<CommandButton>()
@@ -69,6 +75,9 @@ class MediaService : MediaLibraryService() {
         initializePlayer()
         initializeMediaLibrarySession()
         initializePlayerListener()
+        initializeStreamingCachePrefetcher()
+        initializeAdaptiveBitrateController()
+        initializeQueueWindow()
         initializeEqualizerManager()
 
         setPlayer(player)
@@ -107,6 +116,10 @@ class MediaService : MediaLibraryService() {
                 // commandButton.sessionCommand?.let { availableSessionCommands.add(it) }
             }
 
+            if (controller.packageName == packageName) {
+                availableSessionCommands.add(QueueWindow.SESSION_COMMAND_OPEN)
+            }
+
             return MediaSession.ConnectionResult.accept(
                 availableSessionCommands.build(),
                 connectionResult.availablePlayerCommands
@@ -136,6 +149,7 @@ class MediaService : MediaLibraryService() {
             args: Bundle
         ): ListenableFuture<SessionResult> {
             when (customCommand.customAction) {
+                QueueWindow.COMMAND_OPEN -> return queueWindow.onOpen(args)
                 CUSTOM_COMMAND_TOGGLE_SHUFFLE_MODE_ON -> player.shuffleModeEnabled = true
                 CUSTOM_COMMAND_TOGGLE_SHUFFLE_MODE_OFF -> player.shuffleModeEnabled = false
                 CUSTOM_COMMAND_TOGGLE_REPEAT_MODE_OFF,
@@ -167,7 +181,7 @@ class MediaService : MediaLibraryService() {
                 val newMetadata = mediaMetadata.buildUpon()
                     .setArtist(
                         if (mediaMetadata.artist != null) mediaMetadata.artist
-                        else mediaMetadata.extras?.getString("uri") ?: ""
+                        else MediaMetadataStore.getExtras(mediaMetadata)?.getString("uri") ?: ""
                     )
                     .build()
 
@@ -214,6 +228,7 @@ class MediaService : MediaLibraryService() {
             .setHandleAudioBecomingNoisy(true)
             .setWakeMode(C.WAKE_MODE_NETWORK)
             .setLoadControl(initializeLoadControl())
+            .setPriorityTaskManager(DownloadUtil.getPriorityTaskManager())
             .build()
 
         player.shuffleModeEnabled = Preferences.isShuffleModeEnabled()
@@ -254,6 +269,12 @@ class MediaService : MediaLibraryService() {
 
     private fun initializePlayerListener() {
         player.addListener(object : Player.Listener {
+            override fun onTimelineChanged(timeline: Timeline, reason: Int) {
+                if (reason == Player.TIMELINE_CHANGE_REASON_PLAYLIST_CHANGED) {
+                    MediaMetadataStore.pin(timeline)
+                }
+            }
+
             override fun onMediaItemTransition(mediaItem: MediaItem?, reason: Int) {
                 if (mediaItem == null) return
 
@@ -263,7 +284,7 @@ class MediaService : MediaLibraryService() {
             }
 
             override fun onTracksChanged(tracks: Tracks) {
-                ReplayGainUtil.setReplayGain(player, tracks)
+                ReplayGainUtil.setReplayGain(player, tracks, replayGainAudioProcessor)
                 val currentMediaItem = player.currentMediaItem
                 if (currentMediaItem != null && currentMediaItem.mediaMetadata.extras != null) {
                     MediaManager.scrobble(currentMediaItem, false)
@@ -333,6 +354,9 @@ class MediaService : MediaLibraryService() {
     }
 
     private fun releasePlayer() {
+        streamingCachePrefetcher.release()
+        adaptiveBitrateController.release()
+        queueWindow.release()
         player.release()
         mediaLibrarySession.release()
     }
@@ -375,6 +399,18 @@ class MediaService : MediaLibraryService() {
         /* Do nothing. */
     }
 
+    private fun initializeStreamingCachePrefetcher() {
+        streamingCachePrefetcher = StreamingCachePrefetcher(this, player)
+    }
+
+    private fun initializeAdaptiveBitrateController() {
+        adaptiveBitrateController = AdaptiveBitrateController(player)
+    }
+
+    private fun initializeQueueWindow() {
+        queueWindow = QueueWindow(player)
+    }
+
     private fun initializeLoadControl(): DefaultLoadControl {
         return DefaultLoadControl.Builder()
             .setBufferDurationsMs(
@@ -386,5 +422,5 @@ class MediaService : MediaLibraryService() {
             .build()
     }
 
-    private fun getRenderersFactory() = DownloadUtil.buildRenderersFactory(this, false)
+    private fun getRenderersFactory() = DownloadUtil.buildRenderersFactory(this, false, replayGainAudioProcessor)
 }
\ No newline at end of file
@@ -11,12 +11,15 @@ import com.cappielloantonio.tempo.util.Preferences.getServerId
 import com.google.common.collect.ImmutableList
 import com.google.common.util.concurrent.Futures
 import com.google.common.util.concurrent.ListenableFuture
+import com.google.common.util.concurrent.MoreExecutors
 import com.google.common.util.concurrent.SettableFuture
 
 object MediaBrowserTree {
 
     private lateinit var automotiveRepository: AutomotiveRepository
 
+    private val browseCache = BrowseCache()
+
     private var treeNodes: MutableMap<String, MediaItemNode> = mutableMapOf()
 
     private var isInitialized = false
@@ -106,6 +109,10 @@ object MediaBrowserTree {
     fun initialize(automotiveRepository: AutomotiveRepository) {
         this.automotiveRepository = automotiveRepository
 
+        // Cached items only resolve through the session media items of this service
+        browseCache.clear()
+        automotiveRepository.setOnSessionMediaItemsPruned { browseCache.clear() }
+
         if (isInitialized) return
 
         isInitialized = true
@@ -333,6 +340,53 @@ object MediaBrowserTree {
     }
 
     fun getChildren(
+        id: String,
+        page: Int,
+        pageSize: Int
+    ): ListenableFuture<LibraryResult<ImmutableList<MediaItem>>> {
+        val ttl = getTtl(id)
+        val children = if (ttl > 0) browseCache.get(id, ttl) { loadChildren(id) } else loadChildren(id)
+
+        return Futures.transform(
+            children,
+            { BrowseCache.getPage(it!!, page, pageSize) },
+            MoreExecutors.directExecutor()
+        )
+    }
+
+    /**
+     * Loads the lists of the home and library tabs, for when a car connects.
+     */
+    fun prefetch() {
+        listOf(
+            MOST_PLAYED_ID,
+            LAST_PLAYED_ID,
+            RECENTLY_ADDED_ID,
+            STARRED_TRACKS_ID,
+            STARRED_ALBUMS_ID,
+            STARRED_ARTISTS_ID,
+            PLAYLIST_ID,
+            FOLDER_ID
+        ).forEach { id -> browseCache.prefetch(id, getTtl(id)) { loadChildren(id) } }
+    }
+
+    private fun getTtl(id: String): Long {
+        return when {
+            // Static nodes are answered right away, random songs are meant to change
+            id == ROOT_ID || id == HOME_ID || id == LIBRARY_ID || id == OTHER_ID -> 0
+            id == RANDOM_ID -> 0
+
+            id == MOST_PLAYED_ID || id == LAST_PLAYED_ID || id == RECENT_SONGS_ID -> BrowseCache.TTL_SHORT_MS
+            id == MADE_FOR_YOU_ID -> BrowseCache.TTL_MEDIUM_MS
+            id.startsWith(MADE_FOR_YOU_ID) -> BrowseCache.TTL_SHORT_MS
+            id == STARRED_TRACKS_ID || id == STARRED_ALBUMS_ID || id == STARRED_ARTISTS_ID -> BrowseCache.TTL_MEDIUM_MS
+            id == PODCAST_ID || id == RADIO_ID -> BrowseCache.TTL_MEDIUM_MS
+
+            else -> BrowseCache.TTL_LONG_MS
+        }
+    }
+
+    private fun loadChildren(
         id: String
     ): ListenableFuture<LibraryResult<ImmutableList<MediaItem>>> {
         return when (id) {
@@ -464,27 +518,8 @@ object MediaBrowserTree {
     }
 
     // https://github.com/androidx/media/issues/156
-    fun getItems(mediaItems: List<MediaItem>): List<MediaItem> {
-        val updatedMediaItems = ArrayList<MediaItem>()
-
-        mediaItems.forEach {
-            if (it.localConfiguration?.uri != null) {
-                updatedMediaItems.add(it)
-            } else {
-                val sessionMediaItem = automotiveRepository.getSessionMediaItem(it.mediaId)
-
-                if (sessionMediaItem != null) {
-                    var toAdd = automotiveRepository.getMetadatas(sessionMediaItem.timestamp!!)
-                    val index = toAdd.indexOfFirst { mediaItem -> mediaItem.mediaId == it.mediaId }
-
-                    toAdd = toAdd.subList(index, toAdd.size)
-
-                    updatedMediaItems.addAll(toAdd)
-                }
-            }
-        }
-
-        return updatedMediaItems
+    fun getItems(mediaItems: List<MediaItem>): ListenableFuture<List<MediaItem>> {
+        return automotiveRepository.getSessionMediaItems(mediaItems)
     }
 
     fun search(query: String): ListenableFuture<LibraryResult<ImmutableList<MediaItem>>> {
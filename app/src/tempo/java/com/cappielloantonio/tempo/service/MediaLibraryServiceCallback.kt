@@ -17,10 +17,12 @@ import com.cappielloantonio.tempo.repository.AutomotiveRepository
 import com.google.common.collect.ImmutableList
 import com.google.common.util.concurrent.Futures
 import com.google.common.util.concurrent.ListenableFuture
+import com.google.common.util.concurrent.MoreExecutors
 
 open class MediaLibrarySessionCallback(
-    context: Context,
-    automotiveRepository: AutomotiveRepository
+    private val context: Context,
+    automotiveRepository: AutomotiveRepository,
+    private val queueWindow: QueueWindow
 ) :
     MediaLibraryService.MediaLibrarySession.Callback {
 
@@ -94,6 +96,10 @@ open class MediaLibrarySessionCallback(
                 controller
             ) || session.isAutoCompanionController(controller)
         ) {
+            if (session.isAutomotiveController(controller) || session.isAutoCompanionController(controller)) {
+                MediaBrowserTree.prefetch()
+            }
+
             val customLayout = buildCustomLayout(session.player)
 
             return MediaSession.ConnectionResult.AcceptedResultBuilder(session)
@@ -101,6 +107,15 @@ open class MediaLibrarySessionCallback(
                 .setCustomLayout(customLayout).build()
         }
 
+        if (controller.packageName == context.packageName) {
+            return MediaSession.ConnectionResult.AcceptedResultBuilder(session)
+                .setAvailableSessionCommands(
+                    MediaSession.ConnectionResult.DEFAULT_SESSION_AND_LIBRARY_COMMANDS.buildUpon()
+                        .add(QueueWindow.SESSION_COMMAND_OPEN)
+                        .build()
+                ).build()
+        }
+
         return MediaSession.ConnectionResult.AcceptedResultBuilder(session).build()
     }
 
@@ -112,6 +127,7 @@ open class MediaLibrarySessionCallback(
         args: Bundle
     ): ListenableFuture<SessionResult> {
         when (customCommand.customAction) {
+            QueueWindow.COMMAND_OPEN -> return queueWindow.onOpen(args)
             CUSTOM_COMMAND_TOGGLE_SHUFFLE_MODE_ON -> session.player.shuffleModeEnabled = true
             CUSTOM_COMMAND_TOGGLE_SHUFFLE_MODE_OFF -> session.player.shuffleModeEnabled = false
             CUSTOM_COMMAND_TOGGLE_REPEAT_MODE_OFF,
@@ -151,7 +167,7 @@ open class MediaLibrarySessionCallback(
         pageSize: Int,
         params: MediaLibraryService.LibraryParams?
     ): ListenableFuture<LibraryResult<ImmutableList<MediaItem>>> {
-        return MediaBrowserTree.getChildren(parentId)
+        return MediaBrowserTree.getChildren(parentId, page, pageSize)
     }
 
     override fun onAddMediaItems(
@@ -159,13 +175,21 @@ open class MediaLibrarySessionCallback(
         controller: MediaSession.ControllerInfo,
         mediaItems: List<MediaItem>
     ): ListenableFuture<List<MediaItem>> {
-        return super.onAddMediaItems(
-            mediaSession,
-            controller,
-            MediaBrowserTree.getItems(mediaItems)
+        return Futures.transformAsync(
+            MediaBrowserTree.getItems(mediaItems),
+            { addResolvedMediaItems(mediaSession, controller, it) },
+            MoreExecutors.directExecutor()
         )
     }
 
+    private fun addResolvedMediaItems(
+        mediaSession: MediaSession,
+        controller: MediaSession.ControllerInfo,
+        mediaItems: List<MediaItem>
+    ): ListenableFuture<List<MediaItem>> {
+        return super.onAddMediaItems(mediaSession, controller, mediaItems)
+    }
+
     override fun onSearch(
         session: MediaLibraryService.MediaLibrarySession,
         browser: MediaSession.ControllerInfo,
@@ -12,6 +12,7 @@ import androidx.media3.common.AudioAttributes
 import androidx.media3.common.C
 import androidx.media3.common.MediaItem
 import androidx.media3.common.Player
+import androidx.media3.common.Timeline
 import androidx.media3.common.Tracks
 import androidx.media3.common.util.UnstableApi
 import androidx.media3.exoplayer.DefaultLoadControl
@@ -23,7 +24,9 @@ import com.cappielloantonio.tempo.ui.activity.MainActivity
 import com.cappielloantonio.tempo.util.Constants
 import com.cappielloantonio.tempo.util.DownloadUtil
 import com.cappielloantonio.tempo.util.DynamicMediaSourceFactory
+import com.cappielloantonio.tempo.util.MediaMetadataStore
 import com.cappielloantonio.tempo.util.Preferences
+import com.cappielloantonio.tempo.util.ReplayGainAudioProcessor
 import com.cappielloantonio.tempo.util.ReplayGainUtil
 import com.google.android.gms.cast.framework.CastContext
 import com.google.android.gms.common.ConnectionResult
@@ -36,6 +39,10 @@ class MediaService : MediaLibraryService(), SessionAvailabilityListener {
     private lateinit var castPlayer: CastPlayer
     private lateinit var mediaLibrarySession: MediaLibrarySession
     private lateinit var librarySessionCallback: MediaLibrarySessionCallback
+    private lateinit var streamingCachePrefetcher: StreamingCachePrefetcher
+    private lateinit var adaptiveBitrateController: AdaptiveBitrateController
+    private lateinit var queueWindow: QueueWindow
+    private val replayGainAudioProcessor = ReplayGainAudioProcessor()
     lateinit var equalizerManager: EqualizerManager
 
     inner class LocalBinder : Binder() {
@@ -56,8 +63,11 @@ class MediaService : MediaLibraryService(), SessionAvailabilityListener {
         initializeRepository()
         initializePlayer()
         initializeCastPlayer()
+        initializeQueueWindow()
         initializeMediaLibrarySession()
         initializePlayerListener()
+        initializeStreamingCachePrefetcher()
+        initializeAdaptiveBitrateController()
         initializeEqualizerManager()
 
         setPlayer(
@@ -120,6 +130,7 @@ class MediaService : MediaLibraryService(), SessionAvailabilityListener {
                 .setHandleAudioBecomingNoisy(true)
                 .setWakeMode(C.WAKE_MODE_NETWORK)
                 .setLoadControl(initializeLoadControl())
+                .setPriorityTaskManager(DownloadUtil.getPriorityTaskManager())
                 .build()
 
         player.shuffleModeEnabled = Preferences.isShuffleModeEnabled()
@@ -150,11 +161,17 @@ class MediaService : MediaLibraryService(), SessionAvailabilityListener {
     }
 
     private fun createLibrarySessionCallback(): MediaLibrarySessionCallback {
-        return MediaLibrarySessionCallback(this, automotiveRepository)
+        return MediaLibrarySessionCallback(this, automotiveRepository, queueWindow)
     }
 
     private fun initializePlayerListener() {
         player.addListener(object : Player.Listener {
+            override fun onTimelineChanged(timeline: Timeline, reason: Int) {
+                if (reason == Player.TIMELINE_CHANGE_REASON_PLAYLIST_CHANGED) {
+                    MediaMetadataStore.pin(timeline)
+                }
+            }
+
             override fun onMediaItemTransition(mediaItem: MediaItem?, reason: Int) {
                 if (mediaItem == null) return
 
@@ -164,7 +181,7 @@ class MediaService : MediaLibraryService(), SessionAvailabilityListener {
             }
 
             override fun onTracksChanged(tracks: Tracks) {
-                ReplayGainUtil.setReplayGain(player, tracks)
+                ReplayGainUtil.setReplayGain(player, tracks, replayGainAudioProcessor)
 
                 val currentMediaItem = player.currentMediaItem
                 if (currentMediaItem != null && currentMediaItem.mediaMetadata.extras != null) {
@@ -233,6 +250,18 @@ class MediaService : MediaLibraryService(), SessionAvailabilityListener {
         })
     }
 
+    private fun initializeStreamingCachePrefetcher() {
+        streamingCachePrefetcher = StreamingCachePrefetcher(this, player)
+    }
+
+    private fun initializeAdaptiveBitrateController() {
+        adaptiveBitrateController = AdaptiveBitrateController(player)
+    }
+
+    private fun initializeQueueWindow() {
+        queueWindow = QueueWindow(player)
+    }
+
     private fun initializeLoadControl(): DefaultLoadControl {
         return DefaultLoadControl.Builder()
             .setBufferDurationsMs(
@@ -259,6 +288,9 @@ class MediaService : MediaLibraryService(), SessionAvailabilityListener {
     }
 
     private fun releasePlayer() {
+        streamingCachePrefetcher.release()
+        adaptiveBitrateController.release()
+        queueWindow.release()
         if (this::castPlayer.isInitialized) castPlayer.setSessionAvailabilityListener(null)
         if (this::castPlayer.isInitialized) castPlayer.release()
         player.release()
@@ -266,7 +298,7 @@ class MediaService : MediaLibraryService(), SessionAvailabilityListener {
         automotiveRepository.deleteMetadata()
     }
 
-    private fun getRenderersFactory() = DownloadUtil.buildRenderersFactory(this, false)
+    private fun getRenderersFactory() = DownloadUtil.buildRenderersFactory(this, false, replayGainAudioProcessor)
 
     override fun onCastSessionAvailable() {
         val currentQueue = getQueueFromPlayer(player)